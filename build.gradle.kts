@@ -53,6 +53,15 @@ val genSrcDir = file("src/gen")
 
 java.sourceSets {
     getByName("main").java.srcDirs(genSrcDir)
+    create("jmh") {
+        compileClasspath += getByName("main").output + configurations.runtimeClasspath
+        runtimeClasspath += getByName("main").output + configurations.runtimeClasspath
+    }
+}
+
+dependencies {
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.21")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.21")
 }
 
 idea {
@@ -101,3 +110,17 @@ task<JavaExec>("prelude") {
     args = listOf(preludeOutputDir)
     dependsOn("copyPrelude")
 }
+
+
+// Benchmarks
+
+task<JavaExec>("jmh") {
+    description = "Runs JMH benchmarks; arguments can be passed with -PjmhArgs=\"...\""
+    group = "Verification"
+    main = "org.openjdk.jmh.Main"
+    classpath = java.sourceSets["jmh"].runtimeClasspath
+    if (project.hasProperty("jmhArgs")) {
+        args = project.property("jmhArgs").toString().split(" ").filter { it.isNotEmpty() }
+    }
+    dependsOn("prelude", "jmhClasses")
+}
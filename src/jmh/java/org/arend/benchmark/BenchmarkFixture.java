@@ -0,0 +1,124 @@
+package org.arend.benchmark;
+
+import org.antlr.v4.runtime.*;
+import org.arend.core.definition.Definition;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.elimtree.LeafElimTree;
+import org.arend.core.expr.Expression;
+import org.arend.error.ErrorReporter;
+import org.arend.error.GeneralError;
+import org.arend.error.ListErrorReporter;
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.frontend.parser.*;
+import org.arend.library.LibraryManager;
+import org.arend.module.ModulePath;
+import org.arend.module.scopeprovider.ModuleScopeProvider;
+import org.arend.naming.reference.Referable;
+import org.arend.naming.reference.TCReferable;
+import org.arend.naming.resolving.visitor.DefinitionResolveNameVisitor;
+import org.arend.naming.scope.CachingScope;
+import org.arend.naming.scope.Scope;
+import org.arend.naming.scope.ScopeFactory;
+import org.arend.prelude.Prelude;
+import org.arend.prelude.PreludeResourceLibrary;
+import org.arend.term.group.ChildGroup;
+import org.arend.term.group.FileGroup;
+import org.arend.typechecking.SimpleTypecheckerState;
+import org.arend.typechecking.TypecheckerState;
+import org.arend.typechecking.instance.provider.InstanceProviderSet;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Loads the prelude and typechecks synthetic modules used by benchmarks.
+ */
+public class BenchmarkFixture {
+  public static final ModulePath MODULE_PATH = new ModulePath("Benchmark");
+
+  private final TypecheckerState myState = new SimpleTypecheckerState();
+  private final List<GeneralError> myErrors = new ArrayList<>();
+  private final ListErrorReporter myErrorReporter = new ListErrorReporter(myErrors);
+  private final LibraryManager myLibraryManager;
+  private final PreludeResourceLibrary myPreludeLibrary;
+
+  public BenchmarkFixture() {
+    myLibraryManager = new LibraryManager(name -> null, new InstanceProviderSet(), myErrorReporter, myErrorReporter);
+    myPreludeLibrary = new PreludeResourceLibrary(myState);
+    if (!myLibraryManager.loadLibrary(myPreludeLibrary)) {
+      throw new IllegalStateException("Cannot load the prelude");
+    }
+  }
+
+  public TypecheckerState getTypecheckerState() {
+    return myState;
+  }
+
+  public ModuleScopeProvider getModuleScopeProvider() {
+    return myPreludeLibrary.getModuleScopeProvider();
+  }
+
+  /**
+   * Creates a new typechecker state which contains only definitions from the prelude.
+   */
+  public static TypecheckerState newPreludeState() {
+    TypecheckerState state = new SimpleTypecheckerState();
+    Prelude.fillInTypecheckerState(state);
+    return state;
+  }
+
+  public static FileGroup parse(String text, ErrorReporter errorReporter) {
+    BaseErrorListener errorListener = new BaseErrorListener() {
+      @Override
+      public void syntaxError(Recognizer<?, ?> recognizer, Object o, int line, int pos, String msg, RecognitionException e) {
+        errorReporter.report(new ParserError(new Position(MODULE_PATH, line, pos), msg));
+      }
+    };
+
+    ArendLexer lexer = new ArendLexer(new ANTLRInputStream(text));
+    lexer.removeErrorListeners();
+    lexer.addErrorListener(errorListener);
+    ArendParser parser = new ArendParser(new CommonTokenStream(lexer));
+    parser.removeErrorListeners();
+    parser.addErrorListener(errorListener);
+    return new BuildVisitor(MODULE_PATH, errorReporter).visitStatements(parser.statements());
+  }
+
+  public ChildGroup typecheck(String text) {
+    FileGroup group = parse(text, myErrorReporter);
+    checkErrors();
+
+    group.setModuleScopeProvider(getModuleScopeProvider());
+    Scope scope = CachingScope.make(ScopeFactory.forGroup(group, getModuleScopeProvider()));
+    new DefinitionResolveNameVisitor(ConcreteReferableProvider.INSTANCE, myErrorReporter).resolveGroupWithTypes(group, null, scope);
+    myLibraryManager.getInstanceProviderSet().collectInstances(group, CachingScope.make(ScopeFactory.parentScopeForGroup(group, getModuleScopeProvider(), true)), ConcreteReferableProvider.INSTANCE, null);
+    new TypecheckingOrderingListener(myLibraryManager.getInstanceProviderSet(), myState, ConcreteReferableProvider.INSTANCE, myErrorReporter, PositionComparator.INSTANCE).typecheckModules(Collections.singletonList(group));
+    checkErrors();
+    return group;
+  }
+
+  private void checkErrors() {
+    if (!myErrors.isEmpty()) {
+      throw new IllegalStateException("Fixture has errors: " + myErrors);
+    }
+  }
+
+  public Definition getDefinition(ChildGroup group, String name) {
+    Referable referable = Scope.Utils.resolveName(group.getGroupScope(), Collections.singletonList(name));
+    Definition definition = referable instanceof TCReferable ? myState.getTypechecked((TCReferable) referable) : null;
+    if (definition == null) {
+      throw new IllegalArgumentException("Cannot find definition " + name);
+    }
+    return definition;
+  }
+
+  /**
+   * @return the body of a function defined without pattern matching.
+   */
+  public Expression getBody(ChildGroup group, String name) {
+    return ((LeafElimTree) ((FunctionDefinition) getDefinition(group, name)).getBody()).getExpression();
+  }
+}
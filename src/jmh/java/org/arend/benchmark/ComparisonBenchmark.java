@@ -0,0 +1,55 @@
+package org.arend.benchmark;
+
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.visitor.CompareVisitor;
+import org.arend.term.group.ChildGroup;
+import org.arend.typechecking.implicitargs.equations.DummyEquations;
+import org.arend.typechecking.implicitargs.equations.Equations;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion checking of large terms which are either syntactically equal or equal only after normalization.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ComparisonBenchmark {
+  @Param({"50", "200"})
+  public int size;
+
+  private Expression myLeftSum;
+  private Expression myLeftSumCopy;
+  private Expression myRightSum;
+
+  @Setup
+  public void setup() {
+    BenchmarkFixture fixture = new BenchmarkFixture();
+    ChildGroup group = fixture.typecheck(SyntheticSources.ARITHMETIC + SyntheticSources.sums("left", "right", size));
+    myLeftSum = fixture.getBody(group, "left");
+    myLeftSumCopy = myLeftSum.copy();
+    myRightSum = fixture.getBody(group, "right");
+  }
+
+  private static boolean compare(Expression expr1, Expression expr2) {
+    boolean result = CompareVisitor.compare(DummyEquations.getInstance(), Equations.CMP.EQ, expr1, expr2, null);
+    if (!result) {
+      throw new IllegalStateException("Expressions are not equal");
+    }
+    return result;
+  }
+
+  @Benchmark
+  public boolean syntacticallyEqual() {
+    return compare(myLeftSum, myLeftSumCopy);
+  }
+
+  @Benchmark
+  public boolean convertible() {
+    return compare(myLeftSum, myRightSum);
+  }
+}
@@ -0,0 +1,64 @@
+package org.arend.benchmark;
+
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.visitor.NormalizeVisitor;
+import org.arend.term.group.ChildGroup;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Normalization of arithmetic on natural numbers and of path terms.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class NormalizationBenchmark {
+  @Param({"WHNF", "NF"})
+  public NormalizeVisitor.Mode mode;
+
+  private Expression myFibTerm;
+  private Expression myMulTerm;
+  private Expression mySumTerm;
+  private Expression myPathTerm;
+  private Expression myConcatTerm;
+
+  @Setup
+  public void setup() {
+    BenchmarkFixture fixture = new BenchmarkFixture();
+    ChildGroup group = fixture.typecheck(SyntheticSources.ARITHMETIC + SyntheticSources.PATHS);
+    myFibTerm = fixture.getBody(group, "fibTerm");
+    myMulTerm = fixture.getBody(group, "mulTerm");
+    mySumTerm = fixture.getBody(group, "sumTerm");
+    myPathTerm = fixture.getBody(group, "pathTerm");
+    myConcatTerm = fixture.getBody(group, "concatTerm");
+  }
+
+  @Benchmark
+  public Expression fibonacci() {
+    return myFibTerm.normalize(mode);
+  }
+
+  @Benchmark
+  public Expression multiplication() {
+    return myMulTerm.normalize(mode);
+  }
+
+  @Benchmark
+  public Expression preludeArithmetic() {
+    return mySumTerm.normalize(mode);
+  }
+
+  @Benchmark
+  public Expression pathApplication() {
+    return myPathTerm.normalize(mode);
+  }
+
+  @Benchmark
+  public Expression pathConcatenation() {
+    return myConcatTerm.normalize(mode);
+  }
+}
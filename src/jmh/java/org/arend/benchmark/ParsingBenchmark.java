@@ -0,0 +1,38 @@
+package org.arend.benchmark;
+
+import org.arend.error.ListErrorReporter;
+import org.arend.term.group.FileGroup;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of a large module with {@link org.arend.frontend.parser.ArendParser} and {@link org.arend.frontend.parser.BuildVisitor}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ParsingBenchmark {
+  @Param({"100", "1000"})
+  public int size;
+
+  private String myText;
+
+  @Setup
+  public void setup() {
+    myText = SyntheticSources.module(size);
+  }
+
+  @Benchmark
+  public FileGroup parse() {
+    ListErrorReporter errorReporter = new ListErrorReporter();
+    FileGroup group = BenchmarkFixture.parse(myText, errorReporter);
+    if (!errorReporter.getErrorList().isEmpty()) {
+      throw new IllegalStateException("Parsing errors: " + errorReporter.getErrorList());
+    }
+    return group;
+  }
+}
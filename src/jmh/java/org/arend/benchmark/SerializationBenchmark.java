@@ -0,0 +1,70 @@
+package org.arend.benchmark;
+
+import org.arend.error.ListErrorReporter;
+import org.arend.module.serialization.DeserializationException;
+import org.arend.module.serialization.ModuleDeserialization;
+import org.arend.module.serialization.ModuleProtos;
+import org.arend.module.serialization.ModuleSerialization;
+import org.arend.naming.reference.converter.IdReferableConverter;
+import org.arend.naming.scope.LexicalScope;
+import org.arend.term.group.ChildGroup;
+import org.arend.typechecking.TypecheckerState;
+import org.arend.typechecking.order.dependency.DummyDependencyListener;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of a typechecked module with {@link ModuleSerialization} and its deserialization with {@link ModuleDeserialization}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SerializationBenchmark {
+  @Param({"20", "100"})
+  public int size;
+
+  private BenchmarkFixture myFixture;
+  private ChildGroup myGroup;
+  private byte[] myBytes;
+
+  @Setup
+  public void setup() {
+    myFixture = new BenchmarkFixture();
+    myGroup = myFixture.typecheck(SyntheticSources.module(size));
+    myBytes = serialize().toByteArray();
+  }
+
+  @Benchmark
+  public ModuleProtos.Module serialize() {
+    ListErrorReporter errorReporter = new ListErrorReporter();
+    ModuleProtos.Module module = new ModuleSerialization(myFixture.getTypecheckerState(), errorReporter).writeModule(myGroup, BenchmarkFixture.MODULE_PATH, IdReferableConverter.INSTANCE);
+    if (module == null || !errorReporter.getErrorList().isEmpty()) {
+      throw new IllegalStateException("Serialization errors: " + errorReporter.getErrorList());
+    }
+    return module;
+  }
+
+  private ChildGroup deserialize(byte[] bytes) throws IOException, DeserializationException {
+    TypecheckerState state = BenchmarkFixture.newPreludeState();
+    ModuleDeserialization deserialization = new ModuleDeserialization(ModuleProtos.Module.parseFrom(bytes), state, null);
+    ChildGroup group = deserialization.readGroup(BenchmarkFixture.MODULE_PATH);
+    LexicalScope scope = LexicalScope.opened(group);
+    deserialization.readModule(module -> module.equals(BenchmarkFixture.MODULE_PATH) ? scope : myFixture.getModuleScopeProvider().forModule(module), DummyDependencyListener.INSTANCE, true);
+    return group;
+  }
+
+  @Benchmark
+  public ChildGroup deserialize() throws IOException, DeserializationException {
+    return deserialize(myBytes);
+  }
+
+  @Benchmark
+  public ChildGroup roundTrip() throws IOException, DeserializationException {
+    return deserialize(serialize().toByteArray());
+  }
+}
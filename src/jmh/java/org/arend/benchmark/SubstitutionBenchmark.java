@@ -0,0 +1,43 @@
+package org.arend.benchmark;
+
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.LamExpression;
+import org.arend.core.expr.SmallIntegerExpression;
+import org.arend.term.group.ChildGroup;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Substitution into deeply nested lambdas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SubstitutionBenchmark {
+  @Param({"100", "1000"})
+  public int depth;
+
+  private LamExpression myLambda;
+  private final Expression myArgument = new SmallIntegerExpression(7);
+
+  @Setup
+  public void setup() {
+    BenchmarkFixture fixture = new BenchmarkFixture();
+    ChildGroup group = fixture.typecheck(SyntheticSources.ARITHMETIC + SyntheticSources.deepLambda("deep", depth));
+    myLambda = fixture.getBody(group, "deep").cast(LamExpression.class);
+  }
+
+  @Benchmark
+  public Expression substituteOuterParameter() {
+    return myLambda.getBody().subst(myLambda.getParameters(), myArgument);
+  }
+
+  @Benchmark
+  public Expression copy() {
+    return myLambda.copy();
+  }
+}
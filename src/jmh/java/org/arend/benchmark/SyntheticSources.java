@@ -0,0 +1,89 @@
+package org.arend.benchmark;
+
+/**
+ * Generates sources of modules used by benchmarks, so that they do not depend on external libraries.
+ */
+public class SyntheticSources {
+  private SyntheticSources() { }
+
+  public static final String ARITHMETIC =
+    "\\func add (n m : Nat) : Nat | 0, m => m | suc n, m => suc (add n m)\n" +
+    "\\func mul (n m : Nat) : Nat | 0, _ => 0 | suc n, m => add m (mul n m)\n" +
+    "\\func fib (n : Nat) : Nat | 0 => 0 | 1 => 1 | suc (suc n) => add (fib n) (fib (suc n))\n" +
+    "\\func sum (n : Nat) : Nat | 0 => 0 | suc n => suc n Nat.+ sum n\n" +
+    "\\func fibTerm => fib 15\n" +
+    "\\func mulTerm => mul 12 (add 7 5)\n" +
+    "\\func sumTerm => sum 150 Nat.* 3\n";
+
+  public static final String PATHS =
+    "\\func idp {A : \\Type} {a : A} : a = a => path (\\lam _ => a)\n" +
+    "\\func pmap {A B : \\Type} (f : A -> B) {a a' : A} (p : a = a') : f a = f a' => path (\\lam i => f (p @ i))\n" +
+    "\\func transport {A : \\Type} (B : A -> \\Type) {a a' : A} (p : a = a') (b : B a) : B a' => coe (\\lam i => B (p @ i)) b right\n" +
+    "\\func concat {A : \\Type} {a a' a'' : A} (p : a = a') (q : a' = a'') : a = a'' => transport (\\lam x => a = x) q p\n" +
+    "\\func pathN (n : Nat) : n = n | 0 => idp | suc n => pmap suc (pathN n)\n" +
+    "\\func concatN (n : Nat) : 0 = 0 | 0 => idp | suc n => concat (concatN n) idp\n" +
+    "\\func pathTerm (i : I) => pathN 30 @ i\n" +
+    "\\func concatTerm => concatN 30\n";
+
+  private static final String MODULE_PART =
+    "\\data List$ (A : \\Type) | nil$ | cons$ A (List$ A)\n" +
+    "\\func length$ {A : \\Type} (xs : List$ A) : Nat \\elim xs\n" +
+    "  | nil$ => 0\n" +
+    "  | cons$ _ xs => suc (length$ xs)\n" +
+    "\\func map$ {A B : \\Type} (f : A -> B) (xs : List$ A) : List$ B \\elim xs\n" +
+    "  | nil$ => nil$\n" +
+    "  | cons$ x xs => cons$ (f x) (map$ f xs)\n" +
+    "\\class Pointed$\n" +
+    "  | E$ : \\Set\n" +
+    "  | point$ : E$\n" +
+    "\\func test$ (n : Nat) : Nat => \\let xs => cons$ n (cons$ (suc n) nil$) \\in \\case length$ (map$ suc xs) \\with {\n" +
+    "  | 0 => 0\n" +
+    "  | suc m => n Nat.+ m\n" +
+    "}\n" +
+    "\\func path$ (n : Nat) : test$ n = n Nat.+ 1 => path (\\lam _ => n Nat.+ 1)\n";
+
+  /**
+   * Generates two functions {@code name1} and {@code name2} whose bodies are different sums of {@code size} ones
+   * nested in the opposite directions. The module must also contain {@link #ARITHMETIC}.
+   */
+  public static String sums(String name1, String name2, int size) {
+    StringBuilder left = new StringBuilder("1");
+    StringBuilder right = new StringBuilder("1");
+    for (int i = 1; i < size; i++) {
+      left.insert(0, "add (").append(") 1");
+      right.insert(0, "add 1 (").append(")");
+    }
+    return "\\func " + name1 + " => " + left + "\n" +
+      "\\func " + name2 + " => " + right + "\n";
+  }
+
+  /**
+   * Generates a function {@code name} whose body is {@code depth} nested lambdas with a body which refers to all their parameters.
+   * The module must also contain {@link #ARITHMETIC}.
+   */
+  public static String deepLambda(String name, int depth) {
+    StringBuilder builder = new StringBuilder("\\func ").append(name).append(" => ");
+    for (int i = 0; i < depth; i++) {
+      builder.append("\\lam (x").append(i).append(" : Nat) => ");
+    }
+    for (int i = 0; i < depth - 1; i++) {
+      builder.append("add x").append(i).append(" (");
+    }
+    builder.append("x").append(depth - 1);
+    for (int i = 0; i < depth - 1; i++) {
+      builder.append(")");
+    }
+    return builder.append("\n").toString();
+  }
+
+  /**
+   * Generates a module with {@code size} groups of data types, functions and classes.
+   */
+  public static String module(int size) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < size; i++) {
+      builder.append(MODULE_PART.replace("$", Integer.toString(i)));
+    }
+    return builder.toString();
+  }
+}
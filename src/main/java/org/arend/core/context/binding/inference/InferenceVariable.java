@@ -5,6 +5,7 @@ import org.arend.core.context.binding.Variable;
 import org.arend.core.expr.Expression;
 import org.arend.core.expr.InferenceReferenceExpression;
 import org.arend.term.concrete.Concrete;
+import org.arend.typechecking.TypecheckingProfiler;
 import org.arend.typechecking.error.local.LocalError;
 import org.arend.typechecking.implicitargs.equations.Equations;
 import org.arend.typechecking.implicitargs.equations.InferenceVariableListener;
@@ -54,6 +55,7 @@ public abstract class InferenceVariable implements Variable {
         listener.solved(equations, myReference);
       }
       myReference = null;
+      TypecheckingProfiler.countSolvedEquation();
     }
   }
 
@@ -93,6 +93,7 @@ public class DataDefinition extends Definition {
   }
 
   public void addConstructor(Constructor constructor) {
+    constructor.setIndex(myConstructors.size());
     myConstructors.add(constructor);
   }
 
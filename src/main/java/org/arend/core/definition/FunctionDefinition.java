@@ -12,12 +12,14 @@ import org.arend.naming.reference.TCReferable;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Supplier;
 
 public class FunctionDefinition extends Definition implements Function {
   private DependentLink myParameters;
   private Expression myResultType;
   private Expression myResultTypeLevel;
   private Body myBody;
+  private volatile Supplier<? extends Body> myBodyLoader;
   private List<Integer> myParametersTypecheckingOrder;
   private boolean myLemma;
   private List<Boolean> myGoodThisParameters = Collections.emptyList();
@@ -30,15 +32,38 @@ public class FunctionDefinition extends Definition implements Function {
 
   @Override
   public Body getBody() {
-    return myLemma ? null : myBody;
+    return myLemma ? null : getActualBody();
   }
 
   public Body getActualBody() {
+    if (myBodyLoader != null) {
+      synchronized (this) {
+        Supplier<? extends Body> bodyLoader = myBodyLoader;
+        if (bodyLoader != null) {
+          myBody = bodyLoader.get();
+          myBodyLoader = null;
+        }
+      }
+    }
     return myBody;
   }
 
   public void setBody(Body body) {
     myBody = body;
+    myBodyLoader = null;
+  }
+
+  /**
+   * Sets a loader which is invoked to compute the body when it is accessed for the first time.
+   * The loader should not throw exceptions; if the body cannot be loaded, it should report an error and return null.
+   */
+  public void setLazyBody(Supplier<? extends Body> bodyLoader) {
+    myBody = null;
+    myBodyLoader = bodyLoader;
+  }
+
+  public boolean isBodyLoaded() {
+    return myBodyLoader == null;
   }
 
   public boolean isLemma() {
@@ -12,6 +12,27 @@ import java.util.Map;
 
 public class BranchElimTree extends ElimTree {
   private final Map<Constructor, ElimTree> myChildren;
+  private Dispatch myDispatch;
+
+  /**
+   * Children indexed by {@link Constructor#getIndex}.
+   * It is computed when a child is requested for the first time, that is, after constructors of the data type are added.
+   */
+  private static final class Dispatch {
+    static final Dispatch NOT_INDEXED = new Dispatch(null, null, null, null);
+
+    final Constructor[] constructors;
+    final ElimTree[] children;
+    final ElimTree nullChild;
+    final ElimTree tupleChild;
+
+    Dispatch(Constructor[] constructors, ElimTree[] children, ElimTree nullChild, ElimTree tupleChild) {
+      this.constructors = constructors;
+      this.children = children;
+      this.nullChild = nullChild;
+      this.tupleChild = tupleChild;
+    }
+  }
 
   public final static class TupleConstructor extends Constructor {
     private final int myLength;
@@ -31,21 +52,67 @@ public class BranchElimTree extends ElimTree {
     myChildren = children;
   }
 
-  public ElimTree getChild(Constructor constructor) {
-    return myChildren.get(constructor);
+  private Dispatch getDispatch() {
+    Dispatch dispatch = myDispatch;
+    if (dispatch == null) {
+      dispatch = compile();
+      myDispatch = dispatch;
+    }
+    return dispatch;
   }
 
-  public ElimTree getTupleChild() {
+  private Dispatch compile() {
     if (myChildren.size() == 1) {
       Map.Entry<Constructor, ElimTree> entry = myChildren.entrySet().iterator().next();
-      return entry.getKey() instanceof TupleConstructor ? entry.getValue() : null;
-    } else {
-      return null;
+      if (entry.getKey() instanceof TupleConstructor) {
+        return new Dispatch(new Constructor[0], new ElimTree[0], null, entry.getValue());
+      }
     }
+
+    int size = 0;
+    for (Constructor constructor : myChildren.keySet()) {
+      if (constructor != null) {
+        if (constructor.getIndex() < 0 || constructor instanceof TupleConstructor) {
+          return Dispatch.NOT_INDEXED;
+        }
+        size = Math.max(size, constructor.getIndex() + 1);
+      }
+    }
+
+    Constructor[] constructors = new Constructor[size];
+    ElimTree[] children = new ElimTree[size];
+    for (Map.Entry<Constructor, ElimTree> entry : myChildren.entrySet()) {
+      Constructor constructor = entry.getKey();
+      if (constructor != null) {
+        if (constructors[constructor.getIndex()] != null) {
+          return Dispatch.NOT_INDEXED;
+        }
+        constructors[constructor.getIndex()] = constructor;
+        children[constructor.getIndex()] = entry.getValue();
+      }
+    }
+    return new Dispatch(constructors, children, myChildren.get(null), null);
+  }
+
+  public ElimTree getChild(Constructor constructor) {
+    Dispatch dispatch = getDispatch();
+    if (dispatch == Dispatch.NOT_INDEXED) {
+      return myChildren.get(constructor);
+    }
+    if (constructor == null) {
+      return dispatch.nullChild;
+    }
+
+    int index = constructor.getIndex();
+    return index >= 0 && index < dispatch.constructors.length && dispatch.constructors[index] == constructor ? dispatch.children[index] : null;
+  }
+
+  public ElimTree getTupleChild() {
+    return getDispatch().tupleChild;
   }
 
   public boolean isTupleTree() {
-    return myChildren.size() == 1 && myChildren.keySet().iterator().next() instanceof TupleConstructor;
+    return getDispatch().tupleChild != null;
   }
 
   public Collection<Map.Entry<Constructor, ElimTree>> getChildren() {
@@ -65,7 +132,7 @@ public class BranchElimTree extends ElimTree {
       }
     } else if (argument.isInstance(ConCallExpression.class)) {
       ConCallExpression conCall = argument.cast(ConCallExpression.class);
-      ElimTree elimTree = myChildren.get(conCall.getDefinition());
+      ElimTree elimTree = getChild(conCall.getDefinition());
       if (elimTree != null) {
         newArguments = new ArrayList<>(conCall.getDefCallArguments().size() + arguments.size() - index - 1);
         newArguments.addAll(conCall.getDefCallArguments());
@@ -76,7 +143,7 @@ public class BranchElimTree extends ElimTree {
     } else if (argument.isInstance(IntegerExpression.class)) {
       IntegerExpression intExpr = argument.cast(IntegerExpression.class);
       boolean isZero = intExpr.isZero();
-      ElimTree elimTree = myChildren.get(isZero ? Prelude.ZERO : Prelude.SUC);
+      ElimTree elimTree = getChild(isZero ? Prelude.ZERO : Prelude.SUC);
       if (elimTree != null) {
         newArguments = new ArrayList<>();
         if (!isZero) {
@@ -112,20 +179,20 @@ public class BranchElimTree extends ElimTree {
       }
     } else if (argument.isInstance(ConCallExpression.class)) {
       ConCallExpression conCall = argument.cast(ConCallExpression.class);
-      ElimTree elimTree = myChildren.get(conCall.getDefinition());
+      ElimTree elimTree = getChild(conCall.getDefinition());
       if (elimTree != null) {
         return elimTree.isWHNF(newArguments);
       } else {
-        elimTree = myChildren.get(null);
+        elimTree = getChild(null);
         return elimTree == null || elimTree.isWHNF(newArguments);
       }
     } else if (argument.isInstance(IntegerExpression.class)) {
       IntegerExpression intExpr = argument.cast(IntegerExpression.class);
-      ElimTree elimTree = myChildren.get(intExpr.isZero() ? Prelude.ZERO : Prelude.SUC);
+      ElimTree elimTree = getChild(intExpr.isZero() ? Prelude.ZERO : Prelude.SUC);
       if (elimTree != null) {
         return elimTree.isWHNF(newArguments);
       } else {
-        elimTree = myChildren.get(null);
+        elimTree = getChild(null);
         return elimTree == null || elimTree.isWHNF(newArguments);
       }
     }
@@ -152,20 +219,20 @@ public class BranchElimTree extends ElimTree {
       }
     } else if (argument.isInstance(ConCallExpression.class)) {
       ConCallExpression conCall = argument.cast(ConCallExpression.class);
-      ElimTree elimTree = myChildren.get(conCall.getDefinition());
+      ElimTree elimTree = getChild(conCall.getDefinition());
       if (elimTree != null) {
         return elimTree.getStuckExpression(newArguments, expression);
       } else {
-        elimTree = myChildren.get(null);
+        elimTree = getChild(null);
         return elimTree != null ? elimTree.getStuckExpression(newArguments, expression) : expression;
       }
     } else if (argument.isInstance(IntegerExpression.class)) {
       IntegerExpression intExpr = argument.cast(IntegerExpression.class);
-      ElimTree elimTree = myChildren.get(intExpr.isZero() ? Prelude.ZERO : Prelude.SUC);
+      ElimTree elimTree = getChild(intExpr.isZero() ? Prelude.ZERO : Prelude.SUC);
       if (elimTree != null) {
         return elimTree.getStuckExpression(newArguments, expression);
       } else {
-        elimTree = myChildren.get(null);
+        elimTree = getChild(null);
         return elimTree != null ? elimTree.getStuckExpression(newArguments, expression) : expression;
       }
     }
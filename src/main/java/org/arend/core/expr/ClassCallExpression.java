@@ -9,6 +9,7 @@ import org.arend.core.expr.visitor.NormalizeVisitor;
 import org.arend.core.expr.visitor.StripVisitor;
 import org.arend.core.sort.Sort;
 import org.arend.core.subst.SubstVisitor;
+import org.arend.typechecking.TypecheckingProfiler;
 import org.arend.typechecking.error.LocalErrorReporter;
 import org.arend.typechecking.visitor.CheckForUniversesVisitor;
 
@@ -129,6 +130,7 @@ public class ClassCallExpression extends DefCallExpression implements Type {
 
   @Override
   public ClassCallExpression normalize(NormalizeVisitor.Mode mode) {
+    TypecheckingProfiler.countNormalization();
     return NormalizeVisitor.INSTANCE.visitClassCall(this, mode);
   }
 
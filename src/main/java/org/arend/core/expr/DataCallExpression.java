@@ -9,6 +9,7 @@ import org.arend.core.expr.visitor.StripVisitor;
 import org.arend.core.pattern.Pattern;
 import org.arend.core.sort.Sort;
 import org.arend.core.subst.SubstVisitor;
+import org.arend.typechecking.TypecheckingProfiler;
 import org.arend.typechecking.error.LocalErrorReporter;
 
 import java.util.ArrayList;
@@ -66,6 +67,7 @@ public class DataCallExpression extends DefCallExpression implements Type {
 
   @Override
   public DataCallExpression normalize(NormalizeVisitor.Mode mode) {
+    TypecheckingProfiler.countNormalization();
     return NormalizeVisitor.INSTANCE.visitDataCall(this, mode);
   }
 
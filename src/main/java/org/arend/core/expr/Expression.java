@@ -17,10 +17,12 @@ import org.arend.term.Precedence;
 import org.arend.term.concrete.Concrete;
 import org.arend.term.prettyprint.PrettyPrintVisitor;
 import org.arend.term.prettyprint.PrettyPrinterConfig;
+import org.arend.typechecking.TypecheckingProfiler;
 import org.arend.typechecking.error.LocalErrorReporter;
 import org.arend.typechecking.error.local.GoalError;
 import org.arend.typechecking.implicitargs.equations.DummyEquations;
 import org.arend.typechecking.implicitargs.equations.Equations;
+import org.arend.util.StringBuilderCache;
 
 import java.util.Collections;
 import java.util.EnumSet;
@@ -28,18 +30,20 @@ import java.util.List;
 import java.util.Set;
 
 public abstract class Expression implements ExpectedType {
+  private int myStructuralHash;
+
   public abstract <P, R> R accept(ExpressionVisitor<? super P, ? extends R> visitor, P params);
 
   @Override
   public String toString() {
-    StringBuilder builder = new StringBuilder();
+    StringBuilder builder = StringBuilderCache.acquire();
     Concrete.Expression expr = ToAbstractVisitor.convert(this, EnumSet.of(
       ToAbstractVisitor.Flag.SHOW_IMPLICIT_ARGS,
       ToAbstractVisitor.Flag.SHOW_FIELD_INSTANCE,
       ToAbstractVisitor.Flag.SHOW_TYPES_IN_LAM,
       ToAbstractVisitor.Flag.SHOW_CON_PARAMS));
     expr.accept(new PrettyPrintVisitor(builder, 0), new Precedence(Concrete.Expression.PREC));
-    return builder.toString();
+    return StringBuilderCache.release(builder);
   }
 
   @Override
@@ -47,15 +51,26 @@ public abstract class Expression implements ExpectedType {
     return this == obj || obj instanceof Expression && compare(this, (Expression) obj, Equations.CMP.EQ);
   }
 
+  /**
+   * Gets the structural hash of this expression which is computed by {@link StructuralHashVisitor} and cached.
+   */
+  public final int getStructuralHash() {
+    int hash = myStructuralHash;
+    if (hash == 0) {
+      hash = accept(StructuralHashVisitor.INSTANCE, null);
+      myStructuralHash = hash;
+    }
+    return hash;
+  }
+
   public boolean isError() {
     return isInstance(ErrorExpression.class) && !(cast(ErrorExpression.class).getError() instanceof GoalError);
   }
 
   @Override
   public void prettyPrint(StringBuilder builder, PrettyPrinterConfig infoProvider) {
-    NormalizeVisitor.Mode mode = infoProvider.getNormalizationMode();
     ToAbstractVisitor
-      .convert(mode == null ? this : normalize(mode), infoProvider.getExpressionFlags())
+      .convert(this, infoProvider)
       .accept(new PrettyPrintVisitor(builder, 0, !infoProvider.isSingleLine()), new Precedence(Concrete.Expression.PREC));
   }
 
@@ -119,6 +134,7 @@ public abstract class Expression implements ExpectedType {
 
   @Override
   public Expression normalize(NormalizeVisitor.Mode mode) {
+    TypecheckingProfiler.countNormalization();
     return accept(NormalizeVisitor.INSTANCE, mode);
   }
 
@@ -26,15 +26,15 @@ public class ExpressionFactory {
   }
 
   public static DataCallExpression Interval() {
-    return new DataCallExpression(Prelude.INTERVAL, Sort.PROP, Collections.emptyList());
+    return TermInterner.dataCall(Prelude.INTERVAL, Sort.PROP);
   }
 
   public static ConCallExpression Left() {
-    return (ConCallExpression) ConCallExpression.make(Prelude.LEFT, Sort.PROP, Collections.emptyList(), Collections.emptyList());
+    return (ConCallExpression) TermInterner.conCall(Prelude.LEFT, Sort.PROP);
   }
 
   public static ConCallExpression Right() {
-    return (ConCallExpression) ConCallExpression.make(Prelude.RIGHT, Sort.PROP, Collections.emptyList(), Collections.emptyList());
+    return (ConCallExpression) TermInterner.conCall(Prelude.RIGHT, Sort.PROP);
   }
 
   public static DependentLink parameter(boolean explicit, String var, Type type) {
@@ -62,15 +62,15 @@ public class ExpressionFactory {
   }
 
   public static DataCallExpression Nat() {
-    return new DataCallExpression(Prelude.NAT, Sort.SET0, Collections.emptyList());
+    return TermInterner.dataCall(Prelude.NAT, Sort.SET0);
   }
 
   public static DataCallExpression Int() {
-    return new DataCallExpression(Prelude.INT, Sort.SET0, Collections.emptyList());
+    return TermInterner.dataCall(Prelude.INT, Sort.SET0);
   }
 
   public static IntegerExpression Zero() {
-    return new SmallIntegerExpression(0);
+    return TermInterner.integer(0);
   }
 
   public static Expression Suc(Expression expr) {
@@ -11,6 +11,7 @@ import org.arend.core.sort.Level;
 import org.arend.core.sort.Sort;
 import org.arend.core.subst.SubstVisitor;
 import org.arend.term.concrete.Concrete;
+import org.arend.typechecking.TypecheckingProfiler;
 import org.arend.typechecking.error.LocalErrorReporter;
 import org.arend.typechecking.implicitargs.equations.Equations;
 
@@ -78,6 +79,7 @@ public class PiExpression extends Expression implements Type {
 
   @Override
   public PiExpression normalize(NormalizeVisitor.Mode mode) {
+    TypecheckingProfiler.countNormalization();
     return NormalizeVisitor.INSTANCE.visitPi(this, mode);
   }
 
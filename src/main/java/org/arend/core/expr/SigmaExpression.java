@@ -7,6 +7,7 @@ import org.arend.core.expr.visitor.NormalizeVisitor;
 import org.arend.core.expr.visitor.StripVisitor;
 import org.arend.core.sort.Sort;
 import org.arend.core.subst.SubstVisitor;
+import org.arend.typechecking.TypecheckingProfiler;
 import org.arend.typechecking.error.LocalErrorReporter;
 
 public class SigmaExpression extends Expression implements Type {
@@ -54,6 +55,7 @@ public class SigmaExpression extends Expression implements Type {
 
   @Override
   public SigmaExpression normalize(NormalizeVisitor.Mode mode) {
+    TypecheckingProfiler.countNormalization();
     return NormalizeVisitor.INSTANCE.visitSigma(this, mode);
   }
 
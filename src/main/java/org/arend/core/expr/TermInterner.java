@@ -0,0 +1,274 @@
+package org.arend.core.expr;
+
+import org.arend.core.context.binding.LevelVariable;
+import org.arend.core.definition.Constructor;
+import org.arend.core.definition.DataDefinition;
+import org.arend.core.sort.Level;
+import org.arend.core.sort.Sort;
+import org.arend.prelude.Prelude;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Shares structurally identical closed immutable terms: levels and sorts without inference variables, universes,
+ * small integers, and calls of data types and constructors without arguments.
+ * Canonical terms are kept in a weak table, so they are collected when no expression refers to them.
+ * Keys refer to definitions strongly, so an interner should not outlive the libraries whose terms it shares
+ * (see {@link org.arend.library.LibraryManager#setTermInterner}).
+ *
+ * Static methods use the interner installed on the current thread (see {@link #install});
+ * if there is no such interner, they return new terms.
+ */
+public final class TermInterner {
+  public enum Kind {
+    LEVEL(24), SORT(24), UNIVERSE(16), INTEGER(16), DATA_CALL(24), CON_CALL(32);
+
+    /**
+     * An estimate of the shallow size of an instance in bytes.
+     */
+    public final int size;
+
+    Kind(int size) {
+      this.size = size;
+    }
+  }
+
+  private static final ThreadLocal<TermInterner> CURRENT = new ThreadLocal<>();
+
+  private final ConcurrentHashMap<Key, Entry> myTable = new ConcurrentHashMap<>();
+  private final ReferenceQueue<Object> myQueue = new ReferenceQueue<>();
+  private final AtomicLongArray myRequests = new AtomicLongArray(Kind.values().length);
+  private final AtomicLongArray myHits = new AtomicLongArray(Kind.values().length);
+
+  /**
+   * Gets the interner installed on the current thread.
+   *
+   * @return the current interner or null if terms are not interned.
+   */
+  public static TermInterner getCurrent() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Installs an interner on the current thread.
+   *
+   * @param interner an interner or null to remove the current one.
+   *
+   * @return the previously installed interner which should be restored afterwards.
+   */
+  public static TermInterner install(TermInterner interner) {
+    TermInterner previous = CURRENT.get();
+    if (interner == null) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(interner);
+    }
+    return previous;
+  }
+
+  /**
+   * Removes all canonical terms.
+   * Terms which were already shared stay valid; only new terms are not shared with them.
+   */
+  public void clear() {
+    myTable.clear();
+    expungeStaleEntries();
+  }
+
+  /**
+   * Components of keys are compared by identity; they are either primitive values or canonical terms.
+   */
+  private static final class Key {
+    private final Kind myKind;
+    private final Object myFirst;
+    private final Object mySecond;
+    private final int myValue1;
+    private final int myValue2;
+
+    private Key(Kind kind, Object first, Object second, int value1, int value2) {
+      myKind = kind;
+      myFirst = first;
+      mySecond = second;
+      myValue1 = value1;
+      myValue2 = value2;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof Key)) return false;
+      Key key = (Key) o;
+      return myKind == key.myKind && myFirst == key.myFirst && mySecond == key.mySecond && myValue1 == key.myValue1 && myValue2 == key.myValue2;
+    }
+
+    @Override
+    public int hashCode() {
+      int result = myKind.ordinal();
+      result = 31 * result + System.identityHashCode(myFirst);
+      result = 31 * result + System.identityHashCode(mySecond);
+      result = 31 * result + myValue1;
+      return 31 * result + myValue2;
+    }
+  }
+
+  private static final class Entry extends WeakReference<Object> {
+    private final Key myKey;
+
+    private Entry(Key key, Object term, ReferenceQueue<Object> queue) {
+      super(term, queue);
+      myKey = key;
+    }
+  }
+
+  private void expungeStaleEntries() {
+    for (Reference<?> ref = myQueue.poll(); ref != null; ref = myQueue.poll()) {
+      Entry entry = (Entry) ref;
+      myTable.remove(entry.myKey, entry);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T intern(Key key, Supplier<T> supplier) {
+    expungeStaleEntries();
+    myRequests.incrementAndGet(key.myKind.ordinal());
+    T term = null;
+    while (true) {
+      Entry entry = myTable.get(key);
+      Object canonical = entry == null ? null : entry.get();
+      if (canonical != null) {
+        myHits.incrementAndGet(key.myKind.ordinal());
+        return (T) canonical;
+      }
+      if (term == null) {
+        term = supplier.get();
+      }
+      Entry newEntry = new Entry(key, term, myQueue);
+      if (entry == null ? myTable.putIfAbsent(key, newEntry) == null : myTable.replace(key, entry, newEntry)) {
+        return term;
+      }
+    }
+  }
+
+  public static Level level(Level level) {
+    TermInterner interner = CURRENT.get();
+    return interner == null ? level : interner.internLevel(level);
+  }
+
+  public static Sort sort(Sort sort) {
+    TermInterner interner = CURRENT.get();
+    return interner == null ? sort : interner.internSort(sort);
+  }
+
+  public static UniverseExpression universe(Sort sort) {
+    TermInterner interner = CURRENT.get();
+    if (interner == null || sort.getClass() != Sort.class || !isClosed(sort)) {
+      return new UniverseExpression(sort);
+    }
+    Sort canonical = interner.internSort(sort);
+    return interner.intern(new Key(Kind.UNIVERSE, canonical, null, 0, 0), () -> new UniverseExpression(canonical));
+  }
+
+  public static SmallIntegerExpression integer(int value) {
+    TermInterner interner = CURRENT.get();
+    return interner != null ? interner.intern(new Key(Kind.INTEGER, null, null, value, 0), () -> new SmallIntegerExpression(value)) : new SmallIntegerExpression(value);
+  }
+
+  /**
+   * Creates a call of a data type without arguments.
+   */
+  public static DataCallExpression dataCall(DataDefinition definition, Sort sortArgument) {
+    TermInterner interner = CURRENT.get();
+    if (interner == null || sortArgument.getClass() != Sort.class || !isClosed(sortArgument)) {
+      return new DataCallExpression(definition, sortArgument, Collections.emptyList());
+    }
+    Sort canonical = interner.internSort(sortArgument);
+    return interner.intern(new Key(Kind.DATA_CALL, definition, canonical, 0, 0), () -> new DataCallExpression(definition, canonical, Collections.emptyList()));
+  }
+
+  /**
+   * Creates a call of a constructor without arguments and without arguments of its data type.
+   */
+  public static Expression conCall(Constructor constructor, Sort sortArgument) {
+    if (constructor == Prelude.ZERO) {
+      return integer(0);
+    }
+    TermInterner interner = CURRENT.get();
+    if (interner == null || sortArgument.getClass() != Sort.class || !isClosed(sortArgument)) {
+      return new ConCallExpression(constructor, sortArgument, Collections.emptyList(), Collections.emptyList());
+    }
+    Sort canonical = interner.internSort(sortArgument);
+    return interner.intern(new Key(Kind.CON_CALL, constructor, canonical, 0, 0), () -> new ConCallExpression(constructor, canonical, Collections.emptyList(), Collections.emptyList()));
+  }
+
+  private Level internLevel(Level level) {
+    if (level.isInfinity() || !isClosed(level)) {
+      return level;
+    }
+    return intern(new Key(Kind.LEVEL, level.getVar(), null, level.getConstant(), level.getMaxConstant()), () -> level);
+  }
+
+  private Sort internSort(Sort sort) {
+    if (sort.getClass() != Sort.class || !isClosed(sort)) {
+      return sort;
+    }
+    Level pLevel = internLevel(sort.getPLevel());
+    Level hLevel = internLevel(sort.getHLevel());
+    return intern(new Key(Kind.SORT, pLevel, hLevel, 0, 0), () -> pLevel == sort.getPLevel() && hLevel == sort.getHLevel() ? sort : new Sort(pLevel, hLevel));
+  }
+
+  /**
+   * Checks that a sort does not contain inference variables.
+   */
+  private static boolean isClosed(Sort sort) {
+    return isClosed(sort.getPLevel()) && isClosed(sort.getHLevel());
+  }
+
+  private static boolean isClosed(Level level) {
+    LevelVariable var = level.getVar();
+    return var == null || var == LevelVariable.PVAR || var == LevelVariable.HVAR;
+  }
+
+  public long getRequests(Kind kind) {
+    return myRequests.get(kind.ordinal());
+  }
+
+  public long getHits(Kind kind) {
+    return myHits.get(kind.ordinal());
+  }
+
+  /**
+   * @return the number of canonical terms of the given kind which are still reachable.
+   */
+  public int getLiveTerms(Kind kind) {
+    int result = 0;
+    for (Entry entry : myTable.values()) {
+      if (entry.myKey.myKind == kind && entry.get() != null) {
+        result++;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Describes the effect of interning on the heap.
+   * The number of saved bytes is estimated from the number of shared terms and approximate sizes of their instances.
+   */
+  public String getReport() {
+    StringBuilder builder = new StringBuilder();
+    long saved = 0;
+    for (Kind kind : Kind.values()) {
+      long hits = getHits(kind);
+      saved += hits * kind.size;
+      builder.append(kind.name().toLowerCase()).append(": ").append(getRequests(kind)).append(" requests, ").append(hits).append(" shared, ").append(getLiveTerms(kind)).append(" live\n");
+    }
+    Runtime runtime = Runtime.getRuntime();
+    builder.append("~").append(saved / 1024).append(" KB of allocations saved, ").append((runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024)).append(" MB of heap used");
+    return builder.toString();
+  }
+}
@@ -0,0 +1,300 @@
+package org.arend.core.expr.visitor;
+
+import org.arend.core.context.binding.Binding;
+import org.arend.core.context.binding.Variable;
+import org.arend.core.definition.Definition;
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.ReferenceExpression;
+import org.arend.frontend.reference.ParsedLocalReferable;
+import org.arend.naming.reference.Referable;
+import org.arend.term.concrete.Concrete;
+import org.arend.term.prettyprint.PrettyPrinterConfig;
+
+import java.util.*;
+
+import static org.arend.frontend.ConcreteExpressionFactory.*;
+
+/**
+ * Converts expressions with limited depth and width.
+ * Subexpressions are normalized to weak head normal forms only when they are printed,
+ * and subexpressions which occur several times as the same object can be printed once in a \let expression.
+ * Such a \let expression is put directly under the binder of the innermost variable which the subexpression refers to.
+ *
+ * An expression is converted twice.
+ * The first pass finds free variables, used bindings, and shared subexpressions.
+ * It converts a shared subexpression again only if the remaining depth is greater than before,
+ * so it does not depend on the size of the tree in which shared subexpressions are copied.
+ * The second pass produces the result.
+ */
+class BoundedToAbstractVisitor extends ToAbstractVisitor {
+  private static final int MIN_ABBREVIATION_SIZE = 3;
+  private static final String ABBREVIATION_NAME = "t";
+
+  private final int myMaxDepth;
+  private final NormalizeVisitor.Mode myMode;
+  private final boolean myAbbreviate;
+  private final Map<Expression, Expression> myNormalized = new IdentityHashMap<>();
+  private final Set<String> myUsedNames = new HashSet<>();
+  private final Set<String> myDefinitionNames = new HashSet<>();
+  private int myDepth;
+
+  // The first pass
+  private boolean myFirstPass = true;
+  private final Map<Expression, Occurrence> myOccurrences = new IdentityHashMap<>();
+  private final Set<Binding> myUsedBindings = new HashSet<>();
+  private final Set<Binding> myFreeBindings = new LinkedHashSet<>();
+  private final Map<Binding, Integer> myBindingDepths = new HashMap<>();
+  private final List<Expression> myPath = new ArrayList<>();
+  private TreeSet<Integer> myOuterBindingDepths;
+  private int mySize;
+
+  // The second pass
+  private final Map<Expression, Referable> myAbbreviations = new IdentityHashMap<>();
+  private final Scope myTopScope = new Scope();
+  private final Map<Expression, Scope> myScopes = new IdentityHashMap<>();
+
+  private static class Occurrence {
+    int number;
+    int remainingDepth;
+    int size;
+    TreeSet<Integer> outerBindingDepths; // depths of binders outside of the subexpression which it refers to
+    Expression scope;                    // the subexpression in which the abbreviation is defined, or null if it is defined at the top
+    boolean hasScope = true;             // false if occurrences do not have a common scope
+  }
+
+  private static class Scope {
+    final List<Concrete.LetClause> clauses = new ArrayList<>();
+    final List<Expression> abbreviated = new ArrayList<>();
+  }
+
+  BoundedToAbstractVisitor(PrettyPrinterConfig ppConfig) {
+    super(ppConfig.getExpressionFlags(), null, new HashMap<>(), ppConfig.getMaxWidth());
+    myMaxDepth = ppConfig.getMaxDepth();
+    myMode = ppConfig.getNormalizationMode();
+    myAbbreviate = ppConfig.abbreviateSharedSubexpressions();
+  }
+
+  Concrete.Expression convert(Expression expression) {
+    convertExpr(expression);
+
+    myFirstPass = false;
+    myNames.clear();
+    myUsedNames.clear();
+    myUsedNames.addAll(myDefinitionNames);
+    for (Binding binding : myFreeBindings) {
+      myNames.put(binding, ref(getFreshName(binding.getName())));
+    }
+    if (myAbbreviate) {
+      for (Occurrence occurrence : myOccurrences.values()) {
+        if (occurrence.scope != null && isAbbreviated(occurrence)) {
+          myScopes.put(occurrence.scope, null);
+        }
+      }
+    }
+
+    Concrete.Expression result = convertExpr(expression);
+    return myTopScope.clauses.isEmpty() ? result : cLet(myTopScope.clauses, result);
+  }
+
+  private String getFreshName(String name) {
+    if (name == null) {
+      name = unnamed;
+    }
+    if (myUsedNames.add(name)) {
+      return name;
+    }
+
+    String prefix = getPrefix(name);
+    for (int i = 1; ; i++) {
+      String newName = prefix + i;
+      if (myUsedNames.add(newName)) {
+        return newName;
+      }
+    }
+  }
+
+  private Expression normalize(Expression expr) {
+    if (myMode == null || myMode == NormalizeVisitor.Mode.WHNF && myDepth > 0 || myMode == NormalizeVisitor.Mode.RNF && expr.isInstance(ReferenceExpression.class)) {
+      return expr;
+    }
+    return myNormalized.computeIfAbsent(expr, e -> e.normalize(NormalizeVisitor.Mode.WHNF));
+  }
+
+  private Concrete.Expression visit(Expression expr) {
+    expr = normalize(expr);
+    myDepth++;
+    mySize++;
+    Concrete.Expression result = expr.accept(this, null);
+    myDepth--;
+    return result;
+  }
+
+  @Override
+  Concrete.Expression convertExpr(Expression expr) {
+    // Variables are not replaced since they are not longer than an ellipsis
+    if (myMaxDepth > 0 && myDepth >= myMaxDepth && !expr.isInstance(ReferenceExpression.class)) {
+      return ellipsis();
+    }
+    return myFirstPass ? convertFirst(expr) : convertSecond(expr);
+  }
+
+  private void addOuterBindingDepths(Collection<Integer> depths) {
+    if (myOuterBindingDepths == null) {
+      myOuterBindingDepths = new TreeSet<>();
+    }
+    myOuterBindingDepths.addAll(depths);
+  }
+
+  /**
+   * Updates the scope of an occurrence.
+   * The scope is the child of the binder of the innermost outer variable on the current path.
+   */
+  private void updateScope(Occurrence occurrence, boolean isFirst) {
+    Expression scope = null;
+    if (occurrence.outerBindingDepths != null) {
+      int index = occurrence.outerBindingDepths.last() + 1;
+      if (index >= myDepth) {
+        occurrence.hasScope = false;
+        return;
+      }
+      scope = myPath.get(index);
+    }
+    if (isFirst) {
+      occurrence.scope = scope;
+    } else if (occurrence.scope != scope) {
+      occurrence.hasScope = false;
+    }
+  }
+
+  private Concrete.Expression convertFirst(Expression expr) {
+    int remainingDepth = myMaxDepth > 0 ? myMaxDepth - myDepth : Integer.MAX_VALUE;
+    Occurrence occurrence = myOccurrences.get(expr);
+    boolean isFirst = occurrence == null;
+    if (isFirst) {
+      occurrence = new Occurrence();
+      myOccurrences.put(expr, occurrence);
+    } else if (occurrence.remainingDepth >= remainingDepth) {
+      occurrence.number++;
+      if (occurrence.outerBindingDepths != null) {
+        addOuterBindingDepths(occurrence.outerBindingDepths);
+      }
+      updateScope(occurrence, false);
+      return ellipsis();
+    }
+    occurrence.number++;
+    occurrence.remainingDepth = remainingDepth;
+
+    int depth = myDepth;
+    int size = mySize;
+    TreeSet<Integer> outerBindingDepths = myOuterBindingDepths;
+    myOuterBindingDepths = null;
+    myPath.add(expr);
+    Concrete.Expression result = visit(expr);
+    myPath.remove(myPath.size() - 1);
+
+    occurrence.size = Math.max(occurrence.size, mySize - size);
+    if (myOuterBindingDepths != null) {
+      SortedSet<Integer> depths = myOuterBindingDepths.headSet(depth);
+      occurrence.outerBindingDepths = depths.isEmpty() ? null : new TreeSet<>(depths);
+    } else {
+      occurrence.outerBindingDepths = null;
+    }
+    myOuterBindingDepths = outerBindingDepths;
+    if (occurrence.outerBindingDepths != null) {
+      addOuterBindingDepths(occurrence.outerBindingDepths);
+    }
+
+    myPath.add(expr);
+    updateScope(occurrence, isFirst);
+    myPath.remove(myPath.size() - 1);
+    return result;
+  }
+
+  private boolean isAbbreviated(Occurrence occurrence) {
+    return occurrence.number > 1 && occurrence.hasScope && occurrence.size >= MIN_ABBREVIATION_SIZE;
+  }
+
+  private Concrete.Expression convertSecond(Expression expr) {
+    Referable abbreviation = myAbbreviations.get(expr);
+    if (abbreviation != null) {
+      return cVar(abbreviation);
+    }
+
+    // A scope can occur inside itself if its expression is shared, so only the outermost occurrence defines abbreviations
+    boolean isScope = myScopes.containsKey(expr) && myScopes.get(expr) == null;
+    if (isScope) {
+      myScopes.put(expr, new Scope());
+    }
+    Concrete.Expression result = visit(expr);
+    if (isScope) {
+      Scope scope = myScopes.put(expr, null);
+      for (Expression abbreviated : scope.abbreviated) {
+        myAbbreviations.remove(abbreviated);
+      }
+      if (!scope.clauses.isEmpty()) {
+        result = cLet(scope.clauses, result);
+      }
+    }
+
+    Occurrence occurrence = myOccurrences.get(expr);
+    if (myAbbreviate && occurrence != null && isAbbreviated(occurrence)) {
+      Scope scope = occurrence.scope == null ? myTopScope : myScopes.get(occurrence.scope);
+      if (scope != null) {
+        abbreviation = ref(getFreshName(ABBREVIATION_NAME));
+        scope.clauses.add(clet(abbreviation, result));
+        scope.abbreviated.add(expr);
+        myAbbreviations.put(expr, abbreviation);
+        return cVar(abbreviation);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  Set<Variable> getFreeVariables(Binding binding) {
+    return Collections.emptySet();
+  }
+
+  @Override
+  ParsedLocalReferable makeLocalReference(Binding var, Set<Variable> freeVars, boolean genName) {
+    if (myFirstPass) {
+      myBindingDepths.put(var, myDepth - 1);
+    } else if (!genName && myBindingDepths.containsKey(var) && !myUsedBindings.contains(var)) {
+      return null;
+    }
+
+    ParsedLocalReferable reference = ref(getFreshName(var.getName()));
+    myNames.put(var, reference);
+    return reference;
+  }
+
+  @Override
+  public Concrete.Expression visitReference(ReferenceExpression expr, Void params) {
+    Binding binding = expr.getBinding();
+    if (myFirstPass) {
+      myUsedBindings.add(binding);
+      Integer depth = myBindingDepths.get(binding);
+      if (depth != null) {
+        addOuterBindingDepths(Collections.singleton(depth));
+      }
+    }
+
+    Referable referable = myNames.get(binding);
+    if (referable == null) {
+      if (myFirstPass) {
+        myFreeBindings.add(binding);
+      }
+      referable = ref(getFreshName(binding.getName()));
+      myNames.put(binding, referable);
+    }
+    return cVar(referable);
+  }
+
+  @Override
+  Concrete.ReferenceExpression makeReference(Definition definition) {
+    if (myFirstPass) {
+      myDefinitionNames.add(definition.getName());
+    }
+    return super.makeReference(definition);
+  }
+}
@@ -16,6 +16,7 @@ import org.arend.core.sort.Sort;
 import org.arend.core.subst.ExprSubstitution;
 import org.arend.prelude.Prelude;
 import org.arend.term.concrete.Concrete;
+import org.arend.typechecking.TypecheckingProfiler;
 import org.arend.typechecking.error.local.GoalError;
 import org.arend.typechecking.implicitargs.equations.DummyEquations;
 import org.arend.typechecking.implicitargs.equations.Equations;
@@ -30,6 +31,7 @@ public class CompareVisitor extends BaseExpressionVisitor<Expression, Boolean> {
   private Equations.CMP myCMP;
 
   public CompareVisitor(Equations equations, Equations.CMP cmp, Concrete.SourceNode sourceNode) {
+    TypecheckingProfiler.countComparison();
     mySubstitution = new HashMap<>();
     myEquations = equations;
     mySourceNode = sourceNode;
@@ -183,7 +185,23 @@ public class CompareVisitor extends BaseExpressionVisitor<Expression, Boolean> {
     return (variable1 != null || variable2 != null) && myEquations.addEquation(expr1, expr2.subst(getSubstitution()), origCMP, variable1 != null ? variable1.getSourceNode() : variable2.getSourceNode(), variable1, variable2);
   }
 
+  private Boolean structuralCompare(Expression expr1, Expression expr2) {
+    int hash1 = expr1.getStructuralHash();
+    int hash2 = expr2.getStructuralHash();
+    if (!StructuralHashVisitor.isHashable(hash1) || !StructuralHashVisitor.isHashable(hash2)) {
+      return null;
+    }
+    if (hash1 == hash2) {
+      return StructuralHashVisitor.isIdentical(expr1, expr2, mySubstitution) ? true : null;
+    }
+    return StructuralHashVisitor.isRigid(hash1) && StructuralHashVisitor.isRigid(hash2) ? false : null;
+  }
+
   public Boolean compare(Expression expr1, Expression expr2) {
+    Boolean result = structuralCompare(expr1, expr2);
+    if (result != null) {
+      return result;
+    }
     return nonNormalizingCompare(expr1, expr2) || normalizedCompare(expr1.normalize(NormalizeVisitor.Mode.WHNF), expr2.normalize(NormalizeVisitor.Mode.WHNF));
   }
 
@@ -0,0 +1,383 @@
+package org.arend.core.expr.visitor;
+
+import org.arend.core.context.binding.Binding;
+import org.arend.core.context.param.DependentLink;
+import org.arend.core.context.param.SingleDependentLink;
+import org.arend.core.definition.Constructor;
+import org.arend.core.definition.Definition;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.elimtree.BranchElimTree;
+import org.arend.core.elimtree.ElimTree;
+import org.arend.core.elimtree.LeafElimTree;
+import org.arend.core.expr.*;
+import org.arend.core.subst.ExprSubstitution;
+import org.arend.core.subst.LevelSubstitution;
+import org.arend.core.subst.SubstVisitor;
+import org.arend.prelude.Prelude;
+import org.arend.typechecking.ComputationBudget;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Computes weak head normal forms without substituting arguments into bodies of lambdas, functions and case expressions.
+ * A body is evaluated in an environment which maps its parameters to unevaluated arguments (closures),
+ * and the result is read back to an expression only once, when its head cannot be reduced further.
+ * Arguments are evaluated at most once, when they are matched against patterns.
+ * Expressions which are not handled here (such as coercions, arithmetic on integers, interval eliminators and field calls)
+ * are read back and normalized by {@link NormalizeVisitor}.
+ *
+ * {@link NormalizeVisitor} uses this normalizer if it is enabled on the current thread (see {@link #install}).
+ * Typechecking enables it for every unit if it is enabled on the typechecking listener.
+ */
+public class EnvironmentNormalizer {
+  private static final ThreadLocal<Boolean> ENABLED = new ThreadLocal<>();
+
+  private EnvironmentNormalizer() {
+  }
+
+  /**
+   * @return true if this normalizer is enabled on the current thread.
+   */
+  public static boolean isEnabled() {
+    return ENABLED.get() != null;
+  }
+
+  /**
+   * Enables or disables this normalizer on the current thread.
+   *
+   * @return true if it was enabled before; the previous state should be restored afterwards.
+   */
+  public static boolean install(boolean enabled) {
+    boolean previous = isEnabled();
+    if (enabled) {
+      ENABLED.set(Boolean.TRUE);
+    } else {
+      ENABLED.remove();
+    }
+    return previous;
+  }
+
+  /**
+   * Computes the weak head normal form of an expression.
+   *
+   * @return the weak head normal form of {@code expr} or null if {@code expr} cannot be reduced by this normalizer.
+   */
+  public static Expression normalize(Expression expr) {
+    Closure result = new EnvironmentNormalizer().whnf(expr, Environment.EMPTY, true);
+    return result == null ? null : result.readBack();
+  }
+
+  private static class Environment {
+    static final Environment EMPTY = new Environment(LevelSubstitution.EMPTY);
+
+    private final Environment myParent;
+    private final Binding myBinding;
+    private final Closure myClosure;
+    private final LevelSubstitution myLevelSubstitution;
+
+    Environment(LevelSubstitution levelSubstitution) {
+      myParent = null;
+      myBinding = null;
+      myClosure = null;
+      myLevelSubstitution = levelSubstitution;
+    }
+
+    private Environment(Environment parent, Binding binding, Closure closure) {
+      myParent = parent;
+      myBinding = binding;
+      myClosure = closure;
+      myLevelSubstitution = parent.myLevelSubstitution;
+    }
+
+    Environment extend(Binding binding, Closure closure) {
+      return new Environment(this, binding, closure);
+    }
+
+    Closure lookup(Binding binding) {
+      for (Environment env = this; env.myParent != null; env = env.myParent) {
+        if (env.myBinding == binding) {
+          return env.myClosure;
+        }
+      }
+      return null;
+    }
+
+    Expression readBack(Expression expr) {
+      return myParent == null && myLevelSubstitution.isEmpty() ? expr : expr.subst(new ReadBackVisitor(this));
+    }
+  }
+
+  private static class Closure {
+    final Expression term;
+    final Environment environment;
+    private Expression myExpression;
+    private Closure myWHNF;
+
+    Closure(Expression term, Environment environment) {
+      this.term = term;
+      this.environment = environment;
+    }
+
+    Expression readBack() {
+      if (myExpression == null) {
+        myExpression = environment.readBack(term);
+      }
+      return myExpression;
+    }
+  }
+
+  /**
+   * Substitutes closures from an environment.
+   * Closures are read back only if they are actually referred to.
+   */
+  private static class ReadBackVisitor extends SubstVisitor {
+    private final Environment myEnvironment;
+
+    ReadBackVisitor(Environment environment) {
+      super(new ExprSubstitution(), environment.myLevelSubstitution);
+      myEnvironment = environment;
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return false;
+    }
+
+    @Override
+    public Expression visitReference(ReferenceExpression expr, Void params) {
+      Expression result = getExprSubstitution().get(expr.getBinding());
+      if (result != null) {
+        return result;
+      }
+      Closure closure = myEnvironment.lookup(expr.getBinding());
+      return closure != null ? closure.readBack() : expr;
+    }
+  }
+
+  private Closure force(Closure closure) {
+    if (closure.myWHNF == null) {
+      closure.myWHNF = whnf(closure.term, closure.environment, false);
+    }
+    return closure.myWHNF;
+  }
+
+  /**
+   * Evaluates {@code expr} in {@code env}.
+   *
+   * @param isTop if true, null is returned when {@code expr} cannot be reduced by this normalizer.
+   *
+   * @return a closure whose term is in weak head normal form.
+   */
+  private Closure whnf(Expression expr, Environment env, boolean isTop) {
+    List<Closure> spine = new ArrayList<>();
+    boolean progress = false;
+
+    while (true) {
+      if (expr instanceof InferenceReferenceExpression && ((InferenceReferenceExpression) expr).getSubstExpression() != null) {
+        expr = ((InferenceReferenceExpression) expr).getSubstExpression();
+        continue;
+      }
+      if (expr instanceof OfTypeExpression) {
+        expr = ((OfTypeExpression) expr).getExpression();
+        continue;
+      }
+
+      if (expr instanceof AppExpression) {
+        spine.add(new Closure(((AppExpression) expr).getArgument(), env));
+        expr = ((AppExpression) expr).getFunction();
+        continue;
+      }
+
+      if (expr instanceof ReferenceExpression) {
+        Binding binding = ((ReferenceExpression) expr).getBinding();
+        Closure closure = env.lookup(binding);
+        if (closure != null) {
+          Closure value = force(closure);
+          if (spine.isEmpty()) {
+            return value;
+          }
+          expr = value.term;
+          env = value.environment;
+          continue;
+        }
+        if (binding instanceof LetClause) {
+          expr = ((LetClause) binding).getExpression();
+          env = Environment.EMPTY;
+          progress = true;
+          continue;
+        }
+        return value(expr, env, spine, isTop && !progress);
+      }
+
+      if (expr instanceof LamExpression) {
+        if (spine.isEmpty()) {
+          return isTop && !progress ? null : new Closure(expr, env);
+        }
+
+        LamExpression lamExpr = (LamExpression) expr;
+        SingleDependentLink link = lamExpr.getParameters();
+        for (; link.hasNext() && !spine.isEmpty(); link = link.getNext()) {
+          env = env.extend(link, spine.remove(spine.size() - 1));
+        }
+        expr = link.hasNext() ? new LamExpression(lamExpr.getResultSort(), link, lamExpr.getBody()) : lamExpr.getBody();
+        progress = true;
+        continue;
+      }
+
+      if (expr instanceof LetExpression) {
+        for (LetClause clause : ((LetExpression) expr).getClauses()) {
+          env = env.extend(clause, new Closure(clause.getExpression(), env));
+        }
+        expr = ((LetExpression) expr).getExpression();
+        progress = true;
+        continue;
+      }
+
+      if (expr instanceof CaseExpression) {
+        CaseExpression caseExpr = (CaseExpression) expr;
+        Closure result = eval(caseExpr.getElimTree(), caseExpr.getArguments(), env, env);
+        if (result == null) {
+          return value(expr, env, spine, isTop && !progress);
+        }
+        expr = result.term;
+        env = result.environment;
+        progress = true;
+        continue;
+      }
+
+      if (expr instanceof ProjExpression) {
+        Closure tuple = force(new Closure(((ProjExpression) expr).getExpression(), env));
+        if (!(tuple.term instanceof TupleExpression)) {
+          if (isTop && !progress) {
+            return null;
+          }
+          return value(ProjExpression.make(tuple.readBack(), ((ProjExpression) expr).getField()), Environment.EMPTY, spine, false);
+        }
+        expr = ((TupleExpression) tuple.term).getFields().get(((ProjExpression) expr).getField());
+        env = tuple.environment;
+        progress = true;
+        continue;
+      }
+
+      if (expr instanceof FunCallExpression) {
+        FunCallExpression funCall = (FunCallExpression) expr;
+        FunctionDefinition definition = funCall.getDefinition();
+        if (!definition.status().bodyIsOK() || definition.getBody() == null) {
+          return value(expr, env, spine, isTop && !progress);
+        }
+        if (!(definition.getBody() instanceof ElimTree) || definition == Prelude.COERCE || definition == Prelude.PLUS || definition == Prelude.MUL || definition == Prelude.MINUS) {
+          return fallback(expr, env, spine, isTop && !progress);
+        }
+
+        Environment funEnv = new Environment(funCall.getSortArgument().subst(env.myLevelSubstitution).toLevelSubstitution());
+        Closure result = eval((ElimTree) definition.getBody(), funCall.getDefCallArguments(), env, funEnv);
+        ComputationBudget.step();
+        if (result == null) {
+          return value(expr, env, spine, isTop && !progress);
+        }
+        expr = result.term;
+        env = result.environment;
+        progress = true;
+        continue;
+      }
+
+      if (expr instanceof FieldCallExpression || expr instanceof ConCallExpression && ((ConCallExpression) expr).getDefinition().getBody() != null) {
+        Definition definition = ((DefCallExpression) expr).getDefinition();
+        if (definition.status().bodyIsOK()) {
+          return fallback(expr, env, spine, isTop && !progress);
+        }
+      }
+
+      return value(expr, env, spine, isTop && !progress);
+    }
+  }
+
+  private Closure value(Expression expr, Environment env, List<Closure> spine, boolean noProgress) {
+    if (noProgress) {
+      return null;
+    }
+    if (spine.isEmpty()) {
+      return new Closure(expr, env);
+    }
+    return new Closure(applySpine(env.readBack(expr), spine), Environment.EMPTY);
+  }
+
+  private Closure fallback(Expression expr, Environment env, List<Closure> spine, boolean noProgress) {
+    if (noProgress) {
+      return null;
+    }
+    return new Closure(applySpine(env.readBack(expr), spine).accept(NormalizeVisitor.INSTANCE, NormalizeVisitor.Mode.WHNF), Environment.EMPTY);
+  }
+
+  private static Expression applySpine(Expression expr, List<Closure> spine) {
+    for (int i = spine.size() - 1; i >= 0; i--) {
+      expr = AppExpression.make(expr, spine.get(i).readBack());
+    }
+    return expr;
+  }
+
+  /**
+   * Matches arguments against an elimination tree.
+   *
+   * @param arguments     arguments which are evaluated in {@code argumentsEnv}.
+   * @param env           the environment of the elimination tree; its parameters extend it.
+   *
+   * @return the body of the matching leaf together with its environment or null if the evaluation is stuck.
+   */
+  private Closure eval(ElimTree elimTree, List<? extends Expression> arguments, Environment argumentsEnv, Environment env) {
+    List<Closure> stack = new ArrayList<>(arguments.size());
+    for (int i = arguments.size() - 1; i >= 0; i--) {
+      stack.add(new Closure(arguments.get(i), argumentsEnv));
+    }
+
+    while (true) {
+      for (DependentLink link = elimTree.getParameters(); link.hasNext(); link = link.getNext()) {
+        env = env.extend(link, stack.remove(stack.size() - 1));
+      }
+      if (elimTree instanceof LeafElimTree) {
+        return new Closure(((LeafElimTree) elimTree).getExpression(), env);
+      }
+
+      Closure argument = force(stack.get(stack.size() - 1));
+      Expression argExpr = argument.term;
+      ConCallExpression conCall = argExpr.checkedCast(ConCallExpression.class);
+      Constructor constructor = conCall == null ? null : conCall.getDefinition();
+      if (constructor == null) {
+        IntegerExpression intExpr = argExpr.checkedCast(IntegerExpression.class);
+        if (intExpr != null) {
+          constructor = intExpr.isZero() ? Prelude.ZERO : Prelude.SUC;
+        }
+      }
+      boolean isPatternMatching = constructor != null || argExpr.isInstance(TupleExpression.class) || argExpr.isInstance(NewExpression.class);
+      elimTree = constructor == null && isPatternMatching ? ((BranchElimTree) elimTree).getTupleChild() : ((BranchElimTree) elimTree).getChild(constructor);
+      if (elimTree == null) {
+        return null;
+      }
+
+      if (isPatternMatching) {
+        stack.remove(stack.size() - 1);
+
+        List<? extends Expression> args;
+        Environment argEnv = argument.environment;
+        if (constructor != null) {
+          if (conCall != null) {
+            args = conCall.getDefCallArguments();
+          } else {
+            args = constructor == Prelude.ZERO ? Collections.emptyList() : Collections.singletonList(argExpr.cast(IntegerExpression.class).pred());
+            argEnv = Environment.EMPTY;
+          }
+        } else if (argExpr.isInstance(TupleExpression.class)) {
+          args = argExpr.cast(TupleExpression.class).getFields();
+        } else {
+          args = argExpr.cast(NewExpression.class).getExpression().getImplementedHereList();
+        }
+
+        for (int i = args.size() - 1; i >= 0; i--) {
+          stack.add(new Closure(args.get(i), argEnv));
+        }
+      }
+    }
+  }
+}
@@ -10,8 +10,7 @@ import org.arend.core.subst.ExprSubstitution;
 import org.arend.core.subst.LevelSubstitution;
 import org.arend.core.subst.SubstVisitor;
 import org.arend.prelude.Prelude;
-import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
-import org.arend.util.ComputationInterruptedException;
+import org.arend.typechecking.ComputationBudget;
 
 import java.util.*;
 
@@ -25,6 +24,11 @@ public class NormalizeVisitor extends BaseExpressionVisitor<NormalizeVisitor.Mod
 
   @Override
   public Expression visitApp(AppExpression expr, Mode mode) {
+    Expression result = normalizeInEnvironment(expr, mode);
+    if (result != null) {
+      return result;
+    }
+
     List<Expression> args = new ArrayList<>();
     Expression function = expr;
     while (function.isInstance(AppExpression.class)) {
@@ -46,6 +50,14 @@ public class NormalizeVisitor extends BaseExpressionVisitor<NormalizeVisitor.Mod
     return function;
   }
 
+  private Expression normalizeInEnvironment(Expression expr, Mode mode) {
+    if (mode == Mode.RNF || !EnvironmentNormalizer.isEnabled()) {
+      return null;
+    }
+    Expression result = EnvironmentNormalizer.normalize(expr);
+    return result == null || mode == Mode.WHNF ? result : result.accept(this, mode);
+  }
+
   private Expression normalizeLam(LamExpression fun, List<? extends Expression> arguments) {
     int i = 0;
     SingleDependentLink link = fun.getParameters();
@@ -204,23 +216,53 @@ public class NormalizeVisitor extends BaseExpressionVisitor<NormalizeVisitor.Mod
 
     Expression result = eval(elimTree, defCallArgs, getDataTypeArgumentsSubstitution(expr), levelSubstitution);
 
-    if (TypecheckingOrderingListener.CANCELLATION_INDICATOR.isCanceled()) {
-      throw new ComputationInterruptedException();
-    }
+    ComputationBudget.step();
 
     return result == null ? applyDefCall(expr, mode) : result.accept(this, mode);
   }
 
-  private Stack<Expression> makeStack(List<? extends Expression> arguments) {
-    Stack<Expression> stack = new Stack<>();
-    for (int i = arguments.size() - 1; i >= 0; i--) {
-      stack.push(arguments.get(i));
+  /**
+   * An unsynchronized stack of arguments which are matched against an elimination tree; the next argument is on the top.
+   */
+  private static final class ArgumentStack {
+    private Expression[] myArguments;
+    private int mySize;
+
+    ArgumentStack(List<? extends Expression> arguments) {
+      mySize = arguments.size();
+      myArguments = new Expression[Math.max(mySize, 4)];
+      for (int i = 0; i < mySize; i++) {
+        myArguments[mySize - 1 - i] = arguments.get(i);
+      }
+    }
+
+    boolean isEmpty() {
+      return mySize == 0;
+    }
+
+    Expression peek() {
+      return myArguments[mySize - 1];
+    }
+
+    Expression pop() {
+      Expression result = myArguments[--mySize];
+      myArguments[mySize] = null;
+      return result;
+    }
+
+    void pushAll(List<? extends Expression> arguments) {
+      int size = arguments.size();
+      if (mySize + size > myArguments.length) {
+        myArguments = Arrays.copyOf(myArguments, Math.max(mySize + size, myArguments.length * 2));
+      }
+      for (int i = size - 1; i >= 0; i--) {
+        myArguments[mySize++] = arguments.get(i);
+      }
     }
-    return stack;
   }
 
   public Expression eval(ElimTree elimTree, List<? extends Expression> arguments, ExprSubstitution substitution, LevelSubstitution levelSubstitution) {
-    Stack<Expression> stack = makeStack(arguments);
+    ArgumentStack stack = new ArgumentStack(arguments);
 
     while (true) {
       for (DependentLink link = elimTree.getParameters(); link.hasNext(); link = link.getNext()) {
@@ -238,7 +280,7 @@ public class NormalizeVisitor extends BaseExpressionVisitor<NormalizeVisitor.Mod
   }
 
   public boolean doesEvaluate(ElimTree elimTree, List<? extends Expression> arguments, boolean might) {
-    Stack<Expression> stack = makeStack(arguments);
+    ArgumentStack stack = new ArgumentStack(arguments);
 
     while (true) {
       for (DependentLink link = elimTree.getParameters(); link.hasNext(); link = link.getNext()) {
@@ -262,7 +304,7 @@ public class NormalizeVisitor extends BaseExpressionVisitor<NormalizeVisitor.Mod
     }
   }
 
-  private ElimTree updateStack(Stack<Expression> stack, ElimTree elimTree) {
+  private ElimTree updateStack(ArgumentStack stack, ElimTree elimTree) {
     Expression argument = stack.peek().accept(this, Mode.WHNF);
     ConCallExpression conCall = argument.checkedCast(ConCallExpression.class);
     Constructor constructor = conCall == null ? null : conCall.getDefinition();
@@ -294,9 +336,7 @@ public class NormalizeVisitor extends BaseExpressionVisitor<NormalizeVisitor.Mod
         args = argument.cast(NewExpression.class).getExpression().getImplementedHereList();
       }
 
-      for (int i = args.size() - 1; i >= 0; i--) {
-        stack.push(args.get(i));
-      }
+      stack.pushAll(args);
     }
 
     return elimTree;
@@ -340,12 +380,32 @@ public class NormalizeVisitor extends BaseExpressionVisitor<NormalizeVisitor.Mod
     }
 
     if (expr.getDefinition() instanceof Function) {
-      return visitDefCall(expr, expr.getSortArgument().toLevelSubstitution(), mode);
+      WhnfCache cache = mode == Mode.WHNF && expr instanceof FunCallExpression ? WhnfCache.getCurrent() : null;
+      if (cache == null) {
+        return evalFunction(expr, mode);
+      }
+
+      Expression result = cache.get((FunCallExpression) expr);
+      if (result == null) {
+        result = evalFunction(expr, mode);
+        cache.put((FunCallExpression) expr, result);
+      }
+      return result;
     }
 
     return applyDefCall(expr, mode);
   }
 
+  private Expression evalFunction(DefCallExpression expr, Mode mode) {
+    if (expr instanceof FunCallExpression) {
+      Expression result = normalizeInEnvironment(expr, mode);
+      if (result != null) {
+        return result;
+      }
+    }
+    return visitDefCall(expr, expr.getSortArgument().toLevelSubstitution(), mode);
+  }
+
   @Override
   public ClassCallExpression visitClassCall(ClassCallExpression expr, Mode mode) {
     if (mode == Mode.WHNF) return expr;
@@ -472,13 +532,22 @@ public class NormalizeVisitor extends BaseExpressionVisitor<NormalizeVisitor.Mod
       }
       return new LetExpression(newClauses, letExpression.getExpression().accept(this, mode).subst(substitution));
     } else {
+      Expression result = normalizeInEnvironment(letExpression, mode);
+      if (result != null) {
+        return result;
+      }
       return letExpression.getExpression().subst(letExpression.getClausesSubstitution()).accept(this, mode);
     }
   }
 
   @Override
   public Expression visitCase(CaseExpression expr, Mode mode) {
-    Expression result = eval(expr.getElimTree(), expr.getArguments(), new ExprSubstitution(), LevelSubstitution.EMPTY);
+    Expression result = normalizeInEnvironment(expr, mode);
+    if (result != null) {
+      return result;
+    }
+
+    result = eval(expr.getElimTree(), expr.getArguments(), new ExprSubstitution(), LevelSubstitution.EMPTY);
     if (result != null) {
       return result.accept(this, mode);
     }
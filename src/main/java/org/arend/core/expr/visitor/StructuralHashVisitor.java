@@ -0,0 +1,320 @@
+package org.arend.core.expr.visitor;
+
+import org.arend.core.context.binding.Binding;
+import org.arend.core.context.param.DependentLink;
+import org.arend.core.definition.Constructor;
+import org.arend.core.definition.DataDefinition;
+import org.arend.core.expr.*;
+import org.arend.core.expr.type.Type;
+import org.arend.core.sort.Level;
+import org.arend.core.sort.Sort;
+import org.arend.prelude.Prelude;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes structural hashes of expressions which are cached by {@link Expression#getStructuralHash}.
+ * Hashes do not depend on names and identities of bound variables and on sort arguments,
+ * so syntactically identical expressions (up to renaming of bound variables) have equal hashes.
+ *
+ * A hash also records whether an expression is rigid, that is, built only from universes, integers,
+ * and calls of data types and constructors without conditions.
+ * Rigid expressions are in normal form, so rigid expressions with different hashes are not equal.
+ *
+ * Expressions which contain inference variables, class calls, errors and other mutable or non-syntactic subexpressions
+ * are not hashed (see {@link #isHashable}).
+ */
+public class StructuralHashVisitor implements ExpressionVisitor<Void, Integer> {
+  public static final StructuralHashVisitor INSTANCE = new StructuralHashVisitor();
+
+  private static final int COMPUTED = 1;
+  private static final int HASHABLE = 2;
+  private static final int RIGID = 4;
+  private static final int UNHASHABLE = COMPUTED;
+
+  private StructuralHashVisitor() { }
+
+  public static boolean isHashable(int hash) {
+    return (hash & HASHABLE) != 0;
+  }
+
+  public static boolean isRigid(int hash) {
+    return (hash & RIGID) != 0;
+  }
+
+  private static int make(int hash, boolean rigid) {
+    return hash << 3 | (rigid ? RIGID : 0) | HASHABLE | COMPUTED;
+  }
+
+  private static int combine(int hash, int subHash) {
+    return 31 * hash + (subHash >>> 3);
+  }
+
+  private static int hashArguments(int hash, List<? extends Expression> arguments) {
+    for (Expression argument : arguments) {
+      int argHash = argument.getStructuralHash();
+      if (!isHashable(argHash)) {
+        return UNHASHABLE;
+      }
+      hash = combine(hash, argHash);
+    }
+    return hash;
+  }
+
+  private static boolean isRigid(List<? extends Expression> arguments) {
+    for (Expression argument : arguments) {
+      if (!isRigid(argument.getStructuralHash())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int hashParameters(int hash, DependentLink parameters) {
+    for (DependentLink link = parameters; link.hasNext(); link = link.getNext()) {
+      Type type = link.getType();
+      int typeHash = type == null ? UNHASHABLE : type.getExpr().getStructuralHash();
+      if (!isHashable(typeHash)) {
+        return UNHASHABLE;
+      }
+      hash = combine(hash, typeHash) + (link.isExplicit() ? 1 : 0);
+    }
+    return hash;
+  }
+
+  private static Integer hashDefCall(int tag, DefCallExpression expr, boolean rigid) {
+    int hash = hashArguments(31 * tag + System.identityHashCode(expr.getDefinition()), expr.getDefCallArguments());
+    return hash == UNHASHABLE ? UNHASHABLE : make(hash, rigid && isRigid(expr.getDefCallArguments()));
+  }
+
+  @Override
+  public Integer visitApp(AppExpression expr, Void params) {
+    int funHash = expr.getFunction().getStructuralHash();
+    int argHash = expr.getArgument().getStructuralHash();
+    return isHashable(funHash) && isHashable(argHash) ? make(combine(combine(1, funHash), argHash), false) : UNHASHABLE;
+  }
+
+  @Override
+  public Integer visitFunCall(FunCallExpression expr, Void params) {
+    return hashDefCall(2, expr, false);
+  }
+
+  @Override
+  public Integer visitConCall(ConCallExpression expr, Void params) {
+    Constructor constructor = expr.getDefinition();
+    DataDefinition dataType = constructor.getDataType();
+    boolean rigid = constructor.getBody() == null && constructor.getNumberOfIntervalParameters() == 0 &&
+      dataType != Prelude.NAT && dataType != Prelude.INT && dataType != Prelude.INTERVAL && dataType != Prelude.PATH;
+    return hashDefCall(3, expr, rigid);
+  }
+
+  @Override
+  public Integer visitDataCall(DataCallExpression expr, Void params) {
+    return hashDefCall(4, expr, true);
+  }
+
+  @Override
+  public Integer visitFieldCall(FieldCallExpression expr, Void params) {
+    return hashDefCall(5, expr, false);
+  }
+
+  @Override
+  public Integer visitClassCall(ClassCallExpression expr, Void params) {
+    return UNHASHABLE;
+  }
+
+  @Override
+  public Integer visitReference(ReferenceExpression expr, Void params) {
+    return make(6, false);
+  }
+
+  @Override
+  public Integer visitInferenceReference(InferenceReferenceExpression expr, Void params) {
+    return UNHASHABLE;
+  }
+
+  @Override
+  public Integer visitLam(LamExpression expr, Void params) {
+    int hash = hashParameters(7, expr.getParameters());
+    int bodyHash = expr.getBody().getStructuralHash();
+    return hash != UNHASHABLE && isHashable(bodyHash) ? make(combine(hash, bodyHash), false) : UNHASHABLE;
+  }
+
+  @Override
+  public Integer visitPi(PiExpression expr, Void params) {
+    int hash = hashParameters(8, expr.getParameters());
+    int codomainHash = expr.getCodomain().getStructuralHash();
+    return hash != UNHASHABLE && isHashable(codomainHash) ? make(combine(hash, codomainHash), false) : UNHASHABLE;
+  }
+
+  @Override
+  public Integer visitSigma(SigmaExpression expr, Void params) {
+    int hash = hashParameters(9, expr.getParameters());
+    return hash != UNHASHABLE ? make(hash, false) : UNHASHABLE;
+  }
+
+  @Override
+  public Integer visitUniverse(UniverseExpression expr, Void params) {
+    return make(10, true);
+  }
+
+  @Override
+  public Integer visitError(ErrorExpression expr, Void params) {
+    return UNHASHABLE;
+  }
+
+  @Override
+  public Integer visitTuple(TupleExpression expr, Void params) {
+    int hash = hashArguments(11, expr.getFields());
+    return hash != UNHASHABLE && isHashable(expr.getSigmaType().getStructuralHash()) ? make(hash, false) : UNHASHABLE;
+  }
+
+  @Override
+  public Integer visitProj(ProjExpression expr, Void params) {
+    int exprHash = expr.getExpression().getStructuralHash();
+    return isHashable(exprHash) ? make(combine(12 + 31 * expr.getField(), exprHash), false) : UNHASHABLE;
+  }
+
+  @Override
+  public Integer visitNew(NewExpression expr, Void params) {
+    return UNHASHABLE;
+  }
+
+  @Override
+  public Integer visitLet(LetExpression expr, Void params) {
+    return UNHASHABLE;
+  }
+
+  @Override
+  public Integer visitCase(CaseExpression expr, Void params) {
+    return UNHASHABLE;
+  }
+
+  @Override
+  public Integer visitOfType(OfTypeExpression expr, Void params) {
+    return UNHASHABLE;
+  }
+
+  @Override
+  public Integer visitInteger(IntegerExpression expr, Void params) {
+    int value = expr instanceof SmallIntegerExpression ? ((SmallIntegerExpression) expr).getInteger() : expr.getBigInteger().hashCode();
+    return make(31 * 13 + value, true);
+  }
+
+  /**
+   * Checks that two hashable expressions are syntactically identical up to renaming of bound variables.
+   *
+   * @param substitution  maps free variables of {@code expr2} to the corresponding variables of {@code expr1}.
+   */
+  public static boolean isIdentical(Expression expr1, Expression expr2, Map<Binding, Binding> substitution) {
+    return new IdentityChecker(substitution).check(expr1, expr2);
+  }
+
+  private static class IdentityChecker {
+    private final Map<Binding, Binding> mySubstitution;
+    private Map<Binding, Binding> myBound;
+
+    IdentityChecker(Map<Binding, Binding> substitution) {
+      mySubstitution = substitution;
+    }
+
+    boolean check(Expression expr1, Expression expr2) {
+      if (expr1.getClass() != expr2.getClass() || expr1.getStructuralHash() != expr2.getStructuralHash()) {
+        return false;
+      }
+
+      if (expr1 instanceof AppExpression) {
+        AppExpression app1 = (AppExpression) expr1;
+        AppExpression app2 = (AppExpression) expr2;
+        return check(app1.getFunction(), app2.getFunction()) && check(app1.getArgument(), app2.getArgument());
+      }
+      if (expr1 instanceof DefCallExpression) {
+        DefCallExpression defCall1 = (DefCallExpression) expr1;
+        DefCallExpression defCall2 = (DefCallExpression) expr2;
+        if (defCall1.getDefinition() != defCall2.getDefinition() || !checkSort(defCall1.getSortArgument(), defCall2.getSortArgument())) {
+          return false;
+        }
+        if (defCall1 instanceof ConCallExpression && !checkList(((ConCallExpression) defCall1).getDataTypeArguments(), ((ConCallExpression) defCall2).getDataTypeArguments())) {
+          return false;
+        }
+        return checkList(defCall1.getDefCallArguments(), defCall2.getDefCallArguments());
+      }
+      if (expr1 instanceof ReferenceExpression) {
+        Binding binding1 = ((ReferenceExpression) expr1).getBinding();
+        Binding binding2 = ((ReferenceExpression) expr2).getBinding();
+        Binding bound = myBound == null ? null : myBound.get(binding2);
+        if (bound == null) {
+          bound = mySubstitution.get(binding2);
+        }
+        return (bound == null ? binding2 : bound) == binding1;
+      }
+      if (expr1 instanceof LamExpression) {
+        LamExpression lam1 = (LamExpression) expr1;
+        LamExpression lam2 = (LamExpression) expr2;
+        return checkSort(lam1.getResultSort(), lam2.getResultSort()) && checkParameters(lam1.getParameters(), lam2.getParameters()) && check(lam1.getBody(), lam2.getBody());
+      }
+      if (expr1 instanceof PiExpression) {
+        PiExpression pi1 = (PiExpression) expr1;
+        PiExpression pi2 = (PiExpression) expr2;
+        return checkSort(pi1.getResultSort(), pi2.getResultSort()) && checkParameters(pi1.getParameters(), pi2.getParameters()) && check(pi1.getCodomain(), pi2.getCodomain());
+      }
+      if (expr1 instanceof SigmaExpression) {
+        SigmaExpression sigma1 = (SigmaExpression) expr1;
+        SigmaExpression sigma2 = (SigmaExpression) expr2;
+        return checkSort(sigma1.getSort(), sigma2.getSort()) && checkParameters(sigma1.getParameters(), sigma2.getParameters());
+      }
+      if (expr1 instanceof UniverseExpression) {
+        return checkSort(((UniverseExpression) expr1).getSort(), ((UniverseExpression) expr2).getSort());
+      }
+      if (expr1 instanceof TupleExpression) {
+        TupleExpression tuple1 = (TupleExpression) expr1;
+        TupleExpression tuple2 = (TupleExpression) expr2;
+        return check(tuple1.getSigmaType(), tuple2.getSigmaType()) && checkList(tuple1.getFields(), tuple2.getFields());
+      }
+      if (expr1 instanceof ProjExpression) {
+        ProjExpression proj1 = (ProjExpression) expr1;
+        ProjExpression proj2 = (ProjExpression) expr2;
+        return proj1.getField() == proj2.getField() && check(proj1.getExpression(), proj2.getExpression());
+      }
+      if (expr1 instanceof IntegerExpression) {
+        return ((IntegerExpression) expr1).isEqual((IntegerExpression) expr2);
+      }
+      return false;
+    }
+
+    private boolean checkList(List<? extends Expression> list1, List<? extends Expression> list2) {
+      if (list1.size() != list2.size()) {
+        return false;
+      }
+      for (int i = 0; i < list1.size(); i++) {
+        if (!check(list1.get(i), list2.get(i))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private boolean checkParameters(DependentLink link1, DependentLink link2) {
+      for (; link1.hasNext() && link2.hasNext(); link1 = link1.getNext(), link2 = link2.getNext()) {
+        if (link1.isExplicit() != link2.isExplicit() || !check(link1.getTypeExpr(), link2.getTypeExpr())) {
+          return false;
+        }
+        if (myBound == null) {
+          myBound = new HashMap<>();
+        }
+        myBound.put(link2, link1);
+      }
+      return link1.hasNext() == link2.hasNext();
+    }
+
+    private static boolean checkSort(Sort sort1, Sort sort2) {
+      return sort1 == sort2 || checkLevel(sort1.getPLevel(), sort2.getPLevel()) && checkLevel(sort1.getHLevel(), sort2.getHLevel());
+    }
+
+    private static boolean checkLevel(Level level1, Level level2) {
+      return level1 == level2 || level1.getVar() == level2.getVar() && level1.getConstant() == level2.getConstant() && level1.getMaxConstant() == level2.getMaxConstant() && level1.isInfinity() == level2.isInfinity();
+    }
+  }
+}
@@ -20,6 +20,7 @@ import org.arend.naming.reference.NamedUnresolvedReference;
 import org.arend.naming.reference.Referable;
 import org.arend.prelude.Prelude;
 import org.arend.term.concrete.Concrete;
+import org.arend.term.prettyprint.PrettyPrinterConfig;
 import org.arend.typechecking.error.local.GoalError;
 import org.arend.typechecking.patternmatching.Util;
 
@@ -32,14 +33,30 @@ public class ToAbstractVisitor extends BaseExpressionVisitor<Void, Concrete.Expr
 
   private final EnumSet<Flag> myFlags;
   private final CollectFreeVariablesVisitor myFreeVariablesCollector;
-  private final Map<Binding, Referable> myNames;
+  final Map<Binding, Referable> myNames;
+  private final int myMaxWidth;
 
-  private static final String unnamed = "unnamed";
+  static final String unnamed = "unnamed";
 
-  private ToAbstractVisitor(EnumSet<Flag> flags, CollectFreeVariablesVisitor collector, Map<Binding, Referable> names) {
+  ToAbstractVisitor(EnumSet<Flag> flags, CollectFreeVariablesVisitor collector, Map<Binding, Referable> names, int maxWidth) {
     myFlags = flags;
     myFreeVariablesCollector = collector;
     myNames = names;
+    myMaxWidth = maxWidth;
+  }
+
+  /**
+   * Converts an expression according to the configuration.
+   * If the configuration limits the depth or the width of expressions or asks to abbreviate shared subexpressions,
+   * the expression is converted by {@link BoundedToAbstractVisitor}.
+   */
+  public static Concrete.Expression convert(Expression expression, PrettyPrinterConfig ppConfig) {
+    if (ppConfig.getMaxDepth() > 0 || ppConfig.getMaxWidth() > 0 || ppConfig.abbreviateSharedSubexpressions()) {
+      return new BoundedToAbstractVisitor(ppConfig).convert(expression);
+    }
+
+    NormalizeVisitor.Mode mode = ppConfig.getNormalizationMode();
+    return convert(mode == null ? expression : expression.normalize(mode), ppConfig.getExpressionFlags());
   }
 
   public static Concrete.Expression convert(Expression expression, EnumSet<Flag> flags) {
@@ -47,7 +64,7 @@ public class ToAbstractVisitor extends BaseExpressionVisitor<Void, Concrete.Expr
     Set<Variable> variables = new HashSet<>();
     expression.accept(collector, variables);
     Map<Binding, Referable> names = new HashMap<>();
-    ToAbstractVisitor visitor = new ToAbstractVisitor(flags, collector, names);
+    ToAbstractVisitor visitor = new ToAbstractVisitor(flags, collector, names, 0);
     for (Variable variable : variables) {
       if (variable instanceof Binding) {
         names.put((Binding) variable, ref(visitor.getFreshName((Binding) variable, variables)));
@@ -57,7 +74,26 @@ public class ToAbstractVisitor extends BaseExpressionVisitor<Void, Concrete.Expr
   }
 
   public static Concrete.LevelExpression convert(Level level) {
-    return new ToAbstractVisitor(EnumSet.noneOf(Flag.class), null, Collections.emptyMap()).visitLevel(level);
+    return new ToAbstractVisitor(EnumSet.noneOf(Flag.class), null, Collections.emptyMap(), 0).visitLevel(level);
+  }
+
+  Concrete.Expression convertExpr(Expression expr) {
+    return expr.accept(this, null);
+  }
+
+  Set<Variable> getFreeVariables(Binding binding) {
+    return myFreeVariablesCollector.getFreeVariables(binding);
+  }
+
+  /**
+   * @return true if an element of a list with the given index should be replaced with an ellipsis.
+   */
+  private boolean isElided(int index) {
+    return myMaxWidth > 0 && index >= myMaxWidth;
+  }
+
+  static Concrete.Expression ellipsis() {
+    return cVar(ref("..."));
   }
 
   private String getFreshName(Binding binding, Set<Variable> variables) {
@@ -108,7 +144,7 @@ public class ToAbstractVisitor extends BaseExpressionVisitor<Void, Concrete.Expr
     return name;
   }
 
-  private static String getPrefix(String name) {
+  static String getPrefix(String name) {
     int i = name.length() - 1;
     while (Character.isDigit(name.charAt(i))) {
       i--;
@@ -126,7 +162,7 @@ public class ToAbstractVisitor extends BaseExpressionVisitor<Void, Concrete.Expr
 
   private Concrete.Pattern visitPattern(Pattern pattern, boolean isExplicit) {
     if (pattern instanceof BindingPattern) {
-      return cNamePattern(isExplicit, makeLocalReference(((BindingPattern) pattern).getBinding(), myFreeVariablesCollector.getFreeVariables(((BindingPattern) pattern).getBinding().getNextTyped(null)), false));
+      return cNamePattern(isExplicit, makeLocalReference(((BindingPattern) pattern).getBinding(), getFreeVariables(((BindingPattern) pattern).getBinding().getNextTyped(null)), false));
     }
     if (pattern instanceof EmptyPattern) {
       return cEmptyPattern(isExplicit);
@@ -159,7 +195,7 @@ public class ToAbstractVisitor extends BaseExpressionVisitor<Void, Concrete.Expr
     LamExpression expr1 = expr.getDefCallArguments().get(0).checkedCast(LamExpression.class);
     if (expr1 != null) {
       if (!expr1.getBody().findBinding(expr1.getParameters())) {
-        return cBinOp(expr.getDefCallArguments().get(1).accept(this, null), Prelude.PATH_INFIX.getReferable(), myFlags.contains(Flag.SHOW_IMPLICIT_ARGS) ? expr1.getBody().accept(this, null) : null, expr.getDefCallArguments().get(2).accept(this, null));
+        return cBinOp(convertExpr(expr.getDefCallArguments().get(1)), Prelude.PATH_INFIX.getReferable(), myFlags.contains(Flag.SHOW_IMPLICIT_ARGS) ? convertExpr(expr1.getBody()) : null, convertExpr(expr.getDefCallArguments().get(2)));
       }
     }
     return null;
@@ -175,10 +211,13 @@ public class ToAbstractVisitor extends BaseExpressionVisitor<Void, Concrete.Expr
     }
     Collections.reverse(args);
 
-    Concrete.Expression result = fun.accept(this, null);
+    Concrete.Expression result = convertExpr(fun);
     boolean[] isExplicit = new boolean[args.size()];
     getArgumentsExplicitness(fun, isExplicit);
     for (int index = 0; index < args.size(); index++) {
+      if (isElided(index)) {
+        return Concrete.AppExpression.make(null, result, ellipsis(), true);
+      }
       result = visitApp(result, args.get(index), isExplicit[index]);
     }
     return result;
@@ -196,7 +235,7 @@ public class ToAbstractVisitor extends BaseExpressionVisitor<Void, Concrete.Expr
   }
 
   private Concrete.Expression visitApp(Concrete.Expression function, Expression argument, boolean isExplicit) {
-    Concrete.Expression arg = isExplicit || myFlags.contains(Flag.SHOW_IMPLICIT_ARGS) ? argument.accept(this, null) : null;
+    Concrete.Expression arg = isExplicit || myFlags.contains(Flag.SHOW_IMPLICIT_ARGS) ? convertExpr(argument) : null;
     return arg != null ? Concrete.AppExpression.make(null, function, arg, isExplicit) : function;
   }
 
@@ -207,13 +246,17 @@ public class ToAbstractVisitor extends BaseExpressionVisitor<Void, Concrete.Expr
         arguments.add(new Concrete.Argument(new Concrete.ThisExpression(null, null), true));
       }
     } else {
-      arguments.add(new Concrete.Argument(arg.accept(this, null), isExplicit));
+      arguments.add(new Concrete.Argument(convertExpr(arg), isExplicit));
     }
   }
 
   private Concrete.Expression visitParameters(Concrete.Expression expr, DependentLink parameters, List<? extends Expression> arguments) {
     List<Concrete.Argument> concreteArguments = new ArrayList<>(arguments.size());
     for (Expression arg : arguments) {
+      if (isElided(concreteArguments.size())) {
+        concreteArguments.add(new Concrete.Argument(ellipsis(), true));
+        break;
+      }
       if (parameters.isExplicit() || !myFlags.contains(Flag.SHOW_IMPLICIT_ARGS)) {
         visitArgument(arg, parameters.isExplicit(), concreteArguments);
       }
@@ -226,21 +269,25 @@ public class ToAbstractVisitor extends BaseExpressionVisitor<Void, Concrete.Expr
     return cVar(referable == null ? new NamedUnresolvedReference(null, "\\this") : referable);
   }
 
+  Concrete.ReferenceExpression makeReference(Definition definition) {
+    return makeReference(definition.getReferable());
+  }
+
   @Override
   public Concrete.Expression visitDefCall(DefCallExpression expr, Void params) {
-    return visitParameters(makeReference(expr.getDefinition().getReferable()), expr.getDefinition().getParameters(), expr.getDefCallArguments());
+    return visitParameters(makeReference(expr.getDefinition()), expr.getDefinition().getParameters(), expr.getDefCallArguments());
   }
 
   @Override
   public Concrete.Expression visitFieldCall(FieldCallExpression expr, Void params) {
-    Concrete.ReferenceExpression result = makeReference(expr.getDefinition().getReferable());
+    Concrete.ReferenceExpression result = makeReference(expr.getDefinition());
     if (myFlags.contains(Flag.SHOW_FIELD_INSTANCE)) {
       ReferenceExpression refExpr = expr.getArgument().checkedCast(ReferenceExpression.class);
       if (refExpr != null && refExpr.getBinding().isHidden()) {
         return result;
       }
 
-      Concrete.Expression arg = expr.getArgument().accept(this, null);
+      Concrete.Expression arg = convertExpr(expr.getArgument());
       if (myFlags.contains(Flag.SHOW_TYPES_IN_LAM) && arg instanceof Concrete.ReferenceExpression) {
         return new Concrete.ReferenceExpression(null, ref(((Concrete.ReferenceExpression) arg).getReferent().textRepresentation() + "." + result.getReferent().textRepresentation()));
       } else {
@@ -252,7 +299,7 @@ public class ToAbstractVisitor extends BaseExpressionVisitor<Void, Concrete.Expr
 
   @Override
   public Concrete.Expression visitConCall(ConCallExpression expr, Void params) {
-    Concrete.Expression result = makeReference(expr.getDefinition().getReferable());
+    Concrete.Expression result = makeReference(expr.getDefinition());
     if (expr.getDefinition().status().headerIsOK() && myFlags.contains(Flag.SHOW_CON_PARAMS)) {
       List<Concrete.Argument> arguments = new ArrayList<>(expr.getDataTypeArguments().size());
       for (Expression arg : expr.getDataTypeArguments()) {
@@ -281,7 +328,7 @@ public class ToAbstractVisitor extends BaseExpressionVisitor<Void, Concrete.Expr
         if (canBeArgument && field.getReferable().isParameterField()) {
           visitArgument(implementation, field.getReferable().isExplicitField(), arguments);
         } else {
-          statements.add(cImplStatement(field.getReferable(), implementation.accept(this, null)));
+          statements.add(cImplStatement(field.getReferable(), convertExpr(implementation)));
           canBeArgument = false;
         }
       } else if (canBeArgument && !expr.getDefinition().isImplemented(field)) {
@@ -289,7 +336,7 @@ public class ToAbstractVisitor extends BaseExpressionVisitor<Void, Concrete.Expr
       }
     }
 
-    Concrete.Expression defCallExpr = Concrete.AppExpression.make(null, makeReference(expr.getDefinition().getReferable()), arguments);
+    Concrete.Expression defCallExpr = Concrete.AppExpression.make(null, makeReference(expr.getDefinition()), arguments);
     if (statements.isEmpty()) {
       return defCallExpr;
     } else {
@@ -307,7 +354,7 @@ public class ToAbstractVisitor extends BaseExpressionVisitor<Void, Concrete.Expr
     return expr.getSubstExpression() != null ? expr.getSubstExpression().accept(this, null) : new Concrete.InferenceReferenceExpression(null, expr.getVariable());
   }
 
-  private ParsedLocalReferable makeLocalReference(Binding var, Set<Variable> freeVars, boolean genName) {
+  ParsedLocalReferable makeLocalReference(Binding var, Set<Variable> freeVars, boolean genName) {
     if (!genName && !freeVars.contains(var)) {
       return null;
     }
@@ -325,31 +372,31 @@ public class ToAbstractVisitor extends BaseExpressionVisitor<Void, Concrete.Expr
         visitDependentLink(expr.cast(LamExpression.class).getParameters(), parameters, true);
       } else {
         SingleDependentLink params = expr.cast(LamExpression.class).getParameters();
-        Set<Variable> freeVars = myFreeVariablesCollector.getFreeVariables(params.getNextTyped(null));
+        Set<Variable> freeVars = getFreeVariables(params.getNextTyped(null));
         for (SingleDependentLink link = params; link.hasNext(); link = link.getNext()) {
           parameters.add(cName(link.isExplicit(), makeLocalReference(link, freeVars, false)));
         }
       }
     }
 
-    return cLam(parameters, expr.accept(this, null));
+    return cLam(parameters, convertExpr(expr));
   }
 
   private void visitDependentLink(DependentLink parameters, List<? super Concrete.TypeParameter> args, boolean isNamed) {
     List<Referable> referableList = new ArrayList<>(3);
     for (DependentLink link = parameters; link.hasNext(); link = link.getNext()) {
       DependentLink link1 = link.getNextTyped(null);
-      Set<Variable> freeVars = myFreeVariablesCollector.getFreeVariables(link1);
+      Set<Variable> freeVars = getFreeVariables(link1);
       for (; link != link1; link = link.getNext()) {
         referableList.add(makeLocalReference(link, freeVars, !link.isExplicit()));
       }
 
       Referable referable = makeLocalReference(link, freeVars, !link.isExplicit());
       if (referable == null && !isNamed && referableList.isEmpty()) {
-        args.add(cTypeArg(link.isExplicit(), link.getTypeExpr().accept(this, null)));
+        args.add(cTypeArg(link.isExplicit(), convertExpr(link.getTypeExpr())));
       } else {
         referableList.add(referable);
-        args.add(cTele(link.isExplicit(), new ArrayList<>(referableList), link.getTypeExpr().accept(this, null)));
+        args.add(cTele(link.isExplicit(), new ArrayList<>(referableList), convertExpr(link.getTypeExpr())));
         referableList.clear();
       }
     }
@@ -369,7 +416,7 @@ public class ToAbstractVisitor extends BaseExpressionVisitor<Void, Concrete.Expr
       }
     }
 
-    Concrete.Expression result = expr.accept(this, null);
+    Concrete.Expression result = convertExpr(expr);
     for (int i = parameters.size() - 1; i >= 0; i--) {
       result = cPi(parameters.get(i), result);
     }
@@ -421,14 +468,18 @@ public class ToAbstractVisitor extends BaseExpressionVisitor<Void, Concrete.Expr
 
   @Override
   public Concrete.Expression visitError(ErrorExpression expr, Void params) {
-    return cGoal(expr.getError() instanceof GoalError ? ((GoalError) expr.getError()).name : "error", expr.getExpression() == null ? null : expr.getExpression().accept(this, null));
+    return cGoal(expr.getError() instanceof GoalError ? ((GoalError) expr.getError()).name : "error", expr.getExpression() == null ? null : convertExpr(expr.getExpression()));
   }
 
   @Override
   public Concrete.Expression visitTuple(TupleExpression expr, Void params) {
     List<Concrete.Expression> fields = new ArrayList<>(expr.getFields().size());
     for (Expression field : expr.getFields()) {
-      fields.add(field.accept(this, null));
+      if (isElided(fields.size())) {
+        fields.add(ellipsis());
+        break;
+      }
+      fields.add(convertExpr(field));
     }
     return cTuple(fields);
   }
@@ -442,26 +493,26 @@ public class ToAbstractVisitor extends BaseExpressionVisitor<Void, Concrete.Expr
 
   @Override
   public Concrete.Expression visitProj(ProjExpression expr, Void params) {
-    return cProj(expr.getExpression().accept(this, null), expr.getField());
+    return cProj(convertExpr(expr.getExpression()), expr.getField());
   }
 
   @Override
   public Concrete.Expression visitNew(NewExpression expr, Void params) {
-    return cNew(expr.getExpression().accept(this, null));
+    return cNew(convertExpr(expr.getExpression()));
   }
 
   @Override
   public Concrete.Expression visitLet(LetExpression letExpression, Void params) {
     List<Concrete.LetClause> clauses = new ArrayList<>(letExpression.getClauses().size());
     for (LetClause clause : letExpression.getClauses()) {
-      Concrete.Expression term = clause.getExpression().accept(this, null);
-      Referable referable = makeLocalReference(clause, myFreeVariablesCollector.getFreeVariables(clause), false);
+      Concrete.Expression term = convertExpr(clause.getExpression());
+      Referable referable = makeLocalReference(clause, getFreeVariables(clause), false);
       if (referable != null) {
         clauses.add(clet(referable, Collections.emptyList(), null, term));
       }
     }
 
-    Concrete.Expression expr = letExpression.getExpression().accept(this, null);
+    Concrete.Expression expr = convertExpr(letExpression.getExpression());
     return clauses.isEmpty() ? expr : cLet(clauses, expr);
   }
 
@@ -469,15 +520,15 @@ public class ToAbstractVisitor extends BaseExpressionVisitor<Void, Concrete.Expr
   public Concrete.Expression visitCase(CaseExpression expr, Void params) {
     List<Concrete.CaseArgument> arguments = new ArrayList<>(expr.getArguments().size());
     for (Expression argument : expr.getArguments()) {
-      arguments.add(new Concrete.CaseArgument(argument.accept(this, null), null, null));
+      arguments.add(new Concrete.CaseArgument(convertExpr(argument), null, null));
     }
 
     Concrete.Expression resultType = null;
     Concrete.Expression resultTypeLevel = null;
     if (myFlags.contains(Flag.SHOW_CASE_RESULT_TYPE)) {
-      resultType = expr.getResultType().accept(this, null);
+      resultType = convertExpr(expr.getResultType());
       if (expr.getResultType() != null) {
-        resultTypeLevel = expr.getResultTypeLevel().accept(this, null);
+        resultTypeLevel = convertExpr(expr.getResultTypeLevel());
       }
     }
 
@@ -486,7 +537,7 @@ public class ToAbstractVisitor extends BaseExpressionVisitor<Void, Concrete.Expr
 
   private List<Concrete.FunctionClause> visitElimTree(ElimTree elimTree) {
     List<Concrete.FunctionClause> clauses = new ArrayList<>();
-    new Util.ElimTreeWalker((patterns, expr) -> clauses.add(cClause(visitPatterns(patterns, new Patterns(patterns).getFirstBinding()), expr.accept(this, null)))).walk(elimTree); // TODO: It seems that bindings in patterns and in the expression differ
+    new Util.ElimTreeWalker((patterns, expr) -> clauses.add(cClause(visitPatterns(patterns, new Patterns(patterns).getFirstBinding()), convertExpr(expr)))).walk(elimTree); // TODO: It seems that bindings in patterns and in the expression differ
     return clauses;
   }
 
@@ -0,0 +1,130 @@
+package org.arend.core.expr.visitor;
+
+import org.arend.core.expr.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of weak head normal forms of closed function calls which is used by {@link NormalizeVisitor}.
+ * Entries are keyed by identity, so a hit happens only when the same expression is normalized again.
+ * Results whose head is a function call are not cached since such a call may reduce further after the body of its function is typechecked.
+ * A cache should not outlive a typechecking unit.
+ * A cache is not thread-safe; it is used only by the thread on which it is installed (see {@link #install}).
+ */
+public class WhnfCache {
+  private static final ThreadLocal<WhnfCache> CURRENT = new ThreadLocal<>();
+
+  private final Map<Key, Expression> myResults;
+  private long myHits;
+  private long myMisses;
+
+  private static class Key {
+    private final Expression myExpression;
+
+    Key(Expression expression) {
+      myExpression = expression;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return this == o || o instanceof Key && ((Key) o).myExpression == myExpression;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(myExpression);
+    }
+  }
+
+  /**
+   * @param capacity the maximum number of cached expressions; the least recently used ones are evicted first.
+   */
+  public WhnfCache(int capacity) {
+    myResults = new LinkedHashMap<Key, Expression>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Expression> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  /**
+   * Gets the cache installed on the current thread.
+   *
+   * @return the current cache or null if there is no cache.
+   */
+  public static WhnfCache getCurrent() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Installs a cache on the current thread.
+   *
+   * @param cache a cache or null to remove the current one.
+   *
+   * @return the previously installed cache which should be restored afterwards.
+   */
+  public static WhnfCache install(WhnfCache cache) {
+    WhnfCache previous = CURRENT.get();
+    if (cache == null) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(cache);
+    }
+    return previous;
+  }
+
+  public long getHits() {
+    return myHits;
+  }
+
+  public long getMisses() {
+    return myMisses;
+  }
+
+  Expression get(FunCallExpression expr) {
+    Expression result = myResults.get(new Key(expr));
+    if (result != null) {
+      myHits++;
+    } else {
+      myMisses++;
+    }
+    return result;
+  }
+
+  void put(FunCallExpression expr, Expression result) {
+    if (!result.isInstance(FunCallExpression.class) && isClosed(expr)) {
+      myResults.put(new Key(expr), result);
+    }
+  }
+
+  private static boolean isClosed(Expression expr) {
+    ClosedChecker checker = new ClosedChecker();
+    expr.accept(checker, null);
+    return checker.myClosed;
+  }
+
+  /**
+   * Checks that an expression does not contain references and unsolved inference variables.
+   * References to bound variables are rejected too, which is conservative but does not require tracking of binders.
+   */
+  private static class ClosedChecker extends VoidExpressionVisitor<Void> {
+    private boolean myClosed = true;
+
+    @Override
+    public Void visitReference(ReferenceExpression expr, Void params) {
+      myClosed = false;
+      return null;
+    }
+
+    @Override
+    public Void visitInferenceReference(InferenceReferenceExpression expr, Void params) {
+      if (expr.getSubstExpression() == null) {
+        myClosed = false;
+        return null;
+      }
+      return super.visitInferenceReference(expr, params);
+    }
+  }
+}
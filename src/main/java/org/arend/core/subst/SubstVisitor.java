@@ -52,11 +52,18 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
 
   @Override
   public DataCallExpression visitDataCall(DataCallExpression expr, Void params) {
+    if (expr.getDefCallArguments().isEmpty()) {
+      return TermInterner.dataCall(expr.getDefinition(), expr.getSortArgument().subst(myLevelSubstitution));
+    }
     return (DataCallExpression) visitDefCall(expr, null);
   }
 
   @Override
   public Expression visitConCall(ConCallExpression expr, Void params) {
+    if (expr.getDataTypeArguments().isEmpty() && expr.getDefCallArguments().isEmpty()) {
+      return TermInterner.conCall(expr.getDefinition(), expr.getSortArgument().subst(myLevelSubstitution));
+    }
+
     List<Expression> dataTypeArgs = new ArrayList<>(expr.getDataTypeArguments().size());
     for (Expression parameter : expr.getDataTypeArguments()) {
       dataTypeArgs.add(parameter.accept(this, null));
@@ -132,7 +139,7 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
 
   @Override
   public UniverseExpression visitUniverse(UniverseExpression expr, Void params) {
-    return myLevelSubstitution.isEmpty() ? expr : new UniverseExpression(expr.getSort().subst(myLevelSubstitution));
+    return myLevelSubstitution.isEmpty() ? expr : TermInterner.universe(expr.getSort().subst(myLevelSubstitution));
   }
 
   @Override
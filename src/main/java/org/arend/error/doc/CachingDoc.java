@@ -1,17 +1,51 @@
 package org.arend.error.doc;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 public abstract class CachingDoc extends Doc {
-  private List<String> myText;
+  private volatile List<String> myText;
+  private int myWidth;
 
   protected abstract String getString();
 
+  /**
+   * Splits the string into lines and computes the width in one pass.
+   * Trailing empty lines are dropped as in {@link String#split}.
+   */
+  private void computeText() {
+    String string = getString();
+    if (string.indexOf('\n') < 0) {
+      myWidth = string.length();
+      myText = Collections.singletonList(string);
+      return;
+    }
+
+    List<String> text = new ArrayList<>();
+    int width = 0;
+    int nonEmpty = 0;
+    int start = 0;
+    while (start <= string.length()) {
+      int end = string.indexOf('\n', start);
+      if (end < 0) {
+        end = string.length();
+      }
+      text.add(string.substring(start, end));
+      if (end > start) {
+        width = Math.max(width, end - start);
+        nonEmpty = text.size();
+      }
+      start = end + 1;
+    }
+    text.subList(nonEmpty, text.size()).clear();
+    myWidth = width;
+    myText = text;
+  }
+
   public List<? extends String> getText() {
     if (myText == null) {
-      myText = Arrays.asList(getString().split("\\n"));
+      computeText();
     }
     return myText;
   }
@@ -23,11 +57,10 @@ public abstract class CachingDoc extends Doc {
 
   @Override
   public int getWidth() {
-    int width = 0;
-    for (String line : getText()) {
-      width = Math.max(width, line.length());
+    if (myText == null) {
+      computeText();
     }
-    return width;
+    return myWidth;
   }
 
   @Override
@@ -47,12 +80,7 @@ public abstract class CachingDoc extends Doc {
 
   @Override
   public boolean isEmpty() {
-    for (String line : getText()) {
-      if (!line.isEmpty()) {
-        return false;
-      }
-    }
-    return true;
+    return getWidth() == 0;
   }
 
   @Override
@@ -0,0 +1,212 @@
+package org.arend.error.doc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Writes a doc directly to an {@link Appendable}.
+ * The result is the same as the concatenation of the lines of {@link Doc#linearize}, but lists of lines are built only for hangs with complex tops.
+ */
+public class DocRenderer implements DocVisitor<Void, Boolean> {
+  private static final String SPACES = "                                ";
+
+  private final Appendable myOutput;
+  private final LineRenderer myLineRenderer = new LineRenderer();
+  private int myIndent;
+  private boolean myIndentFirst;
+
+  private DocRenderer(Appendable output) {
+    myOutput = output;
+  }
+
+  public static void render(Doc doc, Appendable output) throws IOException {
+    try {
+      new DocRenderer(output).render(doc, 0, false);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  public static void render(Doc doc, StringBuilder builder) {
+    new DocRenderer(builder).render(doc, 0, false);
+  }
+
+  /**
+   * @return true if at least one line was rendered.
+   */
+  private boolean render(Doc doc, int indent, boolean indentFirst) {
+    myIndent = indent;
+    myIndentFirst = indentFirst;
+    return doc.accept(this, null);
+  }
+
+  private void append(CharSequence text) {
+    try {
+      myOutput.append(text);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void append(CharSequence text, int start, int end) {
+    try {
+      myOutput.append(text, start, end);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void append(char c) {
+    try {
+      myOutput.append(c);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void appendIndent(int indent) {
+    for (; indent > SPACES.length(); indent -= SPACES.length()) {
+      append(SPACES);
+    }
+    append(SPACES, 0, indent);
+  }
+
+  /**
+   * Starts a line.
+   * If {@code indentFirst} is false, the line continues the current one.
+   */
+  private void startLine(int indent, boolean indentFirst) {
+    if (indentFirst) {
+      append('\n');
+      appendIndent(indent);
+    }
+  }
+
+  private Boolean visitLine(LineDoc doc) {
+    startLine(myIndent, myIndentFirst);
+    doc.accept(myLineRenderer, null);
+    return true;
+  }
+
+  @Override
+  public Boolean visitVList(VListDoc doc, Void params) {
+    int indent = myIndent;
+    boolean indentFirst = myIndentFirst;
+    boolean rendered = false;
+    for (Doc subDoc : doc.getDocs()) {
+      if (render(subDoc, indent, indentFirst || rendered)) {
+        rendered = true;
+      }
+    }
+    return rendered;
+  }
+
+  @Override
+  public Boolean visitHList(HListDoc doc, Void params) {
+    return visitLine(doc);
+  }
+
+  @Override
+  public Boolean visitText(TextDoc doc, Void params) {
+    return visitLine(doc);
+  }
+
+  @Override
+  public Boolean visitHang(HangDoc doc, Void params) {
+    int indent = myIndent;
+    boolean indentFirst = myIndentFirst;
+    Doc top = doc.getTop();
+    Doc bottom = doc.getBottom();
+    if (top.isNull()) {
+      return render(bottom, indent + HangDoc.INDENT, indentFirst);
+    }
+    if (!(top instanceof LineDoc)) {
+      // The layout of hangs with multiline tops depends on the first line of the top, so it is computed by linearization
+      List<LineDoc> lines = doc.linearize(indent, indentFirst);
+      for (int i = 0; i < lines.size(); i++) {
+        startLine(0, indentFirst || i > 0);
+        lines.get(i).accept(myLineRenderer, null);
+      }
+      return !lines.isEmpty();
+    }
+
+    render(top, indent, indentFirst);
+    if (bottom.isNull()) {
+      return true;
+    }
+
+    int topWidth = (indentFirst ? indent : 0) + top.getWidth();
+    if (bottom.isSingleLine() || topWidth + (bottom.isEmpty() ? 0 : 1) <= HangDoc.MAX_INDENT) {
+      append(' ');
+      render(bottom, topWidth + 1, false);
+    } else {
+      render(bottom, indent + HangDoc.INDENT, true);
+    }
+    return true;
+  }
+
+  @Override
+  public Boolean visitReference(ReferenceDoc doc, Void params) {
+    return visitLine(doc);
+  }
+
+  @Override
+  public Boolean visitCaching(CachingDoc doc, Void params) {
+    int indent = myIndent;
+    List<? extends String> text = doc.getText();
+    for (int i = 0; i < text.size(); i++) {
+      startLine(indent, myIndentFirst || i > 0);
+      append(text.get(i));
+    }
+    return !text.isEmpty();
+  }
+
+  @Override
+  public Boolean visitTermLine(TermLineDoc doc, Void params) {
+    return visitLine(doc);
+  }
+
+  private class LineRenderer implements DocVisitor<Void, Void> {
+    @Override
+    public Void visitHList(HListDoc doc, Void params) {
+      for (LineDoc subDoc : doc.getDocs()) {
+        subDoc.accept(this, null);
+      }
+      return null;
+    }
+
+    @Override
+    public Void visitText(TextDoc doc, Void params) {
+      append(doc.getText());
+      return null;
+    }
+
+    @Override
+    public Void visitTermLine(TermLineDoc doc, Void params) {
+      append(doc.getText());
+      return null;
+    }
+
+    @Override
+    public Void visitReference(ReferenceDoc doc, Void params) {
+      append(DocStringBuilder.getReferenceName(doc));
+      return null;
+    }
+
+    @Override
+    public Void visitVList(VListDoc doc, Void params) {
+      throw new IllegalStateException();
+    }
+
+    @Override
+    public Void visitHang(HangDoc doc, Void params) {
+      throw new IllegalStateException();
+    }
+
+    @Override
+    public Void visitCaching(CachingDoc doc, Void params) {
+      throw new IllegalStateException();
+    }
+  }
+}
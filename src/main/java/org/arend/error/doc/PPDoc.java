@@ -2,6 +2,7 @@ package org.arend.error.doc;
 
 import org.arend.term.prettyprint.PrettyPrintable;
 import org.arend.term.prettyprint.PrettyPrinterConfig;
+import org.arend.util.StringBuilderCache;
 
 public class PPDoc extends CachingDoc {
   private final PrettyPrintable myPrettyPrintable;
@@ -18,8 +19,8 @@ public class PPDoc extends CachingDoc {
 
   @Override
   protected String getString() {
-    StringBuilder builder = new StringBuilder();
+    StringBuilder builder = StringBuilderCache.acquire();
     myPrettyPrintable.prettyPrint(builder, myPPConfig);
-    return builder.toString();
+    return StringBuilderCache.release(builder);
   }
 }
@@ -2,6 +2,7 @@ package org.arend.error.doc;
 
 import org.arend.core.expr.Expression;
 import org.arend.term.prettyprint.PrettyPrinterConfig;
+import org.arend.util.StringBuilderCache;
 
 public class TermDoc extends CachingDoc {
   private final Expression myTerm;
@@ -18,9 +19,9 @@ public class TermDoc extends CachingDoc {
 
   @Override
   protected String getString() {
-    StringBuilder builder = new StringBuilder();
+    StringBuilder builder = StringBuilderCache.acquire();
     myTerm.prettyPrint(builder, myPPConfig);
-    return builder.toString();
+    return StringBuilderCache.release(builder);
   }
 
   @Override
@@ -4,6 +4,7 @@ import org.arend.core.expr.Expression;
 import org.arend.core.expr.visitor.NormalizeVisitor;
 import org.arend.core.expr.visitor.ToAbstractVisitor;
 import org.arend.term.prettyprint.PrettyPrinterConfig;
+import org.arend.util.StringBuilderCache;
 
 import java.util.EnumSet;
 
@@ -29,6 +30,21 @@ public class TermLineDoc extends LineDoc {
         public NormalizeVisitor.Mode getNormalizationMode() {
           return ppConfig.getNormalizationMode();
         }
+
+        @Override
+        public int getMaxDepth() {
+          return ppConfig.getMaxDepth();
+        }
+
+        @Override
+        public int getMaxWidth() {
+          return ppConfig.getMaxWidth();
+        }
+
+        @Override
+        public boolean abbreviateSharedSubexpressions() {
+          return ppConfig.abbreviateSharedSubexpressions();
+        }
     };
   }
 
@@ -38,9 +54,9 @@ public class TermLineDoc extends LineDoc {
 
   public String getText() {
     if (myText == null) {
-      StringBuilder builder = new StringBuilder();
+      StringBuilder builder = StringBuilderCache.acquire();
       myTerm.prettyPrint(builder, myPPConfig);
-      myText = builder.toString();
+      myText = StringBuilderCache.release(builder);
     }
     return myText;
   }
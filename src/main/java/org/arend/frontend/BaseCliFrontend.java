@@ -1,56 +1,92 @@
 package org.arend.frontend;
 
 import org.apache.commons.cli.*;
-import org.arend.core.definition.Definition;
+import org.arend.core.expr.TermInterner;
 import org.arend.error.Error;
+import org.arend.error.ErrorReporter;
 import org.arend.error.GeneralError;
-import org.arend.error.ListErrorReporter;
 import org.arend.library.*;
 import org.arend.library.error.LibraryError;
 import org.arend.module.ModulePath;
-import org.arend.module.error.ExceptionError;
 import org.arend.naming.reference.GlobalReferable;
 import org.arend.naming.reference.LocatedReferable;
-import org.arend.naming.reference.TCReferable;
 import org.arend.prelude.PreludeResourceLibrary;
-import org.arend.typechecking.SimpleTypecheckerState;
+import org.arend.typechecking.ConcurrentTypecheckerState;
 import org.arend.typechecking.TypecheckerState;
+import org.arend.typechecking.TypecheckingProfiler;
 import org.arend.typechecking.instance.provider.InstanceProviderSet;
+import org.arend.typechecking.order.dependency.DependencyCollector;
+import org.arend.typechecking.order.dependency.DummyDependencyListener;
 import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
 import org.arend.util.FileUtils;
 
-import java.io.IOException;
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 public abstract class BaseCliFrontend {
+  private static final int REQUEST_TIMEOUT = 10000; // milliseconds
+
   // Typechecking
-  private final TypecheckerState myTypecheckerState = new SimpleTypecheckerState();
-  private final ListErrorReporter myErrorReporter = new ListErrorReporter();
+  private final TypecheckerState myTypecheckerState;
+  private StreamingErrorReporter myErrorSink;
+  private final ErrorReporter myErrorReporter = this::reportError;
   private final Map<ModulePath, Error.Level> myModuleResults = new LinkedHashMap<>();
 
   // Libraries
-  private final FileLibraryResolver myLibraryResolver = new FileLibraryResolver(new ArrayList<>(), myTypecheckerState, System.err::println);
-  private final LibraryManager myLibraryManager = new MyLibraryManager();
+  private final FileLibraryResolver myLibraryResolver;
+  private final LibraryManager myLibraryManager;
+  private boolean myLazyLoading;
+  private int myWhnfCacheCapacity;
+  private boolean myEnvironmentNormalizer;
+  private TermInterner myTermInterner;
+  private long myTimeLimit;
+  private long myFuel;
+  private TypecheckingProfiler myProfiler;
+  private DependencyCollector myDependencyCollector;
+
+  // The daemon prints the output of a request to its socket
+  private PrintStream myOut = System.out;
+  private PrintStream myErr = System.err;
+
+  protected BaseCliFrontend(TypecheckerState typecheckerState) {
+    myTypecheckerState = typecheckerState;
+    myErrorSink = new StreamingErrorReporter();
+    myLibraryResolver = new FileLibraryResolver(new ArrayList<>(), myTypecheckerState, System.err::println);
+    myLibraryManager = new MyLibraryManager();
+  }
+
+  protected BaseCliFrontend() {
+    this(new ConcurrentTypecheckerState());
+  }
 
   private class MyLibraryManager extends LibraryManager {
     MyLibraryManager() {
-      super(myLibraryResolver, new InstanceProviderSet(), myErrorReporter, System.err::println);
+      super(myLibraryResolver, new InstanceProviderSet(), myErrorReporter, error -> myErr.println(error));
     }
 
     @Override
     protected void beforeLibraryLoading(Library library) {
-      System.out.println("[INFO] Loading library " + library.getName());
+      myOut.println("[INFO] Loading library " + library.getName());
+      if (myLazyLoading && library instanceof SourceLibrary) {
+        ((SourceLibrary) library).addFlag(SourceLibrary.Flag.LAZY_LOADING);
+      }
     }
 
     @Override
     protected void afterLibraryLoading(Library library, boolean successful) {
       flushErrors();
-      System.err.flush();
-      System.out.println("[INFO] " + (successful ? "Loaded " : "Failed loading ") + "library " + library.getName());
+      myErr.flush();
+      myOut.println("[INFO] " + (successful ? "Loaded " : "Failed loading ") + "library " + library.getName());
     }
   }
 
@@ -65,17 +101,7 @@ public abstract class BaseCliFrontend {
 
   private class MyTypechecking extends TypecheckingOrderingListener {
     MyTypechecking() {
-      super(myLibraryManager.getInstanceProviderSet(), myTypecheckerState, ConcreteReferableProvider.INSTANCE, myErrorReporter, PositionComparator.INSTANCE);
-    }
-
-    @Override
-    public void typecheckingBodyFinished(TCReferable referable, Definition definition) {
-      flushErrors();
-    }
-
-    @Override
-    public void typecheckingUnitFinished(TCReferable referable, Definition definition) {
-      flushErrors();
+      super(myLibraryManager.getInstanceProviderSet(), myTypecheckerState, ConcreteReferableProvider.INSTANCE, myErrorReporter, myDependencyCollector == null ? DummyDependencyListener.INSTANCE : myDependencyCollector, PositionComparator.INSTANCE);
     }
   }
 
@@ -88,6 +114,20 @@ public abstract class BaseCliFrontend {
       cmdOptions.addOption(Option.builder("s").longOpt("source").hasArg().argName("srcdir").desc("project source directory").build());
       cmdOptions.addOption(Option.builder("o").longOpt("output").hasArg().argName("outdir").desc("project output directory").build());
       cmdOptions.addOption(Option.builder().longOpt("recompile").desc("recompile files").build());
+      cmdOptions.addOption(Option.builder().longOpt("uncompressed").desc("store binary files of the project uncompressed").build());
+      cmdOptions.addOption(Option.builder().longOpt("fsync").desc("force binary files of the project to the storage device before they replace previous versions").build());
+      cmdOptions.addOption(Option.builder().longOpt("lazy").desc("load bodies of cached definitions on demand").build());
+      cmdOptions.addOption(Option.builder().longOpt("whnf-cache").hasArg().argName("size").desc("cache weak head normal forms of closed expressions during typechecking of each definition").build());
+      cmdOptions.addOption(Option.builder().longOpt("env-normalizer").desc("normalize expressions using environments instead of substitutions").build());
+      cmdOptions.addOption(Option.builder().longOpt("intern").desc("share identical sorts, universes, integers and calls without arguments and report the heap footprint").build());
+      cmdOptions.addOption(Option.builder().longOpt("profile").hasArg().argName("file").desc("write typechecking statistics of definitions to a JSON file (or a CSV file if its name ends with .csv)").build());
+      cmdOptions.addOption(Option.builder().longOpt("time-limit").hasArg().argName("ms").desc("maximum time of typechecking of a header or a body of a definition").build());
+      cmdOptions.addOption(Option.builder().longOpt("fuel").hasArg().argName("steps").desc("maximum number of reduction steps during typechecking of a header or a body of a definition").build());
+      cmdOptions.addOption(Option.builder().longOpt("daemon").hasArg().argName("port").desc("keep libraries loaded after typechecking and accept requests on a local port: 'recheck MODULES' typechecks changed modules and definitions which depend on them, 'stop' stops the daemon").build());
+      cmdOptions.addOption(Option.builder().longOpt("json-errors").hasArg().argName("file").desc("write errors to a file as JSON lines instead of printing them; errors with the same kind, position, and message are written once").build());
+      cmdOptions.addOption(Option.builder().longOpt("module-error-limit").hasArg().argName("num").desc("maximum number of printed errors in a module").build());
+      cmdOptions.addOption(Option.builder().longOpt("kind-error-limit").hasArg().argName("num").desc("maximum number of printed errors of a kind").build());
+      cmdOptions.addOption(Option.builder("j").longOpt("threads").hasArg().argName("num").desc("number of typechecking threads").build());
       addCommandOptions(cmdOptions);
       CommandLine cmdLine = new DefaultParser().parse(cmdOptions, args);
 
@@ -105,12 +145,102 @@ public abstract class BaseCliFrontend {
 
   protected void addCommandOptions(Options cmdOptions) {}
 
+  private static long parseLimit(String str, String name) {
+    if (str == null) {
+      return 0;
+    }
+
+    long result;
+    try {
+      result = Long.parseLong(str);
+    } catch (NumberFormatException e) {
+      result = -1;
+    }
+    if (result < 0) {
+      System.err.println("[ERROR] " + str + " is not a valid " + name);
+      return 0;
+    }
+    return result;
+  }
+
   public CommandLine run(String[] args) {
     CommandLine cmdLine = parseArgs(args);
     if (cmdLine == null) {
       return null;
     }
 
+    String jsonErrorsStr = cmdLine.getOptionValue("json-errors");
+    long moduleErrorLimit = parseLimit(cmdLine.getOptionValue("module-error-limit"), "number of errors");
+    long kindErrorLimit = parseLimit(cmdLine.getOptionValue("kind-error-limit"), "number of errors");
+    Writer jsonErrorsWriter = null;
+    if (jsonErrorsStr != null || moduleErrorLimit > 0 || kindErrorLimit > 0) {
+      try {
+        if (jsonErrorsStr != null) {
+          jsonErrorsWriter = Files.newBufferedWriter(Paths.get(jsonErrorsStr));
+        }
+        StreamingErrorReporter errorSink = new StreamingErrorReporter(jsonErrorsWriter, (int) Math.min(moduleErrorLimit, Integer.MAX_VALUE), (int) Math.min(kindErrorLimit, Integer.MAX_VALUE));
+        myErrorSink.close();
+        myErrorSink = errorSink;
+      } catch (IOException e) {
+        System.err.println("[ERROR] Cannot write errors to " + jsonErrorsStr + ": " + e.getMessage());
+        return null;
+      }
+    }
+
+    try {
+      return run(cmdLine);
+    } finally {
+      myErrorSink.flush();
+      if (jsonErrorsWriter != null) {
+        myErrorSink.close();
+        try {
+          jsonErrorsWriter.close();
+          System.out.println("[INFO] Errors are written to " + jsonErrorsStr);
+        } catch (IOException e) {
+          System.err.println("[ERROR] Cannot write errors to " + jsonErrorsStr + ": " + e.getMessage());
+        }
+      }
+    }
+  }
+
+  private CommandLine run(CommandLine cmdLine) {
+    myLazyLoading = cmdLine.hasOption("lazy");
+    myEnvironmentNormalizer = cmdLine.hasOption("env-normalizer");
+    myTermInterner = cmdLine.hasOption("intern") ? new TermInterner() : null;
+    myLibraryManager.setTermInterner(myTermInterner);
+    String whnfCacheStr = cmdLine.getOptionValue("whnf-cache");
+    if (whnfCacheStr != null) {
+      try {
+        myWhnfCacheCapacity = Integer.parseInt(whnfCacheStr);
+      } catch (NumberFormatException e) {
+        myWhnfCacheCapacity = -1;
+      }
+      if (myWhnfCacheCapacity < 0) {
+        System.err.println("[ERROR] " + whnfCacheStr + " is not a valid size of the cache");
+        myWhnfCacheCapacity = 0;
+      }
+    }
+    myTimeLimit = parseLimit(cmdLine.getOptionValue("time-limit"), "time limit");
+    myFuel = parseLimit(cmdLine.getOptionValue("fuel"), "number of reduction steps");
+    int daemonPort = -1;
+    String daemonStr = cmdLine.getOptionValue("daemon");
+    if (daemonStr != null) {
+      try {
+        daemonPort = Integer.parseInt(daemonStr);
+      } catch (NumberFormatException e) {
+        daemonPort = -1;
+      }
+      if (daemonPort < 0 || daemonPort > 65535) {
+        System.err.println("[ERROR] " + daemonStr + " is not a valid port");
+        daemonPort = -1;
+      } else {
+        myDependencyCollector = new DependencyCollector(myTypecheckerState);
+      }
+    }
+    String profileStr = cmdLine.getOptionValue("profile");
+    if (profileStr != null) {
+      myProfiler = new TypecheckingProfiler();
+    }
     if (!myLibraryManager.loadLibrary(new PreludeResourceLibrary(myTypecheckerState))) {
       return null;
     }
@@ -166,6 +296,9 @@ public abstract class BaseCliFrontend {
         if (fileName.endsWith(FileUtils.LIBRARY_CONFIG_FILE) || isPath && Files.isDirectory(path)) {
           UnmodifiableSourceLibrary library = myLibraryResolver.registerLibrary(path.toAbsolutePath());
           if (library != null) {
+            if (library instanceof FileSourceLibrary) {
+              ((FileSourceLibrary) library).setSyncBinaries(cmdLine.hasOption("fsync"));
+            }
             requestedLibraries.add(library);
           }
         } else {
@@ -190,7 +323,10 @@ public abstract class BaseCliFrontend {
         e.printStackTrace();
         outDir = null;
       }
-      requestedLibraries.add(new FileSourceLibrary("\\default", sourceDir, outDir, requestedModules, argFiles.isEmpty(), libraryDependencies, myTypecheckerState));
+      FileSourceLibrary library = new FileSourceLibrary("\\default", sourceDir, outDir, requestedModules, argFiles.isEmpty(), libraryDependencies, myTypecheckerState);
+      library.setCompressBinaries(!cmdLine.hasOption("uncompressed"));
+      library.setSyncBinaries(cmdLine.hasOption("fsync"));
+      requestedLibraries.add(library);
     }
 
     // Load and typecheck libraries
@@ -200,77 +336,247 @@ public abstract class BaseCliFrontend {
     }
 
     boolean recompile = cmdLine.hasOption("recompile");
-    for (UnmodifiableSourceLibrary library : requestedLibraries) {
-      myModuleResults.clear();
-      if (recompile) {
-        library.addFlag(SourceLibrary.Flag.RECOMPILE);
+    int threads = getNumberOfThreads(cmdLine);
+    ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+    myLibraryManager.setLoadingExecutor(pool);
+    try {
+      for (UnmodifiableSourceLibrary library : requestedLibraries) {
+        if (myDependencyCollector != null) {
+          library.setDependencyListener(myDependencyCollector);
+        }
+        typecheckLibrary(library, recompile, pool);
       }
-      if (!myLibraryManager.loadLibrary(library)) {
-        continue;
+      if (myDependencyCollector != null) {
+        runDaemon(daemonPort, requestedLibraries, pool);
       }
-
-      if (!library.needsTypechecking()) {
-        continue;
+    } finally {
+      myLibraryManager.setLoadingExecutor(null);
+      if (pool != null) {
+        pool.shutdown();
       }
+    }
 
-      System.out.println("--- Typechecking " + library.getName() + " ---");
-      Collection<? extends ModulePath> modules = library.getUpdatedModules();
-      new MyTypechecking().typecheckLibrary(library);
-      flushErrors();
+    if (myProfiler != null) {
+      writeProfile(Paths.get(profileStr));
+    }
 
-      // Output nice per-module typechecking results
-      int numWithErrors = 0;
-      int numWithGoals = 0;
-      for (ModulePath module : modules) {
-        Error.Level result = myModuleResults.get(module);
-        if (result == null && library.getModuleGroup(module) == null) {
-          result = Error.Level.ERROR;
-        }
-        reportTypeCheckResult(module, result);
-        if (result == Error.Level.ERROR) numWithErrors++;
-        if (result == Error.Level.GOAL) numWithGoals++;
-      }
+    return cmdLine;
+  }
 
-      if (numWithErrors > 0) {
-        System.out.println("Number of modules with errors: " + numWithErrors);
-      }
-      if (numWithGoals > 0) {
-        System.out.println("Number of modules with goals: " + numWithGoals);
+  private void writeProfile(Path file) {
+    try (Writer writer = Files.newBufferedWriter(file)) {
+      if (file.toString().endsWith(".csv")) {
+        myProfiler.writeCsv(writer);
+      } else {
+        myProfiler.writeJson(writer);
       }
-      System.out.println("--- Done ---");
+      System.out.println("[INFO] Typechecking profile is written to " + file);
+    } catch (IOException e) {
+      System.err.println("[ERROR] Cannot write typechecking profile to " + file + ": " + e.getMessage());
+    }
+  }
+
+  private void typecheckLibrary(UnmodifiableSourceLibrary library, boolean recompile, ForkJoinPool pool) {
+    myModuleResults.clear();
+    if (recompile) {
+      library.addFlag(SourceLibrary.Flag.RECOMPILE);
+    }
+    if (!myLibraryManager.loadLibrary(library)) {
+      return;
+    }
+
+    if (!library.needsTypechecking()) {
+      return;
+    }
 
-      // Persist updated modules
-      if (library.supportsPersisting()) {
-        library.persistUpdateModules(System.err::println);
-        library.clearUpdateModules();
+    typecheckUpdatedModules(library, pool);
+  }
+
+  private void typecheckUpdatedModules(UnmodifiableSourceLibrary library, ForkJoinPool pool) {
+    myOut.println("--- Typechecking " + library.getName() + " ---");
+    List<ModulePath> modules = new ArrayList<>(library.getUpdatedModules());
+    MyTypechecking typechecking = new MyTypechecking();
+    typechecking.setWhnfCacheCapacity(myWhnfCacheCapacity);
+    typechecking.setEnvironmentNormalizer(myEnvironmentNormalizer);
+    typechecking.setTermInterner(myTermInterner);
+    typechecking.setProfiler(myProfiler);
+    typechecking.setComputationLimits(myTimeLimit, myFuel);
+    if (library.supportsPersisting()) {
+      // Modules are persisted as soon as they are typechecked, so that modules depending on them can be loaded from binary sources
+      library.typecheckAndPersistUpdatedModules(typechecking, pool, myErr::println);
+    } else if (pool != null) {
+      typechecking.typecheckLibrary(library, pool);
+    } else {
+      typechecking.typecheckLibrary(library);
+    }
+    flushErrors();
+    myErrorSink.printSummary(myOut);
+    if (myWhnfCacheCapacity > 0) {
+      myOut.println("[INFO] WHNF cache: " + typechecking.getWhnfCacheHits() + " hits, " + typechecking.getWhnfCacheMisses() + " misses");
+    }
+    if (myTermInterner != null) {
+      myOut.println("[INFO] Interned terms:\n" + myTermInterner.getReport());
+    }
+
+    // Output nice per-module typechecking results
+    int numWithErrors = 0;
+    int numWithGoals = 0;
+    for (ModulePath module : modules) {
+      Error.Level result = myModuleResults.get(module);
+      if (result == null && library.getModuleGroup(module) == null) {
+        result = Error.Level.ERROR;
       }
+      reportTypeCheckResult(module, result);
+      if (result == Error.Level.ERROR) numWithErrors++;
+      if (result == Error.Level.GOAL) numWithGoals++;
     }
 
-    return cmdLine;
+    if (numWithErrors > 0) {
+      myOut.println("Number of modules with errors: " + numWithErrors);
+    }
+    if (numWithGoals > 0) {
+      myOut.println("Number of modules with goals: " + numWithGoals);
+    }
+    myOut.println("--- Done ---");
+
+    if (library.supportsPersisting()) {
+      library.clearUpdateModules();
+    }
   }
 
-  private void flushErrors() {
-    for (GeneralError error : myErrorReporter.getErrorList()) {
-      for (GlobalReferable referable : error.getAffectedDefinitions()) {
-        if (referable instanceof LocatedReferable) {
-          updateSourceResult(((LocatedReferable) referable).getLocation(), error.level);
+  private void runDaemon(int port, List<UnmodifiableSourceLibrary> libraries, ForkJoinPool pool) {
+    try (ServerSocket serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress())) {
+      System.out.println("[INFO] Waiting for requests on port " + serverSocket.getLocalPort());
+      boolean running = true;
+      while (running) {
+        try (Socket socket = serverSocket.accept()) {
+          // A client which does not send a request must not block the daemon
+          socket.setSoTimeout(REQUEST_TIMEOUT);
+          String request = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)).readLine();
+          if (request != null) {
+            running = handleRequest(request, libraries, pool, new PrintStream(socket.getOutputStream(), true, "UTF-8"));
+          }
+        } catch (SocketTimeoutException e) {
+          System.err.println("[ERROR] A request was not received in " + REQUEST_TIMEOUT / 1000 + " seconds");
+        } catch (IOException e) {
+          System.err.println("[ERROR] " + e.getMessage());
         }
       }
+    } catch (IOException e) {
+      System.err.println("[ERROR] Cannot listen on port " + port + ": " + e.getMessage());
+    }
+  }
 
-      if (error instanceof ExceptionError || error.getAffectedDefinitions().isEmpty()) {
-        System.err.println(error);
-        System.err.flush();
+  /**
+   * Handles a request sent to the daemon; the output of the request is sent back.
+   *
+   * @return false if the daemon should be stopped, true otherwise.
+   */
+  private boolean handleRequest(String request, List<UnmodifiableSourceLibrary> libraries, ForkJoinPool pool, PrintStream out) {
+    List<String> words = new ArrayList<>(Arrays.asList(request.trim().split("\\s+")));
+    String command = words.remove(0);
+    if (command.equals("stop")) {
+      out.println("[INFO] Daemon is stopped");
+      return false;
+    }
+    if (!command.equals("recheck")) {
+      out.println("[ERROR] Unknown request: " + command);
+      return true;
+    }
+
+    setOutput(out, out);
+    try {
+      recheckModules(words, libraries, pool);
+    } finally {
+      flushErrors();
+      setOutput(System.out, System.err);
+      out.flush();
+    }
+    return true;
+  }
+
+  private void setOutput(PrintStream out, PrintStream err) {
+    myOut = out;
+    myErr = err;
+    myErrorSink.setOutput(out, err);
+  }
+
+  private void recheckModules(List<String> moduleNames, List<UnmodifiableSourceLibrary> libraries, ForkJoinPool pool) {
+    Set<ModulePath> modules = new LinkedHashSet<>();
+    for (String moduleName : moduleNames) {
+      ModulePath modulePath = moduleName.endsWith(FileUtils.EXTENSION) ? FileUtils.modulePath(Paths.get(moduleName), FileUtils.EXTENSION) : FileUtils.modulePath(moduleName);
+      if (modulePath == null) {
+        FileUtils.printIllegalModuleName(moduleName, myErr);
       } else {
-        System.out.println(error);
+        modules.add(modulePath);
       }
     }
-    myErrorReporter.getErrorList().clear();
+
+    for (UnmodifiableSourceLibrary library : libraries) {
+      List<ModulePath> changed = new ArrayList<>();
+      for (ModulePath module : modules) {
+        if (library.getModuleGroup(module) != null || library.containsModule(module)) {
+          changed.add(module);
+        }
+      }
+      if (changed.isEmpty()) {
+        continue;
+      }
+
+      // Only changed modules and modules with definitions which depend on them are loaded again
+      myModuleResults.clear();
+      Set<ModulePath> reset = library.resetModules(changed, myDependencyCollector);
+      library.reloadModules(reset, myLibraryManager);
+      flushErrors();
+      typecheckUpdatedModules(library, pool);
+    }
+  }
+
+  private int getNumberOfThreads(CommandLine cmdLine) {
+    String threadsStr = cmdLine.getOptionValue("j");
+    if (threadsStr == null) {
+      return 1;
+    }
+
+    int threads;
+    try {
+      threads = Integer.parseInt(threadsStr);
+    } catch (NumberFormatException e) {
+      threads = -1;
+    }
+    if (threads < 1) {
+      System.err.println("[ERROR] " + threadsStr + " is not a valid number of threads");
+      return 1;
+    }
+    if (threads > 1 && !(myTypecheckerState instanceof ConcurrentTypecheckerState)) {
+      System.err.println("[WARN] The typechecker state does not support concurrent typechecking");
+      return 1;
+    }
+    return threads;
+  }
+
+  private void reportError(GeneralError error) {
+    for (GlobalReferable referable : error.getAffectedDefinitions()) {
+      if (referable instanceof LocatedReferable) {
+        updateSourceResult(((LocatedReferable) referable).getLocation(), error.level);
+      }
+    }
+    myErrorSink.report(error);
+  }
+
+  /**
+   * Waits until reported errors are printed.
+   */
+  private void flushErrors() {
+    myErrorSink.flush();
   }
 
   private void updateSourceResult(ModulePath module, Error.Level result) {
-    Error.Level prevResult = myModuleResults.get(module);
-    if (prevResult == null || result.ordinal() > prevResult.ordinal()) {
-      myModuleResults.put(module, result);
+    synchronized (myModuleResults) {
+      Error.Level prevResult = myModuleResults.get(module);
+      if (prevResult == null || result.ordinal() > prevResult.ordinal()) {
+        myModuleResults.put(module, result);
+      }
     }
   }
 
@@ -278,7 +584,7 @@ public abstract class BaseCliFrontend {
     StringBuilder builder = new StringBuilder();
     builder.append("[").append(resultChar(result)).append("]");
     builder.append(" ").append(modulePath);
-    System.out.println(builder);
+    myOut.println(builder);
   }
 
   private static char resultChar(Error.Level result) {
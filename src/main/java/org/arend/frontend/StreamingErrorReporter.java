@@ -0,0 +1,299 @@
+package org.arend.frontend;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.arend.error.ErrorReporter;
+import org.arend.error.GeneralError;
+import org.arend.error.doc.DocRenderer;
+import org.arend.error.doc.DocStringBuilder;
+import org.arend.module.ModulePath;
+import org.arend.module.error.ExceptionError;
+import org.arend.naming.reference.GlobalReferable;
+import org.arend.naming.reference.LocatedReferable;
+import org.arend.term.prettyprint.PrettyPrinterConfig;
+import org.arend.typechecking.error.ProxyError;
+import org.arend.util.StringBuilderCache;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Prints errors on a dedicated thread.
+ * Errors are passed to the thread through a bounded queue, so {@link #report} blocks if the thread cannot keep up.
+ * Errors which exceed the limit on the number of errors in a module or of a kind are counted, but neither rendered nor printed.
+ *
+ * Errors are printed either as text to output streams (see {@link #setOutput}) or as JSON lines to a writer.
+ * In the latter case, errors with the same kind, position, and doc are printed only once and do not count towards the limits.
+ */
+public class StreamingErrorReporter implements ErrorReporter {
+  private static final int QUEUE_CAPACITY = 1024;
+  private static final Object STOP = new Object();
+
+  private static class Output {
+    final PrintStream out;
+    final PrintStream err;
+
+    Output(PrintStream out, PrintStream err) {
+      this.out = out;
+      this.err = err;
+    }
+  }
+
+  private final Writer myJsonWriter;
+  private final JsonGenerator myJsonGenerator;
+  private final int myModuleLimit;
+  private final int myKindLimit;
+  private final BlockingQueue<Object> myQueue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+  private final Thread myThread;
+
+  // These fields are accessed only on the writing thread and after the queue is flushed
+  private final Map<ModulePath, Integer> myModuleCounts = new HashMap<>();
+  private final Map<String, Integer> myKindCounts = new HashMap<>();
+  private int mySuppressed;
+  private PrintStream myOut = System.out;
+  private PrintStream myErr = System.err;
+  private final Set<String> myPrintedErrors = new HashSet<>();
+  private int myDuplicates;
+  private boolean myWriteFailed;
+
+  /**
+   * @param jsonWriter    a writer for JSON lines, or null if errors should be printed as text.
+   * @param moduleLimit   the maximum number of printed errors in a module, or 0 if the number is not limited.
+   * @param kindLimit     the maximum number of printed errors of a kind, or 0 if the number is not limited.
+   */
+  public StreamingErrorReporter(@Nullable Writer jsonWriter, int moduleLimit, int kindLimit) throws IOException {
+    this(jsonWriter, jsonWriter == null ? null : createGenerator(jsonWriter), moduleLimit, kindLimit);
+  }
+
+  public StreamingErrorReporter() {
+    this(null, null, 0, 0);
+  }
+
+  private StreamingErrorReporter(Writer jsonWriter, JsonGenerator jsonGenerator, int moduleLimit, int kindLimit) {
+    myJsonWriter = jsonWriter;
+    myJsonGenerator = jsonGenerator;
+    myModuleLimit = moduleLimit;
+    myKindLimit = kindLimit;
+    myThread = new Thread(this::run, "arend-error-writer");
+    myThread.setDaemon(true);
+    myThread.start();
+  }
+
+  private static JsonGenerator createGenerator(Writer jsonWriter) throws IOException {
+    JsonGenerator generator = new JsonFactory().createGenerator(jsonWriter);
+    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    generator.setRootValueSeparator(null);
+    return generator;
+  }
+
+  private static ModulePath getModule(GeneralError error) {
+    for (GlobalReferable referable : error.getAffectedDefinitions()) {
+      if (referable instanceof LocatedReferable) {
+        ModulePath module = ((LocatedReferable) referable).getLocation();
+        if (module != null) {
+          return module;
+        }
+      }
+    }
+    return null;
+  }
+
+  private static String getKind(GeneralError error) {
+    Class<?> errorClass = error instanceof ProxyError ? ((ProxyError) error).localError.getClass() : error.getClass();
+    String kind = errorClass.getSimpleName();
+    return kind.isEmpty() ? errorClass.getName() : kind;
+  }
+
+  private static <K> boolean isBelowLimit(Map<K, Integer> counts, K key, int limit) {
+    return limit == 0 || key == null || counts.getOrDefault(key, 0) < limit;
+  }
+
+  private static <K> void increment(Map<K, Integer> counts, K key, int limit) {
+    if (limit != 0 && key != null) {
+      counts.merge(key, 1, Integer::sum);
+    }
+  }
+
+  @Override
+  public void report(GeneralError error) {
+    put(error);
+  }
+
+  private boolean put(Object item) {
+    try {
+      myQueue.put(item);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /**
+   * Sets streams to which errors reported after this call are printed as text.
+   * By default, errors are printed to {@link System#out} and {@link System#err}.
+   */
+  public void setOutput(PrintStream out, PrintStream err) {
+    put(new Output(out, err));
+  }
+
+  /**
+   * Waits until all reported errors are printed.
+   */
+  public void flush() {
+    if (!myThread.isAlive()) {
+      return;
+    }
+
+    CountDownLatch latch = new CountDownLatch(1);
+    if (!put(latch)) {
+      return;
+    }
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Prints the number of errors which were not printed since the last call to this method.
+   * Limits on the number of errors and the detection of duplicates start over after this call,
+   * so it should be invoked at the end of each typechecking run, after {@link #flush}.
+   */
+  public void printSummary(PrintStream out) {
+    if (mySuppressed > 0) {
+      out.println("[INFO] " + mySuppressed + (mySuppressed == 1 ? " error is" : " errors are") + " not shown because of limits on the number of errors");
+      mySuppressed = 0;
+    }
+    myModuleCounts.clear();
+    myKindCounts.clear();
+    if (myDuplicates > 0) {
+      out.println("[INFO] " + myDuplicates + (myDuplicates == 1 ? " duplicate error is" : " duplicate errors are") + " not shown");
+      myDuplicates = 0;
+    }
+    myPrintedErrors.clear();
+  }
+
+  /**
+   * Prints remaining errors and stops the writing thread.
+   * The JSON writer is not closed.
+   */
+  public void close() {
+    if (myThread.isAlive() && put(STOP)) {
+      try {
+        myThread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private void run() {
+    while (true) {
+      Object item;
+      try {
+        item = myQueue.take();
+      } catch (InterruptedException e) {
+        return;
+      }
+
+      if (item instanceof GeneralError) {
+        try {
+          write((GeneralError) item);
+        } catch (Exception e) {
+          reportWriteFailure(e);
+        }
+        continue;
+      }
+
+      flushOutput();
+      if (item instanceof Output) {
+        myOut = ((Output) item).out;
+        myErr = ((Output) item).err;
+      } else if (item instanceof CountDownLatch) {
+        ((CountDownLatch) item).countDown();
+      } else if (item == STOP) {
+        return;
+      }
+    }
+  }
+
+  private void write(GeneralError error) throws IOException {
+    ModulePath module = getModule(error);
+    String kind = getKind(error);
+    if (!isBelowLimit(myModuleCounts, module, myModuleLimit) || !isBelowLimit(myKindCounts, kind, myKindLimit)) {
+      mySuppressed++;
+      return;
+    }
+
+    if (myJsonGenerator != null) {
+      String position = DocStringBuilder.build(error.getPositionDoc(PrettyPrinterConfig.DEFAULT));
+      String doc = error.toString();
+      if (!myPrintedErrors.add(kind + '\n' + position + '\n' + doc)) {
+        myDuplicates++;
+        return;
+      }
+      writeJson(error, kind, module, position, doc);
+    } else {
+      writeText(error);
+    }
+
+    increment(myModuleCounts, module, myModuleLimit);
+    increment(myKindCounts, kind, myKindLimit);
+  }
+
+  private void writeText(GeneralError error) {
+    boolean toErr = error instanceof ExceptionError || error.getAffectedDefinitions().isEmpty();
+    PrintStream stream = toErr ? myErr : myOut;
+    // The error is written at once since the stream might be unbuffered
+    StringBuilder builder = StringBuilderCache.acquire();
+    DocRenderer.render(error.getDoc(PrettyPrinterConfig.DEFAULT), builder);
+    builder.append(System.lineSeparator());
+    stream.print(StringBuilderCache.release(builder));
+    if (toErr) {
+      stream.flush();
+    }
+  }
+
+  private void writeJson(GeneralError error, String kind, ModulePath module, String position, String doc) throws IOException {
+    myJsonGenerator.writeStartObject();
+    myJsonGenerator.writeStringField("level", error.level.toString());
+    myJsonGenerator.writeStringField("kind", kind);
+    myJsonGenerator.writeStringField("module", module == null ? null : module.toString());
+    myJsonGenerator.writeStringField("position", position.isEmpty() ? null : position);
+    myJsonGenerator.writeStringField("message", error.message);
+    myJsonGenerator.writeStringField("doc", doc);
+    myJsonGenerator.writeEndObject();
+    myJsonGenerator.flush();
+    myJsonWriter.write('\n');
+  }
+
+  private void flushOutput() {
+    if (myJsonWriter != null) {
+      try {
+        myJsonWriter.flush();
+      } catch (IOException e) {
+        reportWriteFailure(e);
+      }
+    } else {
+      myOut.flush();
+    }
+  }
+
+  private void reportWriteFailure(Exception e) {
+    if (!myWriteFailed) {
+      myWriteFailed = true;
+      myErr.println("[ERROR] Cannot print an error: " + e);
+    }
+  }
+}
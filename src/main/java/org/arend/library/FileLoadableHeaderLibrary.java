@@ -36,6 +36,9 @@ public class FileLoadableHeaderLibrary extends FileSourceLibrary {
     if (myConfig.getOutputDir() != null) {
       myBinaryBasePath = myHeaderFile.getParent().resolve(myConfig.getOutputDir());
     }
+    if (myConfig.getCompressBinaries() != null) {
+      myCompressBinaries = myConfig.getCompressBinaries();
+    }
 
     if (myConfig.getModules() != null) {
       myModules = new HashSet<>();
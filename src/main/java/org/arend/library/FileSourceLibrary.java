@@ -17,6 +17,8 @@ public class FileSourceLibrary extends UnmodifiableSourceLibrary {
   protected Set<ModulePath> myModules;
   protected List<LibraryDependency> myDependencies;
   protected boolean myComplete;
+  protected boolean myCompressBinaries = true;
+  protected boolean mySyncBinaries;
 
   /**
    * Creates a new {@code UnmodifiableFileSourceLibrary}
@@ -46,6 +48,26 @@ public class FileSourceLibrary extends UnmodifiableSourceLibrary {
     return myBinaryBasePath;
   }
 
+  public boolean isCompressBinaries() {
+    return myCompressBinaries;
+  }
+
+  /**
+   * Sets the format of binary files of this library.
+   *
+   * @param compressBinaries  if true, binary files are compressed; otherwise, they are stored uncompressed and are memory-mapped during loading.
+   */
+  public void setCompressBinaries(boolean compressBinaries) {
+    myCompressBinaries = compressBinaries;
+  }
+
+  /**
+   * Sets whether binary files are forced to the storage device before they replace previous versions.
+   */
+  public void setSyncBinaries(boolean syncBinaries) {
+    mySyncBinaries = syncBinaries;
+  }
+
   @Nullable
   @Override
   public final Source getRawSource(ModulePath modulePath) {
@@ -55,7 +77,12 @@ public class FileSourceLibrary extends UnmodifiableSourceLibrary {
   @Nullable
   @Override
   public BinarySource getBinarySource(ModulePath modulePath) {
-    return myBinaryBasePath == null ? null : new GZIPStreamBinarySource(new FileBinarySource(myBinaryBasePath, modulePath));
+    if (myBinaryBasePath == null) {
+      return null;
+    }
+    FileBinarySource source = myCompressBinaries ? new FileBinarySource(myBinaryBasePath, modulePath) : new MappedFileBinarySource(myBinaryBasePath, modulePath);
+    source.setSync(mySyncBinaries);
+    return myCompressBinaries ? new GZIPStreamBinarySource(source) : source;
   }
 
   @Nullable
@@ -15,6 +15,7 @@ public class LibraryConfig {
   private String myOutputDirectory;
   private List<String> myModules;
   private List<String> myDependencies;
+  private Boolean myCompressBinaries;
 
   public String getName() {
     return myName;
@@ -56,6 +57,14 @@ public class LibraryConfig {
     myDependencies = dependencies;
   }
 
+  public Boolean getCompressBinaries() {
+    return myCompressBinaries;
+  }
+
+  public void setCompressBinaries(Boolean compressBinaries) {
+    myCompressBinaries = compressBinaries;
+  }
+
   @Override
   public String toString() {
     List<Doc> docs = new ArrayList<>();
@@ -74,6 +83,9 @@ public class LibraryConfig {
     if (myDependencies != null) {
       docs.add(hList(text("dependencies: ["), hSep(text(", "), myDependencies.stream().map(DocFactory::text).collect(Collectors.toList())), text("]")));
     }
+    if (myCompressBinaries != null) {
+      docs.add(text("compressBinaries: " + myCompressBinaries));
+    }
     return vList(docs).toString();
   }
 }
@@ -1,5 +1,6 @@
 package org.arend.library;
 
+import org.arend.core.expr.TermInterner;
 import org.arend.error.ErrorReporter;
 import org.arend.library.error.LibraryError;
 import org.arend.library.resolver.LibraryResolver;
@@ -14,6 +15,7 @@ import org.arend.typechecking.instance.provider.InstanceProviderSet;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Contains all necessary information for the library loading.
@@ -26,6 +28,8 @@ public class LibraryManager {
   private final Map<Library, Set<Library>> myReverseDependencies = new LinkedHashMap<>();
   private final Set<Library> myLoadingLibraries = new HashSet<>();
   private final Set<Library> myFailedLibraries = new HashSet<>();
+  private ExecutorService myLoadingExecutor;
+  private TermInterner myTermInterner;
 
   /**
    * Constructs new {@code LibraryManager}.
@@ -87,6 +91,39 @@ public class LibraryManager {
     return myLibraryErrorReporter;
   }
 
+  /**
+   * Gets an executor that libraries may use to load their modules concurrently.
+   *
+   * @return the executor or null if modules should be loaded sequentially.
+   */
+  public @Nullable ExecutorService getLoadingExecutor() {
+    return myLoadingExecutor;
+  }
+
+  /**
+   * Sets an executor that libraries may use to load their modules concurrently.
+   * Error reporters of this library manager must support concurrent access if the executor is set.
+   *
+   * @param executor  the executor or null if modules should be loaded sequentially.
+   */
+  public void setLoadingExecutor(@Nullable ExecutorService executor) {
+    myLoadingExecutor = executor;
+  }
+
+  public @Nullable TermInterner getTermInterner() {
+    return myTermInterner;
+  }
+
+  /**
+   * Sets an interner which shares terms read from binary sources of libraries.
+   * The interner is cleared whenever a library is unloaded, so that it does not keep definitions of unloaded libraries.
+   *
+   * @param interner  the interner or null if terms should not be interned.
+   */
+  public void setTermInterner(@Nullable TermInterner interner) {
+    myTermInterner = interner;
+  }
+
   /**
    * Checks if a library is registered in this library manager.
    *
@@ -259,6 +296,9 @@ public class LibraryManager {
     }
 
     library.unload();
+    if (myTermInterner != null) {
+      myTermInterner.clear();
+    }
   }
 
   /**
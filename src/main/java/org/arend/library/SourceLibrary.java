@@ -15,15 +15,26 @@ import org.arend.typechecking.order.dependency.DummyDependencyListener;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Represents a library which can load modules in the binary format (see {@link #getBinarySource})
  * as well as ordinary modules (see {@link #getRawSource}).
  */
 public abstract class SourceLibrary extends BaseLibrary {
-  public enum Flag { RECOMPILE }
+  public enum Flag { RECOMPILE, LAZY_LOADING }
   private final EnumSet<Flag> myFlags = EnumSet.noneOf(Flag.class);
+  private final Map<ModulePath, byte[]> myInterfaceHashes = new ConcurrentHashMap<>();
+  private final List<SourceLibrary> myDependencyLibraries = new ArrayList<>();
+  private SourceLoader myPendingLoader;
+  private DependencyListener myDependencyListener = DummyDependencyListener.INSTANCE;
 
   /**
    * Creates a new {@code SourceLibrary}
@@ -48,6 +59,50 @@ public abstract class SourceLibrary extends BaseLibrary {
     myFlags.remove(flag);
   }
 
+  /**
+   * Checks if this library has a flag.
+   */
+  public boolean hasFlag(Flag flag) {
+    return myFlags.contains(flag);
+  }
+
+  /**
+   * Gets the hash of the interface of a module which is used to check if modules that depend on it must be rebuilt.
+   * Modules of libraries on which this library depends are also taken into account.
+   *
+   * @param modulePath  a path to the module.
+   *
+   * @return the hash of the module or null if it is unknown, that is, if the module was not loaded from a binary source or persisted yet.
+   */
+  @Nullable
+  public byte[] getInterfaceHash(ModulePath modulePath) {
+    byte[] hash = myInterfaceHashes.get(modulePath);
+    if (hash != null) {
+      return hash;
+    }
+    for (SourceLibrary library : myDependencyLibraries) {
+      hash = library.getInterfaceHash(modulePath);
+      if (hash != null) {
+        return hash;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Records the hash of the interface of a module.
+   *
+   * @param modulePath  a path to the module.
+   * @param hash        the hash of the module or null if it is unknown.
+   */
+  public void setInterfaceHash(ModulePath modulePath, @Nullable byte[] hash) {
+    if (hash == null) {
+      myInterfaceHashes.remove(modulePath);
+    } else {
+      myInterfaceHashes.put(modulePath, hash);
+    }
+  }
+
   /**
    * Gets the raw source (that is, the source containing not typechecked data) for a given module path.
    *
@@ -126,7 +181,15 @@ public abstract class SourceLibrary extends BaseLibrary {
    */
   @Nonnull
   public DependencyListener getDependencyListener() {
-    return DummyDependencyListener.INSTANCE;
+    return myDependencyListener;
+  }
+
+  /**
+   * Sets a dependency listener for definitions loaded from binary sources.
+   * It should be set before the library is loaded.
+   */
+  public void setDependencyListener(@Nonnull DependencyListener dependencyListener) {
+    myDependencyListener = dependencyListener;
   }
 
   @Override
@@ -146,25 +209,73 @@ public abstract class SourceLibrary extends BaseLibrary {
         return false;
       }
       libraryManager.registerDependency(this, loadedDependency);
+      if (loadedDependency instanceof SourceLibrary) {
+        myDependencyLibraries.add((SourceLibrary) loadedDependency);
+      }
     }
 
     SourceLoader sourceLoader = new SourceLoader(this, libraryManager);
+    ExecutorService executor = libraryManager.getLoadingExecutor();
     if (hasRawSources()) {
-      for (ModulePath module : header.modules) {
-        sourceLoader.preloadRaw(module);
+      if (executor != null) {
+        sourceLoader.preloadRaw(header.modules, executor);
+      } else {
+        for (ModulePath module : header.modules) {
+          sourceLoader.preloadRaw(module);
+        }
       }
       sourceLoader.loadRawSources();
     }
 
     if (!myFlags.contains(Flag.RECOMPILE)) {
-      for (ModulePath module : header.modules) {
-        sourceLoader.loadBinary(module);
+      if (executor != null) {
+        sourceLoader.loadBinary(header.modules, executor);
+      } else {
+        for (ModulePath module : header.modules) {
+          sourceLoader.loadBinary(module);
+        }
       }
     }
 
+    if (!sourceLoader.getPendingModules().isEmpty()) {
+      myPendingLoader = sourceLoader;
+    }
+
     return super.load(libraryManager);
   }
 
+  /**
+   * Gets modules that were loaded from raw sources only because some modules of this library on which they depend were updated.
+   * Such a module can be loaded from its binary source (see {@link #loadPendingModule}) after these dependencies are typechecked and persisted
+   * if their interfaces did not change.
+   *
+   * @return the collection of pending modules.
+   */
+  @Nonnull
+  public Collection<? extends ModulePath> getPendingModules() {
+    return myPendingLoader == null ? Collections.emptyList() : myPendingLoader.getPendingModules();
+  }
+
+  /**
+   * Loads the binary source of a pending module.
+   *
+   * @param modulePath  a pending module.
+   *
+   * @return true if the module was loaded from the binary source,
+   *         false if it should be typechecked since some of its dependencies either are not persisted yet or have different interfaces now.
+   */
+  public boolean loadPendingModule(ModulePath modulePath) {
+    return myPendingLoader != null && myPendingLoader.loadPendingBinary(modulePath);
+  }
+
+  @Override
+  public void unload() {
+    super.unload();
+    myInterfaceHashes.clear();
+    myDependencyLibraries.clear();
+    myPendingLoader = null;
+  }
+
   @Override
   public boolean containsModule(ModulePath modulePath) {
     Source source = getRawSource(modulePath);
@@ -184,9 +295,17 @@ public abstract class SourceLibrary extends BaseLibrary {
     if (source == null) {
       errorReporter.report(new PersistingError(modulePath));
       return false;
-    } else {
-      return source.persist(this, referableConverter, errorReporter);
     }
+
+    if (!source.persist(this, referableConverter, errorReporter)) {
+      return false;
+    }
+    if (myPendingLoader != null) {
+      synchronized (myPendingLoader) {
+        myPendingLoader.moduleRebuilt(modulePath);
+      }
+    }
+    return true;
   }
 
   public boolean deleteModule(ModulePath modulePath) {
@@ -1,16 +1,28 @@
 package org.arend.library;
 
 import org.arend.error.ErrorReporter;
+import org.arend.error.ListErrorReporter;
 import org.arend.module.ModulePath;
 import org.arend.module.scopeprovider.ModuleScopeProvider;
 import org.arend.module.scopeprovider.SimpleModuleScopeProvider;
+import org.arend.naming.reference.TCReferable;
 import org.arend.naming.reference.converter.IdReferableConverter;
+import org.arend.source.SourceLoader;
+import org.arend.term.NamespaceCommand;
 import org.arend.term.group.ChildGroup;
+import org.arend.term.group.Group;
 import org.arend.typechecking.TypecheckerState;
+import org.arend.typechecking.order.dependency.DependencyListener;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+import org.arend.util.Pair;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Represents a library which cannot be modified after loading.
@@ -92,21 +104,269 @@ public abstract class UnmodifiableSourceLibrary extends SourceLibrary {
     myUpdatedModules.addAll(modules);
   }
 
+  /**
+   * Resets typechecked definitions of the given modules and definitions which depend on them.
+   *
+   * @param modules             modules which were changed.
+   * @param dependencyListener  a listener which recorded dependencies of typechecked definitions.
+   *
+   * @return the given modules and modules of this library which contain reset definitions.
+   */
+  public Set<ModulePath> resetModules(Collection<? extends ModulePath> modules, DependencyListener dependencyListener) {
+    Set<ModulePath> result = new LinkedHashSet<>();
+    Deque<ModulePath> toReset = new ArrayDeque<>(modules);
+    while (!toReset.isEmpty()) {
+      ModulePath module = toReset.pop();
+      if (!result.add(module)) {
+        continue;
+      }
+
+      ChildGroup group = myGroups.get(module);
+      if (group == null) {
+        continue;
+      }
+      List<TCReferable> referables = new ArrayList<>();
+      collectReferables(group, referables);
+      for (TCReferable referable : referables) {
+        for (TCReferable updated : dependencyListener.update(referable)) {
+          ModulePath location = updated.getLocation();
+          if (location != null && myGroups.containsKey(location) && !result.contains(location)) {
+            toReset.add(location);
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  private static void collectReferables(Group group, List<TCReferable> result) {
+    if (group.getReferable() instanceof TCReferable) {
+      result.add((TCReferable) group.getReferable());
+    }
+    for (Group.InternalReferable internalReferable : group.getConstructors()) {
+      if (internalReferable.getReferable() instanceof TCReferable) {
+        result.add((TCReferable) internalReferable.getReferable());
+      }
+    }
+    for (Group.InternalReferable internalReferable : group.getFields()) {
+      if (internalReferable.getReferable() instanceof TCReferable) {
+        result.add((TCReferable) internalReferable.getReferable());
+      }
+    }
+    for (Group subgroup : group.getSubgroups()) {
+      collectReferables(subgroup, result);
+    }
+    for (Group subgroup : group.getDynamicSubgroups()) {
+      collectReferables(subgroup, result);
+    }
+  }
+
+  /**
+   * Loads raw sources of the given modules again and marks them as updated.
+   * Other modules are not reloaded, so typechecked definitions which depend on the given modules should be reset first.
+   *
+   * @return true if every module was successfully loaded, false otherwise.
+   */
+  public boolean reloadModules(Collection<? extends ModulePath> modules, LibraryManager libraryManager) {
+    return new SourceLoader(this, libraryManager).reloadRaw(modules);
+  }
+
   public void clearUpdateModules() {
     myUpdatedModules.clear();
   }
 
+  /**
+   * Persists updated modules.
+   * A module is persisted after the modules it imports so that their new interface hashes are recorded in it.
+   */
   public boolean persistUpdateModules(ErrorReporter errorReporter) {
+    return persistUpdateModules(null, errorReporter);
+  }
+
+  /**
+   * Persists updated modules concurrently.
+   * A module is persisted after the updated modules it imports so that their new interface hashes are recorded in it.
+   *
+   * @param executor      an executor for persisting or null if modules should be persisted sequentially.
+   * @param errorReporter a reporter for persisting errors.
+   */
+  public boolean persistUpdateModules(@Nullable ExecutorService executor, ErrorReporter errorReporter) {
+    boolean ok = persistModules(myUpdatedModules, executor, errorReporter);
+    myUpdatedModules.clear();
+    return ok;
+  }
+
+  private boolean persistModules(Collection<? extends ModulePath> modules, @Nullable ExecutorService executor, ErrorReporter errorReporter) {
+    Set<ModulePath> moduleSet = new HashSet<>(modules);
+    Set<ModulePath> visiting = new HashSet<>();
+    Set<ModulePath> ordered = new LinkedHashSet<>();
+    for (ModulePath module : modules) {
+      orderUpdatedModule(module, moduleSet, visiting, ordered);
+    }
+
     boolean ok = true;
-    for (ModulePath module : myUpdatedModules) {
-      if (!persistModule(module, IdReferableConverter.INSTANCE, errorReporter)) {
+    if (executor == null || ordered.size() <= 1) {
+      for (ModulePath module : ordered) {
+        if (!persistModule(module, IdReferableConverter.INSTANCE, errorReporter)) {
+          ok = false;
+        }
+      }
+      return ok;
+    }
+
+    // A module waits only for the modules it imports; errors are reported in the order of modules
+    Map<ModulePath, CompletableFuture<Pair<Boolean, ListErrorReporter>>> results = new LinkedHashMap<>();
+    for (ModulePath module : ordered) {
+      List<CompletableFuture<?>> dependencies = new ArrayList<>();
+      ChildGroup group = myGroups.get(module);
+      if (group != null) {
+        for (NamespaceCommand command : group.getNamespaceCommands()) {
+          if (command.getKind() == NamespaceCommand.Kind.IMPORT) {
+            CompletableFuture<?> dependency = results.get(new ModulePath(command.getPath()));
+            if (dependency != null) {
+              dependencies.add(dependency);
+            }
+          }
+        }
+      }
+
+      results.put(module, CompletableFuture.allOf(dependencies.toArray(new CompletableFuture<?>[0])).handleAsync((result, exception) -> {
+        ListErrorReporter moduleErrorReporter = new ListErrorReporter();
+        return new Pair<>(persistModule(module, IdReferableConverter.INSTANCE, moduleErrorReporter), moduleErrorReporter);
+      }, executor));
+    }
+
+    for (CompletableFuture<Pair<Boolean, ListErrorReporter>> future : results.values()) {
+      Pair<Boolean, ListErrorReporter> result;
+      try {
+        result = future.join();
+      } catch (CompletionException | CancellationException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw e;
+      }
+      result.proj2.reportTo(errorReporter);
+      if (!result.proj1) {
         ok = false;
       }
     }
-    myUpdatedModules.clear();
     return ok;
   }
 
+  /**
+   * Typechecks and persists updated modules.
+   * Modules are processed in the order of their imports,
+   * so that a pending module (see {@link #getPendingModules}) is loaded from its binary source instead of being typechecked
+   * if interfaces of the updated modules on which it depends did not change.
+   *
+   * @param typechecking  a listener which typechecks modules.
+   * @param executor      an executor for typechecking or null if modules should be typechecked sequentially.
+   * @param errorReporter a reporter for persisting errors.
+   *
+   * @return true if every module was successfully persisted, false otherwise or if typechecking was interrupted.
+   */
+  public boolean typecheckAndPersistUpdatedModules(TypecheckingOrderingListener typechecking, @Nullable ExecutorService executor, ErrorReporter errorReporter) {
+    Set<ModulePath> pending = new LinkedHashSet<>(getPendingModules());
+    pending.retainAll(myUpdatedModules);
+
+    boolean ok = true;
+    while (!myUpdatedModules.isEmpty()) {
+      Map<ModulePath, Boolean> waiting = new HashMap<>();
+      List<ModulePath> ready = new ArrayList<>();
+      for (ModulePath module : myUpdatedModules) {
+        if (!isWaiting(module, pending, waiting)) {
+          ready.add(module);
+        }
+      }
+      if (ready.isEmpty()) {
+        // Pending modules import each other, so they cannot be checked
+        pending.clear();
+        continue;
+      }
+
+      List<Group> groups = new ArrayList<>(ready.size());
+      for (ModulePath module : ready) {
+        ChildGroup group = myGroups.get(module);
+        if (group != null) {
+          groups.add(group);
+        }
+      }
+      if (!(executor == null ? typechecking.typecheckModules(groups) : typechecking.typecheckModules(groups, executor))) {
+        return false;
+      }
+
+      if (!persistModules(ready, executor, errorReporter)) {
+        ok = false;
+      }
+      myUpdatedModules.removeAll(ready);
+
+      // If a pending module is not loaded, it will be typechecked on the next iteration
+      for (Iterator<ModulePath> it = pending.iterator(); it.hasNext(); ) {
+        ModulePath module = it.next();
+        if (!importsUpdatedModules(module)) {
+          it.remove();
+          loadPendingModule(module);
+        }
+      }
+    }
+    return ok;
+  }
+
+  private boolean isWaiting(ModulePath module, Set<ModulePath> pending, Map<ModulePath, Boolean> waiting) {
+    if (pending.contains(module)) {
+      return true;
+    }
+    Boolean result = waiting.get(module);
+    if (result != null) {
+      return result;
+    }
+
+    waiting.put(module, false);
+    ChildGroup group = myGroups.get(module);
+    if (group != null) {
+      for (NamespaceCommand command : group.getNamespaceCommands()) {
+        if (command.getKind() == NamespaceCommand.Kind.IMPORT) {
+          ModulePath dependency = new ModulePath(command.getPath());
+          if (myUpdatedModules.contains(dependency) && isWaiting(dependency, pending, waiting)) {
+            waiting.put(module, true);
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  private boolean importsUpdatedModules(ModulePath module) {
+    ChildGroup group = myGroups.get(module);
+    if (group != null) {
+      for (NamespaceCommand command : group.getNamespaceCommands()) {
+        if (command.getKind() == NamespaceCommand.Kind.IMPORT && myUpdatedModules.contains(new ModulePath(command.getPath()))) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private void orderUpdatedModule(ModulePath module, Set<ModulePath> modules, Set<ModulePath> visiting, Set<ModulePath> ordered) {
+    if (!modules.contains(module) || !visiting.add(module)) {
+      return;
+    }
+
+    ChildGroup group = myGroups.get(module);
+    if (group != null) {
+      for (NamespaceCommand command : group.getNamespaceCommands()) {
+        if (command.getKind() == NamespaceCommand.Kind.IMPORT) {
+          orderUpdatedModule(new ModulePath(command.getPath()), modules, visiting, ordered);
+        }
+      }
+    }
+    ordered.add(module);
+  }
+
   @Nullable
   @Override
   public ChildGroup getModuleGroup(ModulePath modulePath) {
@@ -1,5 +1,7 @@
 package org.arend.module.serialization;
 
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
 import org.arend.core.context.LinkList;
 import org.arend.core.context.param.DependentLink;
 import org.arend.core.definition.*;
@@ -11,24 +13,42 @@ import org.arend.core.expr.*;
 import org.arend.core.pattern.*;
 import org.arend.core.sort.Level;
 import org.arend.core.sort.Sort;
+import org.arend.error.DummyErrorReporter;
+import org.arend.error.ErrorReporter;
+import org.arend.module.error.DeserializationError;
 import org.arend.naming.reference.ClassReferableImpl;
 import org.arend.naming.reference.DataLocatedReferableImpl;
 import org.arend.naming.reference.TCClassReferable;
 import org.arend.naming.reference.TCReferable;
 import org.arend.prelude.Prelude;
 import org.arend.typechecking.order.dependency.DependencyListener;
+import org.arend.typechecking.order.dependency.DummyDependencyListener;
 import org.arend.util.Pair;
 
 import javax.annotation.Nonnull;
 import java.util.*;
+import java.util.function.Supplier;
 
 public class DefinitionDeserialization {
   private final CallTargetProvider myCallTargetProvider;
   private final DependencyListener myDependencyListener;
+  private final boolean myLazyBodies;
+  private final ErrorReporter myErrorReporter;
 
   public DefinitionDeserialization(CallTargetProvider callTargetProvider, DependencyListener dependencyListener) {
+    this(callTargetProvider, dependencyListener, false, DummyErrorReporter.INSTANCE);
+  }
+
+  /**
+   * @param lazyBodies    if true, bodies of functions are deserialized when they are accessed for the first time.
+   *                      Dependencies of bodies are reported to {@code dependencyListener} immediately.
+   * @param errorReporter reports errors in bodies which are deserialized lazily.
+   */
+  public DefinitionDeserialization(CallTargetProvider callTargetProvider, DependencyListener dependencyListener, boolean lazyBodies, ErrorReporter errorReporter) {
     myCallTargetProvider = callTargetProvider;
     myDependencyListener = dependencyListener;
+    myLazyBodies = lazyBodies;
+    myErrorReporter = errorReporter;
   }
 
   public void fillInDefinition(DefinitionProtos.Definition defProto, Definition def, boolean typecheckDefinitionsWithErrors) throws DeserializationException {
@@ -379,11 +399,50 @@ public class DefinitionDeserialization {
     defDeserializer.setIsHeader(false);
     functionDef.setIsLemma(functionProto.getIsLemma());
     if (functionProto.hasBody()) {
-      functionDef.setBody(readBody(defDeserializer, functionProto.getBody()));
+      // Binary files of older versions do not list dependencies of bodies, so their bodies are loaded eagerly
+      if (myLazyBodies && functionProto.hasBodyDependencies()) {
+        for (int index : functionProto.getBodyDependencies().getCallTargetList()) {
+          myDependencyListener.dependsOn(functionDef.getReferable(), false, myCallTargetProvider.getCallTarget(index, Definition.class).getReferable());
+        }
+        functionDef.setLazyBody(new LazyBody(myCallTargetProvider, myErrorReporter, functionDef, functionProto.getBody().toByteString()));
+      } else {
+        functionDef.setBody(readBody(defDeserializer, functionProto.getBody()));
+      }
     }
     // setTypeClassReference(functionDef.getReferable(), functionDef.getParameters(), functionDef.getResultType());
   }
 
+  /**
+   * Deserializes the body of a function from its bytes.
+   * Dependencies of the body are reported when the function is deserialized, so they are not reported again.
+   */
+  private static class LazyBody implements Supplier<Body> {
+    private final CallTargetProvider myCallTargetProvider;
+    private final ErrorReporter myErrorReporter;
+    private final FunctionDefinition myDefinition;
+    private final ByteString myBytes;
+
+    LazyBody(CallTargetProvider callTargetProvider, ErrorReporter errorReporter, FunctionDefinition definition, ByteString bytes) {
+      myCallTargetProvider = callTargetProvider;
+      myErrorReporter = errorReporter;
+      myDefinition = definition;
+      myBytes = bytes;
+    }
+
+    @Override
+    public Body get() {
+      try {
+        ExpressionDeserialization defDeserializer = new ExpressionDeserialization(myCallTargetProvider, DummyDependencyListener.INSTANCE, myDefinition.getReferable());
+        defDeserializer.registerParameters(myDefinition.getParameters());
+        defDeserializer.setIsHeader(false);
+        return new DefinitionDeserialization(myCallTargetProvider, DummyDependencyListener.INSTANCE).readBody(defDeserializer, DefinitionProtos.Body.parseFrom(myBytes));
+      } catch (DeserializationException | InvalidProtocolBufferException e) {
+        myErrorReporter.report(new DeserializationError(myDefinition.getReferable().getLocation(), e));
+        return null;
+      }
+    }
+  }
+
   // To implement this function properly, we need to serialize references to class synonyms
   private void setTypeClassReference(TCReferable referable, DependentLink parameters, Expression type) {
     if (!(referable instanceof DataLocatedReferableImpl)) {
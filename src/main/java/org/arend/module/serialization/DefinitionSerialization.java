@@ -19,15 +19,25 @@ import org.arend.term.Precedence;
 import org.arend.util.Pair;
 
 import javax.annotation.Nonnull;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 public class DefinitionSerialization {
   private final CallTargetIndexProvider myCallTargetIndexProvider;
+  private final boolean myInterfaceOnly;
 
   public DefinitionSerialization(CallTargetIndexProvider callTargetIndexProvider) {
+    this(callTargetIndexProvider, false);
+  }
+
+  /**
+   * @param interfaceOnly if true, bodies of lemmas are omitted since they are not visible to other definitions.
+   */
+  public DefinitionSerialization(CallTargetIndexProvider callTargetIndexProvider, boolean interfaceOnly) {
     myCallTargetIndexProvider = callTargetIndexProvider;
+    myInterfaceOnly = interfaceOnly;
   }
 
   DefinitionProtos.Definition writeDefinition(Definition definition) {
@@ -265,8 +275,12 @@ public class DefinitionSerialization {
       builder.setTypeLevel(defSerializer.writeExpr(definition.getResultTypeLevel()));
     }
     builder.setIsLemma(definition.isLemma());
-    if (definition.status().bodyIsOK() && definition.getActualBody() != null) {
+    if (definition.status().bodyIsOK() && !(myInterfaceOnly && definition.isLemma()) && definition.getActualBody() != null) {
+      Set<Integer> dependencies = new LinkedHashSet<>();
+      defSerializer.setDependencies(dependencies);
       builder.setBody(writeBody(defSerializer, definition.getActualBody()));
+      defSerializer.setDependencies(null);
+      builder.setBodyDependencies(DefinitionProtos.Definition.BodyDependencies.newBuilder().addAllCallTarget(dependencies));
     }
 
     return builder.build();
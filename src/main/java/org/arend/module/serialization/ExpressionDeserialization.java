@@ -66,6 +66,12 @@ class ExpressionDeserialization {
     myBindings.add(binding);
   }
 
+  void registerParameters(DependentLink parameters) {
+    for (DependentLink link = parameters; link.hasNext(); link = link.getNext()) {
+      registerBinding(link);
+    }
+  }
+
   Type readType(ExpressionProtos.Type proto) throws DeserializationException {
     Expression expr = readExpr(proto.getExpr());
     return expr instanceof Type ? (Type) expr : new TypeExpression(expr, readSort(proto.getSort()));
@@ -104,12 +110,16 @@ class ExpressionDeserialization {
     if (var == null && constant == -10) {
       return Level.INFINITY;
     } else {
-      return new Level(var, constant, proto.getMaxConstant());
+      return TermInterner.level(new Level(var, constant, proto.getMaxConstant()));
     }
   }
 
   Sort readSort(LevelProtos.Sort proto) throws DeserializationException {
-    return new Sort(readLevel(proto.getPLevel()), readLevel(proto.getHLevel()));
+    return readSort(proto.getPLevel(), proto.getHLevel());
+  }
+
+  private Sort readSort(LevelProtos.Level pLevel, LevelProtos.Level hLevel) throws DeserializationException {
+    return TermInterner.sort(new Sort(readLevel(pLevel), readLevel(hLevel)));
   }
 
 
@@ -249,20 +259,24 @@ class ExpressionDeserialization {
   private FunCallExpression readFunCall(ExpressionProtos.Expression.FunCall proto) throws DeserializationException {
     FunctionDefinition functionDefinition = myCallTargetProvider.getCallTarget(proto.getFunRef(), FunctionDefinition.class);
     myDependencyListener.dependsOn(myDefinition, myHeader, functionDefinition.getReferable());
-    return new FunCallExpression(functionDefinition, new Sort(readLevel(proto.getPLevel()), readLevel(proto.getHLevel())), readExprList(proto.getArgumentList()));
+    return new FunCallExpression(functionDefinition, readSort(proto.getPLevel(), proto.getHLevel()), readExprList(proto.getArgumentList()));
   }
 
   private Expression readConCall(ExpressionProtos.Expression.ConCall proto) throws DeserializationException {
     Constructor constructor = myCallTargetProvider.getCallTarget(proto.getConstructorRef(), Constructor.class);
     myDependencyListener.dependsOn(myDefinition, myHeader, constructor.getDataType().getReferable());
-    return ConCallExpression.make(constructor, new Sort(readLevel(proto.getPLevel()), readLevel(proto.getHLevel())),
-        readExprList(proto.getDatatypeArgumentList()), readExprList(proto.getArgumentList()));
+    Sort sortArgument = readSort(proto.getPLevel(), proto.getHLevel());
+    if (proto.getDatatypeArgumentCount() == 0 && proto.getArgumentCount() == 0) {
+      return TermInterner.conCall(constructor, sortArgument);
+    }
+    return ConCallExpression.make(constructor, sortArgument, readExprList(proto.getDatatypeArgumentList()), readExprList(proto.getArgumentList()));
   }
 
   private DataCallExpression readDataCall(ExpressionProtos.Expression.DataCall proto) throws DeserializationException {
     DataDefinition dataDefinition = myCallTargetProvider.getCallTarget(proto.getDataRef(), DataDefinition.class);
     myDependencyListener.dependsOn(myDefinition, myHeader, dataDefinition.getReferable());
-    return new DataCallExpression(dataDefinition, new Sort(readLevel(proto.getPLevel()), readLevel(proto.getHLevel())), readExprList(proto.getArgumentList()));
+    Sort sortArgument = readSort(proto.getPLevel(), proto.getHLevel());
+    return proto.getArgumentCount() == 0 ? TermInterner.dataCall(dataDefinition, sortArgument) : new DataCallExpression(dataDefinition, sortArgument, readExprList(proto.getArgumentList()));
   }
 
   private ClassCallExpression readClassCall(ExpressionProtos.Expression.ClassCall proto) throws DeserializationException {
@@ -273,7 +287,7 @@ class ExpressionDeserialization {
 
     ClassDefinition classDefinition = myCallTargetProvider.getCallTarget(proto.getClassRef(), ClassDefinition.class);
     myDependencyListener.dependsOn(myDefinition, myHeader, classDefinition.getReferable());
-    return new ClassCallExpression(classDefinition, new Sort(readLevel(proto.getPLevel()), readLevel(proto.getHLevel())), fieldSet, readSort(proto.getSort()), proto.getHasUniverses());
+    return new ClassCallExpression(classDefinition, readSort(proto.getPLevel(), proto.getHLevel()), fieldSet, readSort(proto.getSort()), proto.getHasUniverses());
   }
 
   private ReferenceExpression readReference(ExpressionProtos.Expression.Reference proto) throws DeserializationException {
@@ -289,7 +303,7 @@ class ExpressionDeserialization {
   }
 
   private UniverseExpression readUniverse(ExpressionProtos.Expression.Universe proto) throws DeserializationException {
-    return new UniverseExpression(readSort(proto.getSort()));
+    return TermInterner.universe(readSort(proto.getSort()));
   }
 
   private ErrorExpression readError(ExpressionProtos.Expression.Error proto) throws DeserializationException {
@@ -307,7 +321,7 @@ class ExpressionDeserialization {
   }
 
   private SigmaExpression readSigma(ExpressionProtos.Expression.Sigma proto) throws DeserializationException {
-    return new SigmaExpression(new Sort(readLevel(proto.getPLevel()), readLevel(proto.getHLevel())), readParameters(proto.getParamList()));
+    return new SigmaExpression(readSort(proto.getPLevel(), proto.getHLevel()), readParameters(proto.getParamList()));
   }
 
   private Expression readProj(ExpressionProtos.Expression.Proj proto) throws DeserializationException {
@@ -343,11 +357,11 @@ class ExpressionDeserialization {
   private Expression readFieldCall(ExpressionProtos.Expression.FieldCall proto) throws DeserializationException {
     ClassField classField = myCallTargetProvider.getCallTarget(proto.getFieldRef(), ClassField.class);
     myDependencyListener.dependsOn(myDefinition, myHeader, classField.getParentClass().getReferable());
-    return FieldCallExpression.make(classField, new Sort(readLevel(proto.getPLevel()), readLevel(proto.getHLevel())), readExpr(proto.getExpression()));
+    return FieldCallExpression.make(classField, readSort(proto.getPLevel(), proto.getHLevel()), readExpr(proto.getExpression()));
   }
 
   private SmallIntegerExpression readSmallInteger(ExpressionProtos.Expression.SmallInteger proto) {
-    return new SmallIntegerExpression(proto.getValue());
+    return TermInterner.integer(proto.getValue());
   }
 
   private BigIntegerExpression readBigInteger(ExpressionProtos.Expression.BigInteger proto) {
@@ -7,6 +7,7 @@ import org.arend.core.context.param.DependentLink;
 import org.arend.core.context.param.TypedDependentLink;
 import org.arend.core.definition.ClassField;
 import org.arend.core.definition.Constructor;
+import org.arend.core.definition.Definition;
 import org.arend.core.elimtree.BranchElimTree;
 import org.arend.core.elimtree.ElimTree;
 import org.arend.core.elimtree.LeafElimTree;
@@ -22,16 +23,33 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProtos.Expression> {
   private final CallTargetIndexProvider myCallTargetIndexProvider;
   private final List<Binding> myBindings = new ArrayList<>();  // de Bruijn indices
   private final Map<Binding, Integer> myBindingsMap = new HashMap<>();
+  private Set<Integer> myDependencies;
 
   ExpressionSerialization(CallTargetIndexProvider callTargetIndexProvider) {
     myCallTargetIndexProvider = callTargetIndexProvider;
   }
 
+  /**
+   * Sets a set to which indices of definitions are added if written expressions depend on them, or null if dependencies should not be collected.
+   * The dependencies are the same as those which are reported by {@link ExpressionDeserialization}.
+   */
+  void setDependencies(Set<Integer> dependencies) {
+    myDependencies = dependencies;
+  }
+
+  private int writeDependency(Definition definition, Definition dependency) {
+    if (myDependencies != null) {
+      myDependencies.add(myCallTargetIndexProvider.getDefIndex(dependency));
+    }
+    return myCallTargetIndexProvider.getDefIndex(definition);
+  }
+
 
   // Bindings
 
@@ -204,7 +222,7 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
   @Override
   public ExpressionProtos.Expression visitFunCall(FunCallExpression expr, Void params) {
     ExpressionProtos.Expression.FunCall.Builder builder = ExpressionProtos.Expression.FunCall.newBuilder();
-    builder.setFunRef(myCallTargetIndexProvider.getDefIndex(expr.getDefinition()));
+    builder.setFunRef(writeDependency(expr.getDefinition(), expr.getDefinition()));
     builder.setPLevel(writeLevel(expr.getSortArgument().getPLevel()));
     builder.setHLevel(writeLevel(expr.getSortArgument().getHLevel()));
     for (Expression arg : expr.getDefCallArguments()) {
@@ -216,7 +234,7 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
   @Override
   public ExpressionProtos.Expression visitConCall(ConCallExpression expr, Void params) {
     ExpressionProtos.Expression.ConCall.Builder builder = ExpressionProtos.Expression.ConCall.newBuilder();
-    builder.setConstructorRef(myCallTargetIndexProvider.getDefIndex(expr.getDefinition()));
+    builder.setConstructorRef(writeDependency(expr.getDefinition(), expr.getDefinition().getDataType()));
     builder.setPLevel(writeLevel(expr.getSortArgument().getPLevel()));
     builder.setHLevel(writeLevel(expr.getSortArgument().getHLevel()));
     for (Expression arg : expr.getDataTypeArguments()) {
@@ -231,7 +249,7 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
   @Override
   public ExpressionProtos.Expression visitDataCall(DataCallExpression expr, Void params) {
     ExpressionProtos.Expression.DataCall.Builder builder = ExpressionProtos.Expression.DataCall.newBuilder();
-    builder.setDataRef(myCallTargetIndexProvider.getDefIndex(expr.getDefinition()));
+    builder.setDataRef(writeDependency(expr.getDefinition(), expr.getDefinition()));
     builder.setPLevel(writeLevel(expr.getSortArgument().getPLevel()));
     builder.setHLevel(writeLevel(expr.getSortArgument().getHLevel()));
     for (Expression arg : expr.getDefCallArguments()) {
@@ -242,7 +260,7 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
 
   private ExpressionProtos.Expression.ClassCall writeClassCall(ClassCallExpression expr) {
     ExpressionProtos.Expression.ClassCall.Builder builder = ExpressionProtos.Expression.ClassCall.newBuilder();
-    builder.setClassRef(myCallTargetIndexProvider.getDefIndex(expr.getDefinition()));
+    builder.setClassRef(writeDependency(expr.getDefinition(), expr.getDefinition()));
     builder.setPLevel(writeLevel(expr.getSortArgument().getPLevel()));
     builder.setHLevel(writeLevel(expr.getSortArgument().getHLevel()));
     for (Map.Entry<ClassField, Expression> entry : expr.getImplementedHere().entrySet()) {
@@ -1,6 +1,8 @@
 package org.arend.module.serialization;
 
 import org.arend.core.definition.*;
+import org.arend.error.DummyErrorReporter;
+import org.arend.error.ErrorReporter;
 import org.arend.module.ModulePath;
 import org.arend.module.scopeprovider.ModuleScopeProvider;
 import org.arend.naming.reference.*;
@@ -33,6 +35,16 @@ public class ModuleDeserialization {
   }
 
   public void readModule(ModuleScopeProvider moduleScopeProvider, DependencyListener dependencyListener, boolean typecheckDefinitionsWithErrors) throws DeserializationException {
+    readModule(moduleScopeProvider, dependencyListener, typecheckDefinitionsWithErrors, false, DummyErrorReporter.INSTANCE);
+  }
+
+  /**
+   * Fills in definitions of the module.
+   *
+   * @param lazyBodies    if true, bodies of functions are deserialized when they are accessed for the first time.
+   * @param errorReporter reports errors in bodies which are deserialized lazily.
+   */
+  public void readModule(ModuleScopeProvider moduleScopeProvider, DependencyListener dependencyListener, boolean typecheckDefinitionsWithErrors, boolean lazyBodies, ErrorReporter errorReporter) throws DeserializationException {
     for (ModuleProtos.ModuleCallTargets moduleCallTargets : myModuleProto.getModuleCallTargetsList()) {
       ModulePath module = new ModulePath(moduleCallTargets.getNameList());
       Scope scope = moduleScopeProvider.forModule(module);
@@ -45,7 +57,7 @@ public class ModuleDeserialization {
       }
     }
 
-    DefinitionDeserialization defDeserialization = new DefinitionDeserialization(myCallTargetProvider, dependencyListener);
+    DefinitionDeserialization defDeserialization = new DefinitionDeserialization(myCallTargetProvider, dependencyListener, lazyBodies, errorReporter);
     for (Pair<DefinitionProtos.Definition, Definition> pair : myDefinitions) {
       defDeserialization.fillInDefinition(pair.proj1, pair.proj2, typecheckDefinitionsWithErrors);
     }
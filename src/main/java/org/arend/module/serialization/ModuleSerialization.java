@@ -1,5 +1,8 @@
 package org.arend.module.serialization;
 
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.MessageLite;
 import org.arend.core.definition.ClassField;
 import org.arend.core.definition.Constructor;
 import org.arend.core.definition.Definition;
@@ -9,25 +12,57 @@ import org.arend.naming.reference.LocatedReferable;
 import org.arend.naming.reference.TCReferable;
 import org.arend.naming.reference.converter.ReferableConverter;
 import org.arend.source.error.LocationError;
+import org.arend.term.group.FileGroup;
 import org.arend.term.group.Group;
 import org.arend.typechecking.TypecheckerState;
+import org.arend.util.HashUtils;
 
+import java.io.IOException;
 import java.util.*;
 
 public class ModuleSerialization {
   private final TypecheckerState myState;
   private final ErrorReporter myErrorReporter;
   private final SimpleCallTargetIndexProvider myCallTargetIndexProvider = new SimpleCallTargetIndexProvider();
-  private final DefinitionSerialization myDefinitionSerialization = new DefinitionSerialization(myCallTargetIndexProvider);
+  private final DefinitionSerialization myDefinitionSerialization;
   private final Set<Integer> myCurrentDefinitions = new HashSet<>();
   private boolean myComplete;
 
   public ModuleSerialization(TypecheckerState state, ErrorReporter errorReporter) {
+    this(state, errorReporter, false);
+  }
+
+  private ModuleSerialization(TypecheckerState state, ErrorReporter errorReporter, boolean interfaceOnly) {
     myState = state;
     myErrorReporter = errorReporter;
+    myDefinitionSerialization = new DefinitionSerialization(myCallTargetIndexProvider, interfaceOnly);
   }
 
+  /**
+   * Serializes a module.
+   * The result also contains the hash of the interface of the module, that is, of everything except bodies of lemmas.
+   * Call targets are numbered in the order in which they are encountered, so the hash does not depend on bodies of lemmas either.
+   *
+   * @return the serialized module or null if some error occurred.
+   */
   public ModuleProtos.Module writeModule(Group group, ModulePath modulePath, ReferableConverter referableConverter) {
+    ModuleProtos.Module.Builder out = writeModuleBuilder(group, modulePath, referableConverter);
+    if (out == null) {
+      return null;
+    }
+
+    ModuleProtos.Module.Builder interfaceOut = new ModuleSerialization(myState, myErrorReporter, true).writeModuleBuilder(group, modulePath, referableConverter);
+    if (interfaceOut == null) {
+      return null;
+    }
+    out.setInterfaceHash(ByteString.copyFrom(HashUtils.hash(toDeterministicByteArray(interfaceOut.build()))));
+    if (group instanceof FileGroup && ((FileGroup) group).getSourceHash() != null) {
+      out.setSourceHash(ByteString.copyFrom(((FileGroup) group).getSourceHash()));
+    }
+    return out.build();
+  }
+
+  private ModuleProtos.Module.Builder writeModuleBuilder(Group group, ModulePath modulePath, ReferableConverter referableConverter) {
     ModuleProtos.Module.Builder out = ModuleProtos.Module.newBuilder();
 
     // Serialize the group structure first in order to populate the call target tree
@@ -36,7 +71,7 @@ public class ModuleSerialization {
     out.setComplete(myComplete);
 
     // Now write the call target tree
-    Map<ModulePath, Map<String, CallTargetTree>> moduleCallTargets = new HashMap<>();
+    Map<ModulePath, Map<String, CallTargetTree>> moduleCallTargets = new LinkedHashMap<>();
     for (Map.Entry<Definition, Integer> entry : myCallTargetIndexProvider.getCallTargets()) {
       if (myCurrentDefinitions.contains(entry.getValue())) {
         continue;
@@ -50,7 +85,7 @@ public class ModuleSerialization {
         return null;
       }
 
-      Map<String, CallTargetTree> map = moduleCallTargets.computeIfAbsent(targetModulePath, k -> new HashMap<>());
+      Map<String, CallTargetTree> map = moduleCallTargets.computeIfAbsent(targetModulePath, k -> new LinkedHashMap<>());
       CallTargetTree tree = null;
       for (String name : longName) {
         tree = map.computeIfAbsent(name, k -> new CallTargetTree(0));
@@ -68,7 +103,20 @@ public class ModuleSerialization {
       out.addModuleCallTargets(builder.build());
     }
 
-    return out.build();
+    return out;
+  }
+
+  private static byte[] toDeterministicByteArray(MessageLite message) {
+    byte[] result = new byte[message.getSerializedSize()];
+    CodedOutputStream output = CodedOutputStream.newInstance(result);
+    output.useDeterministicSerialization();
+    try {
+      message.writeTo(output);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    output.checkNoSpaceLeft();
+    return result;
   }
 
   private ModuleProtos.Group writeGroup(Group group, ReferableConverter referableConverter) {
@@ -121,7 +169,7 @@ public class ModuleSerialization {
   }
 
   private class CallTargetTree {
-    Map<String, CallTargetTree> subtreeMap = new HashMap<>();
+    Map<String, CallTargetTree> subtreeMap = new LinkedHashMap<>();
     int index;
 
     CallTargetTree(int index) {
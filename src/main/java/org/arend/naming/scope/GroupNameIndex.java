@@ -0,0 +1,136 @@
+package org.arend.naming.scope;
+
+import org.arend.naming.reference.ClassReferable;
+import org.arend.naming.reference.GlobalReferable;
+import org.arend.naming.reference.Referable;
+import org.arend.term.group.Group;
+
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * Maps names defined in a group to referables and subgroups in the same way as {@link LexicalScope} resolves them.
+ * Namespace commands and the parent scope are not indexed.
+ * An index does not track changes of a group; it should be rebuilt if {@link #isValid} returns false.
+ */
+public class GroupNameIndex {
+  private final Map<String, GlobalReferable> myInternalReferables = new HashMap<>();
+  private final Map<String, GlobalReferable> myVisibleInternalReferables = new HashMap<>();
+  private final Map<String, GlobalReferable> mySubgroupReferables = new HashMap<>();
+  private final Map<String, Group> mySubgroups = new HashMap<>();
+  private final List<Referable> myConstructorElements = new ArrayList<>();
+  private final List<Referable> myFieldElements = new ArrayList<>();
+  private final List<Referable> mySubgroupElements = new ArrayList<>();
+  private final int[] mySizes;
+
+  public GroupNameIndex(Group group) {
+    mySizes = getSizes(group);
+
+    boolean isClass = group.getReferable() instanceof ClassReferable;
+    for (Group.InternalReferable constructor : group.getConstructors()) {
+      addInternalReferable(constructor, true, myConstructorElements);
+    }
+    for (Group.InternalReferable field : group.getFields()) {
+      addInternalReferable(field, !isClass, myFieldElements);
+    }
+
+    addSubgroups(group.getSubgroups());
+    addSubgroups(group.getDynamicSubgroups());
+  }
+
+  private static int[] getSizes(Group group) {
+    return new int[] { group.getConstructors().size(), group.getFields().size(), group.getSubgroups().size(), group.getDynamicSubgroups().size() };
+  }
+
+  private static boolean isIndexed(String name) {
+    return !name.isEmpty() && !"_".equals(name);
+  }
+
+  private void addInternalReferable(Group.InternalReferable internalReferable, boolean isResolvable, List<Referable> elements) {
+    GlobalReferable referable = internalReferable.getReferable();
+    String name = referable.textRepresentation();
+    if (!isIndexed(name)) {
+      return;
+    }
+
+    elements.add(referable);
+    if (isResolvable) {
+      myInternalReferables.putIfAbsent(name, referable);
+    }
+    if (internalReferable.isVisible()) {
+      myVisibleInternalReferables.putIfAbsent(name, referable);
+    }
+  }
+
+  private void addSubgroups(Collection<? extends Group> subgroups) {
+    for (Group subgroup : subgroups) {
+      GlobalReferable referable = subgroup.getReferable();
+      String name = referable.textRepresentation();
+      if (isIndexed(name)) {
+        mySubgroupReferables.putIfAbsent(name, referable);
+        mySubgroups.putIfAbsent(name, subgroup);
+        mySubgroupElements.add(referable);
+      }
+
+      addVisibleReferables(subgroup.getConstructors());
+      addVisibleReferables(subgroup.getFields());
+    }
+  }
+
+  private void addVisibleReferables(Collection<? extends Group.InternalReferable> internalReferables) {
+    for (Group.InternalReferable internalReferable : internalReferables) {
+      if (internalReferable.isVisible()) {
+        GlobalReferable referable = internalReferable.getReferable();
+        String name = referable.textRepresentation();
+        if (isIndexed(name)) {
+          mySubgroupReferables.putIfAbsent(name, referable);
+          mySubgroupElements.add(referable);
+        }
+      }
+    }
+  }
+
+  /**
+   * Checks that elements were not added to or removed from the group after this index was built.
+   */
+  public boolean isValid(Group group) {
+    return Arrays.equals(mySizes, getSizes(group));
+  }
+
+  /**
+   * Finds a constructor or a field of the group.
+   * If the group is a class and {@code onlyVisible} is false, only constructors are indexed since fields are resolved in {@link ClassFieldImplScope}.
+   */
+  @Nullable
+  public GlobalReferable resolveInternal(String name, boolean onlyVisible) {
+    return (onlyVisible ? myVisibleInternalReferables : myInternalReferables).get(name);
+  }
+
+  /**
+   * Finds a subgroup or a visible constructor or field of a subgroup.
+   */
+  @Nullable
+  public GlobalReferable resolveSubgroupReferable(String name) {
+    return mySubgroupReferables.get(name);
+  }
+
+  @Nullable
+  public Group resolveSubgroup(String name) {
+    return mySubgroups.get(name);
+  }
+
+  public List<Referable> getConstructorElements() {
+    return myConstructorElements;
+  }
+
+  public List<Referable> getFieldElements() {
+    return myFieldElements;
+  }
+
+  /**
+   * @return subgroups and their visible constructors and fields.
+   */
+  public List<Referable> getSubgroupElements() {
+    return mySubgroupElements;
+  }
+}
@@ -72,20 +72,31 @@ public class LexicalScope implements Scope {
   @Override
   public List<Referable> getElements() {
     List<Referable> elements = new ArrayList<>();
-    for (Group.InternalReferable constructor : myGroup.getConstructors()) {
-      addReferable(constructor.getReferable(), elements);
+    GroupNameIndex index = myGroup.getNameIndex();
+    if (index != null) {
+      elements.addAll(index.getConstructorElements());
+    } else {
+      for (Group.InternalReferable constructor : myGroup.getConstructors()) {
+        addReferable(constructor.getReferable(), elements);
+      }
     }
     GlobalReferable groupRef = myGroup.getReferable();
     if (myKind != Kind.OPENED_INTERNAL && groupRef instanceof ClassReferable) {
       elements.addAll(new ClassFieldImplScope((ClassReferable) groupRef, false).getElements());
+    } else if (index != null) {
+      elements.addAll(index.getFieldElements());
     } else {
       for (Group.InternalReferable field : myGroup.getFields()) {
         addReferable(field.getReferable(), elements);
       }
     }
 
-    addSubgroups(myGroup.getSubgroups(), elements);
-    addSubgroups(myGroup.getDynamicSubgroups(), elements);
+    if (index != null) {
+      elements.addAll(index.getSubgroupElements());
+    } else {
+      addSubgroups(myGroup.getSubgroups(), elements);
+      addSubgroups(myGroup.getDynamicSubgroups(), elements);
+    }
 
     Scope cachingScope = null;
     for (NamespaceCommand cmd : myGroup.getNamespaceCommands()) {
@@ -139,6 +150,16 @@ public class LexicalScope implements Scope {
     return null;
   }
 
+  private static GlobalReferable resolveInternal(Group group, GroupNameIndex index, String name, boolean onlyInternal) {
+    GlobalReferable result = index.resolveInternal(name, onlyInternal);
+    if (result != null || onlyInternal || !(group.getReferable() instanceof ClassReferable)) {
+      return result;
+    }
+
+    Referable referable = new ClassFieldImplScope((ClassReferable) group.getReferable(), false).resolveName(name);
+    return referable instanceof GlobalReferable ? (GlobalReferable) referable : null;
+  }
+
   private static Object resolveSubgroup(Group group, String name, ResolveType resolveType) {
     Referable ref = group.getReferable();
     if (ref.textRepresentation().equals(name)) {
@@ -162,23 +183,38 @@ public class LexicalScope implements Scope {
       return null;
     }
 
+    GroupNameIndex index = myGroup.getNameIndex();
     if (resolveType == ResolveType.REF) {
-      Object result = resolveInternal(myGroup, name, myKind == Kind.OPENED_INTERNAL);
+      Object result = index != null ? resolveInternal(myGroup, index, name, myKind == Kind.OPENED_INTERNAL) : resolveInternal(myGroup, name, myKind == Kind.OPENED_INTERNAL);
       if (result != null) {
         return result;
       }
     }
 
-    for (Group subgroup : myGroup.getSubgroups()) {
-      Object result = resolveSubgroup(subgroup, name, resolveType);
-      if (result != null) {
-        return result;
+    if (index != null) {
+      if (resolveType == ResolveType.REF) {
+        GlobalReferable result = index.resolveSubgroupReferable(name);
+        if (result != null) {
+          return result;
+        }
+      } else {
+        Group subgroup = index.resolveSubgroup(name);
+        if (subgroup != null) {
+          return LexicalScope.opened(subgroup, resolveType == ResolveType.INTERNAL_SCOPE);
+        }
       }
-    }
-    for (Group subgroup : myGroup.getDynamicSubgroups()) {
-      Object result = resolveSubgroup(subgroup, name, resolveType);
-      if (result != null) {
-        return result;
+    } else {
+      for (Group subgroup : myGroup.getSubgroups()) {
+        Object result = resolveSubgroup(subgroup, name, resolveType);
+        if (result != null) {
+          return result;
+        }
+      }
+      for (Group subgroup : myGroup.getDynamicSubgroups()) {
+        Object result = resolveSubgroup(subgroup, name, resolveType);
+        if (result != null) {
+          return result;
+        }
       }
     }
 
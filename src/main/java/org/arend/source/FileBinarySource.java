@@ -2,6 +2,7 @@ package org.arend.source;
 
 import org.arend.library.SourceLibrary;
 import org.arend.module.ModulePath;
+import org.arend.util.AtomicFileOutputStream;
 import org.arend.util.FileUtils;
 
 import javax.annotation.Nonnull;
@@ -11,11 +12,11 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 
 public class FileBinarySource extends StreamBinarySource {
-  private final Path myFile;
+  protected final Path myFile;
   private final ModulePath myModulePath;
+  private boolean mySync;
 
   /**
    * Creates a new {@code FileBinarySource} from a path to the base directory and a path to the source.
@@ -24,10 +25,28 @@ public class FileBinarySource extends StreamBinarySource {
    * @param modulePath  a path to the source.
    */
   public FileBinarySource(Path basePath, ModulePath modulePath) {
-    myFile = FileUtils.binaryFile(basePath, modulePath);
+    this(basePath, modulePath, FileUtils.SERIALIZED_EXTENSION);
+  }
+
+  /**
+   * Creates a new {@code FileBinarySource} from a path to the base directory, a path to the source and the extension of binary files.
+   *
+   * @param basePath    a path to the base directory.
+   * @param modulePath  a path to the source.
+   * @param extension   the extension of binary files.
+   */
+  protected FileBinarySource(Path basePath, ModulePath modulePath, String extension) {
+    myFile = FileUtils.binaryFile(basePath, modulePath, extension);
     myModulePath = modulePath;
   }
 
+  /**
+   * Sets whether the file is forced to the storage device when it is persisted.
+   */
+  public void setSync(boolean sync) {
+    mySync = sync;
+  }
+
   @Nonnull
   @Override
   public ModulePath getModulePath() {
@@ -44,7 +63,7 @@ public class FileBinarySource extends StreamBinarySource {
   @Override
   protected OutputStream getOutputStream() throws IOException {
     Files.createDirectories(myFile.getParent());
-    return Files.newOutputStream(myFile, StandardOpenOption.CREATE);
+    return new AtomicFileOutputStream(myFile, mySync);
   }
 
   @Override
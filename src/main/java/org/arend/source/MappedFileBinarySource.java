@@ -0,0 +1,37 @@
+package org.arend.source;
+
+import com.google.protobuf.CodedInputStream;
+import org.arend.module.ModulePath;
+import org.arend.module.serialization.ModuleProtos;
+import org.arend.util.FileUtils;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A binary source which is stored uncompressed and is memory-mapped during loading.
+ * Note that on some platforms a file cannot be overwritten while it is mapped,
+ * so persisting a module right after loading it may fail until the mapping is garbage collected.
+ */
+public class MappedFileBinarySource extends FileBinarySource {
+  /**
+   * Creates a new {@code MappedFileBinarySource} from a path to the base directory and a path to the source.
+   *
+   * @param basePath    a path to the base directory.
+   * @param modulePath  a path to the source.
+   */
+  public MappedFileBinarySource(Path basePath, ModulePath modulePath) {
+    super(basePath, modulePath, FileUtils.UNCOMPRESSED_SERIALIZED_EXTENSION);
+  }
+
+  @Nullable
+  @Override
+  protected ModuleProtos.Module readModuleProto() throws IOException {
+    try (FileChannel channel = FileChannel.open(myFile, StandardOpenOption.READ)) {
+      return ModuleProtos.Module.parseFrom(CodedInputStream.newInstance(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())));
+    }
+  }
+}
@@ -1,17 +1,25 @@
 package org.arend.source;
 
+import org.arend.core.expr.TermInterner;
 import org.arend.error.ErrorReporter;
+import org.arend.error.ListErrorReporter;
 import org.arend.library.LibraryManager;
 import org.arend.library.SourceLibrary;
 import org.arend.module.ModulePath;
 import org.arend.module.error.ModuleNotFoundError;
 import org.arend.module.scopeprovider.ModuleScopeProvider;
+import org.arend.module.serialization.DeserializationException;
+import org.arend.module.serialization.ModuleProtos;
 import org.arend.naming.reference.converter.ReferableConverter;
+import org.arend.term.group.ChildGroup;
 import org.arend.typechecking.instance.provider.InstanceProviderSet;
+import org.arend.util.Pair;
 
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * Contains all necessary information for source loading.
@@ -23,6 +31,7 @@ public final class SourceLoader {
   private final Map<ModulePath, SourceType> myLoadedModules = new HashMap<>();
   private final Map<ModulePath, BinarySource> myLoadingBinaryModules = new HashMap<>();
   private final Map<ModulePath, Source> myLoadingRawModules = new HashMap<>();
+  private final Set<ModulePath> myPendingModules = new LinkedHashSet<>();
   private ModuleScopeProvider myModuleScopeProvider;
 
   private enum SourceType { RAW, BINARY, BINARY_FAIL }
@@ -60,6 +69,10 @@ public final class SourceLoader {
     return myLibraryManager.getLibraryErrorReporter();
   }
 
+  public TermInterner getTermInterner() {
+    return myLibraryManager.getTermInterner();
+  }
+
   /**
    * Loads the structure of the source and its dependencies.
    *
@@ -92,6 +105,144 @@ public final class SourceLoader {
     return true;
   }
 
+  /**
+   * Loads the structure of the given sources and their dependencies.
+   * Sources are parsed concurrently on {@code executor}; the import closure is discovered one layer at a time.
+   * Parsed groups are registered in the library sequentially in the order of discovery.
+   *
+   * @param modulePaths modules to load.
+   * @param executor    an executor for parsing.
+   *
+   * @return true if every module was successfully loaded, false otherwise.
+   */
+  public boolean preloadRaw(Collection<? extends ModulePath> modulePaths, ExecutorService executor) {
+    Map<ModulePath, List<ModulePath>> imports = new HashMap<>();
+    Set<ModulePath> failed = new HashSet<>();
+    Collection<? extends ModulePath> layer = modulePaths;
+
+    while (!layer.isEmpty()) {
+      List<StreamRawSource> toParse = new ArrayList<>();
+      for (ModulePath modulePath : layer) {
+        if (myLoadedModules.containsKey(modulePath) || myLoadingRawModules.containsKey(modulePath)) {
+          continue;
+        }
+
+        Source rawSource = myLibrary.getRawSource(modulePath);
+        if (rawSource == null || !rawSource.isAvailable()) {
+          getLibraryErrorReporter().report(new ModuleNotFoundError(modulePath));
+          failed.add(modulePath);
+          continue;
+        }
+
+        myLoadedModules.put(modulePath, SourceType.RAW);
+        if (rawSource instanceof StreamRawSource) {
+          toParse.add((StreamRawSource) rawSource);
+        } else {
+          myLoadingRawModules.put(modulePath, rawSource);
+          if (!rawSource.preload(this)) {
+            myLoadingRawModules.remove(modulePath);
+            failed.add(modulePath);
+          }
+        }
+      }
+
+      List<Future<Pair<Boolean, ListErrorReporter>>> results = new ArrayList<>(toParse.size());
+      for (StreamRawSource source : toParse) {
+        results.add(executor.submit(() -> {
+          ListErrorReporter errorReporter = new ListErrorReporter();
+          return new Pair<>(source.parse(errorReporter), errorReporter);
+        }));
+      }
+
+      List<ModulePath> nextLayer = new ArrayList<>();
+      for (int i = 0; i < toParse.size(); i++) {
+        StreamRawSource source = toParse.get(i);
+        ModulePath modulePath = source.getModulePath();
+        Pair<Boolean, ListErrorReporter> result = getFutureResult(results.get(i));
+        if (result != null) {
+          result.proj2.reportTo(getTypecheckingErrorReporter());
+        }
+        if (result == null || !result.proj1) {
+          myLibrary.onGroupLoaded(modulePath, null, true);
+          failed.add(modulePath);
+          continue;
+        }
+
+        myLoadingRawModules.put(modulePath, source);
+        List<ModulePath> moduleImports = source.registerGroup(myLibrary);
+        imports.put(modulePath, moduleImports);
+        nextLayer.addAll(moduleImports);
+      }
+      layer = nextLayer;
+    }
+
+    // A module fails if some module it imports fails
+    boolean updated = !failed.isEmpty();
+    while (updated) {
+      updated = false;
+      for (Map.Entry<ModulePath, List<ModulePath>> entry : imports.entrySet()) {
+        if (!failed.contains(entry.getKey()) && !Collections.disjoint(entry.getValue(), failed)) {
+          Source source = myLoadingRawModules.remove(entry.getKey());
+          if (source instanceof StreamRawSource) {
+            ((StreamRawSource) source).unregisterGroup(myLibrary);
+          }
+          failed.add(entry.getKey());
+          updated = true;
+        }
+      }
+    }
+
+    for (ModulePath modulePath : modulePaths) {
+      if (failed.contains(modulePath)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Loads raw sources of modules of a loaded library again.
+   * Other loaded modules of the library are not reloaded even if the given modules import them.
+   *
+   * @param modulePaths modules to reload.
+   * @return true if every module was successfully loaded, false otherwise.
+   */
+  public boolean reloadRaw(Collection<? extends ModulePath> modulePaths) {
+    for (ModulePath modulePath : myLibrary.getLoadedModules()) {
+      if (!modulePaths.contains(modulePath)) {
+        myLoadedModules.put(modulePath, SourceType.RAW);
+      }
+    }
+
+    boolean ok = true;
+    for (ModulePath modulePath : modulePaths) {
+      if (!preloadRaw(modulePath)) {
+        ok = false;
+      }
+    }
+    loadRawSources();
+    return ok;
+  }
+
+  private static <T> T getFutureResult(Future<T> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      future.cancel(true);
+      return null;
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
   /**
    * Loads raw sources that were preloaded.
    */
@@ -107,6 +258,41 @@ public final class SourceLoader {
     }
   }
 
+  /**
+   * Gets modules that were loaded from raw sources only because some modules of the library on which they depend were not loaded from binary sources.
+   * See {@link #loadPendingBinary}.
+   */
+  public Set<? extends ModulePath> getPendingModules() {
+    return myPendingModules;
+  }
+
+  void addPendingModule(ModulePath modulePath) {
+    myPendingModules.add(modulePath);
+  }
+
+  /**
+   * Records that a module was typechecked and persisted, so modules that depend on it can be loaded from binary sources.
+   */
+  public void moduleRebuilt(ModulePath modulePath) {
+    myLoadedModules.put(modulePath, SourceType.BINARY);
+  }
+
+  /**
+   * Loads the binary source of a pending module.
+   * This method should be invoked after the modules it depends on are rebuilt (see {@link #moduleRebuilt}).
+   * It succeeds if interfaces of these modules did not change.
+   *
+   * @param modulePath  a pending module.
+   * @return true if the source was successfully loaded, false otherwise.
+   */
+  public boolean loadPendingBinary(ModulePath modulePath) {
+    if (!myPendingModules.remove(modulePath)) {
+      return false;
+    }
+    myLoadedModules.put(modulePath, SourceType.RAW);
+    return loadBinary(modulePath);
+  }
+
   /**
    * Loads a binary source.
    *
@@ -117,6 +303,194 @@ public final class SourceLoader {
     return preloadBinary(modulePath) && fillInBinary(modulePath);
   }
 
+  /**
+   * Loads binary sources.
+   * Modules are read and their definitions are created concurrently on {@code executor};
+   * the dependency closure is discovered one layer at a time.
+   * Groups are registered in the library and definitions are filled in sequentially in the dependency order.
+   * The typechecker state of the library must support concurrent access.
+   *
+   * @param modulePaths modules to load.
+   * @param executor    an executor for deserialization.
+   *
+   * @return true if every module was successfully loaded, false otherwise.
+   */
+  public boolean loadBinary(Collection<? extends ModulePath> modulePaths, ExecutorService executor) {
+    Map<ModulePath, ModuleProtos.Module> moduleProtos = new LinkedHashMap<>();
+    Map<ModulePath, List<ModulePath>> dependencies = new HashMap<>();
+    Set<ModulePath> failed = new HashSet<>();
+    Collection<? extends ModulePath> layer = modulePaths;
+
+    while (!layer.isEmpty()) {
+      List<StreamBinarySource> toRead = new ArrayList<>();
+      for (ModulePath modulePath : layer) {
+        SourceType sourceType = myLoadedModules.get(modulePath);
+        if (sourceType == SourceType.BINARY || myLoadingBinaryModules.containsKey(modulePath)) {
+          continue;
+        }
+        if (sourceType == SourceType.BINARY_FAIL) {
+          failed.add(modulePath);
+          continue;
+        }
+
+        BinarySource binarySource = getAvailableBinarySource(modulePath);
+        if (binarySource instanceof StreamBinarySource) {
+          myLoadedModules.put(modulePath, SourceType.BINARY);
+          myLoadingBinaryModules.put(modulePath, binarySource);
+          toRead.add((StreamBinarySource) binarySource);
+        } else if (!preloadBinary(modulePath)) {
+          failed.add(modulePath);
+        }
+      }
+
+      List<Future<Pair<ModuleProtos.Module, Exception>>> results = new ArrayList<>(toRead.size());
+      for (StreamBinarySource source : toRead) {
+        results.add(executor.submit(() -> {
+          try {
+            return new Pair<>(source.readModuleProto(), null);
+          } catch (IOException e) {
+            return new Pair<>(null, e);
+          }
+        }));
+      }
+
+      List<ModulePath> nextLayer = new ArrayList<>();
+      for (int i = 0; i < toRead.size(); i++) {
+        StreamBinarySource source = toRead.get(i);
+        ModulePath modulePath = source.getModulePath();
+        Pair<ModuleProtos.Module, Exception> result = getFutureResult(results.get(i));
+        if (result != null && result.proj2 != null) {
+          source.loadingFailed(this, modulePath, null, result.proj2);
+        }
+        if (result == null || result.proj1 == null || !source.checkComplete(this, result.proj1)) {
+          binaryLoadingFailed(modulePath);
+          failed.add(modulePath);
+          continue;
+        }
+
+        List<ModulePath> moduleDependencies = StreamBinarySource.getDependencies(myLibrary, result.proj1);
+        myLibrary.setInterfaceHash(modulePath, StreamBinarySource.getInterfaceHash(result.proj1));
+        moduleProtos.put(modulePath, result.proj1);
+        dependencies.put(modulePath, moduleDependencies);
+        nextLayer.addAll(moduleDependencies);
+      }
+      layer = nextLayer;
+    }
+
+    // Modules whose sources are up to date may wait for their dependencies if they fail because of them
+    Map<ModulePath, StreamBinarySource> sources = new HashMap<>();
+    for (Map.Entry<ModulePath, ModuleProtos.Module> entry : moduleProtos.entrySet()) {
+      sources.put(entry.getKey(), (StreamBinarySource) myLoadingBinaryModules.get(entry.getKey()));
+    }
+    Set<ModulePath> waiting = new HashSet<>();
+    for (Map.Entry<ModulePath, ModuleProtos.Module> entry : moduleProtos.entrySet()) {
+      if (failed.contains(entry.getKey())) {
+        continue;
+      }
+      StreamBinarySource.Status status = sources.get(entry.getKey()).getStatus(this, entry.getValue(), true);
+      if (status != StreamBinarySource.Status.OUTDATED) {
+        waiting.add(entry.getKey());
+      }
+      if (status != StreamBinarySource.Status.UP_TO_DATE) {
+        binaryLoadingFailed(entry.getKey());
+        failed.add(entry.getKey());
+      }
+    }
+    propagateBinaryFailures(moduleProtos.keySet(), dependencies, failed, null);
+
+    List<StreamBinarySource> toRead = new ArrayList<>();
+    List<Future<Pair<ChildGroup, Exception>>> results = new ArrayList<>();
+    Map<ModulePath, ChildGroup> groups = new HashMap<>();
+    for (ModulePath modulePath : moduleProtos.keySet()) {
+      if (failed.contains(modulePath)) {
+        continue;
+      }
+
+      StreamBinarySource source = (StreamBinarySource) myLoadingBinaryModules.get(modulePath);
+      ChildGroup rawGroup = null;
+      if (myReferableConverter != null) {
+        rawGroup = source.getRawGroup(this);
+        if (rawGroup == null) {
+          binaryLoadingFailed(modulePath);
+          failed.add(modulePath);
+          continue;
+        }
+        groups.put(modulePath, rawGroup);
+      }
+
+      ModuleProtos.Module moduleProto = moduleProtos.get(modulePath);
+      ChildGroup group = rawGroup;
+      toRead.add(source);
+      results.add(executor.submit(() -> {
+        try {
+          return new Pair<>(source.readStubs(moduleProto, myLibrary.getTypecheckerState(), myReferableConverter, group), null);
+        } catch (DeserializationException e) {
+          return new Pair<>(null, e);
+        }
+      }));
+    }
+
+    for (int i = 0; i < toRead.size(); i++) {
+      StreamBinarySource source = toRead.get(i);
+      ModulePath modulePath = source.getModulePath();
+      Pair<ChildGroup, Exception> result = getFutureResult(results.get(i));
+      if (result == null || result.proj1 == null) {
+        if (result != null) {
+          source.loadingFailed(this, modulePath, groups.get(modulePath), result.proj2);
+        }
+        waiting.remove(modulePath);
+        groups.remove(modulePath);
+        binaryLoadingFailed(modulePath);
+        failed.add(modulePath);
+      } else {
+        groups.put(modulePath, result.proj1);
+      }
+    }
+
+    // Definitions of a module whose dependency failed are already recorded, so they must be unloaded
+    propagateBinaryFailures(moduleProtos.keySet(), dependencies, failed, groups);
+
+    for (ModulePath modulePath : waiting) {
+      if (failed.contains(modulePath) && sources.get(modulePath).getStatus(this, moduleProtos.get(modulePath), false) == StreamBinarySource.Status.PENDING) {
+        myPendingModules.add(modulePath);
+      }
+    }
+
+    for (ModulePath modulePath : moduleProtos.keySet()) {
+      if (!failed.contains(modulePath)) {
+        ((StreamBinarySource) myLoadingBinaryModules.get(modulePath)).registerGroup(myLibrary, myReferableConverter, groups.get(modulePath));
+      }
+    }
+
+    boolean ok = true;
+    for (ModulePath modulePath : modulePaths) {
+      if (failed.contains(modulePath) || !fillInBinary(modulePath)) {
+        ok = false;
+      }
+    }
+    return ok;
+  }
+
+  private void propagateBinaryFailures(Collection<? extends ModulePath> modulePaths, Map<ModulePath, List<ModulePath>> dependencies, Set<ModulePath> failed, Map<ModulePath, ChildGroup> groups) {
+    boolean updated = !failed.isEmpty();
+    while (updated) {
+      updated = false;
+      for (ModulePath modulePath : modulePaths) {
+        if (!failed.contains(modulePath) && !Collections.disjoint(dependencies.get(modulePath), failed)) {
+          if (groups != null) {
+            ChildGroup group = groups.remove(modulePath);
+            if (group != null) {
+              myLibrary.unloadGroup(group);
+            }
+          }
+          binaryLoadingFailed(modulePath);
+          failed.add(modulePath);
+          updated = true;
+        }
+      }
+    }
+  }
+
   boolean fillInBinary(ModulePath modulePath) {
     BinarySource binarySource = myLoadingBinaryModules.remove(modulePath);
     if (binarySource != null) {
@@ -127,6 +501,7 @@ public final class SourceLoader {
 
       if (result != Source.LoadResult.SUCCESS) {
         myLoadedModules.put(modulePath, SourceType.BINARY_FAIL);
+        myLibrary.setInterfaceHash(modulePath, null);
         return false;
       }
     }
@@ -145,33 +520,49 @@ public final class SourceLoader {
     if (sourceType == SourceType.BINARY || sourceType == SourceType.BINARY_FAIL) {
       return sourceType == SourceType.BINARY;
     }
-    if (myLibrary.hasRawSources() && sourceType != SourceType.RAW) {
-      return false;
-    }
     if (myLoadingBinaryModules.containsKey(modulePath)) {
       return true;
     }
 
-    BinarySource binarySource = myLibrary.getBinarySource(modulePath);
-    if (binarySource == null || !binarySource.isAvailable()) {
+    BinarySource binarySource = getAvailableBinarySource(modulePath);
+    if (binarySource == null) {
       return false;
     }
 
-    if (myLibrary.hasRawSources()) {
-      Source rawSource = myLibrary.getRawSource(modulePath);
-      if (rawSource != null && rawSource.isAvailable() && binarySource.getTimeStamp() < rawSource.getTimeStamp()) {
-        return false;
-      }
-    }
-
     myLoadedModules.put(modulePath, SourceType.BINARY);
     myLoadingBinaryModules.put(modulePath, binarySource);
     if (!binarySource.preload(this)) {
-      myLoadedModules.put(modulePath, SourceType.BINARY_FAIL);
-      myLoadingBinaryModules.remove(modulePath);
+      binaryLoadingFailed(modulePath);
       return false;
     }
 
     return true;
   }
+
+  private BinarySource getAvailableBinarySource(ModulePath modulePath) {
+    if (myLibrary.hasRawSources() && myLoadedModules.get(modulePath) != SourceType.RAW) {
+      return null;
+    }
+
+    BinarySource binarySource = myLibrary.getBinarySource(modulePath);
+    if (binarySource == null || !binarySource.isAvailable()) {
+      return null;
+    }
+
+    // Stream binary sources compare hashes of sources when they are read
+    if (myLibrary.hasRawSources() && !(binarySource instanceof StreamBinarySource)) {
+      Source rawSource = myLibrary.getRawSource(modulePath);
+      if (rawSource != null && rawSource.isAvailable() && binarySource.getTimeStamp() < rawSource.getTimeStamp()) {
+        return null;
+      }
+    }
+
+    return binarySource;
+  }
+
+  private void binaryLoadingFailed(ModulePath modulePath) {
+    myLoadedModules.put(modulePath, SourceType.BINARY_FAIL);
+    myLoadingBinaryModules.remove(modulePath);
+    myLibrary.setInterfaceHash(modulePath, null);
+  }
 }
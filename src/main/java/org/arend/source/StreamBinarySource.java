@@ -1,5 +1,7 @@
 package org.arend.source;
 
+import com.google.protobuf.ByteString;
+import org.arend.core.expr.TermInterner;
 import org.arend.error.ErrorReporter;
 import org.arend.library.SourceLibrary;
 import org.arend.library.error.LibraryError;
@@ -14,14 +16,18 @@ import org.arend.module.serialization.ModuleSerialization;
 import org.arend.naming.reference.converter.ReferableConverter;
 import org.arend.source.error.LocationError;
 import org.arend.source.error.PersistingError;
+import org.arend.term.NamespaceCommand;
 import org.arend.term.group.ChildGroup;
+import org.arend.term.group.FileGroup;
 import org.arend.term.group.Group;
+import org.arend.typechecking.TypecheckerState;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.*;
 
 /**
  * Represents a source that loads a binary module from an {@link InputStream} and persists it to an {@link OutputStream}.
@@ -54,41 +60,37 @@ public abstract class StreamBinarySource implements BinarySource {
     SourceLibrary library = sourceLoader.getLibrary();
     ModulePath modulePath = getModulePath();
     ChildGroup group = null;
-    try (InputStream inputStream = getInputStream()) {
-      if (inputStream == null) {
+    try {
+      ModuleProtos.Module moduleProto = readModuleProto();
+      if (moduleProto == null || !checkComplete(sourceLoader, moduleProto)) {
         return false;
       }
 
-      ModuleProtos.Module moduleProto = ModuleProtos.Module.parseFrom(inputStream);
-      boolean isComplete = moduleProto.getComplete();
-      if (!isComplete && !library.hasRawSources()) {
-        sourceLoader.getLibraryErrorReporter().report(new PartialModuleError(modulePath));
-        return false;
+      boolean dependenciesLoaded = true;
+      for (ModulePath module : getDependencies(library, moduleProto)) {
+        if (!sourceLoader.preloadBinary(module)) {
+          dependenciesLoaded = false;
+        }
       }
-
-      for (ModuleProtos.ModuleCallTargets moduleCallTargets : moduleProto.getModuleCallTargetsList()) {
-        ModulePath module = new ModulePath(moduleCallTargets.getNameList());
-        if (library.containsModule(module) && !sourceLoader.preloadBinary(module)) {
-          return false;
+      Status status = getStatus(sourceLoader, moduleProto, dependenciesLoaded);
+      if (status != Status.UP_TO_DATE) {
+        if (status == Status.PENDING) {
+          sourceLoader.addPendingModule(modulePath);
         }
+        return false;
       }
+      library.setInterfaceHash(modulePath, getInterfaceHash(moduleProto));
 
       ReferableConverter referableConverter = sourceLoader.getReferableConverter();
-      myModuleDeserialization = new ModuleDeserialization(moduleProto, library.getTypecheckerState(), referableConverter);
-
-      if (referableConverter == null) {
-        group = myModuleDeserialization.readGroup(modulePath);
-        library.onGroupLoaded(modulePath, group, false);
-      } else {
-        group = library.getModuleGroup(modulePath);
+      if (referableConverter != null) {
+        group = getRawGroup(sourceLoader);
         if (group == null) {
-          sourceLoader.getLibraryErrorReporter().report(LibraryError.moduleNotFound(modulePath, library.getName()));
-          library.onGroupLoaded(modulePath, null, false);
           return false;
         }
-        myModuleDeserialization.readDefinitions(group);
       }
 
+      group = readStubs(moduleProto, library.getTypecheckerState(), referableConverter, group);
+      registerGroup(library, referableConverter, group);
       return true;
     } catch (IOException | DeserializationException e) {
       loadingFailed(sourceLoader, modulePath, group, e);
@@ -96,14 +98,165 @@ public abstract class StreamBinarySource implements BinarySource {
     }
   }
 
+  /**
+   * Reads the module from the input stream.
+   * This method does not modify the library, so it can be invoked concurrently for different sources.
+   *
+   * @return the module or null if the input stream is not available.
+   */
+  @Nullable
+  protected ModuleProtos.Module readModuleProto() throws IOException {
+    try (InputStream inputStream = getInputStream()) {
+      return inputStream == null ? null : ModuleProtos.Module.parseFrom(inputStream);
+    }
+  }
+
+  boolean checkComplete(SourceLoader sourceLoader, ModuleProtos.Module moduleProto) {
+    if (!moduleProto.getComplete() && !sourceLoader.getLibrary().hasRawSources()) {
+      sourceLoader.getLibraryErrorReporter().report(new PartialModuleError(getModulePath()));
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Gets modules of the library on which the module depends,
+   * that is, modules that contain its call targets and modules whose interface hashes were recorded in it.
+   */
+  static List<ModulePath> getDependencies(SourceLibrary library, ModuleProtos.Module moduleProto) {
+    Set<ModulePath> dependencies = new LinkedHashSet<>();
+    for (ModuleProtos.ModuleCallTargets moduleCallTargets : moduleProto.getModuleCallTargetsList()) {
+      dependencies.add(new ModulePath(moduleCallTargets.getNameList()));
+    }
+    for (ModuleProtos.ModuleHash dependency : moduleProto.getDependencyList()) {
+      dependencies.add(new ModulePath(dependency.getNameList()));
+    }
+
+    List<ModulePath> result = new ArrayList<>(dependencies.size());
+    for (ModulePath dependency : dependencies) {
+      if (library.containsModule(dependency)) {
+        result.add(dependency);
+      }
+    }
+    return result;
+  }
+
+  @Nullable
+  static byte[] getInterfaceHash(ModuleProtos.Module moduleProto) {
+    return moduleProto.getInterfaceHash().isEmpty() ? null : moduleProto.getInterfaceHash().toByteArray();
+  }
+
+  enum Status { UP_TO_DATE, PENDING, OUTDATED }
+
+  /**
+   * Checks that the module was built from the current raw source and against the current interfaces of the modules it depends on.
+   * If the module does not contain the hash of its source, timestamps are compared instead.
+   *
+   * @param dependenciesLoaded  true if all modules of the library on which the module depends were loaded from binary sources.
+   *
+   * @return {@link Status#UP_TO_DATE} if the module can be loaded,
+   *         {@link Status#PENDING} if it can be loaded only after some modules of the library on which it depends are rebuilt
+   *         provided that their interfaces do not change,
+   *         and {@link Status#OUTDATED} if it must be rebuilt.
+   */
+  Status getStatus(SourceLoader sourceLoader, ModuleProtos.Module moduleProto, boolean dependenciesLoaded) {
+    SourceLibrary library = sourceLoader.getLibrary();
+    ModulePath modulePath = getModulePath();
+    if (library.hasRawSources()) {
+      ChildGroup group = library.getModuleGroup(modulePath);
+      byte[] sourceHash = group instanceof FileGroup ? ((FileGroup) group).getSourceHash() : null;
+      if (sourceHash != null && !moduleProto.getSourceHash().isEmpty()) {
+        if (!Arrays.equals(sourceHash, moduleProto.getSourceHash().toByteArray())) {
+          return Status.OUTDATED;
+        }
+      } else {
+        Source rawSource = library.getRawSource(modulePath);
+        if (rawSource != null && rawSource.isAvailable() && getTimeStamp() < rawSource.getTimeStamp()) {
+          return Status.OUTDATED;
+        }
+      }
+    }
+
+    boolean pending = false;
+    Set<ModulePath> recorded = new HashSet<>();
+    for (ModuleProtos.ModuleHash dependency : moduleProto.getDependencyList()) {
+      ModulePath dependencyPath = new ModulePath(dependency.getNameList());
+      recorded.add(dependencyPath);
+      byte[] hash = library.getInterfaceHash(dependencyPath);
+      if (hash == null && library.containsModule(dependencyPath)) {
+        pending = true;
+      } else if (hash == null || !Arrays.equals(hash, dependency.getHash().toByteArray())) {
+        return Status.OUTDATED;
+      }
+    }
+    if (!pending) {
+      return dependenciesLoaded ? Status.UP_TO_DATE : Status.OUTDATED;
+    }
+
+    // The module can wait for its dependencies only if all of them can be checked by hashes
+    for (ModuleProtos.ModuleCallTargets moduleCallTargets : moduleProto.getModuleCallTargetsList()) {
+      ModulePath dependencyPath = new ModulePath(moduleCallTargets.getNameList());
+      if (!recorded.contains(dependencyPath) && library.containsModule(dependencyPath)) {
+        return Status.OUTDATED;
+      }
+    }
+    return Status.PENDING;
+  }
+
+  /**
+   * Gets the raw group of the module which is used to load a binary source when the library has raw sources.
+   *
+   * @return the raw group or null if it is not loaded.
+   */
+  @Nullable
+  ChildGroup getRawGroup(SourceLoader sourceLoader) {
+    SourceLibrary library = sourceLoader.getLibrary();
+    ModulePath modulePath = getModulePath();
+    ChildGroup group = library.getModuleGroup(modulePath);
+    if (group == null) {
+      sourceLoader.getLibraryErrorReporter().report(LibraryError.moduleNotFound(modulePath, library.getName()));
+      library.onGroupLoaded(modulePath, null, false);
+    }
+    return group;
+  }
+
+  /**
+   * Creates definitions of the module without filling them in and records them in {@code state}.
+   * This method does not modify the library, so it can be invoked concurrently for different sources
+   * provided that {@code state} supports concurrent access.
+   *
+   * @param moduleProto         the module.
+   * @param state               the state in which definitions are recorded.
+   * @param referableConverter  a referable converter of the library or null if the library does not have raw sources.
+   * @param rawGroup            the raw group of the module if {@code referableConverter} is not null.
+   *
+   * @return the group of the module.
+   */
+  @Nonnull
+  ChildGroup readStubs(ModuleProtos.Module moduleProto, TypecheckerState state, @Nullable ReferableConverter referableConverter, @Nullable ChildGroup rawGroup) throws DeserializationException {
+    myModuleDeserialization = new ModuleDeserialization(moduleProto, state, referableConverter);
+    if (referableConverter == null) {
+      return myModuleDeserialization.readGroup(getModulePath());
+    } else {
+      assert rawGroup != null;
+      myModuleDeserialization.readDefinitions(rawGroup);
+      return rawGroup;
+    }
+  }
+
+  void registerGroup(SourceLibrary library, @Nullable ReferableConverter referableConverter, ChildGroup group) {
+    if (referableConverter == null) {
+      library.onGroupLoaded(getModulePath(), group, false);
+    }
+  }
+
   @Override
   public LoadResult load(SourceLoader sourceLoader) {
     SourceLibrary library = sourceLoader.getLibrary();
     ModulePath modulePath = getModulePath();
     try {
-      for (ModuleProtos.ModuleCallTargets moduleCallTargets : myModuleDeserialization.getModuleProto().getModuleCallTargetsList()) {
-        ModulePath module = new ModulePath(moduleCallTargets.getNameList());
-        if (library.containsModule(module) && !sourceLoader.fillInBinary(module)) {
+      for (ModulePath module : getDependencies(library, myModuleDeserialization.getModuleProto())) {
+        if (!sourceLoader.fillInBinary(module)) {
           ChildGroup group = library.getModuleGroup(modulePath);
           if (group != null) {
             library.unloadGroup(group);
@@ -112,7 +265,12 @@ public abstract class StreamBinarySource implements BinarySource {
         }
       }
 
-      myModuleDeserialization.readModule(sourceLoader.getModuleScopeProvider(), library.getDependencyListener(), library.supportsTypechecking());
+      TermInterner previous = TermInterner.install(sourceLoader.getTermInterner());
+      try {
+        myModuleDeserialization.readModule(sourceLoader.getModuleScopeProvider(), library.getDependencyListener(), library.supportsTypechecking(), library.hasFlag(SourceLibrary.Flag.LAZY_LOADING), sourceLoader.getLibraryErrorReporter());
+      } finally {
+        TermInterner.install(previous);
+      }
       library.onBinaryLoaded(modulePath, myModuleDeserialization.getModuleProto().getComplete());
       myModuleDeserialization = null;
       return LoadResult.SUCCESS;
@@ -122,7 +280,7 @@ public abstract class StreamBinarySource implements BinarySource {
     }
   }
 
-  private void loadingFailed(SourceLoader sourceLoader, ModulePath modulePath, Group group, Exception e) {
+  void loadingFailed(SourceLoader sourceLoader, ModulePath modulePath, Group group, Exception e) {
     sourceLoader.getLibraryErrorReporter().report(new DeserializationError(modulePath, e));
     if (!sourceLoader.getLibrary().hasRawSources()) {
       sourceLoader.getLibrary().onGroupLoaded(modulePath, null, false);
@@ -141,22 +299,58 @@ public abstract class StreamBinarySource implements BinarySource {
       return false;
     }
 
-    try (OutputStream outputStream = getOutputStream()) {
-      if (outputStream == null) {
-        errorReporter.report(new PersistingError(currentModulePath));
+    // The module is serialized before the output stream is opened, so that a failure does not damage the previous binary file
+    ModuleProtos.Module module;
+    byte[] bytes;
+    try {
+      module = new ModuleSerialization(library.getTypecheckerState(), errorReporter).writeModule(group, currentModulePath, referableConverter);
+      if (module == null) {
         return false;
       }
+      module = addDependencyHashes(library, group, module);
+      bytes = module.toByteArray();
+    } catch (Exception e) {
+      errorReporter.report(new ExceptionError(e, currentModulePath, false));
+      return false;
+    }
 
-      ModuleProtos.Module module = new ModuleSerialization(library.getTypecheckerState(), errorReporter).writeModule(group, currentModulePath, referableConverter);
-      if (module == null) {
+    try (OutputStream outputStream = getOutputStream()) {
+      if (outputStream == null) {
+        errorReporter.report(new PersistingError(currentModulePath));
         return false;
       }
-
-      module.writeTo(outputStream);
-      return true;
+      outputStream.write(bytes);
     } catch (Exception e) {
       errorReporter.report(new ExceptionError(e, currentModulePath, false));
       return false;
     }
+
+    library.setInterfaceHash(currentModulePath, getInterfaceHash(module));
+    return true;
+  }
+
+  /**
+   * Records the current interface hashes of modules imported by the group and modules containing call targets of the module.
+   * Modules whose interface hashes are unknown are skipped.
+   */
+  private static ModuleProtos.Module addDependencyHashes(SourceLibrary library, Group group, ModuleProtos.Module module) {
+    Set<ModulePath> dependencies = new LinkedHashSet<>();
+    for (NamespaceCommand command : group.getNamespaceCommands()) {
+      if (command.getKind() == NamespaceCommand.Kind.IMPORT) {
+        dependencies.add(new ModulePath(command.getPath()));
+      }
+    }
+    for (ModuleProtos.ModuleCallTargets moduleCallTargets : module.getModuleCallTargetsList()) {
+      dependencies.add(new ModulePath(moduleCallTargets.getNameList()));
+    }
+
+    ModuleProtos.Module.Builder builder = module.toBuilder();
+    for (ModulePath dependency : dependencies) {
+      byte[] hash = library.getInterfaceHash(dependency);
+      if (hash != null) {
+        builder.addDependency(ModuleProtos.ModuleHash.newBuilder().addAllName(dependency.toList()).setHash(ByteString.copyFrom(hash)));
+      }
+    }
+    return builder.build();
   }
 }
@@ -14,10 +14,15 @@ import org.arend.naming.scope.CachingScope;
 import org.arend.naming.scope.ScopeFactory;
 import org.arend.term.NamespaceCommand;
 import org.arend.term.group.FileGroup;
+import org.arend.util.HashUtils;
 
 import javax.annotation.Nonnull;
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Represents a source that loads a raw module from an {@link InputStream}.
@@ -45,13 +50,19 @@ public abstract class StreamRawSource implements Source {
   @Nonnull
   protected abstract InputStream getInputStream() throws IOException;
 
-  @Override
-  public boolean preload(SourceLoader sourceLoader) {
-    SourceLibrary library = sourceLoader.getLibrary();
+  /**
+   * Parses the source without registering it in the library.
+   * This method does not use the state of the loading process, so it can be invoked concurrently for different sources.
+   *
+   * @param errorReporter a reporter for parsing errors.
+   *
+   * @return true if the source was successfully parsed, false otherwise.
+   */
+  public boolean parse(ErrorReporter errorReporter) {
     ModulePath modulePath = getModulePath();
-    ErrorReporter errorReporter = sourceLoader.getTypecheckingErrorReporter();
     CountingErrorReporter countingErrorReporter = new CountingErrorReporter();
     final CompositeErrorReporter compositeErrorReporter = new CompositeErrorReporter(errorReporter, countingErrorReporter);
+    myGroup = null;
 
     try {
       BaseErrorListener errorListener = new BaseErrorListener() {
@@ -61,7 +72,13 @@ public abstract class StreamRawSource implements Source {
         }
       };
 
-      ArendLexer lexer = new ArendLexer(new ANTLRInputStream(getInputStream()));
+      MessageDigest digest = HashUtils.newDigest();
+      ANTLRInputStream input;
+      try (InputStream inputStream = new DigestInputStream(getInputStream(), digest)) {
+        input = new ANTLRInputStream(inputStream);
+      }
+
+      ArendLexer lexer = new ArendLexer(input);
       lexer.removeErrorListeners();
       lexer.addErrorListener(errorListener);
 
@@ -75,27 +92,64 @@ public abstract class StreamRawSource implements Source {
       }
 
       myGroup = new BuildVisitor(modulePath, errorReporter).visitStatements(tree);
-      library.onGroupLoaded(modulePath, myGroup, true);
-
-      for (NamespaceCommand command : myGroup.getNamespaceCommands()) {
-        if (command.getKind() == NamespaceCommand.Kind.IMPORT) {
-          ModulePath module = new ModulePath(command.getPath());
-          if (library.containsModule(module) && !sourceLoader.preloadRaw(module)) {
-            library.onGroupLoaded(modulePath, null, true);
-            myGroup = null;
-            return false;
-          }
-        }
-      }
-
+      myGroup.setSourceHash(digest.digest());
       return true;
     } catch (IOException e) {
       errorReporter.report(new ExceptionError(e, modulePath, true));
-      library.onGroupLoaded(modulePath, null, true);
       return false;
     }
   }
 
+  /**
+   * Registers the parsed group in the library.
+   *
+   * @param library the library of this source.
+   *
+   * @return modules of {@code library} imported by this source.
+   */
+  List<ModulePath> registerGroup(SourceLibrary library) {
+    library.onGroupLoaded(getModulePath(), myGroup, true);
+
+    List<ModulePath> imports = new ArrayList<>();
+    for (NamespaceCommand command : myGroup.getNamespaceCommands()) {
+      if (command.getKind() == NamespaceCommand.Kind.IMPORT) {
+        ModulePath module = new ModulePath(command.getPath());
+        if (library.containsModule(module)) {
+          imports.add(module);
+        }
+      }
+    }
+    return imports;
+  }
+
+  /**
+   * Unregisters the group of this source if some of its dependencies cannot be loaded.
+   *
+   * @param library the library of this source.
+   */
+  void unregisterGroup(SourceLibrary library) {
+    library.onGroupLoaded(getModulePath(), null, true);
+    myGroup = null;
+  }
+
+  @Override
+  public boolean preload(SourceLoader sourceLoader) {
+    SourceLibrary library = sourceLoader.getLibrary();
+    if (!parse(sourceLoader.getTypecheckingErrorReporter())) {
+      library.onGroupLoaded(getModulePath(), null, true);
+      return false;
+    }
+
+    for (ModulePath module : registerGroup(library)) {
+      if (!sourceLoader.preloadRaw(module)) {
+        unregisterGroup(library);
+        return false;
+      }
+    }
+
+    return true;
+  }
+
   @Override
   public LoadResult load(SourceLoader sourceLoader) {
     if (myGroup == null) {
@@ -8,10 +8,12 @@ import org.arend.naming.scope.Scope;
 import org.arend.naming.scope.ScopeFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.List;
 
 public class FileGroup extends StaticGroup {
   private Scope myScope = EmptyScope.INSTANCE;
+  private byte[] mySourceHash;
 
   public FileGroup(LocatedReferable referable, List<Group> staticGroups, List<SimpleNamespaceCommand> namespaceCommands) {
     super(referable, staticGroups, namespaceCommands, null);
@@ -24,6 +26,20 @@ public class FileGroup extends StaticGroup {
     myScope = CachingScope.make(ScopeFactory.forGroup(this, moduleScopeProvider));
   }
 
+  /**
+   * Gets the hash of the text from which this group was parsed.
+   *
+   * @return the hash of the source or null if it is unknown.
+   */
+  @Nullable
+  public byte[] getSourceHash() {
+    return mySourceHash;
+  }
+
+  public void setSourceHash(byte[] sourceHash) {
+    mySourceHash = sourceHash;
+  }
+
   @Nonnull
   @Override
   public Scope getGroupScope() {
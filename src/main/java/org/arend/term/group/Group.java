@@ -1,9 +1,11 @@
 package org.arend.term.group;
 
 import org.arend.naming.reference.LocatedReferable;
+import org.arend.naming.scope.GroupNameIndex;
 import org.arend.term.NamespaceCommand;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.Collection;
 
 public interface Group {
@@ -17,6 +19,16 @@ public interface Group {
   @Nonnull Collection<? extends Group> getDynamicSubgroups();
   @Nonnull Collection<? extends InternalReferable> getFields();
 
+  /**
+   * Gets an index of names defined in this group which is used to resolve them in {@link org.arend.naming.scope.LexicalScope}.
+   *
+   * @return the index or null if names should be found by iterating over elements of the group.
+   */
+  @Nullable
+  default GroupNameIndex getNameIndex() {
+    return null;
+  }
+
   interface InternalReferable {
     LocatedReferable getReferable();
     boolean isVisible();
@@ -1,6 +1,7 @@
 package org.arend.term.group;
 
 import org.arend.naming.reference.LocatedReferable;
+import org.arend.naming.scope.GroupNameIndex;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -13,6 +14,7 @@ public class StaticGroup implements ChildGroup {
   private final List<Group> myStaticGroups;
   private final List<SimpleNamespaceCommand> myNamespaceCommands;
   private final ChildGroup myParent;
+  private volatile GroupNameIndex myNameIndex;
 
   public StaticGroup(LocatedReferable referable, List<Group> staticGroups, List<SimpleNamespaceCommand> namespaceCommands, ChildGroup parent) {
     myReferable = referable;
@@ -57,6 +59,17 @@ public class StaticGroup implements ChildGroup {
     return Collections.emptyList();
   }
 
+  @Nonnull
+  @Override
+  public GroupNameIndex getNameIndex() {
+    GroupNameIndex index = myNameIndex;
+    if (index == null || !index.isValid(this)) {
+      index = new GroupNameIndex(this);
+      myNameIndex = index;
+    }
+    return index;
+  }
+
   @Nullable
   @Override
   public ChildGroup getParentGroup() {
@@ -2,13 +2,14 @@ package org.arend.term.prettyprint;
 
 import org.arend.error.doc.Doc;
 import org.arend.error.doc.DocFactory;
+import org.arend.util.StringBuilderCache;
 
 public interface PrettyPrintable {
   void prettyPrint(StringBuilder builder, PrettyPrinterConfig ppConfig);
 
   default Doc prettyPrint(PrettyPrinterConfig ppConfig) {
-    StringBuilder builder = new StringBuilder();
+    StringBuilder builder = StringBuilderCache.acquire();
     prettyPrint(builder, ppConfig);
-    return DocFactory.text(builder.toString());
+    return DocFactory.text(StringBuilderCache.release(builder));
   }
 }
@@ -22,5 +22,27 @@ public interface PrettyPrinterConfig {
     return NormalizeVisitor.Mode.RNF;
   }
 
+  /**
+   * @return the maximum depth of printed subexpressions, or 0 if the depth is not limited.
+   *         Deeper subexpressions are replaced with an ellipsis and are not normalized.
+   */
+  default int getMaxDepth() {
+    return 0;
+  }
+
+  /**
+   * @return the maximum number of printed arguments of an application and fields of a tuple, or 0 if it is not limited.
+   */
+  default int getMaxWidth() {
+    return 0;
+  }
+
+  /**
+   * @return true if subexpressions which occur several times as the same object should be printed once in a \let expression.
+   */
+  default boolean abbreviateSharedSubexpressions() {
+    return false;
+  }
+
   PrettyPrinterConfig DEFAULT = new PrettyPrinterConfig() {};
 }
@@ -0,0 +1,108 @@
+package org.arend.typechecking;
+
+import org.arend.util.ComputationInterruptedException;
+
+/**
+ * Limits computations performed while a definition is typechecked.
+ * A budget combines the cancellation indicator of a typechecking session with a deadline and a number of reduction steps (fuel).
+ * A budget is polled by the normalizer and the typechecker on the thread on which it is installed (see {@link #install}).
+ * If there is no budget, computations are canceled when the current thread is interrupted.
+ */
+public class ComputationBudget {
+  public enum Limit { TIME, FUEL }
+
+  private static final ThreadLocal<ComputationBudget> CURRENT = new ThreadLocal<>();
+
+  private final CancellationIndicator myCancellationIndicator;
+  private final long myTimeLimit;
+  private final long myDeadline;
+  private final long myFuel;
+  private long mySteps;
+
+  /**
+   * @param cancellationIndicator the cancellation indicator of the session.
+   * @param timeLimit             the maximum number of milliseconds starting from now or 0 if time is not limited.
+   * @param fuel                  the maximum number of reduction steps or 0 if it is not limited.
+   */
+  public ComputationBudget(CancellationIndicator cancellationIndicator, long timeLimit, long fuel) {
+    myCancellationIndicator = cancellationIndicator;
+    myTimeLimit = timeLimit;
+    myDeadline = timeLimit > 0 ? System.nanoTime() + timeLimit * 1000000 : 0;
+    myFuel = fuel;
+  }
+
+  /**
+   * Gets the budget installed on the current thread.
+   *
+   * @return the current budget or null if there is no budget.
+   */
+  public static ComputationBudget getCurrent() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Installs a budget on the current thread.
+   *
+   * @param budget a budget or null to remove the current one.
+   *
+   * @return the previously installed budget which should be restored afterwards.
+   */
+  public static ComputationBudget install(ComputationBudget budget) {
+    ComputationBudget previous = CURRENT.get();
+    if (budget == null) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(budget);
+    }
+    return previous;
+  }
+
+  /**
+   * Checks that the current computation is neither canceled nor out of time.
+   *
+   * @throws ComputationInterruptedException     if the computation is canceled.
+   * @throws ComputationLimitExceededException   if the deadline has passed.
+   */
+  public static void checkCanceled() {
+    ComputationBudget budget = CURRENT.get();
+    if (budget == null) {
+      if (ThreadCancellationIndicator.INSTANCE.isCanceled()) {
+        throw new ComputationInterruptedException();
+      }
+    } else {
+      budget.check();
+    }
+  }
+
+  /**
+   * Consumes one reduction step and checks the budget as {@link #checkCanceled} does.
+   *
+   * @throws ComputationLimitExceededException if there is no fuel left.
+   */
+  public static void step() {
+    ComputationBudget budget = CURRENT.get();
+    if (budget == null) {
+      if (ThreadCancellationIndicator.INSTANCE.isCanceled()) {
+        throw new ComputationInterruptedException();
+      }
+    } else {
+      if (budget.myFuel > 0 && ++budget.mySteps > budget.myFuel) {
+        throw new ComputationLimitExceededException(Limit.FUEL, budget.myFuel);
+      }
+      budget.check();
+    }
+  }
+
+  private void check() {
+    if (myCancellationIndicator.isCanceled()) {
+      throw new ComputationInterruptedException();
+    }
+    if (myDeadline != 0 && System.nanoTime() - myDeadline > 0) {
+      throw new ComputationLimitExceededException(Limit.TIME, myTimeLimit);
+    }
+  }
+
+  public long getSteps() {
+    return mySteps;
+  }
+}
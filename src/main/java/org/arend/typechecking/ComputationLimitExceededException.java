@@ -0,0 +1,15 @@
+package org.arend.typechecking;
+
+/**
+ * Thrown when a computation exceeds its {@link ComputationBudget}.
+ * Unlike {@link org.arend.util.ComputationInterruptedException}, it aborts only the definition which is being typechecked.
+ */
+public class ComputationLimitExceededException extends RuntimeException {
+  public final ComputationBudget.Limit limit;
+  public final long value;
+
+  public ComputationLimitExceededException(ComputationBudget.Limit limit, long value) {
+    this.limit = limit;
+    this.value = value;
+  }
+}
@@ -0,0 +1,50 @@
+package org.arend.typechecking;
+
+import org.arend.core.definition.Definition;
+import org.arend.naming.reference.GlobalReferable;
+import org.arend.naming.reference.TCReferable;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A typechecker state that can be shared between several typechecking threads.
+ * Reads do not block; {@link #record} is an atomic put-if-absent.
+ */
+public class ConcurrentTypecheckerState implements TypecheckerState {
+  private final ConcurrentMap<GlobalReferable, Definition> myTypechecked;
+
+  public ConcurrentTypecheckerState() {
+    myTypechecked = new ConcurrentHashMap<>();
+  }
+
+  public ConcurrentTypecheckerState(int concurrencyLevel) {
+    myTypechecked = new ConcurrentHashMap<>(16, 0.75f, concurrencyLevel);
+  }
+
+  @Override
+  public Definition record(TCReferable def, Definition res) {
+    return myTypechecked.putIfAbsent(def, res);
+  }
+
+  @Override
+  public void rewrite(TCReferable def, Definition res) {
+    myTypechecked.put(def, res);
+  }
+
+  @Override
+  public Definition getTypechecked(TCReferable def) {
+    assert def != null;
+    return myTypechecked.get(def);
+  }
+
+  @Override
+  public Definition reset(TCReferable def) {
+    return myTypechecked.remove(def);
+  }
+
+  @Override
+  public void reset() {
+    myTypechecked.clear();
+  }
+}
@@ -1,5 +1,10 @@
 package org.arend.typechecking;
 
+/**
+ * Cancels computations when the current thread is interrupted.
+ * The interrupted status of the thread is not cleared here; it is cleared when the interruption is handled
+ * (see {@link org.arend.typechecking.order.listener.TypecheckingOrderingListener}).
+ */
 public class ThreadCancellationIndicator implements CancellationIndicator {
   public static final CancellationIndicator INSTANCE = new ThreadCancellationIndicator();
 
@@ -7,6 +12,6 @@ public class ThreadCancellationIndicator implements CancellationIndicator {
 
   @Override
   public boolean isCanceled() {
-    return Thread.interrupted();
+    return Thread.currentThread().isInterrupted();
   }
 }
@@ -0,0 +1,202 @@
+package org.arend.typechecking;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.arend.naming.reference.TCReferable;
+import org.arend.util.FullName;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects statistics of typechecking of definitions: time, the number of normalizations and comparisons of expressions,
+ * the number of solved inference variables, and allocated memory.
+ * Time and counters of a definition do not include definitions which are typechecked while it is typechecked.
+ * Headers and bodies are measured separately only if they are typechecked separately.
+ *
+ * Statistics are collected between {@link #started} and {@link #finished} on the same thread.
+ */
+public class TypecheckingProfiler {
+  public enum Kind { HEADER, BODY, UNIT }
+
+  private static final ThreadLocal<Frame> CURRENT = new ThreadLocal<>(); // measurements are counted only on threads with an unfinished frame
+
+  private static final com.sun.management.ThreadMXBean THREAD_BEAN;
+  static {
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    THREAD_BEAN = bean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported() ? (com.sun.management.ThreadMXBean) bean : null;
+  }
+
+  private final Map<TCReferable, DefinitionProfile> myProfiles = new ConcurrentHashMap<>();
+
+  private static class Frame {
+    final Frame parent;
+    final DefinitionProfile profile;
+    final Kind kind;
+    final long startTime;
+    final long startAllocated;
+    long childTime;
+    long childAllocated;
+    long normalizations;
+    long comparisons;
+    long solvedEquations;
+
+    Frame(Frame parent, DefinitionProfile profile, Kind kind) {
+      this.parent = parent;
+      this.profile = profile;
+      this.kind = kind;
+      startAllocated = getAllocatedBytes();
+      startTime = System.nanoTime();
+    }
+  }
+
+  @JsonPropertyOrder({"definition", "wallTimeMs", "headerTimeMs", "bodyTimeMs", "normalizations", "comparisons", "solvedEquations", "allocatedBytes"})
+  public static class DefinitionProfile {
+    private final String myName;
+    private long myHeaderTime;
+    private long myBodyTime;
+    private long myUnitTime;
+    private long myNormalizations;
+    private long myComparisons;
+    private long mySolvedEquations;
+    private long myAllocatedBytes;
+
+    DefinitionProfile(String name) {
+      myName = name;
+    }
+
+    synchronized void add(Frame frame, long time, long allocated) {
+      switch (frame.kind) {
+        case HEADER: myHeaderTime += time; break;
+        case BODY: myBodyTime += time; break;
+        case UNIT: myUnitTime += time; break;
+      }
+      myNormalizations += frame.normalizations;
+      myComparisons += frame.comparisons;
+      mySolvedEquations += frame.solvedEquations;
+      myAllocatedBytes += allocated;
+    }
+
+    public String getDefinition() {
+      return myName;
+    }
+
+    public synchronized double getWallTimeMs() {
+      return (myHeaderTime + myBodyTime + myUnitTime) / 1e6;
+    }
+
+    public synchronized double getHeaderTimeMs() {
+      return myHeaderTime / 1e6;
+    }
+
+    public synchronized double getBodyTimeMs() {
+      return myBodyTime / 1e6;
+    }
+
+    public synchronized long getNormalizations() {
+      return myNormalizations;
+    }
+
+    public synchronized long getComparisons() {
+      return myComparisons;
+    }
+
+    public synchronized long getSolvedEquations() {
+      return mySolvedEquations;
+    }
+
+    /**
+     * @return the number of allocated bytes or 0 if the JVM does not support measurement of allocated memory.
+     */
+    public synchronized long getAllocatedBytes() {
+      return myAllocatedBytes;
+    }
+  }
+
+  private static long getAllocatedBytes() {
+    return THREAD_BEAN == null ? 0 : THREAD_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  public static void countNormalization() {
+    Frame frame = CURRENT.get();
+    if (frame != null) {
+      frame.normalizations++;
+    }
+  }
+
+  public static void countComparison() {
+    Frame frame = CURRENT.get();
+    if (frame != null) {
+      frame.comparisons++;
+    }
+  }
+
+  public static void countSolvedEquation() {
+    Frame frame = CURRENT.get();
+    if (frame != null) {
+      frame.solvedEquations++;
+    }
+  }
+
+  public void started(TCReferable referable, Kind kind) {
+    DefinitionProfile profile = myProfiles.computeIfAbsent(referable, ref -> new DefinitionProfile(new FullName(ref).toString()));
+    CURRENT.set(new Frame(CURRENT.get(), profile, kind));
+  }
+
+  public void finished(TCReferable referable) {
+    DefinitionProfile profile = myProfiles.get(referable);
+    Frame frame = CURRENT.get();
+    while (frame != null && frame.profile != profile) {
+      frame = frame.parent;
+    }
+    if (frame == null) {
+      return;
+    }
+
+    long time = System.nanoTime() - frame.startTime;
+    long allocated = getAllocatedBytes() - frame.startAllocated;
+    frame.profile.add(frame, time - frame.childTime, allocated - frame.childAllocated);
+    if (frame.parent != null) {
+      frame.parent.childTime += time;
+      frame.parent.childAllocated += allocated;
+      CURRENT.set(frame.parent);
+    } else {
+      CURRENT.remove();
+    }
+  }
+
+  /**
+   * Discards unfinished measurements on the current thread.
+   */
+  public void interrupted() {
+    CURRENT.remove();
+  }
+
+  /**
+   * @return collected profiles sorted by wall time in the descending order.
+   */
+  public List<DefinitionProfile> getProfiles() {
+    List<DefinitionProfile> profiles = new ArrayList<>(myProfiles.values());
+    profiles.sort(Comparator.comparingDouble(DefinitionProfile::getWallTimeMs).reversed());
+    return profiles;
+  }
+
+  public void writeJson(Writer writer) throws IOException {
+    new ObjectMapper().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET).writerWithDefaultPrettyPrinter().writeValue(writer, getProfiles());
+  }
+
+  public void writeCsv(Writer writer) throws IOException {
+    writer.write("definition,wall_time_ms,header_time_ms,body_time_ms,normalizations,comparisons,solved_equations,allocated_bytes\n");
+    for (DefinitionProfile profile : getProfiles()) {
+      writer.write("\"" + profile.getDefinition().replace("\"", "\"\"") + "\"," + profile.getWallTimeMs() + "," + profile.getHeaderTimeMs() + "," + profile.getBodyTimeMs() + "," + profile.getNormalizations() + "," + profile.getComparisons() + "," + profile.getSolvedEquations() + "," + profile.getAllocatedBytes() + "\n");
+    }
+  }
+}
@@ -0,0 +1,17 @@
+package org.arend.typechecking.error.local;
+
+import org.arend.term.concrete.Concrete;
+import org.arend.typechecking.ComputationBudget;
+
+import javax.annotation.Nonnull;
+
+public class ComputationLimitError extends TypecheckingError {
+  public final ComputationBudget.Limit limit;
+  public final long value;
+
+  public ComputationLimitError(ComputationBudget.Limit limit, long value, @Nonnull Concrete.SourceNode cause) {
+    super(limit == ComputationBudget.Limit.TIME ? "Typechecking time limit of " + value + " ms is exceeded" : "Limit of " + value + " reduction steps is exceeded", cause);
+    this.limit = limit;
+    this.value = value;
+  }
+}
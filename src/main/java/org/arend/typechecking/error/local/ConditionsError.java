@@ -58,6 +58,21 @@ public class ConditionsError extends TypecheckingError {
       public NormalizeVisitor.Mode getNormalizationMode() {
         return null;
       }
+
+      @Override
+      public int getMaxDepth() {
+        return ppConfig.getMaxDepth();
+      }
+
+      @Override
+      public int getMaxWidth() {
+        return ppConfig.getMaxWidth();
+      }
+
+      @Override
+      public boolean abbreviateSharedSubexpressions() {
+        return ppConfig.abbreviateSharedSubexpressions();
+      }
     });
     if (substitution != null && !substitution.isEmpty()) {
       List<LineDoc> substDocs = new ArrayList<>(substitution.getEntries().size());
@@ -1,85 +1,181 @@
 package org.arend.typechecking.implicitargs.equations;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.function.Predicate;
 
+/**
+ * A system of difference constraints on levels.
+ * Equations are stored as a graph with adjacency lists which is updated when variables and equations are added.
+ * Variables which are not added explicitly are treated as infinite.
+ */
 public class LevelEquations<Var> {
   private final List<Var> myVariables = new ArrayList<>();
   private final List<LevelEquation<Var>> myEquations = new ArrayList<>();
 
+  // Node 0 represents the constant level
+  private final Map<Var, Integer> myNodes = new HashMap<>();
+  private final List<Var> myNodeVariables = new ArrayList<>();
+  private final List<List<LevelEquation<Var>>> myEdges = new ArrayList<>();
+  private final BitSet myVariableNodes = new BitSet();
+  private final BitSet myInfinityNodes = new BitSet();
+
+  public LevelEquations() {
+    getNode(null);
+  }
+
   public List<LevelEquation<Var>> getEquations() {
-    return myEquations;
+    return Collections.unmodifiableList(myEquations);
   }
 
   public List<Var> getVariables() {
     return myVariables;
   }
 
+  private int getNode(Var var) {
+    Integer node = myNodes.get(var);
+    if (node == null) {
+      node = myNodeVariables.size();
+      myNodes.put(var, node);
+      myNodeVariables.add(var);
+      myEdges.add(new ArrayList<>());
+    }
+    return node;
+  }
+
   void addVariable(Var var) {
     myVariables.add(var);
+    myVariableNodes.set(getNode(var));
   }
 
   public void add(LevelEquations<Var> equations) {
-    myVariables.addAll(equations.myVariables);
-    myEquations.addAll(equations.myEquations);
+    for (Var var : equations.myVariables) {
+      addVariable(var);
+    }
+    for (LevelEquation<Var> equation : equations.myEquations) {
+      addEquation(equation);
+    }
   }
 
   void addEquation(LevelEquation<Var> equation) {
     myEquations.add(equation);
+    if (equation.isInfinity()) {
+      myInfinityNodes.set(getNode(equation.getVariable()));
+    } else {
+      myEdges.get(getNode(equation.getVariable1())).add(equation);
+      getNode(equation.getVariable2());
+    }
+  }
+
+  public void removeEquations(Predicate<? super LevelEquation<Var>> predicate) {
+    if (!myEquations.removeIf(predicate)) {
+      return;
+    }
+
+    List<Var> variables = new ArrayList<>(myVariables);
+    List<LevelEquation<Var>> equations = new ArrayList<>(myEquations);
+    clear();
+    for (Var var : variables) {
+      addVariable(var);
+    }
+    for (LevelEquation<Var> equation : equations) {
+      addEquation(equation);
+    }
   }
 
   public void clear() {
     myVariables.clear();
     myEquations.clear();
+    myNodes.clear();
+    myNodeVariables.clear();
+    myEdges.clear();
+    myVariableNodes.clear();
+    myInfinityNodes.clear();
+    getNode(null);
   }
 
   public boolean isEmpty() {
     return myVariables.isEmpty() && myEquations.isEmpty();
   }
 
+  /**
+   * Finds the greatest solution in which every variable is at most 0 (that is, the negated minimal levels).
+   * Values are propagated along equations with a worklist; a value of a variable is null if it is infinite.
+   *
+   * @return null if the system is consistent, or equations which lead to a contradiction otherwise.
+   */
   public List<LevelEquation<Var>> solve(Map<Var, Integer> solution) {
-    Map<Var, List<LevelEquation<Var>>> paths = new HashMap<>();
-
-    solution.put(null, 0);
-    paths.put(null, new ArrayList<>());
-    for (Var var : myVariables) {
-      solution.put(var, 0);
-      paths.put(var, new ArrayList<>());
+    int size = myNodeVariables.size();
+    int[] values = new int[size];
+    int[] lengths = new int[size];
+    boolean[] infinite = new boolean[size];
+    List<LevelEquation<Var>> predecessors = new ArrayList<>(Collections.nCopies(size, null));
+    boolean[] queued = new boolean[size];
+    Deque<Integer> queue = new ArrayDeque<>(size);
+    for (int node = 0; node < size; node++) {
+      infinite[node] = node != 0 && !myVariableNodes.get(node) || myInfinityNodes.get(node);
+      queue.add(node);
+      queued[node] = true;
     }
 
-    for (int i = myVariables.size(); i >= 0; i--) {
-      boolean updated = false;
-      for (LevelEquation<Var> equation : myEquations) {
-        if (equation.isInfinity()) {
-          solution.put(equation.getVariable(), null);
+    List<LevelEquation<Var>> result = null;
+    loop:
+    while (!queue.isEmpty()) {
+      int node = queue.poll();
+      queued[node] = false;
+      for (LevelEquation<Var> equation : myEdges.get(node)) {
+        int target = myNodes.get(equation.getVariable2());
+        if (infinite[target]) {
+          continue;
+        }
+
+        if (infinite[node]) {
+          infinite[target] = true;
         } else {
-          Integer a = solution.get(equation.getVariable1());
-          Integer b = solution.get(equation.getVariable2());
-          Integer m = equation.getMaxConstant();
-          if (b != null && (a == null || (m == null || a + m < 0) && b > a + equation.getConstant())) {
-            if (a != null) {
-              List<LevelEquation<Var>> newPath = new ArrayList<>(paths.get(equation.getVariable1()));
-              newPath.add(equation);
-              paths.put(equation.getVariable2(), newPath);
-            }
-            if (i == 0 || equation.getVariable2() == null && a != null) {
-              solution.remove(null);
-              return paths.get(equation.getVariable2());
-            }
-
-            solution.put(equation.getVariable2(), a == null ? null : a + equation.getConstant());
-            updated = true;
+          Integer maxConstant = equation.getMaxConstant();
+          int value = values[node] + equation.getConstant();
+          if (!((maxConstant == null || values[node] + maxConstant < 0) && values[target] > value)) {
+            continue;
+          }
+          if (target == 0) {
+            result = getPath(node, predecessors);
+            result.add(equation);
+            break loop;
+          }
+
+          values[target] = value;
+          predecessors.set(target, equation);
+          lengths[target] = lengths[node] + 1;
+          // A path without repeated variables is shorter, so the path to the target contains a negative cycle
+          if (lengths[target] >= size) {
+            result = getPath(target, predecessors);
+            break loop;
           }
         }
+
+        if (!queued[target]) {
+          queue.add(target);
+          queued[target] = true;
+        }
       }
-      if (!updated) {
-        break;
+    }
+
+    for (int node = 1; node < size; node++) {
+      if (myVariableNodes.get(node) || myInfinityNodes.get(node)) {
+        solution.put(myNodeVariables.get(node), infinite[node] ? null : values[node]);
       }
     }
+    return result;
+  }
 
-    solution.remove(null);
-    return null;
+  private List<LevelEquation<Var>> getPath(int node, List<LevelEquation<Var>> predecessors) {
+    List<LevelEquation<Var>> path = new ArrayList<>();
+    BitSet visited = new BitSet();
+    while (predecessors.get(node) != null && !visited.get(node)) {
+      visited.set(node);
+      path.add(predecessors.get(node));
+      node = myNodes.get(predecessors.get(node).getVariable1());
+    }
+    Collections.reverse(path);
+    return path;
   }
 }
@@ -9,8 +9,6 @@ import org.arend.core.expr.*;
 import org.arend.core.expr.visitor.NormalizeVisitor;
 import org.arend.core.sort.Sort;
 import org.arend.core.subst.ExprSubstitution;
-import org.arend.naming.reference.ClassReferable;
-import org.arend.naming.reference.Referable;
 import org.arend.naming.reference.TCClassReferable;
 import org.arend.naming.reference.TCFieldReferable;
 import org.arend.term.concrete.Concrete;
@@ -19,18 +17,23 @@ import org.arend.typechecking.implicitargs.equations.Equations;
 import org.arend.typechecking.instance.provider.InstanceProvider;
 import org.arend.typechecking.visitor.CheckTypeVisitor;
 
-import java.util.List;
 
 public class GlobalInstancePool implements InstancePool {
   private final TypecheckerState myTypecheckerState;
   private final InstanceProvider myInstanceProvider;
   private final CheckTypeVisitor myCheckTypeVisitor;
+  private final InstanceCache myInstanceCache;
   private InstancePool myInstancePool;
 
-  public GlobalInstancePool(TypecheckerState typecheckerState, InstanceProvider instanceProvider, CheckTypeVisitor checkTypeVisitor) {
+  public GlobalInstancePool(TypecheckerState typecheckerState, InstanceProvider instanceProvider, CheckTypeVisitor checkTypeVisitor, InstanceCache instanceCache) {
     myTypecheckerState = typecheckerState;
     myInstanceProvider = instanceProvider;
     myCheckTypeVisitor = checkTypeVisitor;
+    myInstanceCache = instanceCache;
+  }
+
+  public GlobalInstancePool(TypecheckerState typecheckerState, InstanceProvider instanceProvider, CheckTypeVisitor checkTypeVisitor) {
+    this(typecheckerState, instanceProvider, checkTypeVisitor, new InstanceCache(typecheckerState, null));
   }
 
   public InstancePool getInstancePool() {
@@ -79,62 +82,29 @@ public class GlobalInstancePool implements InstancePool {
       }
     }
 
-    List<? extends Concrete.Instance> instances = myInstanceProvider.getInstances();
-    for (Concrete.Instance instance : instances) {
-      Referable instanceRef = instance.getReferenceInType();
-      if (!(instanceRef instanceof ClassReferable)) {
-        continue;
-      }
-
-      boolean ok;
-      if (fieldRef != null && (fieldRef.isFieldSynonym() || ((ClassReferable) instanceRef).isRenamed(fieldRef))) {
-        ok = ((ClassReferable) instanceRef).isSubClassOf(classRef);
-      } else {
-        ClassReferable underlyingRef = ((ClassReferable) instanceRef).getUnderlyingTypecheckable();
-        ok = underlyingRef != null && underlyingRef.isSubClassOf(typecheckable);
-      }
+    Concrete.Instance instance = myInstanceCache.findInstance(myInstanceProvider, classRef, typecheckable, fieldRef, classifyingExpression, classifyingField);
+    if (instance == null) {
+      return null;
+    }
 
-      if (ok) {
-        FunctionDefinition instanceDef = (FunctionDefinition) myTypecheckerState.getTypechecked(instance.getData());
-        if (instanceDef != null && instanceDef.status().headerIsOK() && instanceDef.getResultType() instanceof ClassCallExpression) {
-          ClassCallExpression instanceResultType = (ClassCallExpression) instanceDef.getResultType();
-          if (classifyingExpression != null) {
-            Expression instanceClassifyingExpr = instanceResultType.getImplementationHere(classifyingField);
-            if (instanceClassifyingExpr != null) {
-              instanceClassifyingExpr = instanceClassifyingExpr.normalize(NormalizeVisitor.Mode.WHNF);
-            }
-            while (instanceClassifyingExpr instanceof LamExpression) {
-              instanceClassifyingExpr = ((LamExpression) instanceClassifyingExpr).getBody();
-            }
-            if (!(instanceClassifyingExpr instanceof UniverseExpression && classifyingExpression.isInstance(UniverseExpression.class) ||
-              instanceClassifyingExpr instanceof IntegerExpression && (classifyingExpression.isInstance(IntegerExpression.class) && ((IntegerExpression) instanceClassifyingExpr).isEqual(classifyingExpression.cast(IntegerExpression.class)) ||
-                classifyingExpression.isInstance(ConCallExpression.class) && ((IntegerExpression) instanceClassifyingExpr).match(classifyingExpression.cast(ConCallExpression.class).getDefinition())) ||
-              instanceClassifyingExpr instanceof DefCallExpression && classifyingExpression.isInstance(DefCallExpression.class) && ((DefCallExpression) instanceClassifyingExpr).getDefinition() == classifyingExpression.cast(DefCallExpression.class).getDefinition())) {
-              continue;
-            }
-          }
-
-          Concrete.Expression instanceExpr = new Concrete.ReferenceExpression(sourceNode.getData(), instance.getData());
-          for (DependentLink link = instanceDef.getParameters(); link.hasNext(); link = link.getNext()) {
-            if (link.isExplicit()) {
-              instanceExpr = Concrete.AppExpression.make(sourceNode.getData(), instanceExpr, new Concrete.HoleExpression(sourceNode.getData()), true);
-            }
-          }
-
-          Expression expectedType = classifyingField == null ? null : myCheckTypeVisitor.fixClassExtSort(new ClassCallExpression(instanceResultType.getDefinition(), Sort.generateInferVars(myCheckTypeVisitor.getEquations(), instanceResultType.getDefinition().hasUniverses(), sourceNode)), sourceNode);
-          CheckTypeVisitor.Result result = myCheckTypeVisitor.checkExpr(instanceExpr, expectedType);
-          return result == null ? new ErrorExpression(null, null) : result.expression;
-        }
+    FunctionDefinition instanceDef = (FunctionDefinition) myTypecheckerState.getTypechecked(instance.getData());
+    ClassCallExpression instanceResultType = (ClassCallExpression) instanceDef.getResultType();
+    Concrete.Expression instanceExpr = new Concrete.ReferenceExpression(sourceNode.getData(), instance.getData());
+    for (DependentLink link = instanceDef.getParameters(); link.hasNext(); link = link.getNext()) {
+      if (link.isExplicit()) {
+        instanceExpr = Concrete.AppExpression.make(sourceNode.getData(), instanceExpr, new Concrete.HoleExpression(sourceNode.getData()), true);
       }
     }
 
-    return null;
+    Expression expectedType = classifyingField == null ? null : myCheckTypeVisitor.fixClassExtSort(new ClassCallExpression(instanceResultType.getDefinition(), Sort.generateInferVars(myCheckTypeVisitor.getEquations(), instanceResultType.getDefinition().hasUniverses(), sourceNode)), sourceNode);
+    CheckTypeVisitor.Result result = myCheckTypeVisitor.checkExpr(instanceExpr, expectedType);
+    return result == null ? new ErrorExpression(null, null) : result.expression;
   }
 
   @Override
   public GlobalInstancePool subst(ExprSubstitution substitution) {
     if (myInstancePool != null) {
-      GlobalInstancePool result = new GlobalInstancePool(myTypecheckerState, myInstanceProvider, myCheckTypeVisitor);
+      GlobalInstancePool result = new GlobalInstancePool(myTypecheckerState, myInstanceProvider, myCheckTypeVisitor, myInstanceCache);
       result.setInstancePool(myInstancePool.subst(substitution));
       return result;
     } else {
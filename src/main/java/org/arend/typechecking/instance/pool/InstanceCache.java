@@ -0,0 +1,216 @@
+package org.arend.typechecking.instance.pool;
+
+import org.arend.core.definition.ClassField;
+import org.arend.core.definition.Definition;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.expr.*;
+import org.arend.core.expr.visitor.NormalizeVisitor;
+import org.arend.naming.reference.ClassReferable;
+import org.arend.naming.reference.Referable;
+import org.arend.naming.reference.TCClassReferable;
+import org.arend.naming.reference.TCFieldReferable;
+import org.arend.term.concrete.Concrete;
+import org.arend.typechecking.TypecheckerState;
+import org.arend.typechecking.instance.provider.InstanceProvider;
+import org.arend.typechecking.instance.provider.InstanceProviderSet;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Indexes instances of providers by their classes and remembers results of instance resolution during a typechecking session.
+ * A result is remembered only if headers of all instances which precede it were successfully typechecked,
+ * so it does not change when other instances are typechecked.
+ * The cache is cleared when the set of instance providers changes.
+ * The cache can be used by several threads at once; it does not lock while instances are matched.
+ */
+public class InstanceCache {
+  private static final Object UNIVERSE = new Object();
+
+  private final TypecheckerState myState;
+  private final InstanceProviderSet myInstanceProviderSet;
+  private volatile Indices myIndices;
+
+  public InstanceCache(TypecheckerState state, InstanceProviderSet instanceProviderSet) {
+    myState = state;
+    myInstanceProviderSet = instanceProviderSet;
+    myIndices = new Indices(instanceProviderSet == null ? 0 : instanceProviderSet.getModificationCount());
+  }
+
+  private static class Indices {
+    final int modificationCount;
+    final Map<InstanceProvider, ProviderIndex> map = new ConcurrentHashMap<>();
+
+    Indices(int modificationCount) {
+      this.modificationCount = modificationCount;
+    }
+  }
+
+  private static class IndexedInstance {
+    final Concrete.Instance instance;
+    final int position;
+    volatile ClassifyingExpression classifyingExpr;
+
+    IndexedInstance(Concrete.Instance instance, int position) {
+      this.instance = instance;
+      this.position = position;
+    }
+  }
+
+  /**
+   * The classifying expression of an instance; it is recomputed if either the instance or the classifying field changes.
+   */
+  private static class ClassifyingExpression {
+    final Definition definition;
+    final ClassField classifyingField;
+    final Expression expression;
+
+    ClassifyingExpression(Definition definition, ClassField classifyingField, Expression expression) {
+      this.definition = definition;
+      this.classifyingField = classifyingField;
+      this.expression = expression;
+    }
+  }
+
+  private static class Query {
+    final TCClassReferable classRef;
+    final TCFieldReferable fieldRef;
+    final Object head;
+
+    Query(TCClassReferable classRef, TCFieldReferable fieldRef, Object head) {
+      this.classRef = classRef;
+      this.fieldRef = fieldRef;
+      this.head = head;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      Query query = (Query) o;
+      return classRef.equals(query.classRef) && Objects.equals(fieldRef, query.fieldRef) && Objects.equals(head, query.head);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(classRef, fieldRef, head);
+    }
+  }
+
+  private static class ProviderIndex {
+    final Map<ClassReferable, List<IndexedInstance>> instancesByClass = new LinkedHashMap<>();
+    final Map<Query, Optional<Concrete.Instance>> resolved = new ConcurrentHashMap<>();
+
+    ProviderIndex(InstanceProvider provider) {
+      int position = 0;
+      for (Concrete.Instance instance : provider.getInstances()) {
+        Referable instanceRef = instance.getReferenceInType();
+        if (instanceRef instanceof ClassReferable) {
+          instancesByClass.computeIfAbsent((ClassReferable) instanceRef, k -> new ArrayList<>()).add(new IndexedInstance(instance, position));
+        }
+        position++;
+      }
+    }
+  }
+
+  /**
+   * Computes the key of a classifying expression which is used to select instances.
+   *
+   * @param classifyingExpression a classifying expression in weak head normal form without leading lambdas.
+   */
+  static Object getHead(Expression classifyingExpression) {
+    if (classifyingExpression.isInstance(DefCallExpression.class)) {
+      return classifyingExpression.cast(DefCallExpression.class).getDefinition();
+    }
+    if (classifyingExpression.isInstance(UniverseExpression.class)) {
+      return UNIVERSE;
+    }
+    if (classifyingExpression.isInstance(IntegerExpression.class)) {
+      return classifyingExpression.cast(IntegerExpression.class).getBigInteger();
+    }
+    return null;
+  }
+
+  /**
+   * Finds the first instance of a provider which matches a query in the same way as {@link GlobalInstancePool#getInstance} does.
+   *
+   * @param classifyingExpression a classifying expression in weak head normal form without leading lambdas or null.
+   * @param classifyingField      the classifying field of the class if {@code classifyingExpression} is not null.
+   */
+  public Concrete.Instance findInstance(InstanceProvider provider, TCClassReferable classRef, TCClassReferable typecheckable, TCFieldReferable fieldRef, Expression classifyingExpression, ClassField classifyingField) {
+    Indices indices = myIndices;
+    if (myInstanceProviderSet != null) {
+      int modificationCount = myInstanceProviderSet.getModificationCount();
+      if (modificationCount != indices.modificationCount) {
+        indices = new Indices(modificationCount);
+        myIndices = indices;
+      }
+    }
+
+    ProviderIndex index = indices.map.computeIfAbsent(provider, ProviderIndex::new);
+    Query query = new Query(classRef, fieldRef, classifyingExpression == null ? null : getHead(classifyingExpression));
+    Optional<Concrete.Instance> resolved = index.resolved.get(query);
+    if (resolved != null) {
+      return resolved.orElse(null);
+    }
+
+    List<IndexedInstance> candidates = new ArrayList<>();
+    for (Map.Entry<ClassReferable, List<IndexedInstance>> entry : index.instancesByClass.entrySet()) {
+      ClassReferable instanceRef = entry.getKey();
+      boolean ok;
+      if (fieldRef != null && (fieldRef.isFieldSynonym() || instanceRef.isRenamed(fieldRef))) {
+        ok = instanceRef.isSubClassOf(classRef);
+      } else {
+        ClassReferable underlyingRef = instanceRef.getUnderlyingTypecheckable();
+        ok = underlyingRef != null && underlyingRef.isSubClassOf(typecheckable);
+      }
+      if (ok) {
+        candidates.addAll(entry.getValue());
+      }
+    }
+    candidates.sort(Comparator.comparingInt(instance -> instance.position));
+
+    boolean complete = true;
+    Concrete.Instance result = null;
+    for (IndexedInstance candidate : candidates) {
+      Definition instanceDef = myState.getTypechecked(candidate.instance.getData());
+      if (instanceDef == null || !instanceDef.status().headerIsOK()) {
+        complete = false;
+        continue;
+      }
+      if (!(instanceDef instanceof FunctionDefinition && ((FunctionDefinition) instanceDef).getResultType() instanceof ClassCallExpression)) {
+        continue;
+      }
+      if (classifyingExpression == null || matches(candidate, (FunctionDefinition) instanceDef, classifyingExpression, classifyingField)) {
+        result = candidate.instance;
+        break;
+      }
+    }
+
+    if (complete) {
+      index.resolved.put(query, Optional.ofNullable(result));
+    }
+    return result;
+  }
+
+  private static boolean matches(IndexedInstance candidate, FunctionDefinition instanceDef, Expression classifyingExpression, ClassField classifyingField) {
+    ClassifyingExpression classifyingExpr = candidate.classifyingExpr;
+    if (classifyingExpr == null || classifyingExpr.definition != instanceDef || classifyingExpr.classifyingField != classifyingField) {
+      Expression expr = ((ClassCallExpression) instanceDef.getResultType()).getImplementationHere(classifyingField);
+      if (expr != null) {
+        expr = expr.normalize(NormalizeVisitor.Mode.WHNF);
+      }
+      while (expr instanceof LamExpression) {
+        expr = ((LamExpression) expr).getBody();
+      }
+      classifyingExpr = new ClassifyingExpression(instanceDef, classifyingField, expr);
+      candidate.classifyingExpr = classifyingExpr;
+    }
+
+    Expression instanceClassifyingExpr = classifyingExpr.expression;
+    return instanceClassifyingExpr instanceof UniverseExpression && classifyingExpression.isInstance(UniverseExpression.class) ||
+      instanceClassifyingExpr instanceof IntegerExpression && (classifyingExpression.isInstance(IntegerExpression.class) && ((IntegerExpression) instanceClassifyingExpr).isEqual(classifyingExpression.cast(IntegerExpression.class)) ||
+        classifyingExpression.isInstance(ConCallExpression.class) && ((IntegerExpression) instanceClassifyingExpr).match(classifyingExpression.cast(ConCallExpression.class).getDefinition())) ||
+      instanceClassifyingExpr instanceof DefCallExpression && classifyingExpression.isInstance(DefCallExpression.class) && ((DefCallExpression) instanceClassifyingExpr).getDefinition() == classifyingExpression.cast(DefCallExpression.class).getDefinition();
+  }
+}
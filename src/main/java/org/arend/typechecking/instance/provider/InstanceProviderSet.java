@@ -15,15 +15,26 @@ import org.arend.term.group.Group;
 import org.arend.typechecking.typecheckable.provider.ConcreteProvider;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
 public class InstanceProviderSet {
   private final Map<TCReferable, InstanceProvider> myProviders = new HashMap<>();
   private final Set<Group> myCollected = new HashSet<>();
+  private final AtomicInteger myModificationCount = new AtomicInteger();
+
+  /**
+   * The number of modifications of this set; it can be used to invalidate caches which depend on providers.
+   * It can be read from any thread.
+   */
+  public int getModificationCount() {
+    return myModificationCount.get();
+  }
 
   public void put(TCReferable referable, InstanceProvider provider) {
     myProviders.put(referable, provider);
+    myModificationCount.incrementAndGet();
   }
 
   public InstanceProvider get(TCReferable referable) {
@@ -31,7 +42,10 @@ public class InstanceProviderSet {
   }
 
   public InstanceProvider computeIfAbsent(TCReferable referable, Function<? super TCReferable, ? extends InstanceProvider> fun) {
-    return myProviders.computeIfAbsent(referable, fun);
+    return myProviders.computeIfAbsent(referable, ref -> {
+      myModificationCount.incrementAndGet();
+      return fun.apply(ref);
+    });
   }
 
   private class MyPredicate implements Predicate<Referable> {
@@ -52,6 +66,7 @@ public class InstanceProviderSet {
       }
       if (ref instanceof TCReferable) {
         myProviders.put((TCReferable) ref, instanceProvider);
+        myModificationCount.incrementAndGet();
       }
       return ref;
     }
@@ -16,13 +16,13 @@ public class DependencyCollector implements DependencyListener {
   }
 
   @Override
-  public void dependsOn(TCReferable def1, boolean header, TCReferable def2) {
+  public synchronized void dependsOn(TCReferable def1, boolean header, TCReferable def2) {
     myDependencies.computeIfAbsent(def1, k -> new HashSet<>()).add(def2);
     myReverseDependencies.computeIfAbsent(def2, k -> new HashSet<>()).add(def1);
   }
 
   @Override
-  public Set<? extends TCReferable> update(TCReferable definition) {
+  public synchronized Set<? extends TCReferable> update(TCReferable definition) {
     if (myState.getTypechecked(definition) == null) {
       return Collections.emptySet();
     }
@@ -42,7 +42,7 @@ public class DependencyCollector implements DependencyListener {
         for (TCReferable dependency : dependencies) {
           Set<TCReferable> definitions = myReverseDependencies.get(dependency);
           if (definitions != null) {
-            definitions.remove(definition);
+            definitions.remove(toUpdate);
           }
         }
       }
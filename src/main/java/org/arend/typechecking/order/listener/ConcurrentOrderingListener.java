@@ -0,0 +1,215 @@
+package org.arend.typechecking.order.listener;
+
+import org.arend.naming.reference.TCReferable;
+import org.arend.term.concrete.Concrete;
+import org.arend.typechecking.order.SCC;
+import org.arend.typechecking.order.dependency.DependencyListener;
+import org.arend.typechecking.typecheckable.TypecheckingUnit;
+import org.arend.typechecking.typecheckable.provider.ConcreteProvider;
+import org.arend.util.ComputationInterruptedException;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collects units and SCCs reported by {@link org.arend.typechecking.order.Ordering} together with the dependencies between them,
+ * and then feeds them to another listener, running independent units concurrently.
+ * It should be passed to the ordering both as an {@link OrderingListener} and as a {@link DependencyListener}.
+ * Dependency events are forwarded to the underlying dependency listener.
+ *
+ * A unit waits for every previously reported unit that contains a definition it refers to (both headers and bodies),
+ * for the header of its own definition, and for the coercing and level functions of the definitions it refers to.
+ * Since units are reported in a topological order, this is a conservative approximation of the order used by the sequential typechecking.
+ */
+public class ConcurrentOrderingListener implements OrderingListener, DependencyListener {
+  private final ConcreteProvider myConcreteProvider;
+  private final DependencyListener myDependencyListener;
+  private final List<Node> myNodes = new ArrayList<>();
+  private final Map<TCReferable, List<Node>> myDefinitionNodes = new HashMap<>();
+  private final Map<TCReferable, Set<TCReferable>> myDependencies = new HashMap<>();
+
+  private static class Node {
+    final SCC scc;
+    final TypecheckingUnit unit;
+    final Recursion recursion;
+    final List<Node> dependents = new ArrayList<>();
+    final AtomicInteger pending = new AtomicInteger();
+
+    Node(SCC scc, TypecheckingUnit unit, Recursion recursion) {
+      this.scc = scc;
+      this.unit = unit;
+      this.recursion = recursion;
+    }
+
+    Collection<? extends TypecheckingUnit> getUnits() {
+      return scc != null ? scc.getUnits() : Collections.singletonList(unit);
+    }
+
+    void feed(OrderingListener listener) {
+      if (scc != null) {
+        listener.sccFound(scc);
+      } else {
+        listener.unitFound(unit, recursion);
+      }
+    }
+  }
+
+  public ConcurrentOrderingListener(ConcreteProvider concreteProvider, DependencyListener dependencyListener) {
+    myConcreteProvider = concreteProvider;
+    myDependencyListener = dependencyListener;
+  }
+
+  @Override
+  public void dependsOn(TCReferable def1, boolean header, TCReferable def2) {
+    myDependencies.computeIfAbsent(def1, k -> new LinkedHashSet<>()).add(def2);
+    myDependencyListener.dependsOn(def1, header, def2);
+  }
+
+  @Override
+  public Set<? extends TCReferable> update(TCReferable definition) {
+    return myDependencyListener.update(definition);
+  }
+
+  @Override
+  public void unitFound(TypecheckingUnit unit, Recursion recursion) {
+    addNode(new Node(null, unit, recursion));
+  }
+
+  @Override
+  public void sccFound(SCC scc) {
+    addNode(new Node(scc, null, null));
+  }
+
+  private void addNode(Node node) {
+    Set<Node> dependencies = new HashSet<>();
+    for (TypecheckingUnit unit : node.getUnits()) {
+      TCReferable referable = unit.getDefinition().getData();
+      addDependencies(referable, dependencies);
+
+      Set<TCReferable> defDependencies = myDependencies.get(referable);
+      if (defDependencies != null) {
+        for (TCReferable dependency : defDependencies) {
+          addDependencies(dependency, dependencies);
+          Concrete.ReferableDefinition definition = myConcreteProvider.getConcrete(dependency);
+          if (definition instanceof Concrete.Definition) {
+            for (TCReferable usedDefinition : ((Concrete.Definition) definition).getUsedDefinitions()) {
+              addDependencies(usedDefinition, dependencies);
+            }
+          }
+        }
+      }
+    }
+
+    for (Node dependency : dependencies) {
+      dependency.dependents.add(node);
+    }
+    node.pending.set(dependencies.size());
+
+    for (TypecheckingUnit unit : node.getUnits()) {
+      List<Node> nodes = myDefinitionNodes.computeIfAbsent(unit.getDefinition().getData(), k -> new ArrayList<>(2));
+      if (nodes.isEmpty() || nodes.get(nodes.size() - 1) != node) {
+        nodes.add(node);
+      }
+    }
+    myNodes.add(node);
+  }
+
+  private void addDependencies(TCReferable referable, Set<Node> dependencies) {
+    List<Node> nodes = myDefinitionNodes.get(referable);
+    if (nodes != null) {
+      dependencies.addAll(nodes);
+    }
+  }
+
+  public boolean isEmpty() {
+    return myNodes.isEmpty();
+  }
+
+  /**
+   * Feeds collected units to {@code listener} using {@code executor}.
+   * The listener (and everything it uses, such as the typechecker state and the error reporter) must support concurrent access.
+   * This method blocks until every unit is processed.
+   *
+   * @throws ComputationInterruptedException if either the current thread or one of the units was interrupted.
+   *                                         Units that have not been started yet are skipped in this case.
+   */
+  public void feed(TypecheckingOrderingListener listener, ExecutorService executor) {
+    if (myNodes.isEmpty()) {
+      return;
+    }
+
+    // Roots must be collected before anything is submitted since running nodes decrement counters of their dependents
+    List<Node> roots = new ArrayList<>();
+    for (Node node : myNodes) {
+      if (node.pending.get() == 0) {
+        roots.add(node);
+      }
+    }
+
+    Feeder feeder = new Feeder(listener, executor);
+    for (Node node : roots) {
+      feeder.submit(node);
+    }
+    feeder.await();
+  }
+
+  private class Feeder {
+    private final TypecheckingOrderingListener myListener;
+    private final ExecutorService myExecutor;
+    private final CountDownLatch myRemaining = new CountDownLatch(myNodes.size());
+    private final Queue<Throwable> myExceptions = new ConcurrentLinkedQueue<>();
+    private volatile boolean myInterrupted = false;
+
+    Feeder(TypecheckingOrderingListener listener, ExecutorService executor) {
+      myListener = listener;
+      myExecutor = executor;
+    }
+
+    void submit(Node node) {
+      myExecutor.execute(() -> run(node));
+    }
+
+    private void run(Node node) {
+      try {
+        if (!myInterrupted && myExceptions.isEmpty()) {
+          node.feed(myListener);
+        }
+      } catch (ComputationInterruptedException e) {
+        myInterrupted = true;
+        myListener.onInterrupted();
+      } catch (Throwable e) {
+        myExceptions.add(e);
+      } finally {
+        for (Node dependent : node.dependents) {
+          if (dependent.pending.decrementAndGet() == 0) {
+            submit(dependent);
+          }
+        }
+        myRemaining.countDown();
+      }
+    }
+
+    void await() {
+      try {
+        myRemaining.await();
+      } catch (InterruptedException e) {
+        myInterrupted = true;
+        throw new ComputationInterruptedException();
+      }
+
+      Throwable exception = myExceptions.peek();
+      if (exception instanceof RuntimeException) {
+        throw (RuntimeException) exception;
+      }
+      if (exception instanceof Error) {
+        throw (Error) exception;
+      }
+      if (myInterrupted) {
+        throw new ComputationInterruptedException();
+      }
+    }
+  }
+}
@@ -8,6 +8,9 @@ import org.arend.core.elimtree.Clause;
 import org.arend.core.expr.ClassCallExpression;
 import org.arend.core.expr.ErrorExpression;
 import org.arend.core.expr.PiExpression;
+import org.arend.core.expr.TermInterner;
+import org.arend.core.expr.visitor.EnvironmentNormalizer;
+import org.arend.core.expr.visitor.WhnfCache;
 import org.arend.core.sort.Sort;
 import org.arend.error.CompositeErrorReporter;
 import org.arend.error.CountingErrorReporter;
@@ -20,15 +23,20 @@ import org.arend.naming.reference.converter.IdReferableConverter;
 import org.arend.term.concrete.Concrete;
 import org.arend.term.group.Group;
 import org.arend.typechecking.CancellationIndicator;
+import org.arend.typechecking.ComputationBudget;
+import org.arend.typechecking.ComputationLimitExceededException;
 import org.arend.typechecking.DefinitionTypechecking;
 import org.arend.typechecking.ThreadCancellationIndicator;
+import org.arend.typechecking.TypecheckingProfiler;
 import org.arend.typechecking.TypecheckerState;
 import org.arend.typechecking.error.CycleError;
 import org.arend.typechecking.error.ProxyError;
 import org.arend.typechecking.error.TerminationCheckError;
+import org.arend.typechecking.error.local.ComputationLimitError;
 import org.arend.typechecking.error.local.ProxyErrorReporter;
 import org.arend.typechecking.error.local.TypecheckingError;
 import org.arend.typechecking.instance.pool.GlobalInstancePool;
+import org.arend.typechecking.instance.pool.InstanceCache;
 import org.arend.typechecking.instance.provider.InstanceProviderSet;
 import org.arend.typechecking.order.Ordering;
 import org.arend.typechecking.order.PartialComparator;
@@ -46,29 +54,36 @@ import org.arend.util.ComputationInterruptedException;
 import org.arend.util.Pair;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class TypecheckingOrderingListener implements OrderingListener {
   private final TypecheckerState myState;
   private final DependencyListener myDependencyListener;
-  private final Map<GlobalReferable, Pair<CheckTypeVisitor,Boolean>> mySuspensions = new HashMap<>();
+  private final Map<GlobalReferable, Pair<CheckTypeVisitor,Boolean>> mySuspensions = new ConcurrentHashMap<>();
   private final ErrorReporter myErrorReporter;
   private final InstanceProviderSet myInstanceProviderSet;
+  private final InstanceCache myInstanceCache;
   private final ConcreteProvider myConcreteProvider;
   private final PartialComparator<TCReferable> myComparator;
-  private boolean myTypecheckingHeaders = false;
-  private TCReferable myCurrentDefinition;
-
-  public static CancellationIndicator CANCELLATION_INDICATOR = ThreadCancellationIndicator.INSTANCE;
-
-  public static void setDefaultCancellationIndicator() {
-    CANCELLATION_INDICATOR = ThreadCancellationIndicator.INSTANCE;
-  }
+  private final ThreadLocal<TCReferable> myCurrentDefinition = new ThreadLocal<>(); // several units can be typechecked at once on different threads
+  private TypecheckingProfiler myProfiler;
+  private int myWhnfCacheCapacity;
+  private boolean myEnvironmentNormalizer;
+  private TermInterner myTermInterner;
+  private final AtomicLong myWhnfCacheHits = new AtomicLong();
+  private final AtomicLong myWhnfCacheMisses = new AtomicLong();
+  private CancellationIndicator myCancellationIndicator = ThreadCancellationIndicator.INSTANCE;
+  private long myTimeLimit;
+  private long myFuel;
 
   public TypecheckingOrderingListener(InstanceProviderSet instanceProviderSet, TypecheckerState state, ConcreteProvider concreteProvider, ErrorReporter errorReporter, DependencyListener dependencyListener, PartialComparator<TCReferable> comparator) {
     myState = state;
     myErrorReporter = errorReporter;
     myDependencyListener = dependencyListener;
     myInstanceProviderSet = instanceProviderSet;
+    myInstanceCache = new InstanceCache(state, instanceProviderSet);
     myConcreteProvider = concreteProvider;
     myComparator = comparator;
   }
@@ -82,10 +97,141 @@ public class TypecheckingOrderingListener implements OrderingListener {
     myErrorReporter = errorReporter;
     myDependencyListener = ordering.getDependencyListener();
     myInstanceProviderSet = ordering.getInstanceProviderSet();
+    myInstanceCache = new InstanceCache(myState, myInstanceProviderSet);
     myConcreteProvider = ordering.getConcreteProvider();
     myComparator = ordering.getComparator();
   }
 
+  /**
+   * Enables caching of weak head normal forms of closed function calls (see {@link WhnfCache}).
+   * Every typechecking unit gets its own cache.
+   *
+   * @param capacity the maximum number of cached expressions per unit or 0 to disable the cache.
+   */
+  public void setWhnfCacheCapacity(int capacity) {
+    myWhnfCacheCapacity = capacity;
+  }
+
+  /**
+   * Enables the environment-based normalizer (see {@link EnvironmentNormalizer}) for units typechecked by this listener.
+   */
+  public void setEnvironmentNormalizer(boolean enabled) {
+    myEnvironmentNormalizer = enabled;
+  }
+
+  /**
+   * Sets an interner which shares terms created while units are typechecked by this listener (see {@link TermInterner}).
+   *
+   * @param interner an interner or null to disable interning.
+   */
+  public void setTermInterner(TermInterner interner) {
+    myTermInterner = interner;
+  }
+
+  public long getWhnfCacheHits() {
+    return myWhnfCacheHits.get();
+  }
+
+  public long getWhnfCacheMisses() {
+    return myWhnfCacheMisses.get();
+  }
+
+  /**
+   * Sets a profiler which collects statistics of typechecked definitions.
+   *
+   * @param profiler a profiler or null to disable profiling.
+   */
+  public void setProfiler(TypecheckingProfiler profiler) {
+    myProfiler = profiler;
+  }
+
+  /**
+   * Sets the indicator which cancels typechecking of this session.
+   * By default, typechecking is canceled when the thread which runs it is interrupted.
+   */
+  public void setCancellationIndicator(CancellationIndicator cancellationIndicator) {
+    myCancellationIndicator = cancellationIndicator;
+  }
+
+  /**
+   * Limits computations performed while a definition is typechecked.
+   * A definition that exceeds a limit gets a {@link ComputationLimitError} and the rest of the session continues.
+   *
+   * @param timeLimit the maximum number of milliseconds per header or body of a definition or 0 if time is not limited.
+   * @param fuel      the maximum number of reduction steps per header or body of a definition or 0 if it is not limited.
+   */
+  public void setComputationLimits(long timeLimit, long fuel) {
+    myTimeLimit = timeLimit;
+    myFuel = fuel;
+  }
+
+  private ComputationBudget startBudget() {
+    return ComputationBudget.install(new ComputationBudget(myCancellationIndicator, myTimeLimit, myFuel));
+  }
+
+  private void reportLimitExceeded(ComputationLimitExceededException e, Concrete.Definition definition) {
+    myErrorReporter.report(new ProxyError(definition.getData(), new ComputationLimitError(e.limit, e.value, definition)));
+  }
+
+  private Definition headerLimitExceeded(ComputationLimitExceededException e, Concrete.Definition definition) {
+    reportLimitExceeded(e, definition);
+    mySuspensions.remove(definition.getData());
+
+    // The definition may be already recorded, so other definitions might refer to it
+    Definition typechecked = myState.getTypechecked(definition.getData());
+    if (typechecked == null) {
+      return newDefinition(definition);
+    }
+    if (typechecked instanceof FunctionDefinition) {
+      FunctionDefinition function = (FunctionDefinition) typechecked;
+      function.setBody(null);
+      if (function.getResultType() == null) {
+        function.setResultType(new ErrorExpression(null, null));
+      }
+    }
+    // Stubs refer to the definition, so its header cannot have errors yet
+    typechecked.setStatus(Definition.TypeCheckingStatus.HAS_ERRORS);
+    addMemberStubs(definition, typechecked, true);
+    typechecked.setStatus(Definition.TypeCheckingStatus.HEADER_HAS_ERRORS);
+    return typechecked;
+  }
+
+  private void bodyLimitExceeded(ComputationLimitExceededException e, Concrete.Definition definition, Definition typechecked) {
+    reportLimitExceeded(e, definition);
+    if (typechecked instanceof FunctionDefinition) {
+      ((FunctionDefinition) typechecked).setBody(null);
+    }
+    if (typechecked.status().headerIsOK()) {
+      typechecked.setStatus(Definition.TypeCheckingStatus.BODY_HAS_ERRORS);
+    }
+  }
+
+  private WhnfCache startWhnfCache() {
+    return myWhnfCacheCapacity > 0 ? new WhnfCache(myWhnfCacheCapacity) : null;
+  }
+
+  private void finishWhnfCache(WhnfCache cache, WhnfCache previous) {
+    WhnfCache.install(previous);
+    myWhnfCacheHits.addAndGet(cache.getHits());
+    myWhnfCacheMisses.addAndGet(cache.getMisses());
+  }
+
+  private void typecheck(Runnable action) {
+    boolean previousNormalizer = EnvironmentNormalizer.install(myEnvironmentNormalizer);
+    TermInterner previousInterner = TermInterner.install(myTermInterner);
+    WhnfCache cache = startWhnfCache();
+    WhnfCache previous = cache == null ? null : WhnfCache.install(cache);
+    try {
+      action.run();
+    } finally {
+      if (cache != null) {
+        finishWhnfCache(cache, previous);
+      }
+      TermInterner.install(previousInterner);
+      EnvironmentNormalizer.install(previousNormalizer);
+    }
+  }
+
   public boolean typecheckDefinitions(final Collection<? extends Concrete.Definition> definitions) {
     try {
       Ordering ordering = new Ordering(myInstanceProviderSet, myConcreteProvider, this, myDependencyListener, IdReferableConverter.INSTANCE, myState, myComparator, false);
@@ -94,9 +240,7 @@ public class TypecheckingOrderingListener implements OrderingListener {
       }
       return true;
     } catch (ComputationInterruptedException ignored) {
-      if (myCurrentDefinition != null) {
-        typecheckingInterrupted(myCurrentDefinition);
-      }
+      onInterrupted();
       return false;
     }
   }
@@ -106,9 +250,7 @@ public class TypecheckingOrderingListener implements OrderingListener {
       new Ordering(myInstanceProviderSet, myConcreteProvider, this, myDependencyListener, IdReferableConverter.INSTANCE, myState, myComparator, false).orderModules(modules);
       return true;
     } catch (ComputationInterruptedException ignored) {
-      if (myCurrentDefinition != null) {
-        typecheckingInterrupted(myCurrentDefinition);
-      }
+      onInterrupted();
       return false;
     }
   }
@@ -117,9 +259,46 @@ public class TypecheckingOrderingListener implements OrderingListener {
     try {
       return library.orderModules(new Ordering(myInstanceProviderSet, myConcreteProvider, this, myDependencyListener, IdReferableConverter.INSTANCE, myState, myComparator, false));
     } catch (ComputationInterruptedException ignored) {
-      if (myCurrentDefinition != null) {
-        typecheckingInterrupted(myCurrentDefinition);
-      }
+      onInterrupted();
+      return false;
+    }
+  }
+
+  /**
+   * Typechecks modules of {@code library}, running independent units on {@code executor}.
+   * The typechecker state, the error reporter, and overridden callbacks of this listener must support concurrent access.
+   */
+  public boolean typecheckLibrary(Library library, ExecutorService executor) {
+    ConcurrentOrderingListener collector = new ConcurrentOrderingListener(myConcreteProvider, myDependencyListener);
+    try {
+      return library.orderModules(new Ordering(myInstanceProviderSet, myConcreteProvider, collector, collector, IdReferableConverter.INSTANCE, myState, myComparator, false)) && typecheckCollected(collector, executor);
+    } catch (ComputationInterruptedException ignored) {
+      Thread.interrupted();
+      return false;
+    }
+  }
+
+  /**
+   * Typechecks {@code modules}, running independent units on {@code executor}.
+   * The typechecker state, the error reporter, and overridden callbacks of this listener must support concurrent access.
+   */
+  public boolean typecheckModules(final Collection<? extends Group> modules, ExecutorService executor) {
+    ConcurrentOrderingListener collector = new ConcurrentOrderingListener(myConcreteProvider, myDependencyListener);
+    try {
+      new Ordering(myInstanceProviderSet, myConcreteProvider, collector, collector, IdReferableConverter.INSTANCE, myState, myComparator, false).orderModules(modules);
+      return typecheckCollected(collector, executor);
+    } catch (ComputationInterruptedException ignored) {
+      Thread.interrupted();
+      return false;
+    }
+  }
+
+  public boolean typecheckCollected(ConcurrentOrderingListener collector, ExecutorService executor) {
+    try {
+      collector.feed(this, executor);
+      return true;
+    } catch (ComputationInterruptedException ignored) {
+      Thread.interrupted();
       return false;
     }
   }
@@ -129,13 +308,73 @@ public class TypecheckingOrderingListener implements OrderingListener {
       collector.feed(this);
       return true;
     } catch (ComputationInterruptedException ignored) {
-      if (myCurrentDefinition != null) {
-        typecheckingInterrupted(myCurrentDefinition);
-      }
+      onInterrupted();
       return false;
     }
   }
 
+  private void onStarted(TCReferable definition, TypecheckingProfiler.Kind kind) {
+    if (myProfiler != null) {
+      myProfiler.started(definition, kind);
+    }
+  }
+
+  private void onFinished(TCReferable definition) {
+    if (myProfiler != null) {
+      myProfiler.finished(definition);
+    }
+  }
+
+  private void onHeaderStarted(TCReferable definition) {
+    typecheckingHeaderStarted(definition);
+    onStarted(definition, TypecheckingProfiler.Kind.HEADER);
+  }
+
+  private void onBodyStarted(TCReferable definition) {
+    typecheckingBodyStarted(definition);
+    onStarted(definition, TypecheckingProfiler.Kind.BODY);
+  }
+
+  private void onUnitStarted(TCReferable definition) {
+    typecheckingUnitStarted(definition);
+    onStarted(definition, TypecheckingProfiler.Kind.UNIT);
+  }
+
+  private void onHeaderFinished(TCReferable referable, Definition definition) {
+    onFinished(referable);
+    typecheckingHeaderFinished(referable, definition);
+  }
+
+  private void onBodyFinished(TCReferable referable, Definition definition) {
+    onFinished(referable);
+    typecheckingBodyFinished(referable, definition);
+  }
+
+  private void onUnitFinished(TCReferable referable, Definition definition) {
+    onFinished(referable);
+    typecheckingUnitFinished(referable, definition);
+  }
+
+  /**
+   * Clears the interrupted status of the current thread
+   * and reports the interruption of the definition which is typechecked on it, if any.
+   */
+  void onInterrupted() {
+    Thread.interrupted();
+    TCReferable definition = myCurrentDefinition.get();
+    if (definition != null) {
+      myCurrentDefinition.remove();
+      onInterrupted(definition);
+    }
+  }
+
+  private void onInterrupted(TCReferable definition) {
+    if (myProfiler != null) {
+      myProfiler.interrupted();
+    }
+    typecheckingInterrupted(definition);
+  }
+
   public void typecheckingHeaderStarted(TCReferable definition) {
 
   }
@@ -169,9 +408,34 @@ public class TypecheckingOrderingListener implements OrderingListener {
     if (definition instanceof Concrete.DataDefinition) {
       typechecked = new DataDefinition(definition.getData());
       ((DataDefinition) typechecked).setSort(Sort.SET0);
-      typechecked.setStatus(Definition.TypeCheckingStatus.HAS_ERRORS);
+    } else if (definition instanceof Concrete.FunctionDefinition || definition instanceof Concrete.Instance) {
+      typechecked = new FunctionDefinition(definition.getData());
+      ((FunctionDefinition) typechecked).setResultType(new ErrorExpression(null, null));
+    } else if (definition instanceof Concrete.ClassDefinition) {
+      typechecked = new ClassDefinition((TCClassReferable) definition.getData());
+    } else {
+      throw new IllegalStateException();
+    }
+    typechecked.setStatus(Definition.TypeCheckingStatus.HAS_ERRORS);
+    addMemberStubs(definition, typechecked, false);
+    typechecked.setStatus(Definition.TypeCheckingStatus.HEADER_HAS_ERRORS);
+    myState.record(definition.getData(), typechecked);
+    return typechecked;
+  }
+
+  /**
+   * Adds constructors or fields with errors to a definition whose header cannot be typechecked.
+   * The header of the definition must not have errors yet since stubs refer to it.
+   *
+   * @param onlyMissing if true, only members which are not recorded yet are added.
+   */
+  private void addMemberStubs(Concrete.Definition definition, Definition typechecked, boolean onlyMissing) {
+    if (definition instanceof Concrete.DataDefinition && typechecked instanceof DataDefinition) {
       for (Concrete.ConstructorClause constructorClause : ((Concrete.DataDefinition) definition).getConstructorClauses()) {
         for (Concrete.Constructor constructor : constructorClause.getConstructors()) {
+          if (onlyMissing && myState.getTypechecked(constructor.getData()) != null) {
+            continue;
+          }
           Constructor tcConstructor = new Constructor(constructor.getData(), (DataDefinition) typechecked);
           tcConstructor.setParameters(EmptyDependentLink.getInstance());
           tcConstructor.setStatus(Definition.TypeCheckingStatus.HAS_ERRORS);
@@ -179,30 +443,26 @@ public class TypecheckingOrderingListener implements OrderingListener {
           myState.record(constructor.getData(), tcConstructor);
         }
       }
-    } else if (definition instanceof Concrete.FunctionDefinition || definition instanceof Concrete.Instance) {
-      typechecked = new FunctionDefinition(definition.getData());
-      ((FunctionDefinition) typechecked).setResultType(new ErrorExpression(null, null));
-      typechecked.setStatus(Definition.TypeCheckingStatus.HAS_ERRORS);
-    } else if (definition instanceof Concrete.ClassDefinition) {
-      typechecked = new ClassDefinition((TCClassReferable) definition.getData());
-      typechecked.setStatus(Definition.TypeCheckingStatus.HAS_ERRORS);
+    } else if (definition instanceof Concrete.ClassDefinition && typechecked instanceof ClassDefinition) {
       for (Concrete.ClassField field : ((Concrete.ClassDefinition) definition).getFields()) {
+        if (onlyMissing && myState.getTypechecked(field.getData()) != null) {
+          continue;
+        }
         ClassField classField = new ClassField(field.getData(), (ClassDefinition) typechecked);
         classField.setType(new PiExpression(Sort.PROP, new TypedSingleDependentLink(false, "this", new ClassCallExpression((ClassDefinition) typechecked, Sort.STD), true), new ErrorExpression(null, null)));
         classField.setStatus(Definition.TypeCheckingStatus.HAS_ERRORS);
         ((ClassDefinition) typechecked).addPersonalField(classField);
         myState.record(classField.getReferable(), classField);
       }
-    } else {
-      throw new IllegalStateException();
     }
-    typechecked.setStatus(Definition.TypeCheckingStatus.HEADER_HAS_ERRORS);
-    myState.record(definition.getData(), typechecked);
-    return typechecked;
   }
 
   @Override
   public void sccFound(SCC scc) {
+    typecheck(() -> typecheckSCC(scc, false));
+  }
+
+  private void typecheckSCC(SCC scc, boolean typecheckingHeaders) {
     for (TypecheckingUnit unit : scc.getUnits()) {
       if (!TypecheckingUnit.hasHeader(unit.getDefinition())) {
         List<TCReferable> cycle = new ArrayList<>();
@@ -221,11 +481,11 @@ public class TypecheckingOrderingListener implements OrderingListener {
           }
 
           if (!unit1.isHeader()) {
-            typecheckingUnitStarted(definition.getData());
+            onUnitStarted(definition.getData());
             if (TypecheckingUnit.hasHeader(definition)) {
               mySuspensions.remove(definition.getData());
             }
-            typecheckingUnitFinished(definition.getData(), typechecked);
+            onUnitFinished(definition.getData(), typechecked);
           }
         }
         myErrorReporter.report(new CycleError(cycle));
@@ -233,7 +493,7 @@ public class TypecheckingOrderingListener implements OrderingListener {
       }
     }
 
-    boolean ok = typecheckHeaders(scc);
+    boolean ok = typecheckHeaders(scc, typecheckingHeaders);
     List<Concrete.Definition> definitions = new ArrayList<>(scc.getUnits().size());
     for (TypecheckingUnit unit : scc.getUnits()) {
       if (!unit.isHeader()) {
@@ -247,16 +507,20 @@ public class TypecheckingOrderingListener implements OrderingListener {
 
   @Override
   public void unitFound(TypecheckingUnit unit, Recursion recursion) {
+    typecheck(() -> typecheckUnit(unit, recursion));
+  }
+
+  private void typecheckUnit(TypecheckingUnit unit, Recursion recursion) {
     if (recursion == Recursion.IN_HEADER) {
-      typecheckingUnitStarted(unit.getDefinition().getData());
+      onUnitStarted(unit.getDefinition().getData());
       myErrorReporter.report(new CycleError(Collections.singletonList(unit.getDefinition().getData())));
-      typecheckingUnitFinished(unit.getDefinition().getData(), newDefinition(unit.getDefinition()));
+      onUnitFinished(unit.getDefinition().getData(), newDefinition(unit.getDefinition()));
     } else {
       typecheck(unit, recursion == Recursion.IN_BODY);
     }
   }
 
-  private boolean typecheckHeaders(SCC scc) {
+  private boolean typecheckHeaders(SCC scc, boolean typecheckingHeaders) {
     int numberOfHeaders = 0;
     TypecheckingUnit unit = null;
     for (TypecheckingUnit unit1 : scc.getUnits()) {
@@ -271,8 +535,8 @@ public class TypecheckingOrderingListener implements OrderingListener {
     }
 
     if (numberOfHeaders == 1) {
-      myCurrentDefinition = unit.getDefinition().getData();
-      typecheckingHeaderStarted(myCurrentDefinition);
+      myCurrentDefinition.set(unit.getDefinition().getData());
+      onHeaderStarted(unit.getDefinition().getData());
 
       CountingErrorReporter countingErrorReporter = new CountingErrorReporter();
       CheckTypeVisitor visitor = new CheckTypeVisitor(myState, new LinkedHashMap<>(), new ProxyErrorReporter(unit.getDefinition().getData(), new CompositeErrorReporter(myErrorReporter, countingErrorReporter)), null);
@@ -281,17 +545,25 @@ public class TypecheckingOrderingListener implements OrderingListener {
       }
       DesugarVisitor.desugar(unit.getDefinition(), myConcreteProvider, visitor.getErrorReporter());
       Definition oldTypechecked = visitor.getTypecheckingState().getTypechecked(unit.getDefinition().getData());
-      Definition typechecked = new DefinitionTypechecking(visitor).typecheckHeader(oldTypechecked, new GlobalInstancePool(myState, myInstanceProviderSet.get(unit.getDefinition().getData()), visitor), unit.getDefinition(), true);
-      if (typechecked.status() == Definition.TypeCheckingStatus.BODY_NEEDS_TYPE_CHECKING) {
-        mySuspensions.put(unit.getDefinition().getData(), new Pair<>(visitor, oldTypechecked == null));
+      Definition typechecked;
+      ComputationBudget previous = startBudget();
+      try {
+        typechecked = new DefinitionTypechecking(visitor).typecheckHeader(oldTypechecked, new GlobalInstancePool(myState, myInstanceProviderSet.get(unit.getDefinition().getData()), visitor, myInstanceCache), unit.getDefinition(), true);
+        if (typechecked.status() == Definition.TypeCheckingStatus.BODY_NEEDS_TYPE_CHECKING) {
+          mySuspensions.put(unit.getDefinition().getData(), new Pair<>(visitor, oldTypechecked == null));
+        }
+      } catch (ComputationLimitExceededException e) {
+        typechecked = headerLimitExceeded(e, unit.getDefinition());
+      } finally {
+        ComputationBudget.install(previous);
       }
 
-      typecheckingHeaderFinished(unit.getDefinition().getData(), typechecked);
-      myCurrentDefinition = null;
+      onHeaderFinished(unit.getDefinition().getData(), typechecked);
+      myCurrentDefinition.remove();
       return typechecked.status().headerIsOK();
     }
 
-    if (myTypecheckingHeaders) {
+    if (typecheckingHeaders) {
       List<Concrete.Definition> cycle = new ArrayList<>(scc.getUnits().size());
       for (TypecheckingUnit unit1 : scc.getUnits()) {
         cycle.add(unit1.getDefinition());
@@ -299,14 +571,24 @@ public class TypecheckingOrderingListener implements OrderingListener {
 
       myErrorReporter.report(CycleError.fromConcrete(cycle));
       for (Concrete.Definition definition : cycle) {
-        typecheckingHeaderStarted(definition.getData());
-        typecheckingHeaderFinished(definition.getData(), newDefinition(definition));
+        onHeaderStarted(definition.getData());
+        onHeaderFinished(definition.getData(), newDefinition(definition));
       }
       return false;
     }
 
-    myTypecheckingHeaders = true;
-    Ordering ordering = new Ordering(myInstanceProviderSet, myConcreteProvider, this, myDependencyListener, IdReferableConverter.INSTANCE, myState, myComparator, true);
+    OrderingListener headersListener = new OrderingListener() {
+      @Override
+      public void unitFound(TypecheckingUnit unit, Recursion recursion) {
+        TypecheckingOrderingListener.this.unitFound(unit, recursion);
+      }
+
+      @Override
+      public void sccFound(SCC scc) {
+        typecheckSCC(scc, true);
+      }
+    };
+    Ordering ordering = new Ordering(myInstanceProviderSet, myConcreteProvider, headersListener, myDependencyListener, IdReferableConverter.INSTANCE, myState, myComparator, true);
     boolean ok = true;
     for (TypecheckingUnit unit1 : scc.getUnits()) {
       if (unit1.isHeader()) {
@@ -317,7 +599,6 @@ public class TypecheckingOrderingListener implements OrderingListener {
         }
       }
     }
-    myTypecheckingHeaders = false;
     return ok;
   }
 
@@ -340,22 +621,29 @@ public class TypecheckingOrderingListener implements OrderingListener {
 
     DefinitionTypechecking typechecking = new DefinitionTypechecking(null);
     for (Concrete.Definition definition : orderedDefinitions) {
-      myCurrentDefinition = definition.getData();
-      typecheckingBodyStarted(myCurrentDefinition);
+      myCurrentDefinition.set(definition.getData());
+      onBodyStarted(definition.getData());
 
       Definition def = myState.getTypechecked(definition.getData());
       Pair<CheckTypeVisitor, Boolean> pair = mySuspensions.remove(definition.getData());
       if (headersAreOK && pair != null) {
         typechecking.setVisitor(pair.proj1);
-        List<Clause> clauses = typechecking.typecheckBody(def, definition, dataDefinitions, pair.proj2);
-        if (clauses != null) {
-          functionDefinitions.put((FunctionDefinition) def, definition);
-          clausesMap.put((FunctionDefinition) def, clauses);
+        ComputationBudget previous = startBudget();
+        try {
+          List<Clause> clauses = typechecking.typecheckBody(def, definition, dataDefinitions, pair.proj2);
+          if (clauses != null) {
+            functionDefinitions.put((FunctionDefinition) def, definition);
+            clausesMap.put((FunctionDefinition) def, clauses);
+          }
+        } catch (ComputationLimitExceededException e) {
+          bodyLimitExceeded(e, definition, def);
+        } finally {
+          ComputationBudget.install(previous);
         }
       }
 
-      typecheckingBodyFinished(definition.getData(), def);
-      myCurrentDefinition = null;
+      onBodyFinished(definition.getData(), def);
+      myCurrentDefinition.remove();
     }
 
     if (!functionDefinitions.isEmpty()) {
@@ -390,28 +678,51 @@ public class TypecheckingOrderingListener implements OrderingListener {
       if (pair == null) {
         return;
       }
-      myCurrentDefinition = unit.getDefinition().getData();
-      typecheckingBodyStarted(myCurrentDefinition);
-      typechecked = myState.getTypechecked(myCurrentDefinition);
-      clauses = new DefinitionTypechecking(pair.proj1).typecheckBody(typechecked, unit.getDefinition(), Collections.emptySet(), pair.proj2);
+      myCurrentDefinition.set(unit.getDefinition().getData());
+      onBodyStarted(unit.getDefinition().getData());
+      typechecked = myState.getTypechecked(unit.getDefinition().getData());
+      ComputationBudget previous = startBudget();
+      try {
+        clauses = new DefinitionTypechecking(pair.proj1).typecheckBody(typechecked, unit.getDefinition(), Collections.emptySet(), pair.proj2);
+      } catch (ComputationLimitExceededException e) {
+        clauses = null;
+        bodyLimitExceeded(e, unit.getDefinition(), typechecked);
+      } finally {
+        ComputationBudget.install(previous);
+      }
     } else {
       CheckTypeVisitor checkTypeVisitor = new CheckTypeVisitor(myState, new LinkedHashMap<>(), new ProxyErrorReporter(unit.getDefinition().getData(), myErrorReporter), null);
-      checkTypeVisitor.setInstancePool(new GlobalInstancePool(myState, myInstanceProviderSet.get(unit.getDefinition().getData()), checkTypeVisitor));
+      checkTypeVisitor.setInstancePool(new GlobalInstancePool(myState, myInstanceProviderSet.get(unit.getDefinition().getData()), checkTypeVisitor, myInstanceCache));
       DesugarVisitor.desugar(unit.getDefinition(), myConcreteProvider, checkTypeVisitor.getErrorReporter());
       if (isLevel) {
-        myCurrentDefinition = unit.getDefinition().getData();
-        typecheckingHeaderStarted(myCurrentDefinition);
+        myCurrentDefinition.set(unit.getDefinition().getData());
+        onHeaderStarted(unit.getDefinition().getData());
         Definition oldTypechecked = myState.getTypechecked(unit.getDefinition().getData());
         mySuspensions.put(unit.getDefinition().getData(), new Pair<>(checkTypeVisitor, oldTypechecked == null));
-        typechecked = new DefinitionTypechecking(checkTypeVisitor).typecheckHeader(oldTypechecked, checkTypeVisitor.getInstancePool(), unit.getDefinition(), false);
-        typecheckingHeaderFinished(unit.getDefinition().getData(), typechecked);
-        myCurrentDefinition = null;
+        ComputationBudget previous = startBudget();
+        try {
+          typechecked = new DefinitionTypechecking(checkTypeVisitor).typecheckHeader(oldTypechecked, checkTypeVisitor.getInstancePool(), unit.getDefinition(), false);
+        } catch (ComputationLimitExceededException e) {
+          typechecked = headerLimitExceeded(e, unit.getDefinition());
+        } finally {
+          ComputationBudget.install(previous);
+        }
+        onHeaderFinished(unit.getDefinition().getData(), typechecked);
+        myCurrentDefinition.remove();
         return;
       } else {
-        myCurrentDefinition = unit.getDefinition().getData();
-        typecheckingUnitStarted(myCurrentDefinition);
-        clauses = unit.getDefinition().accept(new DefinitionTypechecking(checkTypeVisitor), recursive);
-        typechecked = myState.getTypechecked(myCurrentDefinition);
+        myCurrentDefinition.set(unit.getDefinition().getData());
+        onUnitStarted(unit.getDefinition().getData());
+        ComputationBudget previous = startBudget();
+        try {
+          clauses = unit.getDefinition().accept(new DefinitionTypechecking(checkTypeVisitor), recursive);
+          typechecked = myState.getTypechecked(unit.getDefinition().getData());
+        } catch (ComputationLimitExceededException e) {
+          clauses = null;
+          typechecked = headerLimitExceeded(e, unit.getDefinition());
+        } finally {
+          ComputationBudget.install(previous);
+        }
       }
     }
 
@@ -420,11 +731,11 @@ public class TypecheckingOrderingListener implements OrderingListener {
     }
 
     if (isLevel && !unit.isHeader()) {
-      typecheckingBodyFinished(unit.getDefinition().getData(), typechecked);
+      onBodyFinished(unit.getDefinition().getData(), typechecked);
     } else {
-      typecheckingUnitFinished(unit.getDefinition().getData(), typechecked);
+      onUnitFinished(unit.getDefinition().getData(), typechecked);
     }
-    myCurrentDefinition = null;
+    myCurrentDefinition.remove();
   }
 
   private void checkRecursiveFunctions(Map<FunctionDefinition,Concrete.Definition> definitions, Map<FunctionDefinition,List<Clause>> clauses) {
@@ -12,44 +12,37 @@ public abstract class BaseCallGraph<T> {
   }
 
   BaseCallGraph(BaseCallGraph<T> g) {
-    HashMap<T, HashMap<T, HashSet<BaseCallMatrix<T>>>> newGraph;
-    HashMap<T, HashMap<T, HashSet<BaseCallMatrix<T>>>> oldGraph = g.myGraph;
-    int myNewEdges;
-
-    do {
-      myNewEdges = 0;
-      newGraph = new HashMap<>();
-
-      for (T vDom : oldGraph.keySet()) {
-        HashMap<T, HashSet<BaseCallMatrix<T>>> outboundEdges = oldGraph.get(vDom);
-        for (T vCodom : outboundEdges.keySet()) {
-          for (BaseCallMatrix<T> edge : outboundEdges.get(vCodom)) {
-            append(edge, newGraph);
+    // Semi-naive computation of the closure: every path is a shorter path extended by an edge of g,
+    // so only paths found on the previous iteration are extended.
+    List<BaseCallMatrix<T>> newEdges = new ArrayList<>();
+    for (HashMap<T, HashSet<BaseCallMatrix<T>>> outboundEdges : g.myGraph.values()) {
+      for (HashSet<BaseCallMatrix<T>> edges : outboundEdges.values()) {
+        for (BaseCallMatrix<T> edge : edges) {
+          if (append(edge, myGraph)) {
+            newEdges.add(edge);
           }
         }
       }
+    }
 
-      for (T vDom : oldGraph.keySet()) {
-        HashMap<T, HashSet<BaseCallMatrix<T>>> outboundEdges = oldGraph.get(vDom);
-        for (T vCodom : outboundEdges.keySet()) {
-          for (BaseCallMatrix<T> edge : outboundEdges.get(vCodom)) {
-            HashMap<T, HashSet<BaseCallMatrix<T>>> outboundEdges2 = oldGraph.get(edge.getCodomain());
-            if (outboundEdges2 != null) {
-              for (HashSet<BaseCallMatrix<T>> edgesSheaf : outboundEdges2.values()) {
-                for (BaseCallMatrix<T> edge2 : edgesSheaf) {
-                  if (append(new CompositeCallMatrix<>(edge, edge2), newGraph)) {
-                    myNewEdges++;
-                  }
-                }
+    while (!newEdges.isEmpty()) {
+      List<BaseCallMatrix<T>> nextEdges = new ArrayList<>();
+      for (BaseCallMatrix<T> edge : newEdges) {
+        HashMap<T, HashSet<BaseCallMatrix<T>>> outboundEdges = g.myGraph.get(edge.getCodomain());
+        if (outboundEdges != null) {
+          for (HashSet<BaseCallMatrix<T>> edges : outboundEdges.values()) {
+            for (BaseCallMatrix<T> edge2 : edges) {
+              CompositeCallMatrix<T> composite = new CompositeCallMatrix<>(edge, edge2);
+              if (append(composite, myGraph)) {
+                nextEdges.add(composite);
               }
             }
           }
         }
       }
-      oldGraph = newGraph;
-    } while (myNewEdges > 0);
+      newEdges = nextEdges;
+    }
 
-    myGraph = newGraph;
     isCompositionClosed = true;
   }
 
@@ -78,39 +71,7 @@ public abstract class BaseCallGraph<T> {
   }
 
   private static <T> boolean append(BaseCallMatrix<T> cm, HashMap<T, HashMap<T, HashSet<BaseCallMatrix<T>>>> graph) {
-    HashSet<BaseCallMatrix<T>> set;
-    HashMap<T, HashSet<BaseCallMatrix<T>>> map;
-    if (!(graph.containsKey(cm.getDomain()))) {
-      map = new HashMap<>();
-      set = new HashSet<>();
-      set.add(cm);
-      map.put(cm.getCodomain(), set);
-      graph.put(cm.getDomain(), map);
-      return true;
-    } else {
-      map = graph.get(cm.getDomain());
-      if (!(map.containsKey(cm.getCodomain()))) {
-        set = new HashSet<>();
-        set.add(cm);
-        map.put(cm.getCodomain(), set);
-        return true;
-      } else {
-        set = map.get(cm.getCodomain());
-        boolean alreadyContainsEqual = false;
-
-        for (BaseCallMatrix c : set) {
-          if (cm.equals(c)) {
-            alreadyContainsEqual = true;
-          }
-        }
-
-        if (!(alreadyContainsEqual)) {
-          set.add(cm);
-        }
-
-        return !alreadyContainsEqual;
-      }
-    }
+    return graph.computeIfAbsent(cm.getDomain(), k -> new HashMap<>()).computeIfAbsent(cm.getCodomain(), k -> new HashSet<>()).add(cm);
   }
 
   public boolean checkTermination() {
@@ -9,7 +9,6 @@ import org.arend.term.prettyprint.PrettyPrinterConfig;
 import org.arend.util.StringFormat;
 
 import java.util.Arrays;
-import java.util.HashMap;
 
 public abstract class BaseCallMatrix<T> {
   public enum R {
@@ -18,36 +17,6 @@ public abstract class BaseCallMatrix<T> {
     LessThan()
   }
 
-  private static BaseCallMatrix.R rmul(BaseCallMatrix.R a, BaseCallMatrix.R b) {
-    switch (a) {
-      case Equal:
-        switch (b) {
-          case Equal:
-            return BaseCallMatrix.R.Equal;
-          case LessThan:
-            return BaseCallMatrix.R.LessThan;
-          default:
-            return BaseCallMatrix.R.Unknown;
-        }
-      case LessThan:
-        switch (b) {
-          case Equal:
-          case LessThan:
-            return BaseCallMatrix.R.LessThan;
-          default:
-            return BaseCallMatrix.R.Unknown;
-        }
-      default:
-        return BaseCallMatrix.R.Unknown;
-    }
-  }
-
-  private static BaseCallMatrix.R radd(BaseCallMatrix.R a, BaseCallMatrix.R b) {
-    if (a == R.LessThan || b == R.LessThan) return R.LessThan;
-    if (a == R.Equal || b == R.Equal) return R.Equal;
-    return R.Unknown;
-  }
-
   static boolean rleq(BaseCallMatrix.R a, BaseCallMatrix.R b) {
     switch (a) {
       case LessThan:
@@ -59,57 +28,57 @@ public abstract class BaseCallMatrix<T> {
     }
   }
 
-  private HashMap<Integer, BaseCallMatrix.CallMatrixEntry> myMatrixMap = new HashMap<>();
-  private BaseCallMatrix.R[][] fallbackMatrix = null;
+  // Entry (i, j) is stored in bit j % 64 of word i * myStride + j / 64.
+  // A bit of myRelated is set if the entry is either Equal or LessThan; a bit of myLess is set if it is LessThan.
+  private final long[] myRelated;
+  private final long[] myLess;
+  private final int myStride;
 
-  private int myWidth;
-  private int myHeight;
+  private final int myWidth;
+  private final int myHeight;
 
   BaseCallMatrix(int width, int height) {
     myWidth = width;
     myHeight = height;
+    myStride = (width + 63) / 64;
+    myRelated = new long[height * myStride];
+    myLess = new long[height * myStride];
   }
 
   BaseCallMatrix(BaseCallMatrix<T> m) {
-    // copy constructor 
+    // copy constructor
     myWidth = m.myWidth;
     myHeight = m.myHeight;
-    if (myMatrixMap != null) {
-      for (Integer j : m.myMatrixMap.keySet()) {
-        BaseCallMatrix.CallMatrixEntry cme = m.myMatrixMap.get(j);
-        myMatrixMap.put(j, new BaseCallMatrix.CallMatrixEntry(cme.myIndex, cme.myRel));
-      }
-    } else {
-      fallbackMatrix = new BaseCallMatrix.R[myHeight][myWidth];
-      for (int i = 0; i < myHeight; i++) System.arraycopy(fallbackMatrix[i], 0, fallbackMatrix[i], 0, myWidth);
-    }
+    myStride = m.myStride;
+    myRelated = m.myRelated.clone();
+    myLess = m.myLess.clone();
   }
 
   BaseCallMatrix(BaseCallMatrix<T> m1, BaseCallMatrix<T> m2) {
-    // multiplication constructor 
+    // multiplication constructor
+    this(m2.myWidth, m1.myHeight);
     if (m1.myWidth != m2.myHeight) {
       throw new IllegalArgumentException();
     }
-    myHeight = m1.myHeight;
-    myWidth = m2.myWidth;
 
-    if (m1.myMatrixMap != null && m2.myMatrixMap != null) {
-      for (int j = 0; j < myWidth; j++) {
-        BaseCallMatrix.CallMatrixEntry cme2 = m2.myMatrixMap.get(j);
-        if (cme2 != null) {
-          BaseCallMatrix.CallMatrixEntry cme = m1.myMatrixMap.get(cme2.myIndex);
-          if (cme != null) {
-            myMatrixMap.put(j, new BaseCallMatrix.CallMatrixEntry(cme.myIndex, rmul(cme.myRel, cme2.myRel)));
-          }
+    // Row i of the product is the union of rows k of m2 such that (i, k) is related in m1;
+    // an entry is LessThan if either of the composed entries is LessThan.
+    for (int i = 0; i < myHeight; i++) {
+      int row = i * myStride;
+      for (int k = 0; k < m1.myWidth; k++) {
+        int index1 = i * m1.myStride + k / 64;
+        long bit = 1L << (k % 64);
+        if ((m1.myRelated[index1] & bit) == 0) {
+          continue;
         }
-      }
-    } else {
-      for (int i = 0; i < myHeight; i++)
-        for (int j = 0; j < myWidth; j++) {
-          BaseCallMatrix.R s = R.Unknown;
-          for (int k = 0; k < m1.myWidth; k++) s = radd(s, rmul(m1.getValue(i, k), m2.getValue(k, j)));
-          set(i, j, s);
+
+        boolean less = (m1.myLess[index1] & bit) != 0;
+        int row2 = k * myStride;
+        for (int s = 0; s < myStride; s++) {
+          myRelated[row + s] |= m2.myRelated[row2 + s];
+          myLess[row + s] |= less ? m2.myRelated[row2 + s] : m2.myLess[row2 + s];
         }
+      }
     }
   }
 
@@ -128,61 +97,35 @@ public abstract class BaseCallMatrix<T> {
   public abstract int getCompositeLength();
 
   public void set(int i, int j, BaseCallMatrix.R v) {
-    if (myMatrixMap != null) {
-      BaseCallMatrix.CallMatrixEntry cm = myMatrixMap.get(j);
-      if (cm != null) {
-        if (cm.myIndex != i && v != R.Unknown) {
-          enterFallBackMode();
-          fallbackMatrix[i][j] = v;
-        } else if (cm.myIndex == i) {
-          if (v == R.Unknown) myMatrixMap.put(j, null);
-          else cm.myRel = v;
-        }
-      } else if (v != R.Unknown) {
-        myMatrixMap.put(j, new BaseCallMatrix.CallMatrixEntry(i, v));
-      }
+    int index = i * myStride + j / 64;
+    long bit = 1L << (j % 64);
+    if (v == R.Unknown) {
+      myRelated[index] &= ~bit;
     } else {
-      fallbackMatrix[i][j] = v;
+      myRelated[index] |= bit;
     }
-  }
-
-  public BaseCallMatrix.R getValue(int i, int j) {
-    if (myMatrixMap != null) {
-      BaseCallMatrix.CallMatrixEntry cme = myMatrixMap.get(j);
-      BaseCallMatrix.R result2 = BaseCallMatrix.R.Unknown;
-      if (cme != null && cme.myIndex == i) {
-        result2 = cme.myRel;
-      }
-      return result2;
+    if (v == R.LessThan) {
+      myLess[index] |= bit;
     } else {
-      return fallbackMatrix[i][j];
+      myLess[index] &= ~bit;
     }
   }
 
-  private void enterFallBackMode() {
-    fallbackMatrix = new BaseCallMatrix.R[myHeight][myWidth];
-    for (int i = 0; i < myHeight; i++) for (int j = 0; j < myWidth; j++) fallbackMatrix[i][j] = getValue(i, j);
-    myMatrixMap = null;
+  public BaseCallMatrix.R getValue(int i, int j) {
+    int index = i * myStride + j / 64;
+    long bit = 1L << (j % 64);
+    return (myLess[index] & bit) != 0 ? R.LessThan : (myRelated[index] & bit) != 0 ? R.Equal : R.Unknown;
   }
 
   public final boolean leq(BaseCallMatrix<T> cm) {
     if (getCodomain() != cm.getCodomain() || getDomain() != cm.getDomain()) {
       return false;
     }
-    if (myMatrixMap != null && cm.myMatrixMap != null) {
-      for (int k : myMatrixMap.keySet()) {
-        BaseCallMatrix.CallMatrixEntry cme = cm.myMatrixMap.get(k);
-        BaseCallMatrix.CallMatrixEntry mme = myMatrixMap.get(k);
-        if (cme == null || cme.myIndex != mme.myIndex || !(BaseCallMatrix.rleq(mme.myRel, cme.myRel))) {
-          return false;
-        }
+    for (int i = 0; i < myRelated.length; i++) {
+      if ((myRelated[i] & ~cm.myRelated[i]) != 0 || (myLess[i] & ~cm.myLess[i]) != 0) {
+        return false;
       }
-    } else {
-      for (int i = 0; i < myHeight; i++)
-        for (int j = 0; j < myWidth; j++)
-          if (!rleq(getValue(i, j), cm.getValue(i, j))) return false;
     }
-
     return true;
   }
 
@@ -190,12 +133,7 @@ public abstract class BaseCallMatrix<T> {
   public final boolean equals(Object object) {
     if (object instanceof BaseCallMatrix) {
       BaseCallMatrix cm = (BaseCallMatrix) object;
-      if (getCodomain() != cm.getCodomain() || getDomain() != cm.getDomain()) return false;
-      if (myMatrixMap != null && cm.myMatrixMap != null) return myMatrixMap.equals(cm.myMatrixMap);
-      for (int i = 0; i < myHeight; i++)
-        for (int j = 0; j < myWidth; j++)
-          if (getValue(i, j) != cm.getValue(i, j)) return false;
-      return true;
+      return getCodomain() == cm.getCodomain() && getDomain() == cm.getDomain() && Arrays.equals(myRelated, cm.myRelated) && Arrays.equals(myLess, cm.myLess);
     } else {
       return false;
     }
@@ -204,7 +142,7 @@ public abstract class BaseCallMatrix<T> {
   @Override
   public final int hashCode() {
     int result = getCodomain().hashCode() * 31 + getDomain().hashCode();
-    return result * 31 + (myMatrixMap != null ? myMatrixMap.hashCode() : Arrays.deepHashCode(fallbackMatrix));
+    return (result * 31 + Arrays.hashCode(myRelated)) * 31 + Arrays.hashCode(myLess);
   }
 
   protected String[] getColumnLabels() {
@@ -266,28 +204,4 @@ public abstract class BaseCallMatrix<T> {
 
     return result.toString();
   }
-
-  private static class CallMatrixEntry {
-    int myIndex;
-    BaseCallMatrix.R myRel;
-
-    CallMatrixEntry(int index, BaseCallMatrix.R rel) {
-      myIndex = index;
-      myRel = rel;
-    }
-
-    @Override
-    public int hashCode() {
-      return myIndex * 31 + myRel.hashCode();
-    }
-
-    @Override
-    public boolean equals(Object object) {
-      if (object instanceof BaseCallMatrix.CallMatrixEntry) {
-        BaseCallMatrix.CallMatrixEntry cm = (BaseCallMatrix.CallMatrixEntry) object;
-        return cm.myIndex == myIndex && cm.myRel == myRel;
-      }
-      return false;
-    }
-  }
 }
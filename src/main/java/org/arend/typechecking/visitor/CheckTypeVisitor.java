@@ -32,6 +32,7 @@ import org.arend.prelude.Prelude;
 import org.arend.term.concrete.Concrete;
 import org.arend.term.concrete.ConcreteExpressionVisitor;
 import org.arend.term.concrete.ConcreteLevelExpressionVisitor;
+import org.arend.typechecking.ComputationBudget;
 import org.arend.typechecking.TypecheckerState;
 import org.arend.typechecking.error.ListLocalErrorReporter;
 import org.arend.typechecking.error.LocalErrorReporter;
@@ -403,6 +404,7 @@ public class CheckTypeVisitor implements ConcreteExpressionVisitor<ExpectedType,
       return null;
     }
 
+    ComputationBudget.checkCanceled();
     try {
       return expr.accept(this, expectedType);
     } catch (IncorrectExpressionException e) {
@@ -0,0 +1,155 @@
+package org.arend.util;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.UnaryOperator;
+
+/**
+ * Writes data to a temporary file in the directory of the target file which replaces the target file when the stream is closed.
+ * If writing fails, the temporary file is deleted and the target file is not changed.
+ * The target file keeps its permissions; a new target file gets the default permissions of new files.
+ */
+public class AtomicFileOutputStream extends OutputStream {
+  private final Path myFile;
+  private final Path myTempFile;
+  private final FileChannel myChannel;
+  private final OutputStream myStream;
+  private final boolean mySync;
+  private boolean myFailed;
+  private boolean myClosed;
+
+  /**
+   * @param file  the target file.
+   * @param sync  if true, data is forced to the storage device before the target file is replaced,
+   *              and the directory entry is forced after it is replaced (only on systems that allow to open directories).
+   */
+  public AtomicFileOutputStream(Path file, boolean sync) throws IOException {
+    this(file, sync, UnaryOperator.identity());
+  }
+
+  /**
+   * @param wrapper  wraps the stream writing to the temporary file.
+   */
+  AtomicFileOutputStream(Path file, boolean sync, UnaryOperator<OutputStream> wrapper) throws IOException {
+    myFile = file;
+    mySync = sync;
+    // Files.createTempFile is not used since it makes the file readable only by the owner
+    Path dir = file.toAbsolutePath().getParent();
+    Path tempFile;
+    FileChannel channel;
+    while (true) {
+      tempFile = dir.resolve(file.getFileName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+      try {
+        channel = FileChannel.open(tempFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        break;
+      } catch (FileAlreadyExistsException ignored) { }
+    }
+    myTempFile = tempFile;
+    myChannel = channel;
+    myStream = new BufferedOutputStream(wrapper.apply(Channels.newOutputStream(myChannel)));
+
+    try {
+      copyPermissions(file, myTempFile);
+    } catch (IOException e) {
+      myStream.close();
+      Files.deleteIfExists(myTempFile);
+      throw e;
+    }
+  }
+
+  private static void syncDirectory(Path dir) {
+    try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+      channel.force(true);
+    } catch (IOException | UnsupportedOperationException ignored) {
+      // Directories cannot be opened on some systems
+    }
+  }
+
+  private static void copyPermissions(Path from, Path to) throws IOException {
+    if (Files.exists(from) && Files.getFileStore(to).supportsFileAttributeView(PosixFileAttributeView.class)) {
+      Files.setPosixFilePermissions(to, Files.getPosixFilePermissions(from));
+    }
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    try {
+      myStream.write(b);
+    } catch (IOException e) {
+      myFailed = true;
+      throw e;
+    }
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    try {
+      myStream.write(b, off, len);
+    } catch (IOException e) {
+      myFailed = true;
+      throw e;
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    try {
+      myStream.flush();
+    } catch (IOException e) {
+      myFailed = true;
+      throw e;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (myClosed) {
+      return;
+    }
+    myClosed = true;
+
+    try {
+      if (!myFailed) {
+        myStream.flush();
+        if (mySync) {
+          myChannel.force(true);
+        }
+      }
+    } catch (IOException e) {
+      myFailed = true;
+      throw e;
+    } finally {
+      try {
+        myStream.close();
+      } catch (IOException e) {
+        myFailed = true;
+        throw e;
+      } finally {
+        if (myFailed) {
+          Files.deleteIfExists(myTempFile);
+        }
+      }
+    }
+    if (myFailed) {
+      return;
+    }
+
+    try {
+      Files.move(myTempFile, myFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(myTempFile, myFile, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      Files.deleteIfExists(myTempFile);
+      throw e;
+    }
+    if (mySync) {
+      syncDirectory(myTempFile.getParent());
+    }
+  }
+}
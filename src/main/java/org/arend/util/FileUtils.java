@@ -3,6 +3,7 @@ package org.arend.util;
 import org.arend.module.ModulePath;
 
 import java.io.IOException;
+import java.io.PrintStream;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
@@ -13,6 +14,7 @@ import java.util.Set;
 public class FileUtils {
   public static final String EXTENSION = ".ard";
   public static final String SERIALIZED_EXTENSION = ".arc";
+  public static final String UNCOMPRESSED_SERIALIZED_EXTENSION = ".arcu";
   public static final String LIBRARY_CONFIG_FILE = "arend.yaml";
 
   private static Path baseFile(Path root, ModulePath modulePath) {
@@ -25,8 +27,12 @@ public class FileUtils {
   }
 
   public static Path binaryFile(Path root, ModulePath modulePath) {
+    return binaryFile(root, modulePath, FileUtils.SERIALIZED_EXTENSION);
+  }
+
+  public static Path binaryFile(Path root, ModulePath modulePath, String extension) {
     Path base = baseFile(root, modulePath);
-    return base.resolveSibling(base.getFileName() + FileUtils.SERIALIZED_EXTENSION);
+    return base.resolveSibling(base.getFileName() + extension);
   }
 
   private static final String MODULE_NAME_START_SYMBOL_REGEX = "a-zA-Z_"; // "~!@#$%^&*\\-+=<>?/|:;\\[\\]a-zA-Z_"
@@ -79,7 +85,11 @@ public class FileUtils {
   }
 
   public static void printIllegalModuleName(String module) {
-    System.err.println("[ERROR] " + module + " is an illegal module path");
+    printIllegalModuleName(module, System.err);
+  }
+
+  public static void printIllegalModuleName(String module, PrintStream out) {
+    out.println("[ERROR] " + module + " is an illegal module path");
   }
 
   public static Set<ModulePath> getModules(Path path, String ext) {
@@ -0,0 +1,32 @@
+package org.arend.util;
+
+/**
+ * Keeps a string builder for each thread, so that temporary strings can be built without allocating new buffers.
+ * A builder is reused only after it is released, so nested uses get different builders.
+ */
+public class StringBuilderCache {
+  private static final int MAX_CAPACITY = 1 << 16;
+  private static final ThreadLocal<StringBuilder> CACHE = new ThreadLocal<>();
+
+  public static StringBuilder acquire() {
+    StringBuilder builder = CACHE.get();
+    if (builder == null) {
+      return new StringBuilder();
+    }
+    CACHE.set(null);
+    builder.setLength(0);
+    return builder;
+  }
+
+  /**
+   * Returns the contents of the builder and makes it available for reuse.
+   * Large builders are not kept.
+   */
+  public static String release(StringBuilder builder) {
+    String result = builder.toString();
+    if (builder.capacity() <= MAX_CAPACITY) {
+      CACHE.set(builder);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,164 @@
+package org.arend.error.doc;
+
+import org.arend.term.prettyprint.PrettyPrinterConfig;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.arend.error.doc.DocFactory.*;
+import static org.junit.Assert.assertEquals;
+
+public class DocRendererTest {
+  private final Random random = new Random(1);
+
+  /**
+   * Builds a string from the linearization of a doc; the result of {@link DocRenderer} is compared with it.
+   */
+  private static class LinearizingBuilder extends LineDocVisitor {
+    private final StringBuilder myBuilder = new StringBuilder();
+
+    private void endLine(Boolean newLine) {
+      if (newLine) {
+        myBuilder.append('\n');
+      }
+    }
+
+    @Override
+    public Void visitHList(HListDoc listDoc, Boolean newLine) {
+      for (LineDoc doc : listDoc.getDocs()) {
+        doc.accept(this, false);
+      }
+      endLine(newLine);
+      return null;
+    }
+
+    @Override
+    public Void visitText(TextDoc doc, Boolean newLine) {
+      myBuilder.append(doc.getText());
+      endLine(newLine);
+      return null;
+    }
+
+    @Override
+    public Void visitTermLine(TermLineDoc doc, Boolean newLine) {
+      myBuilder.append(doc.getText());
+      endLine(newLine);
+      return null;
+    }
+
+    @Override
+    public Void visitReference(ReferenceDoc doc, Boolean newLine) {
+      myBuilder.append(DocStringBuilder.getReferenceName(doc));
+      endLine(newLine);
+      return null;
+    }
+  }
+
+  private static String linearize(Doc doc) {
+    LinearizingBuilder builder = new LinearizingBuilder();
+    doc.accept(builder, false);
+    return builder.myBuilder.toString();
+  }
+
+  private static void check(Doc doc) throws IOException {
+    String expected;
+    try {
+      expected = linearize(doc);
+    } catch (IndexOutOfBoundsException e) {
+      // Linearization fails if a hang has a nonempty doc without lines as its bottom
+      return;
+    }
+    assertEquals(expected, DocStringBuilder.build(doc));
+    StringWriter writer = new StringWriter();
+    DocRenderer.render(doc, writer);
+    assertEquals(expected, writer.toString());
+  }
+
+  private String randomText() {
+    int length = random.nextInt(4) == 0 ? 0 : random.nextInt(10);
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < length; i++) {
+      builder.append((char) ('a' + random.nextInt(26)));
+    }
+    return builder.toString();
+  }
+
+  private LineDoc randomLine(int depth) {
+    if (depth == 0 || random.nextBoolean()) {
+      return text(randomText());
+    }
+    List<LineDoc> docs = new ArrayList<>();
+    for (int i = random.nextInt(3); i >= 0; i--) {
+      docs.add(randomLine(depth - 1));
+    }
+    return hList(docs);
+  }
+
+  private Doc randomDoc(int depth) {
+    if (depth == 0) {
+      return randomLine(1);
+    }
+    switch (random.nextInt(6)) {
+      case 0:
+        return randomLine(2);
+      case 1: {
+        StringBuilder builder = new StringBuilder();
+        for (int i = random.nextInt(4); i >= 0; i--) {
+          builder.append(randomText()).append('\n');
+        }
+        String string = random.nextBoolean() ? builder.toString() : builder.append(randomText()).toString();
+        return ppDoc((b, ppConfig) -> b.append(string), PrettyPrinterConfig.DEFAULT);
+      }
+      case 2: {
+        List<Doc> docs = new ArrayList<>();
+        for (int i = random.nextInt(4); i > 0; i--) {
+          docs.add(randomDoc(depth - 1));
+        }
+        return vList(docs);
+      }
+      case 3:
+        return indent(randomDoc(depth - 1));
+      case 4:
+        return vHang(randomDoc(depth - 1), randomDoc(depth - 1));
+      default:
+        return hang(randomDoc(depth - 1), randomDoc(depth - 1));
+    }
+  }
+
+  @Test
+  public void hangTest() throws IOException {
+    check(hang(text("In:"), multiline("first\nsecond")));
+    check(hang(text("Long header:"), multiline("first\nsecond")));
+    check(hang(multiline("first\nsecond"), text("bottom")));
+    check(vHang(text("Header"), text("body"), hang(text("x"), text("y"))));
+    check(hang(text("A long header which does not leave space for the bottom:"), multiline("first\nsecond")));
+    check(vList(nullDoc(), indent(text("a")), text("b")));
+  }
+
+  @Test
+  public void indentTest() throws IOException {
+    Doc doc = text("x");
+    for (int i = 0; i < 40; i++) {
+      doc = vList(text("y"), indent(doc));
+    }
+    check(doc);
+  }
+
+  @Test
+  public void cachingTest() throws IOException {
+    check(ppDoc((builder, ppConfig) -> builder.append(""), PrettyPrinterConfig.DEFAULT));
+    check(ppDoc((builder, ppConfig) -> builder.append("\n\n"), PrettyPrinterConfig.DEFAULT));
+    check(hang(text("a"), ppDoc((builder, ppConfig) -> builder.append("x\n\ny\n"), PrettyPrinterConfig.DEFAULT)));
+  }
+
+  @Test
+  public void randomTest() throws IOException {
+    for (int i = 0; i < 2000; i++) {
+      check(randomDoc(4));
+    }
+  }
+}
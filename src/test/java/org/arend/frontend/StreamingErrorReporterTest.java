@@ -0,0 +1,213 @@
+package org.arend.frontend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.arend.error.GeneralError;
+import org.arend.error.doc.Doc;
+import org.arend.module.ModulePath;
+import org.arend.naming.reference.GlobalReferable;
+import org.arend.naming.reference.LocatedReferableImpl;
+import org.arend.term.Precedence;
+import org.arend.term.prettyprint.PrettyPrinterConfig;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.arend.error.doc.DocFactory.text;
+import static org.junit.Assert.*;
+
+public class StreamingErrorReporterTest {
+  private static class TestError extends GeneralError {
+    private final GlobalReferable myDefinition;
+
+    TestError(String message, GlobalReferable definition) {
+      super(Level.ERROR, message);
+      myDefinition = definition;
+    }
+
+    @Override
+    public Collection<? extends GlobalReferable> getAffectedDefinitions() {
+      return Collections.singletonList(myDefinition);
+    }
+  }
+
+  private static class OtherError extends TestError {
+    OtherError(String message, GlobalReferable definition) {
+      super(message, definition);
+    }
+  }
+
+  private static class DetailedError extends TestError {
+    private final String myDetails;
+
+    DetailedError(String message, String details, GlobalReferable definition) {
+      super(message, definition);
+      myDetails = details;
+    }
+
+    @Override
+    public Doc getBodyDoc(PrettyPrinterConfig ppConfig) {
+      return text(myDetails);
+    }
+  }
+
+  private final GlobalReferable definitionA = new LocatedReferableImpl(Precedence.DEFAULT, "f", new ModulePath("A"));
+  private final GlobalReferable definitionB = new LocatedReferableImpl(Precedence.DEFAULT, "g", new ModulePath("B"));
+
+  private static List<JsonNode> readLines(StringWriter writer) throws IOException {
+    List<JsonNode> result = new ArrayList<>();
+    ObjectMapper mapper = new ObjectMapper();
+    for (String line : writer.toString().split("\n")) {
+      if (!line.isEmpty()) {
+        result.add(mapper.readTree(line));
+      }
+    }
+    return result;
+  }
+
+  private static String summary(StreamingErrorReporter reporter) {
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    reporter.printSummary(new PrintStream(stream, true));
+    return new String(stream.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void jsonLines() throws IOException {
+    StringWriter writer = new StringWriter();
+    StreamingErrorReporter reporter = new StreamingErrorReporter(writer, 0, 0);
+    reporter.report(new TestError("first", definitionA));
+    reporter.report(new TestError("second", definitionB));
+    reporter.flush();
+
+    List<JsonNode> lines = readLines(writer);
+    assertEquals(2, lines.size());
+    assertEquals("ERROR", lines.get(0).get("level").asText());
+    assertEquals("TestError", lines.get(0).get("kind").asText());
+    assertEquals("A", lines.get(0).get("module").asText());
+    assertEquals("first", lines.get(0).get("message").asText());
+    assertTrue(lines.get(0).get("doc").asText().contains("first"));
+    assertEquals("B", lines.get(1).get("module").asText());
+    reporter.close();
+  }
+
+  @Test
+  public void duplicates() throws IOException {
+    StringWriter writer = new StringWriter();
+    StreamingErrorReporter reporter = new StreamingErrorReporter(writer, 0, 0);
+    for (int i = 0; i < 10; i++) {
+      reporter.report(new TestError("error", definitionA));
+    }
+    reporter.report(new OtherError("error", definitionA));
+    reporter.flush();
+
+    assertEquals(2, readLines(writer).size());
+    assertTrue(summary(reporter).contains("9 duplicate errors"));
+    reporter.close();
+  }
+
+  @Test
+  public void differentDocs() throws IOException {
+    StringWriter writer = new StringWriter();
+    StreamingErrorReporter reporter = new StreamingErrorReporter(writer, 0, 0);
+    reporter.report(new DetailedError("error", "x", definitionA));
+    reporter.report(new DetailedError("error", "y", definitionA));
+    reporter.report(new DetailedError("error", "x", definitionA));
+    reporter.flush();
+
+    List<JsonNode> lines = readLines(writer);
+    assertEquals(2, lines.size());
+    assertTrue(lines.get(1).get("doc").asText().contains("y"));
+    assertTrue(summary(reporter).contains("1 duplicate error is"));
+    reporter.close();
+  }
+
+  @Test
+  public void duplicatesBelowLimits() throws IOException {
+    StringWriter writer = new StringWriter();
+    StreamingErrorReporter reporter = new StreamingErrorReporter(writer, 2, 2);
+    for (int i = 0; i < 5; i++) {
+      reporter.report(new TestError("a", definitionA));
+    }
+    reporter.report(new TestError("b", definitionA));
+    reporter.report(new TestError("c", definitionA));
+    reporter.flush();
+
+    // Duplicates of a do not count towards the limits, so b is printed
+    List<JsonNode> lines = readLines(writer);
+    assertEquals(2, lines.size());
+    assertEquals("b", lines.get(1).get("message").asText());
+    String summary = summary(reporter);
+    assertTrue(summary.contains("1 error is not shown"));
+    assertTrue(summary.contains("4 duplicate errors"));
+    reporter.close();
+  }
+
+  @Test
+  public void limits() throws IOException {
+    StringWriter writer = new StringWriter();
+    StreamingErrorReporter reporter = new StreamingErrorReporter(writer, 3, 4);
+    for (int i = 0; i < 5; i++) {
+      reporter.report(new TestError("a" + i, definitionA));
+    }
+    for (int i = 0; i < 5; i++) {
+      reporter.report(new TestError("b" + i, definitionB));
+    }
+    reporter.report(new OtherError("b", definitionB));
+    reporter.flush();
+
+    List<JsonNode> lines = readLines(writer);
+    // 3 errors in A, then 1 error of kind TestError and 1 error of kind OtherError in B
+    assertEquals(5, lines.size());
+    assertEquals("OtherError", lines.get(4).get("kind").asText());
+    assertTrue(summary(reporter).contains("6 errors are not shown"));
+    assertEquals("", summary(reporter));
+    reporter.close();
+  }
+
+  @Test
+  public void severalRuns() throws IOException {
+    StringWriter writer = new StringWriter();
+    StreamingErrorReporter reporter = new StreamingErrorReporter(writer, 1, 0);
+    for (int run = 0; run < 2; run++) {
+      reporter.report(new TestError("first", definitionA));
+      reporter.report(new TestError("second", definitionA));
+      reporter.flush();
+      assertTrue(summary(reporter).contains("1 error is not shown"));
+    }
+
+    // Every run prints the first error
+    assertEquals(2, readLines(writer).size());
+    reporter.close();
+  }
+
+  @Test
+  public void concurrentReporting() throws Exception {
+    StringWriter writer = new StringWriter();
+    StreamingErrorReporter reporter = new StreamingErrorReporter(writer, 0, 0);
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      int index = i;
+      Thread thread = new Thread(() -> {
+        for (int j = 0; j < 1000; j++) {
+          reporter.report(new TestError(index + "-" + j, definitionA));
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    reporter.close();
+
+    assertEquals(4000, readLines(writer).size());
+  }
+}
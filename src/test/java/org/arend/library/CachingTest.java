@@ -1,14 +1,42 @@
 package org.arend.library;
 
 import org.arend.core.definition.Definition;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.expr.FunCallExpression;
+import org.arend.core.expr.SmallIntegerExpression;
+import org.arend.core.expr.visitor.NormalizeVisitor;
+import org.arend.core.sort.Sort;
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.naming.reference.TCReferable;
 import org.arend.naming.reference.converter.IdReferableConverter;
 import org.arend.source.Source;
 import org.arend.term.group.ChildGroup;
 import org.arend.term.group.Group;
+import org.arend.typechecking.ConcurrentTypecheckerState;
+import org.arend.typechecking.TypecheckerState;
+import org.arend.typechecking.order.dependency.DependencyCollector;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+import org.arend.util.FileUtils;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.arend.module.ModulePath.moduleName;
 import static org.arend.typechecking.Matchers.*;
@@ -17,6 +45,15 @@ import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
 
 public class CachingTest extends LibraryTestCase {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  // Some of the tests load libraries concurrently
+  @Override
+  protected TypecheckerState createTypecheckerState() {
+    return new ConcurrentTypecheckerState();
+  }
+
   @Test
   public void statusSerialization() {
     library.addModule(moduleName("A"),
@@ -162,6 +199,253 @@ public class CachingTest extends LibraryTestCase {
     assertThat(errorList, is(empty()));
   }
 
+  @Test
+  public void sourceTouched() {
+    library.addModule(moduleName("A"), "\\data D\n");
+    library.addModule(moduleName("B"), "\\import A \\func f : \\Type0 => D\n");
+    libraryManager.loadLibrary(library);
+    typechecking.typecheckLibrary(library);
+    library.persistUpdateModules(errorReporter);
+    libraryManager.unloadLibrary(library);
+
+    library.updateModule(moduleName("A"), "\\data D\n", true);
+    assertTrue(libraryManager.loadLibrary(library));
+    assertThat(errorList, is(empty()));
+    assertTrue(library.getUpdatedModules().isEmpty());
+  }
+
+  @Test
+  public void sourceChangedWithSameTimeStamp() {
+    library.addModule(moduleName("A"), "\\data D\n");
+    library.addModule(moduleName("B"), "\\import A \\func f : \\Type0 => D\n");
+    libraryManager.loadLibrary(library);
+    typechecking.typecheckLibrary(library);
+    library.persistUpdateModules(errorReporter);
+    libraryManager.unloadLibrary(library);
+
+    library.updateModule(moduleName("A"), "\\data D | con\n", false);
+    assertTrue(libraryManager.loadLibrary(library));
+    assertTrue(library.getUpdatedModules().contains(moduleName("A")));
+    assertTrue(library.getUpdatedModules().contains(moduleName("B")));
+    typechecking.typecheckLibrary(library);
+    library.persistUpdateModules(errorReporter);
+    assertThat(errorList, is(empty()));
+
+    libraryManager.unloadLibrary(library);
+    assertTrue(libraryManager.loadLibrary(library));
+    assertTrue(library.getUpdatedModules().isEmpty());
+  }
+
+  private TypecheckingOrderingListener recordingTypechecking(Set<String> typechecked) {
+    return new TypecheckingOrderingListener(libraryManager.getInstanceProviderSet(), typecheckerState, ConcreteReferableProvider.INSTANCE, errorReporter, PositionComparator.INSTANCE) {
+      @Override
+      public void typecheckingUnitFinished(TCReferable referable, Definition definition) {
+        typechecked.add(referable.textRepresentation());
+      }
+
+      @Override
+      public void typecheckingBodyFinished(TCReferable referable, Definition definition) {
+        typechecked.add(referable.textRepresentation());
+      }
+    };
+  }
+
+  @Test
+  public void lemmaBodyChanged() {
+    library.addModule(moduleName("A"), "\\lemma p : 0 = 0 => path (\\lam _ => 0)\n\\func g => 1");
+    library.addModule(moduleName("B"), "\\import A \\func f : 0 = 0 => p");
+    libraryManager.loadLibrary(library);
+    assertTrue(library.typecheckAndPersistUpdatedModules(typechecking, null, errorReporter));
+    assertThat(errorList, is(empty()));
+    libraryManager.unloadLibrary(library);
+
+    library.updateModule(moduleName("A"), "\\lemma p : 0 = 0 => path (\\lam i => 0)\n\\func g => 1", true);
+    assertTrue(libraryManager.loadLibrary(library));
+    assertTrue(library.getPendingModules().contains(moduleName("B")));
+
+    Set<String> typechecked = new HashSet<>();
+    assertTrue(library.typecheckAndPersistUpdatedModules(recordingTypechecking(typechecked), null, errorReporter));
+    assertThat(errorList, is(empty()));
+    assertTrue(typechecked.contains("p"));
+    assertFalse(typechecked.contains("f"));
+    Definition f = typecheckerState.getTypechecked(get(library.getModuleScopeProvider().forModule(moduleName("B")), "f"));
+    assertThat(f, is(notNullValue()));
+    assertThat(f.status(), is(equalTo(Definition.TypeCheckingStatus.NO_ERRORS)));
+  }
+
+  @Test
+  public void functionBodyChanged() {
+    library.addModule(moduleName("A"), "\\func g => 1");
+    library.addModule(moduleName("B"), "\\import A \\func f => g");
+    libraryManager.loadLibrary(library);
+    assertTrue(library.typecheckAndPersistUpdatedModules(typechecking, null, errorReporter));
+    libraryManager.unloadLibrary(library);
+
+    library.updateModule(moduleName("A"), "\\func g => 2", true);
+    assertTrue(libraryManager.loadLibrary(library));
+    Set<String> typechecked = new HashSet<>();
+    assertTrue(library.typecheckAndPersistUpdatedModules(recordingTypechecking(typechecked), null, errorReporter));
+    assertThat(errorList, is(empty()));
+    assertTrue(typechecked.contains("g"));
+    assertTrue(typechecked.contains("f"));
+  }
+
+  @Test
+  public void concurrentLoading() {
+    library.addModule(moduleName("A"), "\\data D | con Nat");
+    library.addModule(moduleName("B"), "\\import A \\func f (n : Nat) : D => con n");
+    library.addModule(moduleName("C"), "\\import A \\import B \\func g : D => f 0");
+    libraryManager.loadLibrary(library);
+    typechecking.typecheckLibrary(library);
+    library.persistUpdateModules(errorReporter);
+    assertThat(errorList, is(empty()));
+    libraryManager.unloadLibrary(library);
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      libraryManager.setLoadingExecutor(executor);
+      assertTrue(libraryManager.loadLibrary(library));
+    } finally {
+      libraryManager.setLoadingExecutor(null);
+      executor.shutdown();
+    }
+    assertThat(errorList, is(empty()));
+
+    for (String module : new String[] { "A", "B", "C" }) {
+      assertFalse(library.getUpdatedModules().contains(moduleName(module)));
+    }
+    Definition g = typecheckerState.getTypechecked(get(library.getModuleScopeProvider().forModule(moduleName("C")), "g"));
+    assertThat(g, is(notNullValue()));
+    assertThat(g.status(), is(equalTo(Definition.TypeCheckingStatus.NO_ERRORS)));
+  }
+
+  @Test
+  public void concurrentLoadingDependencySourceChanged() {
+    library.addModule(moduleName("A"), "\\data D\n");
+    library.addModule(moduleName("B"), "\\import A() \\func f : \\Type0 => A.D\n");
+    libraryManager.loadLibrary(library);
+    typechecking.typecheckLibrary(library);
+    library.persistUpdateModules(errorReporter);
+    libraryManager.unloadLibrary(library);
+
+    library.updateModule(moduleName("A"), "\\data D'", true);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      libraryManager.setLoadingExecutor(executor);
+      libraryManager.loadLibrary(library);
+    } finally {
+      libraryManager.setLoadingExecutor(null);
+      executor.shutdown();
+    }
+    assertThat(errorList, is(not(empty())));
+    errorList.clear();
+    assertTrue(library.getUpdatedModules().contains(moduleName("B")));
+    typechecking.typecheckLibrary(library);
+    library.persistUpdateModules(errorReporter);
+    assertThat(errorList, is(empty()));
+  }
+
+  @Test
+  public void uncompressedFileLibrary() throws IOException {
+    Path sourceDir = temporaryFolder.newFolder("src").toPath();
+    Path binaryDir = temporaryFolder.newFolder("bin").toPath();
+    Files.write(sourceDir.resolve("A" + FileUtils.EXTENSION), "\\data D | con Nat".getBytes(StandardCharsets.UTF_8));
+    Files.write(sourceDir.resolve("B" + FileUtils.EXTENSION), "\\import A \\func f : D => con 0".getBytes(StandardCharsets.UTF_8));
+    FileSourceLibrary fileLibrary = new FileSourceLibrary("test_file_library", sourceDir, binaryDir, new LinkedHashSet<>(Arrays.asList(moduleName("A"), moduleName("B"))), true, Collections.emptyList(), typecheckerState);
+    fileLibrary.setCompressBinaries(false);
+
+    assertTrue(libraryManager.loadLibrary(fileLibrary));
+    typechecking.typecheckLibrary(fileLibrary);
+    fileLibrary.persistUpdateModules(errorReporter);
+    assertThat(errorList, is(empty()));
+    assertTrue(Files.exists(FileUtils.binaryFile(binaryDir, moduleName("B"), FileUtils.UNCOMPRESSED_SERIALIZED_EXTENSION)));
+    libraryManager.unloadLibrary(fileLibrary);
+
+    assertTrue(libraryManager.loadLibrary(fileLibrary));
+    assertThat(errorList, is(empty()));
+    assertThat(fileLibrary.getUpdatedModules(), is(empty()));
+    Definition f = typecheckerState.getTypechecked(get(fileLibrary.getModuleScopeProvider().forModule(moduleName("B")), "f"));
+    assertThat(f, is(notNullValue()));
+    assertThat(f.status(), is(equalTo(Definition.TypeCheckingStatus.NO_ERRORS)));
+  }
+
+  @Test
+  public void concurrentPersisting() throws IOException {
+    Path sourceDir = temporaryFolder.newFolder("src").toPath();
+    Path binaryDir = temporaryFolder.newFolder("bin").toPath();
+    Files.write(sourceDir.resolve("A" + FileUtils.EXTENSION), "\\data D | con Nat".getBytes(StandardCharsets.UTF_8));
+    Files.write(sourceDir.resolve("B" + FileUtils.EXTENSION), "\\import A \\func f (n : Nat) : D => con n".getBytes(StandardCharsets.UTF_8));
+    Files.write(sourceDir.resolve("C" + FileUtils.EXTENSION), "\\import A \\import B \\func g : D => f 0".getBytes(StandardCharsets.UTF_8));
+    Files.write(sourceDir.resolve("E" + FileUtils.EXTENSION), "\\func h => 0".getBytes(StandardCharsets.UTF_8));
+    FileSourceLibrary fileLibrary = new FileSourceLibrary("test_file_library", sourceDir, binaryDir, new LinkedHashSet<>(Arrays.asList(moduleName("C"), moduleName("E"), moduleName("B"), moduleName("A"))), true, Collections.emptyList(), typecheckerState);
+    fileLibrary.setSyncBinaries(true);
+
+    assertTrue(libraryManager.loadLibrary(fileLibrary));
+    typechecking.typecheckLibrary(fileLibrary);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      assertTrue(fileLibrary.persistUpdateModules(executor, errorReporter));
+    } finally {
+      executor.shutdown();
+    }
+    assertThat(errorList, is(empty()));
+    try (Stream<Path> files = Files.list(binaryDir)) {
+      assertThat(files.map(file -> file.getFileName().toString()).collect(Collectors.toList()), containsInAnyOrder("A" + FileUtils.SERIALIZED_EXTENSION, "B" + FileUtils.SERIALIZED_EXTENSION, "C" + FileUtils.SERIALIZED_EXTENSION, "E" + FileUtils.SERIALIZED_EXTENSION));
+    }
+    libraryManager.unloadLibrary(fileLibrary);
+
+    // Binary files are up to date only if they contain interface hashes of the modules they import
+    assertTrue(libraryManager.loadLibrary(fileLibrary));
+    assertThat(errorList, is(empty()));
+    assertThat(fileLibrary.getUpdatedModules(), is(empty()));
+    Definition g = typecheckerState.getTypechecked(get(fileLibrary.getModuleScopeProvider().forModule(moduleName("C")), "g"));
+    assertThat(g, is(notNullValue()));
+    assertThat(g.status(), is(equalTo(Definition.TypeCheckingStatus.NO_ERRORS)));
+  }
+
+  @Test
+  public void lazyLoading() {
+    library.addModule(moduleName("A"), "\\func f (n : Nat) : Nat | 0 => 0 | suc n => suc (suc (f n))");
+    library.addModule(moduleName("B"), "\\import A \\func g : f 2 = 4 => path (\\lam _ => 4)");
+    libraryManager.loadLibrary(library);
+    typechecking.typecheckLibrary(library);
+    library.persistUpdateModules(errorReporter);
+    assertThat(errorList, is(empty()));
+    libraryManager.unloadLibrary(library);
+
+    library.addFlag(SourceLibrary.Flag.LAZY_LOADING);
+    assertTrue(libraryManager.loadLibrary(library));
+    assertThat(errorList, is(empty()));
+    Definition f = typecheckerState.getTypechecked(get(library.getModuleScopeProvider().forModule(moduleName("A")), "f"));
+    assertThat(f, is(instanceOf(FunctionDefinition.class)));
+    assertFalse(((FunctionDefinition) f).isBodyLoaded());
+    assertThat(f.status(), is(equalTo(Definition.TypeCheckingStatus.NO_ERRORS)));
+
+    FunCallExpression funCall = new FunCallExpression((FunctionDefinition) f, Sort.STD, Collections.singletonList(new SmallIntegerExpression(2)));
+    assertThat(funCall.normalize(NormalizeVisitor.Mode.NF), is(equalTo(new SmallIntegerExpression(4))));
+    assertTrue(((FunctionDefinition) f).isBodyLoaded());
+  }
+
+  @Test
+  public void lazyLoadingDependencies() {
+    library.addModule(moduleName("A"), "\\func h => 0\n\\func f (n : Nat) : Nat => h");
+    libraryManager.loadLibrary(library);
+    typechecking.typecheckLibrary(library);
+    library.persistUpdateModules(errorReporter);
+    assertThat(errorList, is(empty()));
+    libraryManager.unloadLibrary(library);
+
+    DependencyCollector dependencyCollector = new DependencyCollector(typecheckerState);
+    library.setDependencyListener(dependencyCollector);
+    library.addFlag(SourceLibrary.Flag.LAZY_LOADING);
+    assertTrue(libraryManager.loadLibrary(library));
+    assertThat(errorList, is(empty()));
+    TCReferable h = get(library.getModuleScopeProvider().forModule(moduleName("A")), "h");
+    TCReferable f = get(library.getModuleScopeProvider().forModule(moduleName("A")), "f");
+    assertFalse(((FunctionDefinition) typecheckerState.getTypechecked(f)).isBodyLoaded());
+    assertTrue(dependencyCollector.update(h).contains(f));
+  }
+
   /* These tests does not make sense with the current implementation of libraries.
   @Test
   public void removeRawSource() {
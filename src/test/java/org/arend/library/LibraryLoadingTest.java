@@ -1,11 +1,20 @@
 package org.arend.library;
 
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
 import org.arend.module.ModulePath;
 import org.arend.source.Source;
 import org.arend.source.SourceLoader;
+import org.arend.term.group.ChildGroup;
 import org.arend.term.group.Group;
+import org.arend.typechecking.order.dependency.DependencyCollector;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
 import static org.arend.module.ModulePath.moduleName;
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertThat;
@@ -70,4 +79,34 @@ public class LibraryLoadingTest extends LibraryTestCase {
     assertThat(library.getModuleGroup(modulePath), is(nullValue()));
     assertThat(errorList, is(not(empty())));
   }
+
+  @Test
+  public void reloadDependentModules() {
+    ModulePath moduleA = moduleName("A");
+    ModulePath moduleB = moduleName("B");
+    ModulePath moduleC = moduleName("C");
+    library.addModule(moduleA, "\\func f => 0");
+    library.addModule(moduleB, "\\import A \\func g => f");
+    library.addModule(moduleC, "\\func k => 0");
+    DependencyCollector dependencyCollector = new DependencyCollector(typecheckerState);
+    library.setDependencyListener(dependencyCollector);
+    TypecheckingOrderingListener typechecking = new TypecheckingOrderingListener(libraryManager.getInstanceProviderSet(), typecheckerState, ConcreteReferableProvider.INSTANCE, errorReporter, dependencyCollector, PositionComparator.INSTANCE);
+    assertTrue(libraryManager.loadLibrary(library));
+    assertTrue(library.typecheckAndPersistUpdatedModules(typechecking, null, errorReporter));
+    ChildGroup groupB = library.getModuleGroup(moduleB);
+    ChildGroup groupC = library.getModuleGroup(moduleC);
+
+    library.updateModule(moduleA, "\\func f => 1", true);
+    library.updateModule(moduleB, "\\import A \\func g => f", false);
+    assertThat(library.resetModules(Collections.singletonList(moduleA), dependencyCollector), contains(moduleA, moduleB));
+    assertTrue(library.reloadModules(new HashSet<>(Arrays.asList(moduleA, moduleB)), libraryManager));
+    assertThat(library.getUpdatedModules(), containsInAnyOrder(moduleA, moduleB));
+    assertThat(library.getModuleGroup(moduleB), is(not(sameInstance(groupB))));
+    assertThat(library.getModuleGroup(moduleC), is(sameInstance(groupC)));
+
+    assertTrue(library.typecheckAndPersistUpdatedModules(typechecking, null, errorReporter));
+    assertThat(typecheckerState.getTypechecked(get(library.getModuleGroup(moduleB).getGroupScope(), "g")), is(notNullValue()));
+    assertThat(typecheckerState.getTypechecked(get(groupC.getGroupScope(), "k")), is(notNullValue()));
+    assertThat(errorList, containsErrors(0));
+  }
 }
@@ -6,9 +6,16 @@ import org.arend.source.SourceLoader;
 import org.arend.term.concrete.Concrete;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import static org.arend.module.ModulePath.moduleName;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
@@ -96,4 +103,46 @@ public class NameResolutionOnLoadTest extends LibraryTestCase {
     library.addModule(moduleName("Test"), "\\func a => 0 \n \\func a => 0");
     libraryManager.loadLibrary(library);
   }
+
+  @Test
+  public void concurrentPreloading() {
+    setupSources();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      SourceLoader sourceLoader = new SourceLoader(library, libraryManager);
+      assertTrue(sourceLoader.preloadRaw(Arrays.asList(moduleName("A"), moduleName("B", "C"), moduleName("X")), executor));
+      sourceLoader.loadRawSources();
+    } finally {
+      executor.shutdown();
+    }
+
+    Scope moduleA = library.getModuleScopeProvider().forModule(moduleName("A"));
+    Scope moduleB = library.getModuleScopeProvider().forModule(moduleName("B"));
+    Scope moduleBCF = library.getModuleScopeProvider().forModule(moduleName("B", "C", "F"));
+    Scope moduleY = library.getModuleScopeProvider().forModule(moduleName("Y"));
+    assertThat(moduleBCF, is(notNullValue()));
+    assertThat(moduleY, is(notNullValue()));
+
+    Concrete.ReferenceExpression defCall = (Concrete.ReferenceExpression) ((Concrete.TermFunctionBody) ((Concrete.FunctionDefinition) ((ConcreteLocatedReferable) get(moduleA, "a")).getDefinition()).getBody()).getTerm();
+    assertThat(defCall.getReferent(), is(get(moduleB, "b")));
+  }
+
+  @Test
+  public void concurrentPreloadingFailure() {
+    library.addModule(moduleName("A"), "\\import B() \\func a => B.b");
+    library.addModule(moduleName("B"), "\\import C() \\func b => C.c");
+    library.addModule(moduleName("C"), "\\func c => (");
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      SourceLoader sourceLoader = new SourceLoader(library, libraryManager);
+      assertFalse(sourceLoader.preloadRaw(Collections.singletonList(moduleName("A")), executor));
+      sourceLoader.loadRawSources();
+    } finally {
+      executor.shutdown();
+    }
+
+    assertThat(library.getModuleScopeProvider().forModule(moduleName("A")), is(nullValue()));
+    assertThat(library.getModuleScopeProvider().forModule(moduleName("B")), is(nullValue()));
+    assertThat(errorList.isEmpty(), is(false));
+  }
 }
@@ -5,12 +5,15 @@ import org.arend.module.ModulePath;
 import org.arend.naming.reference.LocatedReferableImpl;
 import org.arend.naming.reference.Referable;
 import org.arend.naming.scope.EmptyScope;
+import org.arend.naming.scope.LexicalScope;
 import org.arend.naming.scope.ListScope;
+import org.arend.naming.scope.Scope;
 import org.arend.naming.scope.SingletonScope;
 import org.arend.prelude.Prelude;
 import org.arend.term.Precedence;
 import org.arend.term.concrete.Concrete;
 import org.arend.term.group.ChildGroup;
+import org.arend.term.group.StaticGroup;
 import org.junit.Ignore;
 import org.junit.Test;
 
@@ -672,4 +675,30 @@ public class NameResolverTest extends NameResolverTestCase {
       "\\import Mod\n" +
       "\\func bar => foo");
   }
+
+  @Test
+  public void manyDefinitions() {
+    StringBuilder builder = new StringBuilder("\\func f0 => 0\n");
+    for (int i = 1; i < 2000; i++) {
+      builder.append("\\func f").append(i).append(" => f").append(i - 1).append("\n");
+    }
+    ChildGroup group = resolveNamesModule(builder.toString());
+    assertNotNull(group.getGroupScope().resolveName("f1999"));
+    assertNull(group.getGroupScope().resolveName("f2000"));
+  }
+
+  @Test
+  public void nameIndexUpdate() {
+    ChildGroup group = resolveNamesModule("\\data D | con \\where { \\func g => 0 }");
+    ChildGroup group2 = resolveNamesModule("\\func h => 0");
+    Scope scope = LexicalScope.opened(group);
+    assertNotNull(scope.resolveName("con"));
+    assertNull(scope.resolveName("h"));
+    assertNull(scope.resolveName("g"));
+    assertNotNull(scope.resolveNamespace("D", false).resolveName("g"));
+
+    ((StaticGroup) group).getSubgroups().addAll(group2.getSubgroups());
+    assertNotNull(scope.resolveName("h"));
+    assertTrue(scope.getElements().stream().anyMatch(ref -> ref.textRepresentation().equals("h")));
+  }
 }
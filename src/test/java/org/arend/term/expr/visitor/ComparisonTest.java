@@ -6,7 +6,9 @@ import org.arend.core.context.param.DependentLink;
 import org.arend.core.context.param.SingleDependentLink;
 import org.arend.core.definition.Definition;
 import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.elimtree.LeafElimTree;
 import org.arend.core.expr.*;
+import org.arend.core.expr.visitor.StructuralHashVisitor;
 import org.arend.core.sort.Sort;
 import org.arend.prelude.Prelude;
 import org.arend.typechecking.TypeCheckingTestCase;
@@ -216,4 +218,38 @@ public class ComparisonTest extends TypeCheckingTestCase {
     assertEquals(result2.expression, result1.expression);
     assertEquals(result1.expression, result2.expression);
   }
+
+  @Test
+  public void structuralHashes() {
+    SingleDependentLink x = singleParam("x", Nat());
+    SingleDependentLink y = singleParam("y", Nat());
+    Expression expr1 = Lam(x, Suc(Ref(x)));
+    Expression expr2 = Lam(y, Suc(Ref(y)));
+    assertEquals(expr1.getStructuralHash(), expr2.getStructuralHash());
+    assertTrue(StructuralHashVisitor.isHashable(expr1.getStructuralHash()));
+    assertEquals(expr1, expr2);
+    assertFalse(StructuralHashVisitor.isHashable(Lam(x, new ErrorExpression(null, null)).getStructuralHash()));
+  }
+
+  @Test
+  public void rigidHashes() {
+    typeCheckModule(
+      "\\data D | con1 | con2\n" +
+      "\\func f (d : D) : D => con1\n" +
+      "\\func g1 => f con1\n" +
+      "\\func g2 => f con2\n" +
+      "\\func h1 => con1\n" +
+      "\\func h2 => con2");
+    Expression con1 = ((LeafElimTree) ((FunctionDefinition) getDefinition("h1")).getBody()).getExpression();
+    Expression con2 = ((LeafElimTree) ((FunctionDefinition) getDefinition("h2")).getBody()).getExpression();
+    assertTrue(StructuralHashVisitor.isRigid(con1.getStructuralHash()));
+    assertNotEquals(con1, con2);
+
+    Expression call1 = ((LeafElimTree) ((FunctionDefinition) getDefinition("g1")).getBody()).getExpression();
+    Expression call2 = ((LeafElimTree) ((FunctionDefinition) getDefinition("g2")).getBody()).getExpression();
+    assertFalse(StructuralHashVisitor.isRigid(call1.getStructuralHash()));
+    assertEquals(call1, call2);
+    assertTrue(compare(Universe(0), Universe(1), Equations.CMP.LE));
+    assertFalse(compare(Universe(1), Universe(0), Equations.CMP.LE));
+  }
 }
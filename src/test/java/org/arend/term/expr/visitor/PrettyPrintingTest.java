@@ -20,6 +20,7 @@ import java.util.List;
 import static org.arend.ExpressionFactory.*;
 import static org.arend.core.expr.ExpressionFactory.*;
 import static org.arend.frontend.ConcreteExpressionFactory.*;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -156,4 +157,54 @@ public class PrettyPrintingTest extends TypeCheckingTestCase {
   public void prettyPrintEmptySigma() {
     testDefinition("\\func f => \\Sigma");
   }
+
+  private static String prettyPrint(Expression expr, int maxDepth, int maxWidth, boolean abbreviate) {
+    StringBuilder builder = new StringBuilder();
+    expr.prettyPrint(builder, new PrettyPrinterConfig() {
+      @Override
+      public int getMaxDepth() {
+        return maxDepth;
+      }
+
+      @Override
+      public int getMaxWidth() {
+        return maxWidth;
+      }
+
+      @Override
+      public boolean abbreviateSharedSubexpressions() {
+        return abbreviate;
+      }
+    });
+    return builder.toString();
+  }
+
+  @Test
+  public void prettyPrintMaxDepth() {
+    SingleDependentLink f = singleParam("f", Pi(Nat(), Nat()));
+    Expression expr = Lam(f, Apps(Ref(f), Apps(Ref(f), Apps(Ref(f), Zero()))));
+    assertEquals("\\lam (f : Nat -> Nat) => f (f ...)", prettyPrint(expr, 3, 0, false));
+    assertEquals("\\lam (f : Nat -> Nat) => f (f (f 0))", prettyPrint(expr, 0, 0, false));
+  }
+
+  @Test
+  public void prettyPrintMaxWidth() {
+    SingleDependentLink f = singleParam("f", Pi(Nat(), Pi(Nat(), Pi(Nat(), Nat()))));
+    Expression expr = Lam(f, Apps(Ref(f), Zero(), Zero(), Zero()));
+    assertEquals("\\lam (f : Nat -> Nat -> Nat -> Nat) => f 0 0 ...", prettyPrint(expr, 0, 2, false));
+  }
+
+  @Test
+  public void prettyPrintShared() {
+    // f (f (f ... x x) (f ... x x)) ..., where equal arguments are the same object
+    SingleDependentLink f = singleParam("f", Pi(Nat(), Pi(Nat(), Nat())));
+    Expression expr = Suc(Zero());
+    for (int i = 0; i < 64; i++) {
+      expr = Apps(Ref(f), expr, expr);
+    }
+    String result = prettyPrint(Lam(f, expr), 0, 0, true);
+    assertTrue(result, result.contains("\\let"));
+    assertTrue(result.length() < 10000);
+    assertEquals("\\lam (f : Nat -> Nat -> Nat) => f (f ... ...) (f ... ...)", prettyPrint(Lam(f, expr), 3, 0, true));
+  }
 }
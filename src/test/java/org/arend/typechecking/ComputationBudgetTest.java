@@ -0,0 +1,112 @@
+package org.arend.typechecking;
+
+import org.arend.core.definition.DataDefinition;
+import org.arend.core.definition.Definition;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.typechecking.error.ProxyError;
+import org.arend.typechecking.error.local.ComputationLimitError;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.arend.typechecking.Matchers.typecheckingError;
+import static org.junit.Assert.*;
+
+public class ComputationBudgetTest extends TypeCheckingTestCase {
+  private static final String FUNCTIONS =
+    "\\func add (n m : Nat) : Nat | 0, m => m | suc n, m => suc (add n m)\n" +
+    "\\func fib (n : Nat) : Nat | 0 => 0 | 1 => 1 | suc (suc n) => add (fib n) (fib (suc n))\n";
+
+  private TypecheckingOrderingListener listener() {
+    return new TypecheckingOrderingListener(libraryManager.getInstanceProviderSet(), typecheckerState, ConcreteReferableProvider.INSTANCE, errorReporter, PositionComparator.INSTANCE);
+  }
+
+  @Test
+  public void fuel() {
+    TypecheckingOrderingListener typechecking = listener();
+    typechecking.setComputationLimits(0, 1000);
+    lastGroup = resolveNamesModule(FUNCTIONS +
+      "\\func small : fib 5 = 5 => path (\\lam _ => 5)\n" +
+      "\\func large : fib 30 = 832040 => path (\\lam _ => 832040)\n" +
+      "\\func next => small");
+    assertTrue(typechecking.typecheckModules(Collections.singletonList(lastGroup)));
+    assertThatErrorsAre(typecheckingError(ComputationLimitError.class));
+    assertEquals(ComputationBudget.Limit.FUEL, ((ComputationLimitError) ((ProxyError) errorList.get(0)).localError).limit);
+    assertEquals(Definition.TypeCheckingStatus.NO_ERRORS, getDefinition("small").status());
+    assertFalse(getDefinition("large").status().bodyIsOK());
+    assertEquals(Definition.TypeCheckingStatus.NO_ERRORS, getDefinition("next").status());
+    assertNull(ComputationBudget.getCurrent());
+  }
+
+  @Test
+  public void recordedStatus() {
+    TypecheckingOrderingListener typechecking = listener();
+    typechecking.setComputationLimits(0, 1000);
+    lastGroup = resolveNamesModule(FUNCTIONS +
+      "\\func large : fib 30 = 832040 => path (\\lam _ => 832040)\n" +
+      "\\data D | con (p : fib 30 = 832040) (p = path (\\lam _ => 832040)) | con'");
+    assertTrue(typechecking.typecheckModules(Collections.singletonList(lastGroup)));
+    assertThatErrorsAre(typecheckingError(ComputationLimitError.class), typecheckingError(ComputationLimitError.class));
+
+    FunctionDefinition large = (FunctionDefinition) typecheckerState.getTypechecked(get("large"));
+    assertEquals(Definition.TypeCheckingStatus.HEADER_HAS_ERRORS, large.status());
+    assertNull(large.getBody());
+    DataDefinition data = (DataDefinition) typecheckerState.getTypechecked(get("D"));
+    assertEquals(Definition.TypeCheckingStatus.HEADER_HAS_ERRORS, data.status());
+    assertNotNull(typecheckerState.getTypechecked(get("con'")));
+  }
+
+  @Test
+  public void timeLimit() {
+    TypecheckingOrderingListener typechecking = listener();
+    typechecking.setComputationLimits(100, 0);
+    lastGroup = resolveNamesModule(FUNCTIONS +
+      "\\func both (a b : Nat) : Nat | 0, 0 => 0 | _, _ => 0\n" +
+      "\\func slow (n : Nat) : Nat | 0 => 0 | suc n => both (slow n) (slow n)\n" +
+      "\\func large : slow 60 = 0 => path (\\lam _ => 0)\n" +
+      "\\func next : fib 5 = 5 => path (\\lam _ => 5)");
+    assertTrue(typechecking.typecheckModules(Collections.singletonList(lastGroup)));
+    assertThatErrorsAre(typecheckingError(ComputationLimitError.class));
+    assertFalse(getDefinition("large").status().bodyIsOK());
+    assertEquals(Definition.TypeCheckingStatus.NO_ERRORS, getDefinition("next").status());
+  }
+
+  @Test
+  public void recursiveBody() {
+    TypecheckingOrderingListener typechecking = listener();
+    typechecking.setComputationLimits(0, 1000);
+    lastGroup = resolveNamesModule(FUNCTIONS +
+      "\\func even (n : Nat) : Nat | 0 => fib 30 | suc n => odd n\n" +
+      "\\func odd (n : Nat) : Nat | 0 => 0 | suc n => \\let p : fib 30 = 832040 => path (\\lam _ => 832040) \\in even n");
+    assertTrue(typechecking.typecheckModules(Collections.singletonList(lastGroup)));
+    assertThatErrorsAre(typecheckingError(ComputationLimitError.class));
+    assertTrue(getDefinition("even").status().headerIsOK());
+    assertFalse(getDefinition("odd").status().bodyIsOK());
+  }
+
+  @Test
+  public void cancellation() {
+    TypecheckingOrderingListener typechecking = listener();
+    typechecking.setCancellationIndicator(() -> true);
+    lastGroup = resolveNamesModule(FUNCTIONS + "\\func test : fib 5 = 5 => path (\\lam _ => 5)");
+    assertFalse(typechecking.typecheckModules(Collections.singletonList(lastGroup)));
+    assertFalse(Thread.currentThread().isInterrupted());
+
+    TypecheckingOrderingListener other = listener();
+    lastGroup = resolveNamesModule(FUNCTIONS + "\\func test : fib 5 = 5 => path (\\lam _ => 5)");
+    assertTrue(other.typecheckModules(Collections.singletonList(lastGroup)));
+    assertTrue(errorList.isEmpty());
+  }
+
+  @Test
+  public void threadInterruption() {
+    TypecheckingOrderingListener typechecking = listener();
+    lastGroup = resolveNamesModule(FUNCTIONS + "\\func test : fib 5 = 5 => path (\\lam _ => 5)");
+    Thread.currentThread().interrupt();
+    assertFalse(typechecking.typecheckModules(Collections.singletonList(lastGroup)));
+    assertFalse(Thread.interrupted());
+  }
+}
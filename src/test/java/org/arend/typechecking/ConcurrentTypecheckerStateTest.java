@@ -0,0 +1,79 @@
+package org.arend.typechecking;
+
+import org.arend.core.definition.Definition;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.module.ModulePath;
+import org.arend.naming.reference.LocatedReferableImpl;
+import org.arend.naming.reference.TCReferable;
+import org.arend.term.Precedence;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentTypecheckerStateTest {
+  private static final int THREADS = 4;
+  private static final int DEFINITIONS = 1000;
+
+  private final ConcurrentTypecheckerState state = new ConcurrentTypecheckerState(THREADS);
+  private final List<TCReferable> referables = new ArrayList<>();
+
+  public ConcurrentTypecheckerStateTest() {
+    for (int i = 0; i < DEFINITIONS; i++) {
+      referables.add(new LocatedReferableImpl(Precedence.DEFAULT, "f" + i, new ModulePath("A")));
+    }
+  }
+
+  @Test
+  public void recordKeepsFirstDefinition() {
+    TCReferable referable = referables.get(0);
+    Definition first = new FunctionDefinition(referable);
+    assertNull(state.record(referable, first));
+    assertSame(first, state.record(referable, new FunctionDefinition(referable)));
+    assertSame(first, state.getTypechecked(referable));
+
+    Definition second = new FunctionDefinition(referable);
+    state.rewrite(referable, second);
+    assertSame(second, state.getTypechecked(referable));
+    assertSame(second, state.reset(referable));
+    assertNull(state.getTypechecked(referable));
+  }
+
+  @Test
+  public void concurrentRecord() throws InterruptedException, ExecutionException {
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<List<Definition>>> futures = new ArrayList<>();
+      for (int i = 0; i < THREADS; i++) {
+        futures.add(executor.submit(() -> {
+          List<Definition> recorded = new ArrayList<>();
+          for (TCReferable referable : referables) {
+            Definition definition = new FunctionDefinition(referable);
+            if (state.record(referable, definition) == null) {
+              recorded.add(definition);
+            }
+            assertNotNull(state.getTypechecked(referable));
+          }
+          return recorded;
+        }));
+      }
+
+      int recorded = 0;
+      for (Future<List<Definition>> future : futures) {
+        for (Definition definition : future.get()) {
+          assertSame(definition, state.getTypechecked(definition.getReferable()));
+          recorded++;
+        }
+      }
+      assertEquals(DEFINITIONS, recorded);
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,99 @@
+package org.arend.typechecking;
+
+import org.arend.core.definition.Definition;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.error.ListErrorReporter;
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.term.group.ChildGroup;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentTypecheckingTest extends TypeCheckingTestCase {
+  private ExecutorService myExecutor;
+
+  @Override
+  protected TypecheckerState createTypecheckerState() {
+    return new ConcurrentTypecheckerState();
+  }
+
+  @Before
+  public void startExecutor() {
+    myExecutor = Executors.newFixedThreadPool(4);
+  }
+
+  @After
+  public void stopExecutor() {
+    myExecutor.shutdownNow();
+  }
+
+  private ChildGroup typeCheckModuleConcurrently(String text, int errors) {
+    lastGroup = resolveNamesModule(text);
+    assertTrue(new TypecheckingOrderingListener(libraryManager.getInstanceProviderSet(), typecheckerState, ConcreteReferableProvider.INSTANCE, new ListErrorReporter(Collections.synchronizedList(errorList)), PositionComparator.INSTANCE).typecheckModules(Collections.singletonList(lastGroup), myExecutor));
+    assertThat(errorList, containsErrors(errors));
+    return lastGroup;
+  }
+
+  @Test
+  public void independentDefinitions() {
+    typeCheckModuleConcurrently(
+      "\\func f (n : Nat) : Nat => suc n\n" +
+      "\\func g (n : Nat) : Nat => f (f n)\n" +
+      "\\func h : g 0 = 2 => path (\\lam _ => 2)\n" +
+      "\\data D | con Nat\n" +
+      "\\func k (d : D) : Nat | con n => g n", 0);
+    for (String name : new String[] { "f", "g", "h", "D", "k" }) {
+      assertEquals(Definition.TypeCheckingStatus.NO_ERRORS, getDefinition(name).status());
+    }
+  }
+
+  @Test
+  public void mutualRecursion() {
+    typeCheckModuleConcurrently(
+      "\\func isEven (n : Nat) : Bool | 0 => true | suc n => isOdd n\n" +
+      "\\func isOdd (n : Nat) : Bool | 0 => false | suc n => isEven n\n" +
+      "\\data Bool | true | false\n" +
+      "\\func test : isEven 4 = true => path (\\lam _ => true)", 0);
+    assertEquals(Definition.TypeCheckingStatus.NO_ERRORS, getDefinition("test").status());
+  }
+
+  @Test
+  public void errorsArePropagated() {
+    typeCheckModuleConcurrently(
+      "\\func f : Nat => \\Type\n" +
+      "\\func g : Nat => 0\n" +
+      "\\func h => g", 1);
+    assertFalse(getDefinition("f").status().bodyIsOK());
+    assertTrue(getDefinition("h") instanceof FunctionDefinition);
+    assertEquals(Definition.TypeCheckingStatus.NO_ERRORS, getDefinition("h").status());
+  }
+
+  @Test
+  public void manyDefinitions() {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 50; i++) {
+      builder.append("\\func f").append(i).append(" (n : Nat) : Nat | 0 => ").append(i).append(" | suc n => suc (f").append(i).append(" n)\n");
+      builder.append("\\func g").append(i).append(" : f").append(i).append(" 3 = ").append(i + 3).append(" => path (\\lam _ => ").append(i + 3).append(")\n");
+    }
+    builder.append("\\func h => g0");
+    typeCheckModuleConcurrently(builder.toString(), 0);
+    for (int i = 0; i < 50; i++) {
+      assertEquals(Definition.TypeCheckingStatus.NO_ERRORS, getDefinition("g" + i).status());
+    }
+  }
+
+  @Test
+  public void useCoerce() {
+    typeCheckModuleConcurrently(
+      "\\data D | con Nat \\where \\use \\coerce fromNat (n : Nat) : D => con n\n" +
+      "\\func f : D => 3", 0);
+  }
+}
@@ -0,0 +1,85 @@
+package org.arend.typechecking;
+
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.elimtree.LeafElimTree;
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.visitor.EnvironmentNormalizer;
+import org.arend.core.expr.visitor.NormalizeVisitor;
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class EnvironmentNormalizerTest extends TypeCheckingTestCase {
+  @After
+  public void disable() {
+    EnvironmentNormalizer.install(false);
+  }
+
+  private Expression getBody(String name) {
+    return ((LeafElimTree) ((FunctionDefinition) getDefinition(name)).getBody()).getExpression();
+  }
+
+  private void checkSameResults(String name) {
+    Expression expr = getBody(name);
+    Expression whnf = expr.normalize(NormalizeVisitor.Mode.WHNF);
+    Expression nf = expr.normalize(NormalizeVisitor.Mode.NF);
+    EnvironmentNormalizer.install(true);
+    assertEquals(whnf, expr.normalize(NormalizeVisitor.Mode.WHNF));
+    assertEquals(nf, expr.normalize(NormalizeVisitor.Mode.NF));
+  }
+
+  @Test
+  public void recursion() {
+    typeCheckModule(
+      "\\func add (n m : Nat) : Nat | 0, m => m | suc n, m => suc (add n m)\n" +
+      "\\func mul (n m : Nat) : Nat | 0, _ => 0 | suc n, m => add m (mul n m)\n" +
+      "\\func test => mul 7 (add 3 4)");
+    checkSameResults("test");
+  }
+
+  @Test
+  public void lambdas() {
+    typeCheckModule(
+      "\\func twice (f : Nat -> Nat) (x : Nat) => f (f x)\n" +
+      "\\func test => twice (\\lam x => twice (\\lam y => suc y) x) 0");
+    checkSameResults("test");
+  }
+
+  @Test
+  public void letAndCase() {
+    typeCheckModule(
+      "\\func pred (n : Nat) : Nat => \\case n \\with { | 0 => 0 | suc n => n }\n" +
+      "\\func test => \\let | x => pred 5 | y => (x, suc x) \\in pred y.2");
+    checkSameResults("test");
+  }
+
+  @Test
+  public void stuck() {
+    typeCheckModule(
+      "\\func f (n : Nat) : Nat | 0 => 0 | suc n => f n\n" +
+      "\\func test (x : Nat) => (\\lam y => f (suc y)) (suc x)");
+    Expression expr = getBody("test");
+    Expression nf = expr.normalize(NormalizeVisitor.Mode.NF);
+    EnvironmentNormalizer.install(true);
+    assertEquals(nf, expr.normalize(NormalizeVisitor.Mode.NF));
+    assertNull(EnvironmentNormalizer.normalize(nf));
+  }
+
+  @Test
+  public void typechecking() {
+    TypecheckingOrderingListener typechecking = new TypecheckingOrderingListener(libraryManager.getInstanceProviderSet(), typecheckerState, ConcreteReferableProvider.INSTANCE, errorReporter, PositionComparator.INSTANCE);
+    typechecking.setEnvironmentNormalizer(true);
+    lastGroup = resolveNamesModule(
+      "\\func add (n m : Nat) : Nat | 0, m => m | suc n, m => suc (add n m)\n" +
+      "\\func test : add 2 (add 3 4) = 9 => path (\\lam _ => 9)");
+    assertTrue(typechecking.typecheckModules(Collections.singletonList(lastGroup)));
+    assertTrue(errorList.isEmpty());
+    assertFalse(EnvironmentNormalizer.isEnabled());
+  }
+}
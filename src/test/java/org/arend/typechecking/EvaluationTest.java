@@ -1,6 +1,8 @@
 package org.arend.typechecking;
 
+import org.arend.core.definition.DataDefinition;
 import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.elimtree.BranchElimTree;
 import org.arend.core.elimtree.LeafElimTree;
 import org.arend.core.expr.BigIntegerExpression;
 import org.arend.core.expr.SmallIntegerExpression;
@@ -12,6 +14,8 @@ import java.math.BigInteger;
 import static org.arend.core.expr.ExpressionFactory.Neg;
 import static org.arend.core.expr.ExpressionFactory.Pos;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 public class EvaluationTest extends TypeCheckingTestCase {
   @Test
@@ -63,4 +67,31 @@ public class EvaluationTest extends TypeCheckingTestCase {
     assertEquals(Neg(new SmallIntegerExpression(22)), ((LeafElimTree) ((FunctionDefinition) getDefinition("f6")).getBody()).getExpression().normalize(NormalizeVisitor.Mode.WHNF));
     assertEquals(Pos(new SmallIntegerExpression(0)),  ((LeafElimTree) ((FunctionDefinition) getDefinition("f7")).getBody()).getExpression().normalize(NormalizeVisitor.Mode.WHNF));
   }
+
+  @Test
+  public void evalConstructors() {
+    typeCheckModule(
+      "\\data Color | red | green | blue | yellow\n" +
+      "\\data Bit | zero | one\n" +
+      "\\func next (c : Color) : Color | red => green | green => blue | blue => yellow | yellow => red\n" +
+      "\\func test : next (next (next blue)) = green => path (\\lam _ => green)");
+    BranchElimTree elimTree = (BranchElimTree) ((FunctionDefinition) getDefinition("next")).getBody();
+    DataDefinition color = (DataDefinition) getDefinition("Color");
+    for (int i = 0; i < color.getConstructors().size(); i++) {
+      assertEquals(i, color.getConstructors().get(i).getIndex());
+      assertNotNull(elimTree.getChild(color.getConstructors().get(i)));
+    }
+    assertNull(elimTree.getChild(((DataDefinition) getDefinition("Bit")).getConstructors().get(0)));
+    assertNull(elimTree.getTupleChild());
+  }
+
+  @Test
+  public void evalTuplesAndNumbers() {
+    typeCheckModule(
+      "\\func swap (p : \\Sigma Nat Nat) : \\Sigma Nat Nat | (a, b) => (b, a)\n" +
+      "\\func pred3 (n : Nat) : Nat | suc (suc (suc n)) => n | _ => 0\n" +
+      "\\func test1 : swap (pred3 10, 2) = (2, 7) => path (\\lam _ => (2, 7))\n" +
+      "\\func test2 : pred3 2 = 0 => path (\\lam _ => 0)");
+    assertNotNull(((BranchElimTree) ((FunctionDefinition) getDefinition("swap")).getBody()).getTupleChild());
+  }
 }
@@ -0,0 +1,106 @@
+package org.arend.typechecking;
+
+import org.arend.core.context.binding.LevelVariable;
+import org.arend.core.context.binding.inference.InferenceLevelVariable;
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.TermInterner;
+import org.arend.core.expr.UniverseExpression;
+import org.arend.core.sort.Level;
+import org.arend.core.sort.Sort;
+import org.arend.core.subst.ExprSubstitution;
+import org.arend.core.subst.LevelSubstitution;
+import org.arend.core.subst.SimpleLevelSubstitution;
+import org.arend.core.subst.SubstVisitor;
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.arend.core.expr.ExpressionFactory.*;
+import static org.junit.Assert.*;
+
+public class TermInternerTest extends TypeCheckingTestCase {
+  private final TermInterner myInterner = new TermInterner();
+
+  @Before
+  public void enable() {
+    TermInterner.install(myInterner);
+  }
+
+  @After
+  public void disable() {
+    TermInterner.install(null);
+  }
+
+  @Test
+  public void sharedTerms() {
+    assertSame(Nat(), Nat());
+    assertSame(Interval(), Interval());
+    assertSame(Left(), Left());
+    assertSame(Zero(), Zero());
+    assertSame(TermInterner.integer(7), TermInterner.integer(7));
+    assertSame(TermInterner.sort(new Sort(new Level(LevelVariable.PVAR), new Level(3))), TermInterner.sort(new Sort(new Level(LevelVariable.PVAR), new Level(3))));
+    assertSame(TermInterner.universe(new Sort(2, 1)), TermInterner.universe(new Sort(2, 1)));
+    assertNotSame(TermInterner.universe(new Sort(2, 1)), TermInterner.universe(new Sort(2, 0)));
+    assertTrue(myInterner.getHits(TermInterner.Kind.DATA_CALL) >= 2);
+  }
+
+  @Test
+  public void inferenceVariables() {
+    InferenceLevelVariable var = new InferenceLevelVariable(LevelVariable.LvlType.PLVL, false, null);
+    Sort sort = new Sort(new Level(var), new Level(0));
+    assertSame(sort, TermInterner.sort(sort));
+    assertNotSame(TermInterner.universe(sort), TermInterner.universe(sort));
+    assertSame(Sort.STD, TermInterner.sort(Sort.STD));
+  }
+
+  @Test
+  public void substitution() {
+    SimpleLevelSubstitution levelSubst = new SimpleLevelSubstitution();
+    levelSubst.add(LevelVariable.PVAR, new Level(1));
+    levelSubst.add(LevelVariable.HVAR, new Level(0));
+    UniverseExpression universe = new UniverseExpression(Sort.STD);
+    Expression expr1 = universe.accept(new SubstVisitor(new ExprSubstitution(), levelSubst), null);
+    Expression expr2 = universe.accept(new SubstVisitor(new ExprSubstitution(), levelSubst), null);
+    assertSame(expr1, expr2);
+    assertEquals(new UniverseExpression(new Sort(1, 0)), expr1);
+    assertSame(Nat(), Nat().accept(new SubstVisitor(new ExprSubstitution(), LevelSubstitution.EMPTY), null));
+  }
+
+  @Test
+  public void typechecking() {
+    TermInterner.install(null);
+    TypecheckingOrderingListener typechecking = new TypecheckingOrderingListener(libraryManager.getInstanceProviderSet(), typecheckerState, ConcreteReferableProvider.INSTANCE, errorReporter, PositionComparator.INSTANCE);
+    typechecking.setTermInterner(myInterner);
+    lastGroup = resolveNamesModule(
+      "\\data D | con1 | con2\n" +
+      "\\func f (d : D) : Nat | con1 => 0 | con2 => 1\n" +
+      "\\func g : f con2 = 1 => path (\\lam _ => 1)");
+    assertTrue(typechecking.typecheckModules(Collections.singletonList(lastGroup)));
+    assertTrue(errorList.isEmpty());
+    assertTrue(myInterner.getRequests(TermInterner.Kind.DATA_CALL) > 0);
+    assertTrue(myInterner.getReport().contains("data_call"));
+    assertNull(TermInterner.getCurrent());
+  }
+
+  @Test
+  public void clear() {
+    Expression nat = Nat();
+    assertEquals(1, myInterner.getLiveTerms(TermInterner.Kind.DATA_CALL));
+    myInterner.clear();
+    assertEquals(0, myInterner.getLiveTerms(TermInterner.Kind.DATA_CALL));
+    assertNotSame(nat, Nat());
+  }
+
+  @Test
+  public void disabled() {
+    TermInterner.install(null);
+    assertNotSame(Nat(), Nat());
+    assertNotSame(Zero(), Zero());
+    assertEquals(0, myInterner.getRequests(TermInterner.Kind.DATA_CALL));
+  }
+}
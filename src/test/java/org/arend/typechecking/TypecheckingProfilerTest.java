@@ -0,0 +1,67 @@
+package org.arend.typechecking;
+
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TypecheckingProfilerTest extends TypeCheckingTestCase {
+  private List<TypecheckingProfiler.DefinitionProfile> profile(String text) {
+    TypecheckingProfiler profiler = new TypecheckingProfiler();
+    TypecheckingOrderingListener typechecking = new TypecheckingOrderingListener(libraryManager.getInstanceProviderSet(), typecheckerState, ConcreteReferableProvider.INSTANCE, errorReporter, PositionComparator.INSTANCE);
+    typechecking.setProfiler(profiler);
+    lastGroup = resolveNamesModule(text);
+    assertTrue(typechecking.typecheckModules(Collections.singletonList(lastGroup)));
+    assertTrue(errorList.isEmpty());
+    return profiler.getProfiles();
+  }
+
+  @Test
+  public void profiles() {
+    List<TypecheckingProfiler.DefinitionProfile> profiles = profile(
+      "\\func f (n : Nat) : Nat | 0 => 0 | suc n => suc (f n)\n" +
+      "\\func g : f 3 = 3 => path (\\lam _ => 3)");
+    assertEquals(2, profiles.size());
+    for (int i = 1; i < profiles.size(); i++) {
+      assertTrue(profiles.get(i - 1).getWallTimeMs() >= profiles.get(i).getWallTimeMs());
+    }
+    for (TypecheckingProfiler.DefinitionProfile profile : profiles) {
+      assertTrue(profile.getWallTimeMs() > 0);
+      if (profile.getDefinition().endsWith("g")) {
+        assertTrue(profile.getNormalizations() > 0);
+        assertTrue(profile.getComparisons() > 0);
+        assertTrue(profile.getSolvedEquations() > 0);
+      }
+    }
+  }
+
+  @Test
+  public void mutualRecursion() {
+    List<TypecheckingProfiler.DefinitionProfile> profiles = profile(
+      "\\func even (n : Nat) : Nat | 0 => 1 | suc n => odd n\n" +
+      "\\func odd (n : Nat) : Nat | 0 => 0 | suc n => even n");
+    assertEquals(2, profiles.size());
+    for (TypecheckingProfiler.DefinitionProfile profile : profiles) {
+      assertTrue(profile.getHeaderTimeMs() > 0);
+      assertTrue(profile.getBodyTimeMs() > 0);
+    }
+  }
+
+  @Test
+  public void reports() throws IOException {
+    TypecheckingProfiler profiler = new TypecheckingProfiler();
+    StringWriter csv = new StringWriter();
+    profiler.writeCsv(csv);
+    assertTrue(csv.toString().startsWith("definition,"));
+    StringWriter json = new StringWriter();
+    profiler.writeJson(json);
+    assertEquals("[ ]", json.toString().trim());
+  }
+}
@@ -0,0 +1,78 @@
+package org.arend.typechecking;
+
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.elimtree.LeafElimTree;
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.visitor.NormalizeVisitor;
+import org.arend.core.expr.visitor.WhnfCache;
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class WhnfCacheTest extends TypeCheckingTestCase {
+  private static final String FUNCTIONS =
+    "\\func f (n : Nat) : Nat | 0 => 1 | suc n => suc (f n)\n" +
+    "\\func g => f 3\n" +
+    "\\func h (n : Nat) => f n\n";
+
+  @After
+  public void uninstallCache() {
+    WhnfCache.install(null);
+  }
+
+  private Expression getBody(String name) {
+    return ((LeafElimTree) ((FunctionDefinition) getDefinition(name)).getBody()).getExpression();
+  }
+
+  @Test
+  public void closedCall() {
+    typeCheckModule(FUNCTIONS);
+    WhnfCache cache = new WhnfCache(10);
+    WhnfCache.install(cache);
+    Expression expr = getBody("g");
+    Expression result = expr.normalize(NormalizeVisitor.Mode.WHNF);
+    assertSame(result, expr.normalize(NormalizeVisitor.Mode.WHNF));
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+  }
+
+  @Test
+  public void openCall() {
+    typeCheckModule(FUNCTIONS);
+    WhnfCache cache = new WhnfCache(10);
+    WhnfCache.install(cache);
+    Expression expr = getBody("h");
+    expr.normalize(NormalizeVisitor.Mode.WHNF);
+    expr.normalize(NormalizeVisitor.Mode.WHNF);
+    assertEquals(0, cache.getHits());
+    assertEquals(2, cache.getMisses());
+  }
+
+  @Test
+  public void capacity() {
+    typeCheckModule(FUNCTIONS);
+    WhnfCache cache = new WhnfCache(0);
+    WhnfCache.install(cache);
+    Expression expr = getBody("g");
+    expr.normalize(NormalizeVisitor.Mode.WHNF);
+    expr.normalize(NormalizeVisitor.Mode.WHNF);
+    assertEquals(0, cache.getHits());
+  }
+
+  @Test
+  public void typecheckingWithCache() {
+    TypecheckingOrderingListener typechecking = new TypecheckingOrderingListener(libraryManager.getInstanceProviderSet(), typecheckerState, ConcreteReferableProvider.INSTANCE, errorReporter, PositionComparator.INSTANCE);
+    typechecking.setWhnfCacheCapacity(100);
+    lastGroup = resolveNamesModule(FUNCTIONS + "\\func test : g = 4 => path (\\lam _ => 4)");
+    assertTrue(typechecking.typecheckModules(Collections.singletonList(lastGroup)));
+    assertTrue(errorList.isEmpty());
+    assertTrue(typechecking.getWhnfCacheMisses() > 0);
+    assertNull(WhnfCache.getCurrent());
+  }
+}
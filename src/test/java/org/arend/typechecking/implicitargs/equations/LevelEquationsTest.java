@@ -0,0 +1,98 @@
+package org.arend.typechecking.implicitargs.equations;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class LevelEquationsTest {
+  private final LevelEquations<String> equations = new LevelEquations<>();
+  private final Map<String, Integer> solution = new HashMap<>();
+
+  @Test
+  public void chain() {
+    // 1 <= x, x + 1 <= y, y <= z
+    equations.addVariable("x");
+    equations.addVariable("y");
+    equations.addVariable("z");
+    equations.addEquation(new LevelEquation<>(null, "x", -1));
+    equations.addEquation(new LevelEquation<>("x", "y", -1));
+    equations.addEquation(new LevelEquation<>("y", "z", 0));
+    assertNull(equations.solve(solution));
+    assertEquals(-1, (int) solution.get("x"));
+    assertEquals(-2, (int) solution.get("y"));
+    assertEquals(-2, (int) solution.get("z"));
+    assertFalse(solution.containsKey(null));
+  }
+
+  @Test
+  public void cycle() {
+    // x + 1 <= y, y <= x
+    equations.addVariable("x");
+    equations.addVariable("y");
+    LevelEquation<String> equation1 = new LevelEquation<>("x", "y", -1);
+    LevelEquation<String> equation2 = new LevelEquation<>("y", "x", 0);
+    equations.addEquation(equation1);
+    equations.addEquation(equation2);
+    List<LevelEquation<String>> cycle = equations.solve(solution);
+    assertNotNull(cycle);
+    assertTrue(cycle.contains(equation1));
+    assertTrue(cycle.contains(equation2));
+  }
+
+  @Test
+  public void constantBound() {
+    // 1 <= x, x <= 0
+    equations.addVariable("x");
+    LevelEquation<String> equation = new LevelEquation<>("x", null, 0);
+    equations.addEquation(new LevelEquation<>(null, "x", -1));
+    equations.addEquation(equation);
+    List<LevelEquation<String>> path = equations.solve(solution);
+    assertNotNull(path);
+    assertEquals(equation, path.get(path.size() - 1));
+  }
+
+  @Test
+  public void infinity() {
+    // x = \oo, x <= y, y <= 0
+    equations.addVariable("x");
+    equations.addVariable("y");
+    equations.addVariable("z");
+    equations.addEquation(new LevelEquation<>("x"));
+    equations.addEquation(new LevelEquation<>("x", "y", 0));
+    equations.addEquation(new LevelEquation<>("y", null, 0));
+    assertNull(equations.solve(solution));
+    assertTrue(solution.containsKey("x"));
+    assertNull(solution.get("x"));
+    assertNull(solution.get("y"));
+    assertEquals(0, (int) solution.get("z"));
+  }
+
+  @Test
+  public void removeEquations() {
+    equations.addVariable("x");
+    equations.addVariable("y");
+    equations.addEquation(new LevelEquation<>("x", "y", -1));
+    equations.addEquation(new LevelEquation<>("y", "x", 0));
+    equations.removeEquations(equation -> equation.getVariable1().equals("y"));
+    assertEquals(1, equations.getEquations().size());
+    assertNull(equations.solve(solution));
+    assertEquals(-1, (int) solution.get("y"));
+  }
+
+  @Test
+  public void longChain() {
+    int size = 20000;
+    for (int i = 0; i < size; i++) {
+      equations.addVariable("x" + i);
+    }
+    for (int i = size - 1; i > 0; i--) {
+      equations.addEquation(new LevelEquation<>("x" + (i - 1), "x" + i, -1));
+    }
+    assertNull(equations.solve(solution));
+    assertEquals(-(size - 1), (int) solution.get("x" + (size - 1)));
+  }
+}
@@ -18,9 +18,14 @@ package org.arend.typechecking.termination;
 import org.arend.typechecking.TypeCheckingTestCase;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
 public class TerminationCheckTest extends TypeCheckingTestCase {
 
   @Test
@@ -220,4 +225,39 @@ public class TerminationCheckTest extends TypeCheckingTestCase {
     assert !callCategory.checkTermination();
   }
 
+  private static Object[] wideCall(int size, char first, char last) {
+    List<Object> data = new ArrayList<>();
+    data.add(first);
+    if (first != '?') {
+      data.add(0);
+    }
+    for (int i = 1; i < size - 1; i++) {
+      data.add('?');
+    }
+    data.add(last);
+    if (last != '?') {
+      data.add(size - 1);
+    }
+    return data.toArray();
+  }
+
+  private static TestCallGraph wideGraph(char last) {
+    String[] args = new String[70];
+    for (int i = 0; i < args.length; i++) {
+      args[i] = "x" + i;
+    }
+    TestVertex f = new TestVertex("f", args);
+    TestVertex g = new TestVertex("g", args);
+    Set<BaseCallMatrix<TestVertex>> cms = new HashSet<>();
+    cms.add(new TestCallMatrix("f-g", f, g, wideCall(args.length, '=', last)));
+    cms.add(new TestCallMatrix("g-f", g, f, wideCall(args.length, '=', '=')));
+    cms.add(new TestCallMatrix("f-f", f, f, wideCall(args.length, '<', '?')));
+    return TestCallGraph.calculateClosure(cms);
+  }
+
+  @Test
+  public void wideMatrices() {
+    assertTrue(wideGraph('<').checkTermination());
+    assertFalse(wideGraph('=').checkTermination());
+  }
 }
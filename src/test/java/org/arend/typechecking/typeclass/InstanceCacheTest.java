@@ -0,0 +1,84 @@
+package org.arend.typechecking.typeclass;
+
+import org.arend.core.definition.ClassDefinition;
+import org.arend.core.definition.Definition;
+import org.arend.core.expr.Expression;
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.naming.reference.TCClassReferable;
+import org.arend.naming.reference.TCReferable;
+import org.arend.term.concrete.Concrete;
+import org.arend.typechecking.TypeCheckingTestCase;
+import org.arend.typechecking.instance.pool.InstanceCache;
+import org.arend.typechecking.instance.provider.SimpleInstanceProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.arend.core.expr.ExpressionFactory.Int;
+import static org.arend.core.expr.ExpressionFactory.Nat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class InstanceCacheTest extends TypeCheckingTestCase {
+  private InstanceCache cache;
+
+  @Before
+  public void initialize() {
+    typeCheckModule(
+      "\\class C (X : \\Type) | f : X -> Nat\n" +
+      "\\class D \\extends C\n" +
+      "\\instance intC : C Int | f _ => 0\n" +
+      "\\instance natD : D Nat | f _ => 1\n" +
+      "\\instance natC : C Nat | f _ => 2\n" +
+      "\\instance natC2 : C Nat | f _ => 3");
+    cache = new InstanceCache(typecheckerState, libraryManager.getInstanceProviderSet());
+  }
+
+  private SimpleInstanceProvider provider(String... instances) {
+    SimpleInstanceProvider provider = new SimpleInstanceProvider();
+    for (String instance : instances) {
+      provider.put(instance(instance));
+    }
+    return provider;
+  }
+
+  private Concrete.Instance instance(String name) {
+    return ConcreteReferableProvider.INSTANCE.getConcreteInstance(get(name));
+  }
+
+  private Concrete.Instance find(SimpleInstanceProvider provider, String className, Expression classifyingExpression) {
+    TCClassReferable classRef = (TCClassReferable) get(className);
+    return cache.findInstance(provider, classRef, classRef, null, classifyingExpression, ((ClassDefinition) getDefinition(className)).getClassifyingField());
+  }
+
+  @Test
+  public void earlierSubclassInstance() {
+    SimpleInstanceProvider provider = provider("intC", "natD", "natC");
+    assertEquals(instance("natD"), find(provider, "C", Nat()));
+    assertEquals(instance("natD"), find(provider, "D", Nat()));
+    assertEquals(instance("intC"), find(provider, "C", Int()));
+    assertNull(find(provider, "D", Int()));
+  }
+
+  @Test
+  public void untypecheckedInstance() {
+    SimpleInstanceProvider provider = provider("natC", "natC2");
+    TCReferable natC = get("natC");
+    Definition natCDef = typecheckerState.reset(natC);
+    assertEquals(instance("natC2"), find(provider, "C", Nat()));
+
+    // The previous result is not remembered since natC was not typechecked
+    typecheckerState.record(natC, natCDef);
+    assertEquals(instance("natC"), find(provider, "C", Nat()));
+  }
+
+  @Test
+  public void providersChanged() {
+    SimpleInstanceProvider provider = provider("intC");
+    assertNull(find(provider, "C", Nat()));
+    provider.put(instance("natC"));
+    assertNull(find(provider, "C", Nat()));
+
+    libraryManager.getInstanceProviderSet().put(get("natC"), provider);
+    assertEquals(instance("natC"), find(provider, "C", Nat()));
+  }
+}
@@ -360,4 +360,18 @@ public class TypeClassesGlobal extends TypeCheckingTestCase {
       "\\instance C_Nat : C Nat | f => suc\n" +
       "\\func g => f {_} 1");
   }
+
+  @Test
+  public void manyInstances() {
+    StringBuilder builder = new StringBuilder("\\class X (A : \\Type0) | B : A -> \\Type0\n");
+    for (int i = 0; i < 30; i++) {
+      builder.append("\\data D").append(i).append(" | c").append(i).append("\n");
+      builder.append("\\instance X").append(i).append(" : X | A => D").append(i).append(" | B => \\lam _ => D").append(i).append("\n");
+    }
+    for (int i = 29; i >= 0; i--) {
+      builder.append("\\func f").append(i).append(" (x : D").append(i).append(") : B x => x\n");
+      builder.append("\\func g").append(i).append(" : B c").append(i).append(" => c").append(i).append("\n");
+    }
+    typeCheckModule(builder.toString());
+  }
 }
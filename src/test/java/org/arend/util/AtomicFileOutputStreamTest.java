@@ -0,0 +1,86 @@
+package org.arend.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class AtomicFileOutputStreamTest {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path directory() throws IOException {
+    return temporaryFolder.newFolder().toPath();
+  }
+
+  private static long countFiles(Path dir) throws IOException {
+    try (Stream<Path> files = Files.list(dir)) {
+      return files.count();
+    }
+  }
+
+  @Test
+  public void replace() throws IOException {
+    Path file = directory().resolve("A.arc");
+    Files.write(file, new byte[] { 1 });
+    try (AtomicFileOutputStream stream = new AtomicFileOutputStream(file, true)) {
+      stream.write(new byte[] { 2, 3 });
+    }
+    assertArrayEquals(new byte[] { 2, 3 }, Files.readAllBytes(file));
+    assertEquals(1, countFiles(file.getParent()));
+  }
+
+  @Test
+  public void permissions() throws IOException {
+    Path dir = directory();
+    assumeTrue(Files.getFileStore(dir).supportsFileAttributeView(PosixFileAttributeView.class));
+    Path file = dir.resolve("A.arc");
+    Files.write(file, new byte[] { 1 });
+    Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-r-----");
+    Files.setPosixFilePermissions(file, permissions);
+    try (AtomicFileOutputStream stream = new AtomicFileOutputStream(file, false)) {
+      stream.write(2);
+    }
+    assertEquals(permissions, Files.getPosixFilePermissions(file));
+
+    Path newFile = dir.resolve("B.arc");
+    try (AtomicFileOutputStream stream = new AtomicFileOutputStream(newFile, false)) {
+      stream.write(2);
+    }
+    Path plainFile = Files.write(dir.resolve("C.arc"), new byte[] { 2 });
+    assertEquals(Files.getPosixFilePermissions(plainFile), Files.getPosixFilePermissions(newFile));
+  }
+
+  @Test
+  public void failure() throws IOException {
+    Path file = directory().resolve("A.arc");
+    Files.write(file, new byte[] { 1 });
+    AtomicFileOutputStream stream = new AtomicFileOutputStream(file, false, out -> new FilterOutputStream(out) {
+      @Override
+      public void write(int b) throws IOException {
+        throw new IOException();
+      }
+    });
+    try {
+      stream.write(new byte[1 << 16]);
+      fail();
+    } catch (IOException ignored) { }
+
+    stream.close();
+    assertArrayEquals(new byte[] { 1 }, Files.readAllBytes(file));
+    assertEquals(1, countFiles(file.getParent()));
+  }
+}